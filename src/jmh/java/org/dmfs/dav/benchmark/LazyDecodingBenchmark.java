@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseHandler;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares eager and lazy decoding of property values (see {@link DavParserContext#setDecodePropertiesLazily(boolean)}) on the documents of
+ * {@link MultiStatusParserBenchmark}. Compare the <code>gc.alloc.rate.norm</code> of both modes to see what lazy decoding saves when only the ETag is read
+ * and what it costs when all values are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LazyDecodingBenchmark
+{
+    @Param({ "1000" })
+    public int responses;
+
+    @Param({ "false", "true" })
+    public boolean lazy;
+
+    private byte[] mDocument;
+
+
+    @Setup
+    public void setup()
+    {
+        mDocument = MultiStatusDocuments.multiStatus(responses, false);
+    }
+
+
+    /**
+     * Parses the document and reads only the ETag of each {@link Response}.
+     */
+    @Benchmark
+    public MultiStatus readETag(final Blackhole blackhole) throws Exception
+    {
+        DavParserContext context = new DavParserContext().setDecodePropertiesLazily(lazy).setResponseHandler(new ResponseHandler()
+        {
+            @Override
+            public void onResponse(Response response)
+            {
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.GETETAG));
+            }
+        });
+        return MultiStatusDocuments.parse(mDocument, context);
+    }
+
+
+    /**
+     * Parses the document and reads all property values of each {@link Response}.
+     */
+    @Benchmark
+    public MultiStatus readAll(final Blackhole blackhole) throws Exception
+    {
+        DavParserContext context = new DavParserContext().setDecodePropertiesLazily(lazy).setResponseHandler(new ResponseHandler()
+        {
+            @Override
+            public void onResponse(Response response)
+            {
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.GETETAG));
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.GETCONTENTTYPE));
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.RESOURCETYPE));
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.DISPLAYNAME));
+            }
+        });
+        return MultiStatusDocuments.parse(mDocument, context);
+    }
+}
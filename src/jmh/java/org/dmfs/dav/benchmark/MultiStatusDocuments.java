@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Generates synthetic multistatus documents for the benchmarks.
+ */
+final class MultiStatusDocuments
+{
+    private final static String CALENDAR_DATA = "BEGIN:VCALENDAR&#13;\n"
+        + "VERSION:2.0&#13;\n"
+        + "PRODID:-//dmfs.org//jdav benchmark//EN&#13;\n"
+        + "BEGIN:VEVENT&#13;\n"
+        + "UID:%1$d@example.com&#13;\n"
+        + "DTSTAMP:20260101T120000Z&#13;\n"
+        + "DTSTART:20260102T100000Z&#13;\n"
+        + "DTEND:20260102T110000Z&#13;\n"
+        + "SUMMARY:Event number %1$d with a reasonably long summary&#13;\n"
+        + "DESCRIPTION:Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.&#13;\n"
+        + "LOCATION:Conference room %1$d&#13;\n"
+        + "END:VEVENT&#13;\n"
+        + "END:VCALENDAR&#13;\n";
+
+
+    static
+    {
+        // make sure all the elements we use have been registered
+        CalDav.Properties.CALENDAR_DATA.hashCode();
+    }
+
+
+    /**
+     * Create a multistatus document with the given number of responses.
+     *
+     * @param responses
+     *     The number of responses.
+     * @param withCalendarData
+     *     Whether to include a calendar-data property in each response.
+     *
+     * @return The UTF-8 encoded document.
+     */
+    static byte[] multiStatus(int responses, boolean withCalendarData)
+    {
+        StringBuilder builder = new StringBuilder(responses * (withCalendarData ? 1200 : 500));
+        builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        builder.append("<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\">\n");
+        for (int i = 0; i < responses; ++i)
+        {
+            builder.append("<D:response>");
+            builder.append("<D:href>/calendars/user/calendar/event-").append(i).append(".ics</D:href>");
+            builder.append("<D:propstat><D:prop>");
+            builder.append("<D:getetag>\"").append(Integer.toHexString(i * 31 + 17)).append("\"</D:getetag>");
+            builder.append("<D:getcontenttype>text/calendar; charset=utf-8; component=vevent</D:getcontenttype>");
+            builder.append("<D:resourcetype/>");
+            builder.append("<D:displayname>Event ").append(i).append("</D:displayname>");
+            if (withCalendarData)
+            {
+                builder.append("<C:calendar-data>").append(String.format(CALENDAR_DATA, i)).append("</C:calendar-data>");
+            }
+            builder.append("</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat>");
+            builder.append("<D:propstat><D:prop><D:getcontentlanguage/></D:prop><D:status>HTTP/1.1 404 Not Found</D:status></D:propstat>");
+            builder.append("</D:response>\n");
+        }
+        builder.append("<D:sync-token>http://example.com/sync/").append(responses).append("</D:sync-token>\n");
+        builder.append("</D:multistatus>\n");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Create a namespace aware {@link XmlPullParser} that reads the given document.
+     */
+    static XmlPullParser parser(byte[] document) throws XmlPullParserException
+    {
+        XmlPullParser parser = new KXmlParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, true);
+        parser.setInput(new ByteArrayInputStream(document), "UTF-8");
+        return parser;
+    }
+
+
+    /**
+     * Parse the given document into a {@link MultiStatus}.
+     */
+    static MultiStatus parse(byte[] document, DavParserContext context) throws XmlPullParserException, IOException, XmlObjectPullParserException
+    {
+        return new XmlObjectPull(parser(document), context).pull(WebDav.MULTISTATUS, null, new XmlPath());
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private MultiStatusDocuments()
+    {
+    }
+}
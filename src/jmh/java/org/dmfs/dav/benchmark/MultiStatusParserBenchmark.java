@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseHandler;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures parsing of multistatus documents of various sizes, with and without <code>calendar-data</code> payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultiStatusParserBenchmark
+{
+    @Param({ "10", "1000", "100000" })
+    public int responses;
+
+    @Param({ "false", "true" })
+    public boolean calendarData;
+
+    private byte[] mDocument;
+
+
+    @Setup
+    public void setup()
+    {
+        mDocument = MultiStatusDocuments.multiStatus(responses, calendarData);
+    }
+
+
+    /**
+     * Parses the entire document into a {@link MultiStatus} that holds all {@link Response}s.
+     */
+    @Benchmark
+    public MultiStatus parseToList() throws Exception
+    {
+        return MultiStatusDocuments.parse(mDocument, new DavParserContext());
+    }
+
+
+    /**
+     * Parses the document and processes each {@link Response} on-the-fly using a {@link ResponseHandler}.
+     */
+    @Benchmark
+    public MultiStatus parseStreaming(final Blackhole blackhole) throws Exception
+    {
+        DavParserContext context = new DavParserContext().setResponseHandler(new ResponseHandler()
+        {
+            @Override
+            public void onResponse(Response response)
+            {
+                blackhole.consume(response.getPropertyValue(WebDav.Properties.GETETAG));
+            }
+        });
+        return MultiStatusDocuments.parse(mDocument, context);
+    }
+}
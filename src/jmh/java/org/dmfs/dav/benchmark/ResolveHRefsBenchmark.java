@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures {@link MultiStatus#resolveHRefs(URI)}, which resolves the href of every response.
+ * <p>
+ * Resolving is a one-time operation (absolute URIs are left alone), so the {@link MultiStatus} is parsed again before each invocation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResolveHRefsBenchmark
+{
+    private final static URI BASE = URI.create("https://dav.example.com/calendars/user/calendar/");
+
+    @Param({ "10", "1000" })
+    public int responses;
+
+    private byte[] mDocument;
+
+    private MultiStatus mMultiStatus;
+
+
+    @Setup(Level.Trial)
+    public void setupDocument()
+    {
+        mDocument = MultiStatusDocuments.multiStatus(responses, false);
+    }
+
+
+    @Setup(Level.Invocation)
+    public void setupMultiStatus() throws Exception
+    {
+        mMultiStatus = MultiStatusDocuments.parse(mDocument, new DavParserContext());
+    }
+
+
+    @Benchmark
+    public MultiStatus resolveHRefs()
+    {
+        mMultiStatus.resolveHRefs(BASE);
+        return mMultiStatus;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.nonrfc.NonRfc;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4791.CalendarQuery;
+import org.dmfs.dav.rfc4791.filter.CompFilter;
+import org.dmfs.dav.rfc4791.filter.PropFilter;
+import org.dmfs.dav.rfc4791.filter.TextMatch;
+import org.dmfs.dav.rfc4791.filter.TimeRange;
+import org.dmfs.dav.rfc4918.PropFind;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.rfc6578.SyncCollection;
+import org.dmfs.dav.rfc6578.WebDavSync;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures serialization of the most common request bodies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializerBenchmark
+{
+    private PropFind mPropFind;
+    private CalendarQuery mCalendarQuery;
+    private SyncCollection mSyncCollection;
+
+
+    @Setup
+    public void setup()
+    {
+        mPropFind = new PropFind();
+        mPropFind.addProperty(WebDav.Properties.DISPLAYNAME);
+        mPropFind.addProperty(WebDav.Properties.RESOURCETYPE);
+        mPropFind.addProperty(WebDav.Properties.GETETAG);
+        mPropFind.addProperty(NonRfc.Properties.GETCTAG);
+        mPropFind.addProperty(WebDavSync.Properties.SYNC_TOKEN);
+
+        mCalendarQuery = new CalendarQuery();
+        mCalendarQuery.addProperty(WebDav.Properties.GETETAG);
+        mCalendarQuery.addProperty(CalDav.Properties.CALENDAR_DATA);
+        mCalendarQuery.setFilter(new CompFilter("VCALENDAR", new CompFilter("VEVENT", new TimeRange(1767225600000L, 1769904000000L),
+            new PropFilter("SUMMARY", new TextMatch("meeting")))));
+
+        mSyncCollection = new SyncCollection();
+        mSyncCollection.setSyncToken("http://example.com/sync/1234");
+        mSyncCollection.addProperty(WebDav.Properties.GETETAG);
+        mSyncCollection.addProperty(WebDav.Properties.GETCONTENTTYPE);
+    }
+
+
+    @Benchmark
+    public String serializePropFind() throws Exception
+    {
+        return serialize(WebDav.PROPFIND, mPropFind);
+    }
+
+
+    @Benchmark
+    public String serializeCalendarQuery() throws Exception
+    {
+        return serialize(CalDav.CALENDAR_QUERY, mCalendarQuery);
+    }
+
+
+    @Benchmark
+    public String serializeSyncCollection() throws Exception
+    {
+        return serialize(WebDavSync.SYNC_COLLECTION, mSyncCollection);
+    }
+
+
+    private static <T> String serialize(ElementDescriptor<T> descriptor, T object) throws SerializerException, IOException
+    {
+        StringWriter writer = new StringWriter(1024);
+        SerializerContext context = new SerializerContext();
+        new XmlObjectSerializer().setOutput(context, writer).serialize(context, descriptor, object);
+        return writer.toString();
+    }
+}
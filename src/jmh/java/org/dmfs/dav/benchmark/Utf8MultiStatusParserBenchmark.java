@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.benchmark;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.Utf8MultiStatusParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares the {@link Utf8MultiStatusParser} with the plain pull parser on the same documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Utf8MultiStatusParserBenchmark
+{
+    @Param({ "10", "1000", "100000" })
+    public int responses;
+
+    @Param({ "false", "true" })
+    public boolean calendarData;
+
+    private byte[] mDocument;
+
+
+    @Setup
+    public void setup()
+    {
+        mDocument = MultiStatusDocuments.multiStatus(responses, calendarData);
+    }
+
+
+    /**
+     * Parses the document with an {@link org.dmfs.xmlobjects.pull.XmlObjectPull} on top of a pull parser, the baseline.
+     */
+    @Benchmark
+    public MultiStatus pullParser() throws Exception
+    {
+        return MultiStatusDocuments.parse(mDocument, new DavParserContext());
+    }
+
+
+    /**
+     * Parses the document with a new {@link Utf8MultiStatusParser}.
+     */
+    @Benchmark
+    public MultiStatus utf8Parser() throws Exception
+    {
+        return new Utf8MultiStatusParser(new DavParserContext()).parse(mDocument);
+    }
+}
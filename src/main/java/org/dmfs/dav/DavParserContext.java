@@ -19,9 +19,26 @@
 
 package org.dmfs.dav;
 
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.PropStat;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseHandler;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.ObjectPool;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.httpessentials.HttpStatus;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.pull.ParserContext;
 
+import java.io.File;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 
 /**
  * A {@link ParserContext} for DAV responses.
@@ -30,6 +47,23 @@ public class DavParserContext extends ParserContext
 {
     private boolean mStrict = true;
     private boolean mKeepNotFoundProperties = false;
+    private ResponseHandler mResponseHandler;
+    private boolean mDecodePropertiesLazily = false;
+
+    /**
+     * The {@link PropertyOrdinals ordinals} of all accepted properties or <code>null</code> to accept all properties.
+     */
+    private BitSet mPropertyFilter;
+
+    /**
+     * The names of all accepted properties, compared by identity, or <code>null</code> to accept all properties.
+     */
+    private Set<QualifiedName> mPropertyFilterNames;
+
+    private int mCalendarDataSpillThreshold = -1;
+    private File mSpillDirectory;
+
+    private ObjectPool mObjectPool;
 
 
     /**
@@ -89,4 +123,262 @@ public class DavParserContext extends ParserContext
     {
         return mKeepNotFoundProperties;
     }
+
+
+    /**
+     * Set a {@link ResponseHandler} that receives each response of a {@link MultiStatus} as soon as it has been parsed. If a handler is set the responses are
+     * not stored in the {@link MultiStatus}, instead they are recycled right after the handler returns. This keeps the memory footprint constant, no matter
+     * how many responses the server returns.
+     *
+     * @param handler
+     *     The {@link ResponseHandler} or <code>null</code> to store all responses in the {@link MultiStatus}.
+     */
+    public DavParserContext setResponseHandler(ResponseHandler handler)
+    {
+        mResponseHandler = handler;
+        return this;
+    }
+
+
+    /**
+     * Returns the {@link ResponseHandler} to process responses on-the-fly, if any.
+     *
+     * @return The {@link ResponseHandler} or <code>null</code>.
+     */
+    public ResponseHandler getResponseHandler()
+    {
+        return mResponseHandler;
+    }
+
+
+    /**
+     * Set whether property values shall be decoded lazily. In lazy mode properties that support it (see {@link LazyObjectBuilder}) are decoded on the first
+     * call to {@link PropStat#getPropertyValue(ElementDescriptor)} or {@link Response#getPropertyValue(ElementDescriptor)}. This saves a lot of work when only
+     * a few of the returned properties are actually used.
+     * <p>
+     * Note that in lazy mode errors in property values are not reported by the parser. Instead they are thrown as {@link IllegalStateException}s when the
+     * value is accessed.
+     * </p>
+     *
+     * @param decodePropertiesLazily
+     *     <code>true</code> to decode property values on demand, <code>false</code> to decode them while parsing.
+     */
+    public DavParserContext setDecodePropertiesLazily(boolean decodePropertiesLazily)
+    {
+        mDecodePropertiesLazily = decodePropertiesLazily;
+        return this;
+    }
+
+
+    /**
+     * Returns whether property values are decoded lazily.
+     *
+     * @return <code>true</code> if property values are decoded on demand, <code>false</code> otherwise.
+     */
+    public boolean getDecodePropertiesLazily()
+    {
+        return mDecodePropertiesLazily;
+    }
+
+
+    /**
+     * Set the properties to accept. Properties that are not in the given {@link Collection} are dropped by the parser, no matter which status they have.
+     * This is useful if the server returns more properties than requested, e.g. in response to an <code>allprop</code> request.
+     * <p>
+     * How much work that saves depends on the parser. {@link org.dmfs.dav.rfc4918.Utf8MultiStatusParser} skips the elements of properties that are not
+     * accepted without parsing them, so they don't reach any builder. Parsers that use {@link MultiStatus#BUILDER}, like an
+     * {@link org.dmfs.xmlobjects.pull.XmlObjectPull} or a {@link org.dmfs.dav.rfc4918.ResponseIterator}, only skip building the values of properties that
+     * support it (see {@link LazyObjectBuilder}). All other properties, like {@link org.dmfs.dav.rfc4918.WebDav.Properties#GETETAG} or
+     * {@link CalendarData}, are still built, but they are recycled right away and never stored.
+     * </p>
+     *
+     * @param properties
+     *     The {@link ElementDescriptor}s of the properties to accept or <code>null</code> to accept all properties.
+     */
+    public DavParserContext setPropertyFilter(Collection<? extends ElementDescriptor<?>> properties)
+    {
+        if (properties == null)
+        {
+            mPropertyFilter = null;
+            mPropertyFilterNames = null;
+            return this;
+        }
+
+        BitSet filter = new BitSet();
+        Set<QualifiedName> names = Collections.newSetFromMap(new IdentityHashMap<QualifiedName, Boolean>());
+        for (ElementDescriptor<?> property : properties)
+        {
+            filter.set(PropertyOrdinals.obtain(property));
+            names.add(property.qualifiedName);
+        }
+        mPropertyFilter = filter;
+        mPropertyFilterNames = names;
+        return this;
+    }
+
+
+    /**
+     * Returns whether a property filter has been set, see {@link #setPropertyFilter(Collection)}.
+     *
+     * @return <code>true</code> if only some properties are accepted, <code>false</code> if all properties are accepted.
+     */
+    public boolean hasPropertyFilter()
+    {
+        return mPropertyFilter != null;
+    }
+
+
+    /**
+     * Returns whether the given property shall be kept.
+     *
+     * @param property
+     *     The {@link ElementDescriptor} of a property.
+     *
+     * @return <code>true</code> if the property shall be kept, <code>false</code> if it shall be dropped.
+     */
+    public boolean acceptsProperty(ElementDescriptor<?> property)
+    {
+        BitSet filter = mPropertyFilter;
+        if (filter == null)
+        {
+            return true;
+        }
+        int ordinal = PropertyOrdinals.ordinal(property);
+        return ordinal >= 0 && filter.get(ordinal);
+    }
+
+
+    /**
+     * Returns whether the property with the given name shall be kept. This allows parsers to skip a property before its element has been resolved to an
+     * {@link ElementDescriptor}.
+     *
+     * @param property
+     *     The interned {@link QualifiedName} of a property element.
+     *
+     * @return <code>true</code> if the property shall be kept, <code>false</code> if it shall be dropped.
+     */
+    public boolean acceptsProperty(QualifiedName property)
+    {
+        Set<QualifiedName> names = mPropertyFilterNames;
+        return names == null || names.contains(property);
+    }
+
+
+    /**
+     * Set the size of calendar data above which it's written to a temporary file instead of being kept in memory. This keeps the memory footprint low when
+     * parsing a large number of big calendar objects, e.g. in response to a <code>calendar-multiget</code> report. Use
+     * {@link CalendarData#calendarDataReader()} to read the data.
+     * <p>
+     * Temporary files are deleted when the {@link CalendarData} object is closed. Property values are never recycled by the parser, so the caller has to close
+     * every {@link CalendarData} it receives, e.g. in a {@link ResponseHandler} or when it's done with a {@link MultiStatus}. Calendar data of properties that
+     * are dropped by the parser (see {@link #setPropertyFilter(Collection)}) is closed by the parser.
+     * </p>
+     * <p>
+     * Note that this limits how long large calendar data stays on the heap, not the peak allocation while parsing. The XML parser still hands the entire text
+     * of a <code>calendar-data</code> element to the builder as a single {@link String}, which is written to the file afterwards.
+     * </p>
+     *
+     * @param threshold
+     *     The maximum number of characters to keep in memory or <code>-1</code> to never write calendar data to a file.
+     */
+    public DavParserContext setCalendarDataSpillThreshold(int threshold)
+    {
+        mCalendarDataSpillThreshold = threshold;
+        return this;
+    }
+
+
+    /**
+     * Returns the maximum number of characters of calendar data to keep in memory.
+     *
+     * @return The threshold or <code>-1</code> if calendar data is always kept in memory.
+     */
+    public int getCalendarDataSpillThreshold()
+    {
+        return mCalendarDataSpillThreshold;
+    }
+
+
+    /**
+     * Set the directory to store temporary files in, see {@link #setCalendarDataSpillThreshold(int)}.
+     *
+     * @param directory
+     *     The directory or <code>null</code> to use the default temporary-file directory.
+     */
+    public DavParserContext setSpillDirectory(File directory)
+    {
+        mSpillDirectory = directory;
+        return this;
+    }
+
+
+    /**
+     * Returns the directory to store temporary files in.
+     *
+     * @return The directory or <code>null</code> to use the default temporary-file directory.
+     */
+    public File getSpillDirectory()
+    {
+        return mSpillDirectory;
+    }
+
+
+    /**
+     * Set an {@link ObjectPool} to recycle objects across parsers and threads. The builders of this library take new objects from the given pool via
+     * {@link #getPooledObject(ElementDescriptor)} and objects of these builders are returned to the pool when they are recycled through this context. This way
+     * objects can be reused by the next parser, even if that runs on another thread. Objects of other builders are recycled within this context.
+     *
+     * @param pool
+     *     The {@link ObjectPool} to use or <code>null</code> to recycle objects only within this context.
+     */
+    public DavParserContext setObjectPool(ObjectPool pool)
+    {
+        mObjectPool = pool;
+        return this;
+    }
+
+
+    /**
+     * Returns the {@link ObjectPool} of this context, if any.
+     *
+     * @return The {@link ObjectPool} or <code>null</code>.
+     */
+    public ObjectPool getObjectPool()
+    {
+        return mObjectPool;
+    }
+
+
+    /**
+     * Returns a recycled object from the {@link ObjectPool} of this context.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} of the object.
+     *
+     * @return A recycled object or <code>null</code> if there is no {@link ObjectPool} or it doesn't contain any objects of this descriptor.
+     */
+    public <T> T getPooledObject(ElementDescriptor<T> descriptor)
+    {
+        ObjectPool pool = mObjectPool;
+        return pool == null ? null : pool.poll(descriptor);
+    }
+
+
+    /**
+     * Recycles the given object. If this context has an {@link ObjectPool} the object is returned to the pool, provided objects of this descriptor have been
+     * taken from that pool (see {@link ObjectPool#isPooled(ElementDescriptor)}). All other objects are recycled within this context.
+     */
+    @Override
+    public <T> void recycle(ElementDescriptor<T> descriptor, T object)
+    {
+        ObjectPool pool = mObjectPool;
+        if (pool != null && pool.isPooled(descriptor))
+        {
+            pool.offer(descriptor, object);
+        }
+        else
+        {
+            super.recycle(descriptor, object);
+        }
+    }
 }
@@ -0,0 +1,466 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav;
+
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4791.CalendarMultiget;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseIterator;
+import org.dmfs.dav.rfc6352.AddressbookMultiget;
+import org.dmfs.dav.rfc6352.CardDav;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+
+/**
+ * Splits a multiget REPORT with many hrefs into several smaller ones. Many servers reject or time out on multiget requests with more than a few hundred
+ * hrefs, so bulk fetches should be sent in batches of limited size.
+ * <p>
+ * The batches are created lazily, each one is serialized only when it's requested. {@link #responses(Collection, BatchExecutor, Supplier)} executes all
+ * batches one after the other and returns the responses of all batches as a single {@link Responses} iterator, which must be closed.
+ * </p>
+ *
+ * <pre>
+ * CalendarMultiget template = new CalendarMultiget();
+ * template.addProperty(WebDav.Properties.GETETAG);
+ * template.addProperty(CalDav.Properties.CALENDAR_DATA);
+ *
+ * try (MultigetBatcher.Responses responses = MultigetBatcher.calendarMultiget(template).setMaxHrefs(200)
+ *     .responses(hrefs, batch -&gt; send(batch), DavParserContext::new))
+ * {
+ *     while (responses.hasNext())
+ *     {
+ *         process(responses.next());
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <T>
+ *     The type of the multiget request.
+ */
+public final class MultigetBatcher<T extends PropertyRequest>
+{
+    /**
+     * The default maximum number of hrefs per batch.
+     */
+    public final static int DEFAULT_MAX_HREFS = 100;
+
+    /**
+     * The default maximum size of the hrefs per batch in bytes.
+     */
+    public final static int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    /**
+     * The approximate number of bytes each href element adds to a request besides the actual {@link URI}.
+     */
+    private final static int HREF_OVERHEAD = 17;
+
+
+    /**
+     * Executes a single batch.
+     *
+     * @param <T>
+     *     The type of the multiget request.
+     */
+    public interface BatchExecutor<T extends PropertyRequest>
+    {
+        /**
+         * Sends the given batch to the server and returns the multistatus response.
+         *
+         * @param batch
+         *     The {@link Batch} to send.
+         *
+         * @return An {@link InputStream} of the multistatus response. It will be closed by the caller.
+         *
+         * @throws IOException
+         *     if the request fails.
+         */
+        InputStream execute(Batch<T> batch) throws IOException;
+    }
+
+
+    /**
+     * An {@link Iterator} of the {@link Response}s of all batches. The response stream of the current batch is open until all responses have been consumed,
+     * so callers that may stop early must {@link #close()} it, preferably with a try-with-resources statement.
+     */
+    public interface Responses extends Iterator<Response>, Closeable
+    {
+        /**
+         * Closes the response stream of the current batch. No further batches are executed afterwards.
+         *
+         * @throws IOException
+         *     if the response stream can't be closed.
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+
+    /**
+     * A batch of hrefs.
+     *
+     * @param <T>
+     *     The type of the multiget request.
+     */
+    public final static class Batch<T extends PropertyRequest>
+    {
+        private final MultigetBatcher<T> mBatcher;
+        private final List<URI> mHrefs;
+        private T mRequest;
+
+
+        private Batch(MultigetBatcher<T> batcher, List<URI> hrefs)
+        {
+            mBatcher = batcher;
+            mHrefs = hrefs;
+        }
+
+
+        /**
+         * Returns the hrefs of this batch.
+         *
+         * @return A {@link List} of {@link URI}s.
+         */
+        public List<URI> hrefs()
+        {
+            return mHrefs;
+        }
+
+
+        /**
+         * Returns the request of this batch. It's created on the first call.
+         *
+         * @return The multiget request.
+         */
+        public T request()
+        {
+            if (mRequest == null)
+            {
+                mRequest = mBatcher.mCopyFunction.apply(mBatcher.mTemplate, mHrefs);
+            }
+            return mRequest;
+        }
+
+
+        /**
+         * Serializes the request of this batch to the given {@link Writer}.
+         *
+         * @param writer
+         *     The {@link Writer} to write to.
+         */
+        public void writeTo(Writer writer) throws SerializerException, IOException
+        {
+            SerializerContext context = new SerializerContext();
+            new XmlObjectSerializer().setOutput(context, writer).serialize(context, mBatcher.mDescriptor, request());
+        }
+    }
+
+
+    private final ElementDescriptor<T> mDescriptor;
+    private final T mTemplate;
+    private final BiFunction<T, List<URI>, T> mCopyFunction;
+    private int mMaxHrefs = DEFAULT_MAX_HREFS;
+    private int mMaxBytes = DEFAULT_MAX_BYTES;
+
+
+    /**
+     * Returns a {@link MultigetBatcher} for calendar-multiget requests.
+     *
+     * @param template
+     *     A {@link CalendarMultiget} that specifies the properties to request. Any hrefs in the template are ignored.
+     *
+     * @return A {@link MultigetBatcher}.
+     */
+    public static MultigetBatcher<CalendarMultiget> calendarMultiget(CalendarMultiget template)
+    {
+        return new MultigetBatcher<CalendarMultiget>(CalDav.CALENDAR_MULTIGET, template, CalendarMultiget::withHrefs);
+    }
+
+
+    /**
+     * Returns a {@link MultigetBatcher} for addressbook-multiget requests.
+     *
+     * @param template
+     *     An {@link AddressbookMultiget} that specifies the properties to request. Any hrefs in the template are ignored.
+     *
+     * @return A {@link MultigetBatcher}.
+     */
+    public static MultigetBatcher<AddressbookMultiget> addressbookMultiget(AddressbookMultiget template)
+    {
+        return new MultigetBatcher<AddressbookMultiget>(CardDav.ADDRESSBOOK_MULTIGET, template, AddressbookMultiget::withHrefs);
+    }
+
+
+    /**
+     * Create a {@link MultigetBatcher} for any kind of multiget request.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} to serialize the request.
+     * @param template
+     *     A request that specifies the properties to request.
+     * @param copyFunction
+     *     A function that returns a copy of the template that requests the given hrefs.
+     */
+    public MultigetBatcher(ElementDescriptor<T> descriptor, T template, BiFunction<T, List<URI>, T> copyFunction)
+    {
+        mDescriptor = descriptor;
+        mTemplate = template;
+        mCopyFunction = copyFunction;
+    }
+
+
+    /**
+     * Sets the maximum number of hrefs per batch.
+     *
+     * @param maxHrefs
+     *     The maximum number of hrefs, must be positive.
+     *
+     * @return This instance.
+     */
+    public MultigetBatcher<T> setMaxHrefs(int maxHrefs)
+    {
+        if (maxHrefs < 1)
+        {
+            throw new IllegalArgumentException("The maximum number of hrefs must be positive");
+        }
+        mMaxHrefs = maxHrefs;
+        return this;
+    }
+
+
+    /**
+     * Sets the maximum size of the hrefs per batch. The size is estimated from the length of the {@link URI}s. A single href that exceeds this limit is sent
+     * in a batch of its own.
+     *
+     * @param maxBytes
+     *     The maximum number of bytes, must be positive.
+     *
+     * @return This instance.
+     */
+    public MultigetBatcher<T> setMaxBytes(int maxBytes)
+    {
+        if (maxBytes < 1)
+        {
+            throw new IllegalArgumentException("The maximum number of bytes must be positive");
+        }
+        mMaxBytes = maxBytes;
+        return this;
+    }
+
+
+    /**
+     * Returns the batches for the given hrefs. The batches are created while iterating.
+     *
+     * @param hrefs
+     *     The hrefs to request.
+     *
+     * @return An {@link Iterator} of {@link Batch}es.
+     */
+    public Iterator<Batch<T>> batches(Collection<URI> hrefs)
+    {
+        final Iterator<URI> uris = hrefs.iterator();
+        return new Iterator<Batch<T>>()
+        {
+            private URI mPending;
+
+
+            @Override
+            public boolean hasNext()
+            {
+                return mPending != null || uris.hasNext();
+            }
+
+
+            @Override
+            public Batch<T> next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException("No more batches");
+                }
+
+                List<URI> batch = new ArrayList<URI>(mMaxHrefs);
+                int bytes = 0;
+                while (batch.size() < mMaxHrefs && (mPending != null || uris.hasNext()))
+                {
+                    URI uri = mPending != null ? mPending : uris.next();
+                    mPending = null;
+                    int size = uri.toASCIIString().length() + HREF_OVERHEAD;
+                    if (!batch.isEmpty() && bytes + size > mMaxBytes)
+                    {
+                        // doesn't fit anymore, keep it for the next batch
+                        mPending = uri;
+                        break;
+                    }
+                    batch.add(uri);
+                    bytes += size;
+                }
+                return new Batch<T>(MultigetBatcher.this, batch);
+            }
+        };
+    }
+
+
+    /**
+     * Executes all batches for the given hrefs and returns the responses of all of them. Each batch is executed when the responses of the previous batch have
+     * been consumed.
+     * <p>
+     * Parser errors are thrown as {@link IllegalStateException}s, I/O errors are thrown as {@link UncheckedIOException}s, like {@link ResponseIterator} does.
+     * The response stream of the current batch is closed before such an error is thrown.
+     * </p>
+     * <p>
+     * The response stream of the current batch is closed when the next batch is executed, when all responses have been consumed and when the result is
+     * closed, so always close the result if you might not consume all responses.
+     * </p>
+     *
+     * @param hrefs
+     *     The hrefs to request.
+     * @param executor
+     *     The {@link BatchExecutor} that sends the requests.
+     * @param contextFactory
+     *     A {@link Supplier} of the {@link ParserContext} to parse each response with.
+     *
+     * @return A {@link Responses} iterator.
+     */
+    public Responses responses(Collection<URI> hrefs, final BatchExecutor<T> executor, final Supplier<? extends ParserContext> contextFactory)
+    {
+        final Iterator<Batch<T>> batches = batches(hrefs);
+        return new Responses()
+        {
+            private InputStream mInput;
+            private ResponseIterator mResponses;
+            private boolean mClosed;
+
+
+            @Override
+            public boolean hasNext()
+            {
+                boolean failed = true;
+                try
+                {
+                    while (mResponses == null || !mResponses.hasNext())
+                    {
+                        closeBatch();
+                        if (mClosed || !batches.hasNext())
+                        {
+                            failed = false;
+                            return false;
+                        }
+                        mInput = executor.execute(batches.next());
+                        mResponses = new ResponseIterator(mInput, null, contextFactory.get());
+                    }
+                    failed = false;
+                    return true;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                catch (XmlPullParserException e)
+                {
+                    throw new IllegalStateException("Can't create parser", e);
+                }
+                finally
+                {
+                    if (failed)
+                    {
+                        abort();
+                    }
+                }
+            }
+
+
+            @Override
+            public Response next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException("No more responses");
+                }
+                boolean failed = true;
+                try
+                {
+                    Response response = mResponses.next();
+                    failed = false;
+                    return response;
+                }
+                finally
+                {
+                    if (failed)
+                    {
+                        abort();
+                    }
+                }
+            }
+
+
+            @Override
+            public void close() throws IOException
+            {
+                mClosed = true;
+                closeBatch();
+            }
+
+
+            /**
+             * Closes the current response stream after an error. Errors when closing the stream are ignored in favor of the original error.
+             */
+            private void abort()
+            {
+                try
+                {
+                    closeBatch();
+                }
+                catch (IOException e)
+                {
+                    // ignore, we're already throwing
+                }
+            }
+
+
+            private void closeBatch() throws IOException
+            {
+                mResponses = null;
+                if (mInput != null)
+                {
+                    InputStream input = mInput;
+                    mInput = null;
+                    input.close();
+                }
+            }
+        };
+    }
+}
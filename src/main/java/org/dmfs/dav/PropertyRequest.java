@@ -19,11 +19,11 @@
 
 package org.dmfs.dav;
 
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.pull.Recyclable;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -49,7 +49,7 @@ public abstract class PropertyRequest implements Recyclable
     {
         if (mProp == null)
         {
-            mProp = new HashMap<ElementDescriptor<?>, Object>(16);
+            mProp = new ElementDescriptorMap<Object>(16);
         }
         mProp.put(property, null);
         return this;
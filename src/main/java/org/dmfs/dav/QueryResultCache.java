@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav;
+
+import org.dmfs.dav.rfc4791.CalendarQuery;
+import org.dmfs.dav.rfc6352.AddressbookQuery;
+import org.dmfs.dav.utils.Fingerprint;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A cache of the results of {@link CalendarQuery} and {@link AddressbookQuery} REPORTs, so repeated queries can be answered from memory.
+ * <p>
+ * Results are keyed by the collection, the version of the collection (its sync-token or ctag) and the canonical form of the filter, see
+ * {@link org.dmfs.dav.rfc4791.filter.CanonicalFilter} and {@link org.dmfs.dav.rfc6352.filter.CanonicalFilter}. Equivalent filters share the same results,
+ * even if they were built by different parts of an app. The fingerprint of the canonical form is only used as a hash, so filters with colliding fingerprints
+ * never share results. Once a result is stored for a new version of a collection, all results of older versions of that
+ * collection are dropped. If the cache is full, the least recently used result is dropped, along with the version of its collection if that was its last
+ * result.
+ * </p>
+ * <p>
+ * The results don't depend on the requested properties. Use separate caches for queries that request different properties.
+ * </p>
+ *
+ * <pre>
+ * String filter = CanonicalFilter.canonicalForm(query);
+ * List&lt;Response&gt; result = cache.get(collection, ctag, filter);
+ * if (result == null)
+ * {
+ *     result = execute(collection, query);
+ *     cache.put(collection, ctag, filter, result);
+ * }
+ * </pre>
+ * <p>
+ * This class is thread safe. Cached results are shared, so they should not be modified.
+ * </p>
+ *
+ * @param <V>
+ *     The type of the results.
+ */
+public final class QueryResultCache<V>
+{
+    /**
+     * The default maximum number of results in the cache.
+     */
+    public final static int DEFAULT_CAPACITY = 64;
+
+    private final Map<Key, V> mResults;
+
+    /**
+     * The latest known version of each collection.
+     */
+    private final Map<URI, String> mVersions = new HashMap<URI, String>();
+
+    private long mHits;
+    private long mMisses;
+
+
+    /**
+     * Create a {@link QueryResultCache} with the default capacity.
+     */
+    public QueryResultCache()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Create a {@link QueryResultCache}.
+     *
+     * @param capacity
+     *     The maximum number of results in the cache.
+     */
+    public QueryResultCache(final int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        mResults = new LinkedHashMap<Key, V>(16, 0.75f, true /* access order */)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest)
+            {
+                if (size() <= capacity)
+                {
+                    return false;
+                }
+                if (isLastResult(eldest.getKey()))
+                {
+                    // forget the version of the collection, so the map doesn't grow with every collection ever cached
+                    mVersions.remove(eldest.getKey().mCollection);
+                }
+                return true;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the cached result of a query.
+     *
+     * @param collection
+     *     The {@link URI} of the collection.
+     * @param version
+     *     The current sync-token or ctag of the collection.
+     * @param filter
+     *     The canonical form of the filter.
+     *
+     * @return The result or <code>null</code> if there is no result for this version of the collection.
+     */
+    public synchronized V get(URI collection, String version, String filter)
+    {
+        V result = mResults.get(new Key(collection, version, filter));
+        if (result == null)
+        {
+            ++mMisses;
+        }
+        else
+        {
+            ++mHits;
+        }
+        return result;
+    }
+
+
+    /**
+     * Stores the result of a query. If the version differs from the version of previous results of the collection, the previous results are dropped.
+     *
+     * @param collection
+     *     The {@link URI} of the collection.
+     * @param version
+     *     The sync-token or ctag of the collection at the time the query was executed.
+     * @param filter
+     *     The canonical form of the filter.
+     * @param result
+     *     The result.
+     */
+    public synchronized void put(URI collection, String version, String filter, V result)
+    {
+        String previous = mVersions.put(collection, version);
+        if (previous != null && !previous.equals(version))
+        {
+            removeResults(collection);
+        }
+        mResults.put(new Key(collection, version, filter), result);
+    }
+
+
+    /**
+     * Drops all results of the given collection.
+     *
+     * @param collection
+     *     The {@link URI} of the collection.
+     */
+    public synchronized void invalidate(URI collection)
+    {
+        if (mVersions.remove(collection) != null)
+        {
+            removeResults(collection);
+        }
+    }
+
+
+    /**
+     * Drops all results.
+     */
+    public synchronized void clear()
+    {
+        mResults.clear();
+        mVersions.clear();
+    }
+
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return The number of results.
+     */
+    public synchronized int size()
+    {
+        return mResults.size();
+    }
+
+
+    /**
+     * Returns the number of calls to {@link #get(URI, String, String)} that returned a result.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long hits()
+    {
+        return mHits;
+    }
+
+
+    /**
+     * Returns the number of calls to {@link #get(URI, String, String)} that didn't return a result.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long misses()
+    {
+        return mMisses;
+    }
+
+
+    /**
+     * Returns whether the given result is the only result of its collection.
+     */
+    private boolean isLastResult(Key key)
+    {
+        for (Key other : mResults.keySet())
+        {
+            if (other != key && other.mCollection.equals(key.mCollection))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private void removeResults(URI collection)
+    {
+        for (Iterator<Key> iterator = mResults.keySet().iterator(); iterator.hasNext(); )
+        {
+            if (iterator.next().mCollection.equals(collection))
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+
+    /**
+     * The key of a result. Keys are compared by the canonical form of their filter, its fingerprint only serves as the hash.
+     */
+    private final static class Key
+    {
+        private final URI mCollection;
+        private final String mVersion;
+        private final String mFilter;
+        private final long mFingerprint;
+
+
+        private Key(URI collection, String version, String filter)
+        {
+            mCollection = collection;
+            mVersion = version;
+            mFilter = filter;
+            mFingerprint = Fingerprint.of(filter);
+        }
+
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            return mFingerprint == other.mFingerprint && mFilter.equals(other.mFilter) && mCollection.equals(other.mCollection)
+                && mVersion.equals(other.mVersion);
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return (mCollection.hashCode() * 31 + mVersion.hashCode()) * 31 + Long.hashCode(mFingerprint);
+        }
+    }
+}
@@ -20,6 +20,8 @@
 package org.dmfs.dav.nonrfc;
 
 import org.dmfs.dav.rfc6578.SyncCollection;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -81,7 +83,7 @@ public class NonRfc
          * The format of the value varies from server to server, but in general it's <code>#rrggbbaa</code> or <code>#rrggbb</code>.
          */
         public final static ElementDescriptor<Integer> CALENDAR_COLOR = ElementDescriptor.register(QualifiedName.get(NAMESPACE_APPLE_ICAL, "calendar-color"),
-            new AbstractObjectBuilder<Integer>()
+            new LazyObjectBuilder<Integer>(new AbstractObjectBuilder<Integer>()
             {
                 public Integer update(ElementDescriptor<Integer> descriptor, Integer object, String text, ParserContext context)
                     throws XmlObjectPullParserException
@@ -166,7 +168,13 @@ public class NonRfc
 
                     childWriter.writeText("#" + ("0000000".substring(hexString.length() - 1)) + hexString, context);
                 }
-            });
+            }));
+
+
+        static
+        {
+            PropertyOrdinals.register(GETCTAG, CALENDAR_COLOR);
+        }
 
 
         /**
@@ -21,6 +21,7 @@ package org.dmfs.dav.rfc3253;
 
 import org.dmfs.dav.rfc4918.WebDav;
 import org.dmfs.dav.utils.MergeSetObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.httpessentials.HttpMethod;
 import org.dmfs.httpessentials.methods.Method;
 import org.dmfs.httpessentials.methods.SafeMethod;
@@ -170,6 +171,12 @@ public final class WebDavVersioning
         public final static ElementDescriptor<Set<QualifiedName>> SUPPORTED_REPORT_SET = WebDavVersioning.PROP_SUPPORTED_REPORT_SET;
 
 
+        static
+        {
+            PropertyOrdinals.register(COMMENT, CREATOR_DISPLAYNAME, SUPPORTED_METHOD_SET, SUPPORTED_REPORT_SET);
+        }
+
+
         /**
          * No instances allowed.
          */
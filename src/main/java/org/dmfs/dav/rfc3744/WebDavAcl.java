@@ -21,6 +21,7 @@ package org.dmfs.dav.rfc3744;
 
 import org.dmfs.dav.rfc4918.WebDav;
 import org.dmfs.dav.utils.MergeSetObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -262,6 +263,12 @@ public final class WebDavAcl
         public final static ElementDescriptor<Set<URI>> PRINCIPAL_COLLECTION_SET = WebDavAcl.PROP_PRINCIPAL_COLLECTION_SET;
 
 
+        static
+        {
+            PropertyOrdinals.register(CURRENT_USER_PRIVILEGE_SET, PRINCIPAL_COLLECTION_SET);
+        }
+
+
         /**
          * No instances allowed.
          */
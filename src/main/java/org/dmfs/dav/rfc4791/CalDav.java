@@ -22,6 +22,8 @@ package org.dmfs.dav.rfc4791;
 import org.dmfs.dav.rfc3253.WebDavVersioning;
 import org.dmfs.dav.rfc4791.filter.CompFilter;
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.httpessentials.HttpMethod;
 import org.dmfs.httpessentials.methods.Method;
 import org.dmfs.xmlobjects.ElementDescriptor;
@@ -132,7 +134,8 @@ public class CalDav
         StringObjectBuilder.INSTANCE);
 
     public final static ElementDescriptor<Set<String>> PROPERTY_SUPPORTED_CALENDAR_COMPONENT_SET = ElementDescriptor.register(
-        QualifiedName.get(NAMESPACE, "supported-calendar-component-set"), new SetObjectBuilder<String>(COMP, false /* don't store null values */));
+        QualifiedName.get(NAMESPACE, "supported-calendar-component-set"),
+        new LazyObjectBuilder<Set<String>>(new SetObjectBuilder<String>(COMP, false /* don't store null values */)));
 
     public final static ElementDescriptor<CalendarData> PROPERTY_CALENDAR_DATA = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "calendar-data"),
         CalendarData.BUILDER);
@@ -142,7 +145,7 @@ public class CalDav
         new SetObjectBuilder<CalendarData>(PROPERTY_CALENDAR_DATA, false /* don't store null values */));
 
     public final static ElementDescriptor<Integer> PROPERTY_MAX_RESOURCE_SIZE = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "max-resource-size"),
-        IntegerObjectBuilder.INSTANCE_STRICT);
+        new LazyObjectBuilder<Integer>(IntegerObjectBuilder.INSTANCE_STRICT));
 
     // public final static ElementDescriptor<DateTime> PROPERTY_MIN_DATE_TIME = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "min-date-time"),
     // DateTimeObjectBuilder.INSTANCE);
@@ -151,13 +154,13 @@ public class CalDav
     // DateTimeObjectBuilder.INSTANCE);
 
     public final static ElementDescriptor<Integer> PROPERTY_MAX_INSTANCES = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "max-instances"),
-        IntegerObjectBuilder.INSTANCE_STRICT);
+        new LazyObjectBuilder<Integer>(IntegerObjectBuilder.INSTANCE_STRICT));
 
     public final static ElementDescriptor<Integer> PROPERTY_MAX_ATTENDEES_PER_INSTANCE = ElementDescriptor.register(
-        QualifiedName.get(NAMESPACE, "max-attendees-per-instance"), IntegerObjectBuilder.INSTANCE_STRICT);
+        QualifiedName.get(NAMESPACE, "max-attendees-per-instance"), new LazyObjectBuilder<Integer>(IntegerObjectBuilder.INSTANCE_STRICT));
 
     public final static ElementDescriptor<Set<URI>> PROPERTY_CALENDAR_HOME_SET = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "calendar-home-set"),
-        new SetObjectBuilder<URI>(WebDav.HREF));
+        new LazyObjectBuilder<Set<URI>>(new SetObjectBuilder<URI>(WebDav.HREF)));
 
 
     /**
@@ -229,6 +232,13 @@ public class CalDav
         public final static ElementDescriptor<Set<URI>> CALENDAR_HOME_SET = CalDav.PROPERTY_CALENDAR_HOME_SET;
 
 
+        static
+        {
+            PropertyOrdinals.register(CALENDAR_DESCRIPTION, CALENDAR_TIMEZONE, SUPPORTED_CALENDAR_COMPONENT_SET, CALENDAR_DATA, SUPPORTED_CALENDAR_DATA,
+                MAX_RESOURCE_SIZE, MAX_INSTANCES, MAX_ATTENDEES_PER_INSTANCE, CALENDAR_HOME_SET);
+        }
+
+
         /**
          * No instances allowed.
          */
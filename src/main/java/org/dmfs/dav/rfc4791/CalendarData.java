@@ -19,6 +19,10 @@
 
 package org.dmfs.dav.rfc4791;
 
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.utils.ByteBufferInputStream;
+import org.dmfs.dav.utils.SnapshotInput;
+import org.dmfs.dav.utils.SnapshotOutput;
 import org.dmfs.httpessentials.types.MediaType;
 import org.dmfs.httpessentials.types.StringMediaType;
 import org.dmfs.httpessentials.types.StructuredMediaType;
@@ -30,6 +34,21 @@ import org.dmfs.xmlobjects.pull.ParserContext;
 import org.dmfs.xmlobjects.pull.Recyclable;
 import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
 
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 
 /**
  * Represents a <code>calendar-data</code> element as defined in <a href="http://tools.ietf.org/html/rfc4791#section-9.6">RFC 4791, section 9.6</a>.
@@ -53,8 +72,15 @@ import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
  * <p>
  * TODO: add support for comp, expand, limit-recurrence-set and limit-free-busy-set elements
  * </p>
+ * <p>
+ * <strong>Note:</strong> Large calendar data may be written to a temporary file, see {@link DavParserContext#setCalendarDataSpillThreshold(int)}. The file
+ * belongs to this object and it's only deleted when this object is closed. Property values are never recycled along with their
+ * {@link org.dmfs.dav.rfc4918.PropStat} or {@link org.dmfs.dav.rfc4918.Response}, so close every {@link CalendarData} you receive from a parser once you no
+ * longer need it. The calendar data is written to the file after it has been parsed into a {@link String}, so this doesn't reduce the peak allocation while
+ * parsing.
+ * </p>
  */
-public class CalendarData implements Recyclable
+public class CalendarData implements Recyclable, Closeable
 {
     /**
      * Attribute name of the calendar-data content-type.
@@ -83,6 +109,10 @@ public class CalendarData implements Recyclable
         @Override
         public CalendarData get(ElementDescriptor<CalendarData> descriptor, CalendarData recycle, ParserContext context) throws XmlObjectPullParserException
         {
+            if (recycle == null && context instanceof DavParserContext)
+            {
+                recycle = ((DavParserContext) context).getPooledObject(descriptor);
+            }
             if (recycle != null)
             {
                 recycle.recycle();
@@ -117,7 +147,26 @@ public class CalendarData implements Recyclable
 
         @Override
         public CalendarData update(ElementDescriptor<CalendarData> descriptor, CalendarData object, String text, ParserContext context)
+            throws XmlObjectPullParserException
         {
+            if (text != null && context instanceof DavParserContext)
+            {
+                DavParserContext davContext = (DavParserContext) context;
+                int threshold = davContext.getCalendarDataSpillThreshold();
+                if (threshold >= 0 && text.length() > threshold)
+                {
+                    // write large payloads to a file, so we don't have to keep them in memory
+                    try
+                    {
+                        object.mSpillFile = spill(text, davContext.getSpillDirectory());
+                    }
+                    catch (IOException e)
+                    {
+                        throw new XmlObjectPullParserException("Can't write calendar data to temporary file", e);
+                    }
+                    return object;
+                }
+            }
             object.mCalendarData = text;
             return object;
         }
@@ -130,13 +179,71 @@ public class CalendarData implements Recyclable
     private String mVersion;
     private String mCalendarData;
 
+    /**
+     * The file that contains the calendar data if it exceeded the spill threshold of the {@link DavParserContext}, otherwise <code>null</code>.
+     */
+    private File mSpillFile;
+
+    /**
+     * The UTF-8 encoded calendar data if it refers to a slice of the original document, otherwise <code>null</code>.
+     */
+    private ByteBuffer mCalendarDataBuffer;
+
 
+    /**
+     * Writes the given calendar data to a new temporary file.
+     */
+    private static File spill(String calendarData, File directory) throws IOException
+    {
+        Path file = directory == null ? Files.createTempFile("calendar-data", ".ics") : Files.createTempFile(directory.toPath(), "calendar-data", ".ics");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            writer.write(calendarData);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file.toFile();
+    }
+
+
+    /**
+     * Resets this object. This doesn't delete the temporary file of the calendar data, only {@link #close()} does that, so close this object before you
+     * recycle it.
+     */
     @Override
     public void recycle()
     {
         mContentType = null;
         mVersion = null;
         mCalendarData = null;
+        mCalendarDataBuffer = null;
+        mSpillFile = null;
+    }
+
+
+    /**
+     * Deletes the temporary file of the calendar data, if any. Afterwards this object no longer contains any calendar data. Closing a {@link CalendarData}
+     * that has not been written to a file just releases the calendar data.
+     */
+    @Override
+    public void close()
+    {
+        mCalendarData = null;
+        mCalendarDataBuffer = null;
+        deleteSpillFile();
+    }
+
+
+    private void deleteSpillFile()
+    {
+        if (mSpillFile != null)
+        {
+            mSpillFile.delete();
+            mSpillFile = null;
+        }
     }
 
 
@@ -164,11 +271,147 @@ public class CalendarData implements Recyclable
 
     /**
      * Returns the actual calendar data if the server returned any.
+     * <p>
+     * <strong>Note:</strong> If the calendar data has been written to a temporary file (see {@link #isSpilled()}) this reads the entire file into a new
+     * {@link String}. The same applies if the calendar data refers to a slice of the original document (see {@link #calendarDataBuffer()}), in that case a
+     * new {@link String} is decoded on every call. Use {@link #calendarDataReader()} to avoid that.
+     * </p>
      *
      * @return The calendar data or <code>null</code>.
+     *
+     * @throws UncheckedIOException
+     *     if the temporary file can't be read.
      */
     public String calendarData()
     {
+        if (mSpillFile != null)
+        {
+            try
+            {
+                return new String(Files.readAllBytes(mSpillFile.toPath()), StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (mCalendarDataBuffer != null)
+        {
+            return StandardCharsets.UTF_8.decode(mCalendarDataBuffer.duplicate()).toString();
+        }
         return mCalendarData;
     }
+
+
+    /**
+     * Returns a {@link Reader} that reads the calendar data. Unlike {@link #calendarData()} this never copies the calendar data, so it's the preferred way to
+     * feed the data into an iCalendar parser.
+     *
+     * @return A {@link Reader} or <code>null</code> if the server didn't return any calendar data.
+     *
+     * @throws IOException
+     *     if the temporary file can't be opened.
+     */
+    public Reader calendarDataReader() throws IOException
+    {
+        if (mSpillFile != null)
+        {
+            return Files.newBufferedReader(mSpillFile.toPath(), StandardCharsets.UTF_8);
+        }
+        if (mCalendarDataBuffer != null)
+        {
+            return new InputStreamReader(new ByteBufferInputStream(mCalendarDataBuffer), StandardCharsets.UTF_8);
+        }
+        return mCalendarData == null ? null : new StringReader(mCalendarData);
+    }
+
+
+    /**
+     * Returns whether the calendar data has been written to a temporary file, because it exceeded the threshold set with
+     * {@link DavParserContext#setCalendarDataSpillThreshold(int)}. The file is deleted when this object is closed.
+     *
+     * @return <code>true</code> if the calendar data is stored in a temporary file.
+     */
+    public boolean isSpilled()
+    {
+        return mSpillFile != null;
+    }
+
+
+    /**
+     * Returns the UTF-8 encoded calendar data if it refers to a slice of the original document, for instance because it has been parsed from a memory mapped
+     * file by {@link org.dmfs.dav.rfc4918.Utf8MultiStatusParser}. In that case the calendar data has never been decoded or copied.
+     * <p>
+     * Note that the buffer contains the raw bytes of the document, line breaks have not been normalized like an XML parser would do.
+     * </p>
+     *
+     * @return A read-only {@link ByteBuffer} or <code>null</code> if the calendar data is not stored in a buffer.
+     */
+    public ByteBuffer calendarDataBuffer()
+    {
+        return mCalendarDataBuffer == null ? null : mCalendarDataBuffer.asReadOnlyBuffer();
+    }
+
+
+    /**
+     * Sets the calendar data to the remaining bytes of the given buffer. The buffer is not copied, so it must not be modified as long as this object is in use.
+     * The bytes must be UTF-8 encoded iCalendar data without any XML escaping.
+     *
+     * @param calendarData
+     *     A {@link ByteBuffer} with the UTF-8 encoded calendar data.
+     *
+     * @return This instance.
+     */
+    public CalendarData setCalendarData(ByteBuffer calendarData)
+    {
+        mCalendarData = null;
+        mCalendarDataBuffer = calendarData.slice();
+        return this;
+    }
+
+
+    /**
+     * Writes this {@link CalendarData} in a compact binary format that can be read by {@link #readFrom(DataInput)}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     *
+     * @throws IOException
+     *     if the output can't be written or the temporary file of the calendar data can't be read.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        SnapshotOutput.writeString(out, mContentType == null ? null : mContentType.toString());
+        SnapshotOutput.writeString(out, mVersion);
+        try
+        {
+            SnapshotOutput.writeString(out, calendarData());
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+
+    /**
+     * Reads a {@link CalendarData} written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return A new {@link CalendarData}.
+     *
+     * @throws IOException
+     *     if the input can't be read or is malformed.
+     */
+    public static CalendarData readFrom(DataInput in) throws IOException
+    {
+        CalendarData result = new CalendarData();
+        String contentType = SnapshotInput.readString(in);
+        result.mContentType = contentType == null ? null : new StringMediaType(contentType);
+        result.mVersion = SnapshotInput.readString(in);
+        result.mCalendarData = SnapshotInput.readString(in);
+        return result;
+    }
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4791;
+
+import org.dmfs.dav.rfc4791.filter.TimeRange;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.utils.ContentComponent;
+import org.dmfs.dav.utils.ContentLine;
+import org.dmfs.dav.utils.ContentLineParser;
+import org.dmfs.dav.utils.IntervalIndex;
+import org.dmfs.rfc5545.DateTime;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+
+/**
+ * A local index of the occurrences of cached calendar objects that answers time-range queries without asking the server.
+ * <p>
+ * Feed it with the {@link Response}s of a {@link CalendarQuery}, a {@link CalendarMultiget} or a sync-collection report that contain
+ * {@link CalDav#PROPERTY_CALENDAR_DATA}, or with calendar objects parsed by {@link ContentLineParser}. A single index can hold the calendar objects of any
+ * number of collections.
+ * </p>
+ * <p>
+ * Each <code>VEVENT</code>, <code>VTODO</code> and <code>VJOURNAL</code> is stored in an {@link IntervalIndex} with the span of all of its occurrences, so a
+ * query only looks at the components that might occur in the queried range. Recurring components are expanded lazily, only the occurrences in the queried
+ * range are computed. Components with a <code>RECURRENCE-ID</code> replace the respective occurrence of their master. Occurrences are evaluated like a
+ * <code>time-range</code> filter as specified in <a href="http://tools.ietf.org/html/rfc4791#section-9.9">RFC 4791, section 9.9</a>. To-dos without
+ * <code>DTSTART</code> and <code>DUE</code> are not indexed.
+ * </p>
+ * <p>
+ * Recurrence rules are expanded by {@link RecurrenceSet}. Rules that can't be parsed can't be expanded. Such components are returned with their first
+ * occurrence and {@link Occurrence#isExact} set to <code>false</code> for every range they might occur in.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+public final class CalendarIndex
+{
+    /**
+     * An occurrence of a component.
+     */
+    public final static class Occurrence
+    {
+        /**
+         * The href of the calendar object resource.
+         */
+        public final URI href;
+
+        /**
+         * The component, for recurring components this is the master component.
+         */
+        public final ContentComponent component;
+
+        /**
+         * The start of the occurrence in milliseconds since the epoch.
+         */
+        public final long start;
+
+        /**
+         * The end of the occurrence in milliseconds since the epoch.
+         */
+        public final long end;
+
+        /**
+         * Whether this is an actual occurrence. <code>false</code> if the recurrence rule of the component can't be parsed. In that case {@link #start} and
+         * {@link #end} refer to the first occurrence and the component needs to be expanded by the caller.
+         */
+        public final boolean isExact;
+
+
+        private Occurrence(URI href, ContentComponent component, long start, long end, boolean isExact)
+        {
+            this.href = href;
+            this.component = component;
+            this.start = start;
+            this.end = end;
+            this.isExact = isExact;
+        }
+    }
+
+
+    private final static int STATUS_NOT_FOUND = 404;
+
+    private final static Comparator<Occurrence> BY_START = new Comparator<Occurrence>()
+    {
+        @Override
+        public int compare(Occurrence o1, Occurrence o2)
+        {
+            return Long.compare(o1.start, o2.start);
+        }
+    };
+
+    private final TimeZone mFloatingTimeZone;
+    private final IntervalIndex<Entry> mIndex = new IntervalIndex<Entry>();
+
+    /**
+     * The entries of each resource, guarded by <code>this</code>.
+     */
+    private final Map<URI, List<Entry>> mResources = new HashMap<URI, List<Entry>>();
+
+
+    /**
+     * Create an empty {@link CalendarIndex} that evaluates floating times and dates in UTC.
+     */
+    public CalendarIndex()
+    {
+        this(DateTime.UTC);
+    }
+
+
+    /**
+     * Create an empty {@link CalendarIndex}.
+     *
+     * @param floatingTimeZone
+     *     The {@link TimeZone} to evaluate floating times and dates in, usually the calendar-timezone of the collection.
+     */
+    public CalendarIndex(TimeZone floatingTimeZone)
+    {
+        mFloatingTimeZone = floatingTimeZone;
+    }
+
+
+    /**
+     * Adds or updates the calendar object of the given {@link Response}. Responses with a status of <code>404</code>, like those of removed resources in a
+     * sync-collection report, remove the resource from the index. Responses without calendar data are ignored.
+     *
+     * @param response
+     *     The {@link Response}.
+     *
+     * @return <code>true</code> if the index has been changed, <code>false</code> otherwise.
+     *
+     * @throws IOException
+     *     if the calendar data can't be read or parsed.
+     */
+    public boolean put(Response response) throws IOException
+    {
+        URI href = response.getHRef();
+        if (response.getStatus() == STATUS_NOT_FOUND)
+        {
+            return remove(href);
+        }
+        CalendarData calendarData = response.getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA);
+        if (calendarData == null)
+        {
+            return false;
+        }
+        put(href, calendarData);
+        return true;
+    }
+
+
+    /**
+     * Adds or updates a calendar object.
+     *
+     * @param href
+     *     The href of the calendar object resource.
+     * @param calendarData
+     *     The {@link CalendarData} of the resource.
+     *
+     * @throws IOException
+     *     if the calendar data can't be read or parsed.
+     */
+    public void put(URI href, CalendarData calendarData) throws IOException
+    {
+        Reader reader = calendarData.calendarDataReader();
+        if (reader == null)
+        {
+            remove(href);
+            return;
+        }
+        try
+        {
+            put(href, ContentLineParser.parse(reader));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+
+    /**
+     * Adds or updates a calendar object.
+     *
+     * @param href
+     *     The href of the calendar object resource.
+     * @param calendar
+     *     The top level component of the calendar object, usually a <code>VCALENDAR</code>.
+     */
+    public void put(URI href, ContentComponent calendar)
+    {
+        List<ContentComponent> components = calendar.components();
+
+        // collect the instances that are overridden, per UID
+        Map<String, long[]> overridden = new HashMap<String, long[]>();
+        for (int i = 0, count = components.size(); i < count; ++i)
+        {
+            ContentComponent component = components.get(i);
+            ContentLine recurrenceId = component.property("RECURRENCE-ID");
+            if (recurrenceId != null)
+            {
+                long instanceStart = RecurrenceSet.timestamp(recurrenceId, mFloatingTimeZone);
+                if (instanceStart != Long.MIN_VALUE)
+                {
+                    String uid = uid(component);
+                    long[] starts = overridden.get(uid);
+                    starts = starts == null ? new long[1] : Arrays.copyOf(starts, starts.length + 1);
+                    starts[starts.length - 1] = instanceStart;
+                    overridden.put(uid, starts);
+                }
+            }
+        }
+        for (long[] starts : overridden.values())
+        {
+            Arrays.sort(starts);
+        }
+
+        List<Entry> entries = new ArrayList<Entry>(components.size());
+        for (int i = 0, count = components.size(); i < count; ++i)
+        {
+            ContentComponent component = components.get(i);
+            long[] starts = component.property("RECURRENCE-ID") == null ? overridden.get(uid(component)) : null;
+            RecurrenceSet recurrenceSet = RecurrenceSet.of(component, starts == null ? new long[0] : starts, mFloatingTimeZone);
+            if (recurrenceSet != null)
+            {
+                entries.add(new Entry(href, component, recurrenceSet));
+            }
+        }
+
+        synchronized (this)
+        {
+            remove(href);
+            for (Entry entry : entries)
+            {
+                mIndex.put(entry, entry.mRecurrenceSet.spanStart(), entry.mRecurrenceSet.spanEnd());
+            }
+            mResources.put(href, entries);
+        }
+    }
+
+
+    /**
+     * Removes a calendar object.
+     *
+     * @param href
+     *     The href of the calendar object resource.
+     *
+     * @return <code>true</code> if the resource has been removed, <code>false</code> if it was not in the index.
+     */
+    public synchronized boolean remove(URI href)
+    {
+        List<Entry> entries = mResources.remove(href);
+        if (entries == null)
+        {
+            return false;
+        }
+        for (Entry entry : entries)
+        {
+            mIndex.remove(entry);
+        }
+        return true;
+    }
+
+
+    /**
+     * Removes all calendar objects.
+     */
+    public synchronized void clear()
+    {
+        mResources.clear();
+        mIndex.clear();
+    }
+
+
+    /**
+     * Returns the number of calendar objects in the index.
+     *
+     * @return The number of calendar objects.
+     */
+    public synchronized int size()
+    {
+        return mResources.size();
+    }
+
+
+    /**
+     * Returns all occurrences in the given {@link TimeRange}.
+     *
+     * @param timeRange
+     *     The {@link TimeRange}.
+     *
+     * @return A {@link List} of {@link Occurrence}s, sorted by their start.
+     */
+    public List<Occurrence> query(TimeRange timeRange)
+    {
+        return query(timeRange.getStart(), timeRange.getEnd());
+    }
+
+
+    /**
+     * Returns all occurrences in the given range.
+     *
+     * @param start
+     *     The start of the range or <code>null</code> for an open start.
+     * @param end
+     *     The end of the range (exclusive) or <code>null</code> for an open end.
+     *
+     * @return A {@link List} of {@link Occurrence}s, sorted by their start.
+     */
+    public List<Occurrence> query(DateTime start, DateTime end)
+    {
+        return query(start == null ? Long.MIN_VALUE : start.getTimestamp(), end == null ? Long.MAX_VALUE : end.getTimestamp());
+    }
+
+
+    /**
+     * Returns all occurrences in the given range.
+     *
+     * @param start
+     *     The start of the range in milliseconds since the epoch.
+     * @param end
+     *     The end of the range (exclusive) in milliseconds since the epoch.
+     *
+     * @return A {@link List} of {@link Occurrence}s, sorted by their start.
+     */
+    public List<Occurrence> query(final long start, final long end)
+    {
+        final List<Occurrence> result = new ArrayList<Occurrence>();
+        for (final Entry entry : mIndex.query(start, end))
+        {
+            final RecurrenceSet recurrenceSet = entry.mRecurrenceSet;
+            if (!recurrenceSet.isExact())
+            {
+                result.add(new Occurrence(entry.mHref, entry.mComponent, recurrenceSet.firstStart(), recurrenceSet.firstEnd(), false));
+                continue;
+            }
+            recurrenceSet.instances(start, end, new RecurrenceSet.InstanceVisitor()
+            {
+                @Override
+                public void instance(long instanceStart, long instanceEnd)
+                {
+                    // zero length instances overlap if they start in the range
+                    if (instanceStart < end && (instanceEnd > start || instanceStart >= start))
+                    {
+                        result.add(new Occurrence(entry.mHref, entry.mComponent, instanceStart, instanceEnd, true));
+                    }
+                }
+            });
+        }
+        Collections.sort(result, BY_START);
+        return result;
+    }
+
+
+    private static String uid(ContentComponent component)
+    {
+        ContentLine uid = component.property("UID");
+        return uid == null ? "" : uid.value();
+    }
+
+
+    /**
+     * An indexed component. Entries are compared by identity.
+     */
+    private final static class Entry
+    {
+        private final URI mHref;
+        private final ContentComponent mComponent;
+        private final RecurrenceSet mRecurrenceSet;
+
+
+        private Entry(URI href, ContentComponent component, RecurrenceSet recurrenceSet)
+        {
+            mHref = href;
+            mComponent = component;
+            mRecurrenceSet = recurrenceSet;
+        }
+    }
+}
@@ -150,6 +150,17 @@ public class CalendarQuery extends PropertyRequest
     }
 
 
+    /**
+     * Returns the filter of this query.
+     *
+     * @return The {@link CompFilter} or <code>null</code> if no filter has been set.
+     */
+    public CompFilter getFilter()
+    {
+        return mFilter;
+    }
+
+
     @Override
     public void recycle()
     {
@@ -20,6 +20,7 @@
 package org.dmfs.dav.rfc4791;
 
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
@@ -31,7 +32,6 @@ import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 
@@ -138,7 +138,7 @@ public class MkCalendar implements Recyclable
     {
         if (mSet == null)
         {
-            mSet = new HashMap<ElementDescriptor<?>, Object>(16);
+            mSet = new ElementDescriptorMap<Object>(16);
         }
         mSet.put(property, value);
     }
@@ -0,0 +1,662 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4791;
+
+import org.dmfs.dav.utils.ContentComponent;
+import org.dmfs.dav.utils.ContentLine;
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.Duration;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRule;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+
+/**
+ * The instances of a <code>VEVENT</code>, <code>VTODO</code> or <code>VJOURNAL</code>, including the instances of its recurrence set as specified in <a
+ * href="http://tools.ietf.org/html/rfc5545#section-3.8.5">RFC 5545, section 3.8.5</a>.
+ * <p>
+ * Instances are computed on demand for a given range. The recurrence rule is expanded by a {@link RecurrenceRuleIterator} of <a
+ * href="https://github.com/dmfs/lib-recur">lib-recur</a> that is fast-forwarded to the range. Instances are calculated in the time zone of
+ * <code>DTSTART</code>, so they keep their local time across daylight saving time transitions.
+ * </p>
+ * <p>
+ * All parts of recurrence rules are supported. Rules are parsed in {@link RecurrenceRule.RfcMode#RFC5545_LAX} mode, the instances of rules that can't be
+ * parsed even in that mode are not known, see {@link #isExact()}.
+ * </p>
+ * <p>
+ * Instances are immutable and can be shared among threads.
+ * </p>
+ */
+public final class RecurrenceSet
+{
+    /**
+     * Visits the instances of a {@link RecurrenceSet}.
+     */
+    public interface InstanceVisitor
+    {
+        /**
+         * Called for an instance.
+         *
+         * @param start
+         *     The start of the instance in milliseconds since the epoch.
+         * @param end
+         *     The end of the instance in milliseconds since the epoch.
+         */
+        void instance(long start, long end);
+    }
+
+
+    /**
+     * The maximum number of instances that are visited in a single call to {@link #instances(long, long, InstanceVisitor)}.
+     */
+    public final static int MAX_INSTANCES = 10000;
+
+    private final static String VEVENT = "VEVENT";
+    private final static String VTODO = "VTODO";
+    private final static String VJOURNAL = "VJOURNAL";
+
+    private final static long SECOND = 1000L;
+    private final static long MINUTE = 60 * SECOND;
+    private final static long HOUR = 60 * MINUTE;
+    private final static long DAY = 24 * HOUR;
+
+    private final static long[] NO_DATES = new long[0];
+
+    private final TimeZone mTimeZone;
+    private final DateTime mStart;
+    private final long mFirstStart;
+
+    /**
+     * The nominal days of the duration of each instance.
+     */
+    private final int mDurationDays;
+
+    /**
+     * The exact part of the duration of each instance in milliseconds.
+     */
+    private final long mDurationMillis;
+
+    /**
+     * The recurrence rule or <code>null</code> if the component has no rule or if the rule can't be parsed.
+     */
+    private final RecurrenceRule mRule;
+    private final boolean mIsExact;
+
+    private final long[] mRDates;
+    private final long[] mRDateEnds;
+    private final long[] mExDates;
+
+    private final long mSpanStart;
+    private final long mSpanEnd;
+
+
+    /**
+     * Returns the {@link RecurrenceSet} of the given component.
+     *
+     * @param component
+     *     A <code>VEVENT</code>, <code>VTODO</code> or <code>VJOURNAL</code>.
+     * @param overridden
+     *     The start times of instances that are overridden by other components with a <code>RECURRENCE-ID</code>, sorted in ascending order.
+     * @param floatingTimeZone
+     *     The {@link TimeZone} of floating times and dates.
+     *
+     * @return The {@link RecurrenceSet} or <code>null</code> if the component is not supported or has no date.
+     */
+    public static RecurrenceSet of(ContentComponent component, long[] overridden, TimeZone floatingTimeZone)
+    {
+        String name = component.name();
+        ContentLine start;
+        if (VEVENT.equals(name) || VJOURNAL.equals(name))
+        {
+            start = component.property("DTSTART");
+        }
+        else if (VTODO.equals(name))
+        {
+            start = component.property("DTSTART");
+            if (start == null)
+            {
+                start = component.property("DUE");
+            }
+        }
+        else
+        {
+            return null;
+        }
+
+        DateTime dtStart = parse(start, floatingTimeZone);
+        if (dtStart == null)
+        {
+            return null;
+        }
+        try
+        {
+            return new RecurrenceSet(component, start, dtStart, overridden, floatingTimeZone);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+
+    private RecurrenceSet(ContentComponent component, ContentLine start, DateTime dtStart, long[] overridden, TimeZone floatingTimeZone)
+    {
+        mTimeZone = timeZone(start, floatingTimeZone);
+        mStart = dtStart;
+        mFirstStart = timestamp(calendar(), dtStart);
+
+        int durationDays = 0;
+        long durationMillis = 0;
+        String name = component.name();
+        ContentLine durationProperty = component.property("DURATION");
+        ContentLine end = VEVENT.equals(name) ? component.property("DTEND") : VTODO.equals(name) && start != component.property("DUE") ? component.property(
+            "DUE") : null;
+        long startDay = dayNumber(dtStart.getYear(), dtStart.getMonth(), dtStart.getDayOfMonth());
+        if (durationProperty != null && !VJOURNAL.equals(name))
+        {
+            DateTime dtEnd = dtStart.addDuration(Duration.parse(durationProperty.value().trim()));
+            durationDays = (int) (dayNumber(dtEnd.getYear(), dtEnd.getMonth(), dtEnd.getDayOfMonth()) - startDay);
+            if (!dtEnd.isAllDay())
+            {
+                durationMillis = timeOfDay(dtEnd) - timeOfDay(dtStart);
+            }
+        }
+        else if (end != null)
+        {
+            DateTime dtEnd = parse(end, floatingTimeZone);
+            if (dtEnd != null && dtEnd.isAllDay() && dtStart.isAllDay())
+            {
+                // dates have a nominal duration in days
+                durationDays = (int) (dayNumber(dtEnd.getYear(), dtEnd.getMonth(), dtEnd.getDayOfMonth()) - startDay);
+            }
+            else if (dtEnd != null)
+            {
+                durationMillis = timestamp(end, dtEnd, floatingTimeZone) - mFirstStart;
+            }
+        }
+        else if (!VTODO.equals(name) && dtStart.isAllDay())
+        {
+            durationDays = 1;
+        }
+        if (durationDays < 0 || durationDays == 0 && durationMillis < 0)
+        {
+            durationDays = 0;
+            durationMillis = 0;
+        }
+        mDurationDays = durationDays;
+        mDurationMillis = durationMillis;
+
+        RecurrenceRule rule = null;
+        boolean isExact = true;
+        long[] rDates = NO_DATES;
+        long[] rDateEnds = NO_DATES;
+        long[] exDates = NO_DATES;
+        if (component.property("RECURRENCE-ID") == null)
+        {
+            int rDateCount = 0;
+            int exDateCount = overridden.length;
+            boolean unsorted = false;
+            exDates = overridden;
+
+            List<ContentLine> properties = component.properties();
+            for (int i = 0, count = properties.size(); i < count; ++i)
+            {
+                ContentLine property = properties.get(i);
+                String propertyName = property.name();
+                if ("RRULE".equals(propertyName) && rule == null && isExact)
+                {
+                    try
+                    {
+                        rule = new RecurrenceRule(property.value().trim(), RecurrenceRule.RfcMode.RFC5545_LAX);
+                        // fail early if the rule can't be applied to DTSTART
+                        rule.iterator(dtStart);
+                    }
+                    catch (InvalidRecurrenceRuleException | IllegalArgumentException e)
+                    {
+                        rule = null;
+                        isExact = false;
+                    }
+                }
+                else if ("RDATE".equals(propertyName) || "EXDATE".equals(propertyName))
+                {
+                    boolean isRDate = "RDATE".equals(propertyName);
+                    TimeZone timeZone = property.parameter("TZID") == null ? floatingTimeZone : TimeZone.getTimeZone(property.parameter("TZID"));
+                    String value = property.value();
+                    int valueStart = 0;
+                    while (valueStart < value.length())
+                    {
+                        int valueEnd = value.indexOf(',', valueStart);
+                        if (valueEnd < 0)
+                        {
+                            valueEnd = value.length();
+                        }
+                        String item = value.substring(valueStart, valueEnd).trim();
+                        valueStart = valueEnd + 1;
+
+                        int slash = item.indexOf('/');
+                        DateTime dateTime = parse(slash < 0 ? item : item.substring(0, slash), timeZone);
+                        if (dateTime == null)
+                        {
+                            continue;
+                        }
+                        long timestamp = timestamp(calendar(item.endsWith("Z") || slash > 0 && item.charAt(slash - 1) == 'Z' ? DateTime.UTC : timeZone),
+                            dateTime);
+                        if (isRDate)
+                        {
+                            if (rDateCount == rDates.length)
+                            {
+                                rDates = Arrays.copyOf(rDates, rDateCount * 2 + 4);
+                                rDateEnds = Arrays.copyOf(rDateEnds, rDateCount * 2 + 4);
+                            }
+                            rDates[rDateCount] = timestamp;
+                            rDateEnds[rDateCount] = slash < 0 ? Long.MIN_VALUE : periodEnd(dateTime, item.substring(slash + 1), timeZone);
+                            ++rDateCount;
+                        }
+                        else
+                        {
+                            if (exDateCount == exDates.length)
+                            {
+                                exDates = Arrays.copyOf(exDates, exDateCount * 2 + 4);
+                            }
+                            exDates[exDateCount++] = timestamp;
+                            unsorted = true;
+                        }
+                    }
+                }
+            }
+
+            if (rDateCount > 0)
+            {
+                sort(rDates, rDateEnds, rDateCount);
+                rDates = Arrays.copyOf(rDates, rDateCount);
+                rDateEnds = Arrays.copyOf(rDateEnds, rDateCount);
+            }
+            if (unsorted)
+            {
+                exDates = Arrays.copyOf(exDates, exDateCount);
+                Arrays.sort(exDates);
+            }
+        }
+        mRule = rule;
+        mIsExact = isExact;
+        mRDates = rDates;
+        mRDateEnds = rDateEnds;
+        mExDates = exDates;
+
+        mSpanStart = mRDates.length > 0 ? Math.min(mFirstStart, mRDates[0]) : mFirstStart;
+        mSpanEnd = computeSpanEnd();
+    }
+
+
+    /**
+     * Returns the timestamp of a date or date-time property, like <code>RECURRENCE-ID</code>, in the same way instance start times are computed.
+     *
+     * @param property
+     *     The property.
+     * @param floatingTimeZone
+     *     The {@link TimeZone} of floating times and dates.
+     *
+     * @return The timestamp in milliseconds since the epoch or {@link Long#MIN_VALUE} if the property has no valid value.
+     */
+    public static long timestamp(ContentLine property, TimeZone floatingTimeZone)
+    {
+        DateTime dateTime = parse(property, floatingTimeZone);
+        return dateTime == null ? Long.MIN_VALUE : timestamp(property, dateTime, floatingTimeZone);
+    }
+
+
+    /**
+     * Returns whether the instances of this set are known. If not, only the first instance can be computed.
+     *
+     * @return <code>true</code> if the instances are known, <code>false</code> if the recurrence rule can't be parsed.
+     */
+    public boolean isExact()
+    {
+        return mIsExact;
+    }
+
+
+    /**
+     * Returns the start of the first instance.
+     *
+     * @return The timestamp in milliseconds since the epoch.
+     */
+    public long firstStart()
+    {
+        return mFirstStart;
+    }
+
+
+    /**
+     * Returns the end of the first instance.
+     *
+     * @return The timestamp in milliseconds since the epoch.
+     */
+    public long firstEnd()
+    {
+        return end(calendar(), mFirstStart);
+    }
+
+
+    /**
+     * Returns the earliest start of all instances.
+     *
+     * @return The timestamp in milliseconds since the epoch.
+     */
+    public long spanStart()
+    {
+        return mSpanStart;
+    }
+
+
+    /**
+     * Returns the latest end of all instances or an upper bound of it.
+     *
+     * @return The timestamp in milliseconds since the epoch or {@link Long#MAX_VALUE} if the set is unbounded.
+     */
+    public long spanEnd()
+    {
+        return mSpanEnd;
+    }
+
+
+    /**
+     * Visits all instances that intersect the given closed range, i.e. that start at or before <code>end</code> and end at or after <code>start</code>.
+     * Instances are not necessarily visited in order. If the instances are not exact, only the first instance is visited.
+     *
+     * @param start
+     *     The start of the range.
+     * @param end
+     *     The end of the range.
+     * @param visitor
+     *     The {@link InstanceVisitor} to call for each instance.
+     */
+    public void instances(long start, long end, InstanceVisitor visitor)
+    {
+        Calendar calendar = calendar();
+        // DTSTART is always the first instance, even if the rule doesn't match it
+        visit(calendar, mFirstStart, start, end, visitor);
+        if (mRule != null)
+        {
+            ruleInstances(calendar, start, end, visitor);
+        }
+
+        long[] rDates = mRDates;
+        for (int i = 0; i < rDates.length; ++i)
+        {
+            long rDate = rDates[i];
+            if (rDate > end)
+            {
+                break;
+            }
+            long rDateEnd = mRDateEnds[i] == Long.MIN_VALUE ? end(calendar, rDate) : mRDateEnds[i];
+            if (rDateEnd >= start && !isExcluded(rDate))
+            {
+                visitor.instance(rDate, rDateEnd);
+            }
+        }
+    }
+
+
+    private void visit(Calendar calendar, long instanceStart, long start, long end, InstanceVisitor visitor)
+    {
+        if (instanceStart <= end && !isExcluded(instanceStart))
+        {
+            long instanceEnd = end(calendar, instanceStart);
+            if (instanceEnd >= start)
+            {
+                visitor.instance(instanceStart, instanceEnd);
+            }
+        }
+    }
+
+
+    /**
+     * Visits the instances of the recurrence rule in the given range in ascending order, except for the first instance.
+     */
+    private void ruleInstances(Calendar calendar, long start, long end, InstanceVisitor visitor)
+    {
+        RecurrenceRuleIterator iterator = mRule.iterator(mStart);
+        // the timestamps of floating instances may be off by up to a day, instances that start before the range may still overlap it
+        long slack = 2 * DAY + mDurationDays * (DAY + HOUR) + mDurationMillis;
+        if (start > mFirstStart && start - mFirstStart > slack)
+        {
+            iterator.fastForward(start - slack);
+        }
+
+        int visited = 0;
+        while (iterator.hasNext())
+        {
+            long instanceStart = timestamp(calendar, iterator.nextDateTime());
+            if (instanceStart > end)
+            {
+                return;
+            }
+            if (instanceStart <= mFirstStart || isExcluded(instanceStart))
+            {
+                // the first instance has been visited already
+                continue;
+            }
+            long instanceEnd = end(calendar, instanceStart);
+            if (instanceEnd >= start)
+            {
+                visitor.instance(instanceStart, instanceEnd);
+                if (++visited >= MAX_INSTANCES)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the end of the instance that starts at the given time.
+     */
+    private long end(Calendar calendar, long start)
+    {
+        if (mDurationDays == 0)
+        {
+            return start + mDurationMillis;
+        }
+        calendar.setTimeInMillis(start);
+        calendar.add(Calendar.DAY_OF_MONTH, mDurationDays);
+        return calendar.getTimeInMillis() + mDurationMillis;
+    }
+
+
+    private boolean isExcluded(long start)
+    {
+        return mExDates.length > 0 && Arrays.binarySearch(mExDates, start) >= 0;
+    }
+
+
+    private long computeSpanEnd()
+    {
+        long maxDuration = mDurationDays * (DAY + HOUR) + mDurationMillis;
+        long firstEnd = end(calendar(), mFirstStart);
+        long result;
+        if (mRule == null)
+        {
+            result = firstEnd;
+        }
+        else if (mRule.getUntil() != null)
+        {
+            DateTime until = mRule.getUntil();
+            // a date includes the entire day
+            long untilTimestamp = until.isAllDay() ? timestamp(calendar(), until.getYear(), until.getMonth(), until.getDayOfMonth() + 1, 0, 0, 0) - 1
+                : until.isFloating() ? timestamp(calendar(), until) : until.getTimestamp();
+            result = Math.max(untilTimestamp + maxDuration, firstEnd);
+        }
+        else if (mRule.getCount() != null)
+        {
+            final long[] last = { firstEnd, 0 };
+            ruleInstances(calendar(), Long.MIN_VALUE, Long.MAX_VALUE, new InstanceVisitor()
+            {
+                @Override
+                public void instance(long start, long end)
+                {
+                    last[0] = Math.max(last[0], end);
+                    ++last[1];
+                }
+            });
+            result = last[1] >= MAX_INSTANCES ? Long.MAX_VALUE : last[0];
+        }
+        else
+        {
+            result = Long.MAX_VALUE;
+        }
+
+        long[] rDates = mRDates;
+        for (int i = 0; i < rDates.length && result != Long.MAX_VALUE; ++i)
+        {
+            result = Math.max(result, mRDateEnds[i] == Long.MIN_VALUE ? rDates[i] + maxDuration : mRDateEnds[i]);
+        }
+        return result;
+    }
+
+
+    private long periodEnd(DateTime start, String end, TimeZone timeZone)
+    {
+        DateTime result = end.startsWith("P") || end.startsWith("+P") ? start.addDuration(Duration.parse(end)) : DateTime.parse(
+            end.endsWith("Z") ? DateTime.UTC : timeZone, end);
+        return timestamp(calendar(end.endsWith("Z") ? DateTime.UTC : timeZone), result);
+    }
+
+
+    private Calendar calendar()
+    {
+        return calendar(mTimeZone);
+    }
+
+
+    private static Calendar calendar(TimeZone timeZone)
+    {
+        return new GregorianCalendar(timeZone, Locale.ENGLISH);
+    }
+
+
+    private static long timestamp(Calendar calendar, DateTime dateTime)
+    {
+        return dateTime.isAllDay() ? timestamp(calendar, dateTime.getYear(), dateTime.getMonth(), dateTime.getDayOfMonth(), 0, 0, 0) : timestamp(calendar,
+            dateTime.getYear(), dateTime.getMonth(), dateTime.getDayOfMonth(), dateTime.getHours(), dateTime.getMinutes(), dateTime.getSeconds());
+    }
+
+
+    private static long timestamp(ContentLine property, DateTime dateTime, TimeZone floatingTimeZone)
+    {
+        return timestamp(calendar(timeZone(property, floatingTimeZone)), dateTime);
+    }
+
+
+    private static long timestamp(Calendar calendar, int year, int month, int day, int hours, int minutes, int seconds)
+    {
+        calendar.clear();
+        calendar.set(year, month, day, hours, minutes, seconds);
+        return calendar.getTimeInMillis();
+    }
+
+
+    /**
+     * Returns the time zone of the given date or date-time property.
+     */
+    private static TimeZone timeZone(ContentLine property, TimeZone floatingTimeZone)
+    {
+        if (property.value().trim().endsWith("Z"))
+        {
+            return DateTime.UTC;
+        }
+        String tzId = property.parameter("TZID");
+        return tzId == null ? floatingTimeZone : TimeZone.getTimeZone(tzId);
+    }
+
+
+    private static DateTime parse(ContentLine property, TimeZone floatingTimeZone)
+    {
+        return property == null ? null : parse(property.value().trim(), timeZone(property, floatingTimeZone));
+    }
+
+
+    private static DateTime parse(String value, TimeZone timeZone)
+    {
+        try
+        {
+            return DateTime.parse(timeZone, value);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Returns the milliseconds since midnight of the local time of the given date-time.
+     */
+    private static long timeOfDay(DateTime dateTime)
+    {
+        return dateTime.isAllDay() ? 0 : (dateTime.getHours() * 3600L + dateTime.getMinutes() * 60L + dateTime.getSeconds()) * SECOND;
+    }
+
+
+    /**
+     * Returns the number of days since the epoch of the given date.
+     *
+     * @param month
+     *     The month, starting with <code>0</code> for January.
+     */
+    private static long dayNumber(int year, int month, int day)
+    {
+        int m = month + 1;
+        long y = m <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+
+    /**
+     * Sorts the dates and their ends by the dates.
+     */
+    private static void sort(long[] dates, long[] ends, int count)
+    {
+        for (int i = 1; i < count; ++i)
+        {
+            long date = dates[i];
+            long end = ends[i];
+            int j = i - 1;
+            while (j >= 0 && dates[j] > date)
+            {
+                dates[j + 1] = dates[j];
+                ends[j + 1] = ends[j];
+                --j;
+            }
+            dates[j + 1] = date;
+            ends[j + 1] = end;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4791.filter;
+
+import org.dmfs.dav.rfc4791.CalendarQuery;
+import org.dmfs.dav.utils.Fingerprint;
+import org.dmfs.dav.utils.TextMatcher;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Canonical forms and fingerprints of CalDAV filters, see <a href="http://tools.ietf.org/html/rfc4791#section-9.7">RFC 4791, section 9.7</a>.
+ * <p>
+ * Filters that select the same calendar objects on any server have the same canonical form. A canonical filter has
+ * </p>
+ * <ul>
+ * <li>component, property and parameter names in upper case,</li>
+ * <li>no children if it's an <code>is-not-defined</code> filter,</li>
+ * <li>an explicit collation in each text-match,</li>
+ * <li>its sub-filters sorted and without duplicates (sub-filters are always combined with a logical AND),</li>
+ * <li>time ranges in UTC, which is guaranteed by {@link TimeRange} already,</li>
+ * <li>the text of each text-match folded to lower case if its collation ignores the case, see {@link TextMatcher#fold(String, String)}.</li>
+ * </ul>
+ */
+public final class CanonicalFilter
+{
+    /**
+     * Returns the canonical form of the given filter.
+     *
+     * @param filter
+     *     A {@link CompFilter}.
+     *
+     * @return The canonical {@link CompFilter}.
+     */
+    public static CompFilter canonicalize(CompFilter filter)
+    {
+        String name = filter.name.toUpperCase(Locale.ENGLISH);
+        if (filter.isNotDefined)
+        {
+            return new CompFilter(name, true);
+        }
+
+        StructuredFilter[] filters = null;
+        if (filter.filters != null && filter.filters.length > 0)
+        {
+            Map<String, StructuredFilter> sorted = new TreeMap<String, StructuredFilter>();
+            for (StructuredFilter child : filter.filters)
+            {
+                StructuredFilter canonical = child instanceof CompFilter ? canonicalize((CompFilter) child) : canonicalize((PropFilter) child);
+                sorted.put(key(canonical), canonical);
+            }
+            filters = sorted.values().toArray(new StructuredFilter[sorted.size()]);
+        }
+        return new CompFilter(name, filter.timeRange, filters);
+    }
+
+
+    /**
+     * Returns the canonical form of the given filter.
+     *
+     * @param filter
+     *     A {@link PropFilter}.
+     *
+     * @return The canonical {@link PropFilter}.
+     */
+    public static PropFilter canonicalize(PropFilter filter)
+    {
+        String name = filter.name.toUpperCase(Locale.ENGLISH);
+        if (filter.isNotDefined)
+        {
+            return new PropFilter(name, true);
+        }
+
+        ParamFilter[] filters = null;
+        if (filter.filters != null && filter.filters.length > 0)
+        {
+            Map<String, ParamFilter> sorted = new TreeMap<String, ParamFilter>();
+            for (ParamFilter child : filter.filters)
+            {
+                ParamFilter canonical = canonicalize(child);
+                sorted.put(key(canonical), canonical);
+            }
+            filters = sorted.values().toArray(new ParamFilter[sorted.size()]);
+        }
+        return filter.timeRange != null ? new PropFilter(name, filter.timeRange, filters) : new PropFilter(name, canonicalize(filter.textMatch), filters);
+    }
+
+
+    /**
+     * Returns the canonical form of the given filter as text. Filters with the same canonical form have the same text, so it can serve as a cache key.
+     *
+     * @param filter
+     *     A {@link CompFilter}.
+     *
+     * @return The text of the canonical form.
+     */
+    public static String canonicalForm(CompFilter filter)
+    {
+        return key(canonicalize(filter));
+    }
+
+
+    /**
+     * Returns the canonical form of the filter of the given {@link CalendarQuery} as text, see {@link #canonicalForm(CompFilter)}.
+     *
+     * @param query
+     *     A {@link CalendarQuery}.
+     *
+     * @return The text of the canonical form, an empty {@link String} if the query has no filter.
+     */
+    public static String canonicalForm(CalendarQuery query)
+    {
+        CompFilter filter = query.getFilter();
+        return filter == null ? "" : canonicalForm(filter);
+    }
+
+
+    /**
+     * Returns the fingerprint of the canonical form of the given filter. Filters with the same canonical form have the same fingerprint.
+     *
+     * @param filter
+     *     A {@link CompFilter}.
+     *
+     * @return The fingerprint.
+     */
+    public static long fingerprint(CompFilter filter)
+    {
+        return Fingerprint.of(canonicalForm(filter));
+    }
+
+
+    /**
+     * Returns the fingerprint of the filter of the given {@link CalendarQuery}.
+     *
+     * @param query
+     *     A {@link CalendarQuery}.
+     *
+     * @return The fingerprint, a query without filter has the fingerprint <code>0</code>.
+     */
+    public static long fingerprint(CalendarQuery query)
+    {
+        CompFilter filter = query.getFilter();
+        return filter == null ? 0 : fingerprint(filter);
+    }
+
+
+    private static ParamFilter canonicalize(ParamFilter filter)
+    {
+        String name = filter.name.toUpperCase(Locale.ENGLISH);
+        if (filter.isNotDefined)
+        {
+            return new ParamFilter(name, true);
+        }
+        return filter.textMatch == null ? new ParamFilter(name) : new ParamFilter(name, canonicalize(filter.textMatch));
+    }
+
+
+    private static TextMatch canonicalize(TextMatch textMatch)
+    {
+        if (textMatch == null)
+        {
+            return null;
+        }
+        String collation = textMatch.collation == null ? TextMatch.COLLATION_I_ASCII_CASEMAP : textMatch.collation;
+        return new TextMatch(TextMatcher.fold(textMatch.value, collation), textMatch.negate, collation);
+    }
+
+
+    /**
+     * Returns an unambiguous text representation of a canonical filter.
+     */
+    private static String key(StructuredFilter filter)
+    {
+        StringBuilder builder = new StringBuilder(64);
+        if (filter instanceof CompFilter)
+        {
+            append(builder, (CompFilter) filter);
+        }
+        else
+        {
+            append(builder, (PropFilter) filter);
+        }
+        return builder.toString();
+    }
+
+
+    private static String key(ParamFilter filter)
+    {
+        StringBuilder builder = new StringBuilder(32);
+        append(builder, filter);
+        return builder.toString();
+    }
+
+
+    private static void append(StringBuilder builder, CompFilter filter)
+    {
+        builder.append("comp(");
+        append(builder, filter.name);
+        if (filter.isNotDefined)
+        {
+            builder.append('!');
+        }
+        append(builder, filter.timeRange);
+        if (filter.filters != null)
+        {
+            for (StructuredFilter child : filter.filters)
+            {
+                if (child instanceof CompFilter)
+                {
+                    append(builder, (CompFilter) child);
+                }
+                else
+                {
+                    append(builder, (PropFilter) child);
+                }
+            }
+        }
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, PropFilter filter)
+    {
+        builder.append("prop(");
+        append(builder, filter.name);
+        if (filter.isNotDefined)
+        {
+            builder.append('!');
+        }
+        append(builder, filter.timeRange);
+        append(builder, filter.textMatch);
+        if (filter.filters != null)
+        {
+            for (ParamFilter child : filter.filters)
+            {
+                append(builder, child);
+            }
+        }
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, ParamFilter filter)
+    {
+        builder.append("param(");
+        append(builder, filter.name);
+        if (filter.isNotDefined)
+        {
+            builder.append('!');
+        }
+        append(builder, filter.textMatch);
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, TextMatch textMatch)
+    {
+        if (textMatch != null)
+        {
+            builder.append("text(");
+            append(builder, textMatch.collation);
+            builder.append(textMatch.negate ? '!' : '=');
+            append(builder, textMatch.value);
+            builder.append(')');
+        }
+    }
+
+
+    private static void append(StringBuilder builder, TimeRange timeRange)
+    {
+        if (timeRange != null)
+        {
+            builder.append("time(");
+            if (timeRange.getStart() != null)
+            {
+                builder.append(timeRange.getStart().getTimestamp());
+            }
+            builder.append(',');
+            if (timeRange.getEnd() != null)
+            {
+                builder.append(timeRange.getEnd().getTimestamp());
+            }
+            builder.append(')');
+        }
+    }
+
+
+    /**
+     * Appends a length prefixed string, so the key stays unambiguous whatever the string contains.
+     */
+    private static void append(StringBuilder builder, String value)
+    {
+        if (value == null)
+        {
+            builder.append('-');
+        }
+        else
+        {
+            builder.append(value.length()).append(':').append(value);
+        }
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private CanonicalFilter()
+    {
+    }
+}
@@ -29,6 +29,8 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
 
 
 /**
@@ -184,6 +186,30 @@ public final class CompFilter extends StructuredFilter
     }
 
 
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof CompFilter))
+        {
+            return false;
+        }
+        CompFilter other = (CompFilter) o;
+        return isNotDefined == other.isNotDefined && name.equals(other.name) && Objects.equals(timeRange, other.timeRange) && Arrays.equals(filters,
+            other.filters);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, isNotDefined, timeRange) * 31 + Arrays.hashCode(filters);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
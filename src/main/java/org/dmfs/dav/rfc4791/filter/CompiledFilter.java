@@ -0,0 +1,768 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4791.filter;
+
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4791.RecurrenceSet;
+import org.dmfs.dav.utils.ContentComponent;
+import org.dmfs.dav.utils.ContentLine;
+import org.dmfs.dav.utils.ContentLineParser;
+import org.dmfs.dav.utils.TextMatcher;
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.function.Predicate;
+
+
+/**
+ * A {@link CalDav#FILTER} that has been compiled for local evaluation, as specified in <a href="http://tools.ietf.org/html/rfc4791#section-9.7">RFC 4791,
+ * section 9.7</a>. A filter is compiled once and can be evaluated against any number of calendar objects, which have to be parsed with
+ * {@link ContentLineParser}. Instances are immutable and can be shared among threads.
+ * <p>
+ * Component and property names and text values are matched without creating any objects. Date values are only parsed when a {@link TimeRange} needs them.
+ * </p>
+ * <p>
+ * Limitations:
+ * </p>
+ * <ul>
+ * <li>Recurring components (with an <code>RRULE</code> or <code>RDATE</code>) are expanded with {@link RecurrenceSet}. Instances that are overridden by
+ * another component with a <code>RECURRENCE-ID</code> are not excluded. If the rule can't be parsed, or if the component is the parent of a
+ * <code>VALARM</code>, the component matches a time range if the range ends after the first instance starts. This may return more results than a server,
+ * but never less.</li>
+ * <li><code>TZID</code> parameters are resolved with {@link TimeZone#getTimeZone(String)}, embedded <code>VTIMEZONE</code> definitions are ignored.</li>
+ * <li>Only the collations supported by {@link TextMatcher} can be evaluated.</li>
+ * </ul>
+ */
+public final class CompiledFilter implements Predicate<ContentComponent>
+{
+    /**
+     * The collation that matches text exactly.
+     */
+    public final static String COLLATION_I_OCTET = TextMatcher.COLLATION_I_OCTET;
+
+    private final static String VEVENT = "VEVENT";
+    private final static String VTODO = "VTODO";
+    private final static String VJOURNAL = "VJOURNAL";
+    private final static String VFREEBUSY = "VFREEBUSY";
+    private final static String VALARM = "VALARM";
+
+    private final static Duration ONE_DAY = Duration.parse("P1D");
+
+    private final static long[] NO_OVERRIDES = new long[0];
+
+    private final CompMatcher mRoot;
+    private final TimeZone mFloatingTimeZone;
+
+
+    /**
+     * Compiles the given filter. Floating times are evaluated in UTC.
+     *
+     * @param filter
+     *     The {@link CompFilter} of the <code>filter</code> element, usually for <code>VCALENDAR</code>.
+     *
+     * @return A {@link CompiledFilter}.
+     *
+     * @throws IllegalArgumentException
+     *     if the filter uses an unsupported collation.
+     */
+    public static CompiledFilter compile(CompFilter filter)
+    {
+        return new CompiledFilter(filter, DateTime.UTC);
+    }
+
+
+    /**
+     * Compiles the given filter.
+     *
+     * @param filter
+     *     The {@link CompFilter} of the <code>filter</code> element, usually for <code>VCALENDAR</code>.
+     * @param floatingTimeZone
+     *     The {@link TimeZone} to evaluate floating times and dates in, usually the calendar-timezone of the collection.
+     *
+     * @return A {@link CompiledFilter}.
+     *
+     * @throws IllegalArgumentException
+     *     if the filter uses an unsupported collation.
+     */
+    public static CompiledFilter compile(CompFilter filter, TimeZone floatingTimeZone)
+    {
+        return new CompiledFilter(filter, floatingTimeZone);
+    }
+
+
+    private CompiledFilter(CompFilter filter, TimeZone floatingTimeZone)
+    {
+        mFloatingTimeZone = floatingTimeZone;
+        mRoot = matcher(filter);
+    }
+
+
+    /**
+     * Returns whether the given calendar object matches this filter.
+     *
+     * @param calendar
+     *     The top level component of a calendar object, usually a <code>VCALENDAR</code>.
+     *
+     * @return <code>true</code> if the calendar object matches, <code>false</code> otherwise.
+     */
+    public boolean matches(ContentComponent calendar)
+    {
+        CompMatcher root = mRoot;
+        boolean present = root.mName.equals(calendar.name());
+        if (root.mIsNotDefined)
+        {
+            return !present;
+        }
+        return present && root.matchesComponent(calendar, null);
+    }
+
+
+    @Override
+    public boolean test(ContentComponent calendar)
+    {
+        return matches(calendar);
+    }
+
+
+    private CompMatcher matcher(CompFilter filter)
+    {
+        List<CompMatcher> comps = new ArrayList<CompMatcher>();
+        List<PropMatcher> props = new ArrayList<PropMatcher>();
+        if (filter.filters != null)
+        {
+            for (StructuredFilter child : filter.filters)
+            {
+                if (child instanceof CompFilter)
+                {
+                    comps.add(matcher((CompFilter) child));
+                }
+                else if (child instanceof PropFilter)
+                {
+                    props.add(matcher((PropFilter) child));
+                }
+            }
+        }
+        return new CompMatcher(filter.name.toUpperCase(Locale.ENGLISH), filter.isNotDefined, filter.timeRange, comps.toArray(new CompMatcher[comps.size()]),
+            props.toArray(new PropMatcher[props.size()]));
+    }
+
+
+    private PropMatcher matcher(PropFilter filter)
+    {
+        ParamMatcher[] params = new ParamMatcher[filter.filters == null ? 0 : filter.filters.length];
+        for (int i = 0; i < params.length; ++i)
+        {
+            ParamFilter paramFilter = filter.filters[i];
+            params[i] = new ParamMatcher(paramFilter.name.toUpperCase(Locale.ENGLISH), paramFilter.isNotDefined, matcher(paramFilter.textMatch));
+        }
+        return new PropMatcher(filter.name.toUpperCase(Locale.ENGLISH), filter.isNotDefined, filter.timeRange, matcher(filter.textMatch), params);
+    }
+
+
+    private static TextMatcher matcher(TextMatch textMatch)
+    {
+        return textMatch == null ? null : textMatch.matcher();
+    }
+
+
+    /**
+     * Returns the start of a time range in milliseconds.
+     */
+    private static long rangeStart(TimeRange timeRange)
+    {
+        return timeRange.getStart() == null ? Long.MIN_VALUE : timeRange.getStart().getTimestamp();
+    }
+
+
+    /**
+     * Returns the end of a time range in milliseconds.
+     */
+    private static long rangeEnd(TimeRange timeRange)
+    {
+        return timeRange.getEnd() == null ? Long.MAX_VALUE : timeRange.getEnd().getTimestamp();
+    }
+
+
+    /**
+     * Returns the {@link DateTime} value of the given property. Dates and floating times are converted to absolute times in the floating time zone.
+     *
+     * @return The {@link DateTime} or <code>null</code> if the property is <code>null</code> or has no valid date value.
+     */
+    private DateTime dateTime(ContentLine property)
+    {
+        if (property == null)
+        {
+            return null;
+        }
+        try
+        {
+            String tzId = property.parameter("TZID");
+            TimeZone timeZone = tzId == null ? mFloatingTimeZone : TimeZone.getTimeZone(tzId);
+            DateTime result = DateTime.parse(timeZone, property.value().trim());
+            if (result.isAllDay() || result.isFloating())
+            {
+                result = new DateTime(mFloatingTimeZone, result.getYear(), result.getMonth(), result.getDayOfMonth(), result.getHours(), result.getMinutes(),
+                    result.getSeconds());
+            }
+            return result;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+
+    private static Duration duration(ContentLine property)
+    {
+        if (property == null)
+        {
+            return null;
+        }
+        try
+        {
+            return Duration.parse(property.value().trim());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+
+    private static boolean isDate(ContentLine property)
+    {
+        return property.value().trim().length() == 8;
+    }
+
+
+    private static boolean isRecurring(ContentComponent component)
+    {
+        return component.property("RRULE") != null || component.property("RDATE") != null;
+    }
+
+
+    /**
+     * Evaluates a time range on a component as specified in <a href="http://tools.ietf.org/html/rfc4791#section-9.9">RFC 4791, section 9.9</a>.
+     */
+    private boolean overlaps(ContentComponent component, ContentComponent parent, long start, long end)
+    {
+        String name = component.name();
+        if (VEVENT.equals(name))
+        {
+            return eventOverlaps(component, start, end);
+        }
+        if (VTODO.equals(name))
+        {
+            return todoOverlaps(component, start, end);
+        }
+        if (VJOURNAL.equals(name))
+        {
+            return journalOverlaps(component, start, end);
+        }
+        if (VFREEBUSY.equals(name))
+        {
+            return freeBusyOverlaps(component, start, end);
+        }
+        if (VALARM.equals(name))
+        {
+            return parent != null && alarmOverlaps(component, parent, start, end);
+        }
+        return false;
+    }
+
+
+    private boolean eventOverlaps(ContentComponent event, long start, long end)
+    {
+        ContentLine dtStartProperty = event.property("DTSTART");
+        DateTime dtStart = dateTime(dtStartProperty);
+        if (dtStart == null)
+        {
+            return false;
+        }
+        long eventStart = dtStart.getTimestamp();
+
+        if (isRecurring(event))
+        {
+            return recurrenceOverlaps(event, start, end);
+        }
+
+        DateTime dtEnd = dateTime(event.property("DTEND"));
+        if (dtEnd != null)
+        {
+            long eventEnd = dtEnd.getTimestamp();
+            return (start < eventEnd || start <= eventStart) && (end > eventStart || end >= eventEnd);
+        }
+
+        Duration duration = duration(event.property("DURATION"));
+        if (duration != null)
+        {
+            long eventEnd = dtStart.addDuration(duration).getTimestamp();
+            if (eventEnd > eventStart)
+            {
+                return start < eventEnd && end > eventStart;
+            }
+            return start <= eventStart && end > eventStart;
+        }
+
+        if (isDate(dtStartProperty))
+        {
+            return start < dtStart.addDuration(ONE_DAY).getTimestamp() && end > eventStart;
+        }
+        return start <= eventStart && end > eventStart;
+    }
+
+
+    private boolean todoOverlaps(ContentComponent todo, long start, long end)
+    {
+        DateTime dtStart = dateTime(todo.property("DTSTART"));
+        if (dtStart != null && isRecurring(todo))
+        {
+            return recurrenceOverlaps(todo, start, end);
+        }
+
+        DateTime due = dateTime(todo.property("DUE"));
+        Duration duration = duration(todo.property("DURATION"));
+        if (dtStart != null)
+        {
+            long todoStart = dtStart.getTimestamp();
+            if (duration != null)
+            {
+                long todoEnd = dtStart.addDuration(duration).getTimestamp();
+                return start <= todoEnd && (end > todoStart || end >= todoEnd);
+            }
+            if (due != null)
+            {
+                long todoDue = due.getTimestamp();
+                return (start < todoDue || start <= todoStart) && (end > todoStart || end >= todoDue);
+            }
+            return start <= todoStart && end > todoStart;
+        }
+
+        if (due != null)
+        {
+            long todoDue = due.getTimestamp();
+            return start < todoDue && end >= todoDue;
+        }
+
+        DateTime completed = dateTime(todo.property("COMPLETED"));
+        DateTime created = dateTime(todo.property("CREATED"));
+        if (completed != null && created != null)
+        {
+            long todoCompleted = completed.getTimestamp();
+            long todoCreated = created.getTimestamp();
+            return (start <= todoCreated || start <= todoCompleted) && (end >= todoCreated || end >= todoCompleted);
+        }
+        if (completed != null)
+        {
+            long todoCompleted = completed.getTimestamp();
+            return start <= todoCompleted && end >= todoCompleted;
+        }
+        if (created != null)
+        {
+            return end > created.getTimestamp();
+        }
+        return true;
+    }
+
+
+    private boolean journalOverlaps(ContentComponent journal, long start, long end)
+    {
+        ContentLine dtStartProperty = journal.property("DTSTART");
+        DateTime dtStart = dateTime(dtStartProperty);
+        if (dtStart == null)
+        {
+            return false;
+        }
+        long journalStart = dtStart.getTimestamp();
+        if (isRecurring(journal))
+        {
+            return recurrenceOverlaps(journal, start, end);
+        }
+        if (isDate(dtStartProperty))
+        {
+            return start < dtStart.addDuration(ONE_DAY).getTimestamp() && end > journalStart;
+        }
+        return start <= journalStart && end > journalStart;
+    }
+
+
+    /**
+     * Returns whether any instance of a recurring component overlaps the given time range.
+     */
+    private boolean recurrenceOverlaps(ContentComponent component, final long start, final long end)
+    {
+        RecurrenceSet recurrenceSet = RecurrenceSet.of(component, NO_OVERRIDES, mFloatingTimeZone);
+        if (recurrenceSet == null)
+        {
+            return false;
+        }
+        if (!recurrenceSet.isExact())
+        {
+            // the other instances are not known
+            return end > recurrenceSet.firstStart();
+        }
+
+        final boolean[] result = new boolean[1];
+        recurrenceSet.instances(start, end, new RecurrenceSet.InstanceVisitor()
+        {
+            @Override
+            public void instance(long instanceStart, long instanceEnd)
+            {
+                if (instanceEnd > instanceStart ? start < instanceEnd && end > instanceStart : start <= instanceStart && end > instanceStart)
+                {
+                    result[0] = true;
+                }
+            }
+        });
+        return result[0];
+    }
+
+
+    private boolean freeBusyOverlaps(ContentComponent freeBusy, long start, long end)
+    {
+        boolean hasPeriods = false;
+        List<ContentLine> properties = freeBusy.properties();
+        for (int i = 0, count = properties.size(); i < count; ++i)
+        {
+            ContentLine property = properties.get(i);
+            if (!"FREEBUSY".equals(property.name()))
+            {
+                continue;
+            }
+            hasPeriods = true;
+            String value = property.value();
+            int periodStart = 0;
+            while (periodStart < value.length())
+            {
+                int periodEnd = value.indexOf(',', periodStart);
+                if (periodEnd < 0)
+                {
+                    periodEnd = value.length();
+                }
+                if (periodOverlaps(value.substring(periodStart, periodEnd).trim(), start, end))
+                {
+                    return true;
+                }
+                periodStart = periodEnd + 1;
+            }
+        }
+        if (hasPeriods)
+        {
+            return false;
+        }
+
+        DateTime dtStart = dateTime(freeBusy.property("DTSTART"));
+        DateTime dtEnd = dateTime(freeBusy.property("DTEND"));
+        return dtStart != null && dtEnd != null && start <= dtEnd.getTimestamp() && end > dtStart.getTimestamp();
+    }
+
+
+    private static boolean periodOverlaps(String period, long start, long end)
+    {
+        int slash = period.indexOf('/');
+        if (slash < 0)
+        {
+            return false;
+        }
+        try
+        {
+            DateTime periodStart = DateTime.parse(DateTime.UTC, period.substring(0, slash));
+            String second = period.substring(slash + 1);
+            DateTime periodEnd = second.startsWith("P") || second.startsWith("+P") ? periodStart.addDuration(Duration.parse(second)) : DateTime.parse(
+                DateTime.UTC, second);
+            return start < periodEnd.getTimestamp() && end > periodStart.getTimestamp();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+
+    private boolean alarmOverlaps(ContentComponent alarm, ContentComponent parent, long start, long end)
+    {
+        ContentLine trigger = alarm.property("TRIGGER");
+        if (trigger == null)
+        {
+            return false;
+        }
+
+        DateTime triggerTime;
+        if ("DATE-TIME".equalsIgnoreCase(trigger.parameter("VALUE")))
+        {
+            triggerTime = dateTime(trigger);
+        }
+        else
+        {
+            Duration offset = duration(trigger);
+            DateTime base = "END".equalsIgnoreCase(trigger.parameter("RELATED")) ? parentEnd(parent) : dateTime(parent.property("DTSTART"));
+            triggerTime = offset == null || base == null ? null : base.addDuration(offset);
+        }
+        if (triggerTime == null)
+        {
+            return false;
+        }
+
+        if (isRecurring(parent))
+        {
+            return end > triggerTime.getTimestamp();
+        }
+
+        int repeat = 0;
+        ContentLine repeatProperty = alarm.property("REPEAT");
+        Duration interval = duration(alarm.property("DURATION"));
+        if (repeatProperty != null && interval != null)
+        {
+            try
+            {
+                repeat = Integer.parseInt(repeatProperty.value().trim());
+            }
+            catch (NumberFormatException e)
+            {
+                // ignore the repetitions
+            }
+        }
+
+        for (int i = 0; i <= repeat; ++i)
+        {
+            long time = triggerTime.getTimestamp();
+            if (start <= time && end > time)
+            {
+                return true;
+            }
+            if (i < repeat)
+            {
+                triggerTime = triggerTime.addDuration(interval);
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Returns the end of an event or the due date of a to-do.
+     */
+    private DateTime parentEnd(ContentComponent parent)
+    {
+        DateTime result = dateTime(parent.property(VTODO.equals(parent.name()) ? "DUE" : "DTEND"));
+        if (result == null)
+        {
+            DateTime dtStart = dateTime(parent.property("DTSTART"));
+            Duration duration = duration(parent.property("DURATION"));
+            if (dtStart != null && duration != null)
+            {
+                result = dtStart.addDuration(duration);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Matches a comp-filter.
+     */
+    private final class CompMatcher
+    {
+        private final String mName;
+        private final boolean mIsNotDefined;
+        private final boolean mHasTimeRange;
+        private final long mStart;
+        private final long mEnd;
+        private final CompMatcher[] mComps;
+        private final PropMatcher[] mProps;
+
+
+        private CompMatcher(String name, boolean isNotDefined, TimeRange timeRange, CompMatcher[] comps, PropMatcher[] props)
+        {
+            mName = name;
+            mIsNotDefined = isNotDefined;
+            mHasTimeRange = timeRange != null;
+            mStart = timeRange == null ? Long.MIN_VALUE : rangeStart(timeRange);
+            mEnd = timeRange == null ? Long.MAX_VALUE : rangeEnd(timeRange);
+            mComps = comps;
+            mProps = props;
+        }
+
+
+        /**
+         * Returns whether the given parent has a sub-component that matches (or no such sub-component if this is an is-not-defined filter).
+         */
+        boolean matchesChildOf(ContentComponent parent)
+        {
+            List<ContentComponent> components = parent.components();
+            for (int i = 0, count = components.size(); i < count; ++i)
+            {
+                ContentComponent component = components.get(i);
+                if (mName.equals(component.name()))
+                {
+                    if (mIsNotDefined)
+                    {
+                        return false;
+                    }
+                    if (matchesComponent(component, parent))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return mIsNotDefined;
+        }
+
+
+        boolean matchesComponent(ContentComponent component, ContentComponent parent)
+        {
+            if (mHasTimeRange && !overlaps(component, parent, mStart, mEnd))
+            {
+                return false;
+            }
+            for (CompMatcher comp : mComps)
+            {
+                if (!comp.matchesChildOf(component))
+                {
+                    return false;
+                }
+            }
+            for (PropMatcher prop : mProps)
+            {
+                if (!prop.matches(component))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Matches a prop-filter.
+     */
+    private final class PropMatcher
+    {
+        private final String mName;
+        private final boolean mIsNotDefined;
+        private final boolean mHasTimeRange;
+        private final long mStart;
+        private final long mEnd;
+        private final TextMatcher mText;
+        private final ParamMatcher[] mParams;
+
+
+        private PropMatcher(String name, boolean isNotDefined, TimeRange timeRange, TextMatcher text, ParamMatcher[] params)
+        {
+            mName = name;
+            mIsNotDefined = isNotDefined;
+            mHasTimeRange = timeRange != null;
+            mStart = timeRange == null ? Long.MIN_VALUE : rangeStart(timeRange);
+            mEnd = timeRange == null ? Long.MAX_VALUE : rangeEnd(timeRange);
+            mText = text;
+            mParams = params;
+        }
+
+
+        boolean matches(ContentComponent component)
+        {
+            List<ContentLine> properties = component.properties();
+            for (int i = 0, count = properties.size(); i < count; ++i)
+            {
+                ContentLine property = properties.get(i);
+                if (mName.equals(property.name()))
+                {
+                    if (mIsNotDefined)
+                    {
+                        return false;
+                    }
+                    if (matchesProperty(property))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return mIsNotDefined;
+        }
+
+
+        private boolean matchesProperty(ContentLine property)
+        {
+            if (mHasTimeRange)
+            {
+                DateTime value = dateTime(property);
+                if (value == null || mStart > value.getTimestamp() || mEnd <= value.getTimestamp())
+                {
+                    return false;
+                }
+            }
+            if (mText != null && !mText.matches(property.value()))
+            {
+                return false;
+            }
+            for (ParamMatcher param : mParams)
+            {
+                if (!param.matches(property))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Matches a param-filter.
+     */
+    private final static class ParamMatcher
+    {
+        private final String mName;
+        private final boolean mIsNotDefined;
+        private final TextMatcher mText;
+
+
+        private ParamMatcher(String name, boolean isNotDefined, TextMatcher text)
+        {
+            mName = name;
+            mIsNotDefined = isNotDefined;
+            mText = text;
+        }
+
+
+        boolean matches(ContentLine property)
+        {
+            for (int i = 0, count = property.parameterCount(); i < count; ++i)
+            {
+                if (mName.equals(property.parameterName(i)))
+                {
+                    if (mIsNotDefined)
+                    {
+                        return false;
+                    }
+                    if (mText == null || mText.matches(property.parameterValue(i)))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return mIsNotDefined;
+        }
+    }
+}
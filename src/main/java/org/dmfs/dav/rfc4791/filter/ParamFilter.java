@@ -29,6 +29,7 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 
 /**
@@ -135,6 +136,29 @@ public final class ParamFilter extends CalDavFilter
     }
 
 
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof ParamFilter))
+        {
+            return false;
+        }
+        ParamFilter other = (ParamFilter) o;
+        return isNotDefined == other.isNotDefined && Objects.equals(name, other.name) && Objects.equals(textMatch, other.textMatch);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, isNotDefined, textMatch);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
@@ -29,6 +29,8 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
 
 
 /**
@@ -177,6 +179,30 @@ public final class PropFilter extends StructuredFilter
     }
 
 
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof PropFilter))
+        {
+            return false;
+        }
+        PropFilter other = (PropFilter) o;
+        return isNotDefined == other.isNotDefined && Objects.equals(name, other.name) && Objects.equals(timeRange, other.timeRange) && Objects.equals(
+            textMatch, other.textMatch) && Arrays.equals(filters, other.filters);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, isNotDefined, timeRange, textMatch) * 31 + Arrays.hashCode(filters);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
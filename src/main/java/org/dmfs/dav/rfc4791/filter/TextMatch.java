@@ -20,6 +20,7 @@
 package org.dmfs.dav.rfc4791.filter;
 
 import org.dmfs.dav.FilterBase;
+import org.dmfs.dav.utils.TextMatcher;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -29,6 +30,7 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 
 /**
@@ -89,6 +91,11 @@ public final class TextMatch extends CalDavFilter
      */
     public final boolean negate;
 
+    /**
+     * The {@link TextMatcher} of this filter, created on demand.
+     */
+    private TextMatcher mMatcher;
+
 
     /**
      * Creates a non-negated, case-insensitive text-match filter, using the default collation {@link #COLLATION_I_ASCII_CASEMAP}.
@@ -151,6 +158,51 @@ public final class TextMatch extends CalDavFilter
     }
 
 
+    /**
+     * Returns a {@link TextMatcher} that matches values like a server would evaluate this filter. Filters without a collation use the default collation
+     * {@link #COLLATION_I_ASCII_CASEMAP}. The matcher is created on the first call.
+     *
+     * @return A {@link TextMatcher}.
+     *
+     * @throws IllegalArgumentException
+     *     if the collation is not supported by {@link TextMatcher}.
+     */
+    public TextMatcher matcher()
+    {
+        TextMatcher matcher = mMatcher;
+        if (matcher == null)
+        {
+            // this is racy, but in the worst case we just create the same matcher twice
+            matcher = mMatcher = new TextMatcher(value == null ? "" : value, collation == null ? COLLATION_I_ASCII_CASEMAP : collation,
+                TextMatcher.MATCH_CONTAINS, negate);
+        }
+        return matcher;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof TextMatch))
+        {
+            return false;
+        }
+        TextMatch other = (TextMatch) o;
+        return negate == other.negate && Objects.equals(value, other.value) && Objects.equals(collation, other.collation);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(value, collation, negate);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
@@ -172,6 +172,57 @@ public final class TimeRange extends CalDavFilter
     }
 
 
+    /**
+     * Returns the start of this time range in UTC.
+     *
+     * @return The start {@link DateTime} or <code>null</code> if the range is open in the past.
+     */
+    public DateTime getStart()
+    {
+        return start;
+    }
+
+
+    /**
+     * Returns the end of this time range in UTC.
+     *
+     * @return The end {@link DateTime} or <code>null</code> if the range is open in the future.
+     */
+    public DateTime getEnd()
+    {
+        return end;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof TimeRange))
+        {
+            return false;
+        }
+        TimeRange other = (TimeRange) o;
+        return timestamp(start) == timestamp(other.start) && timestamp(end) == timestamp(other.end);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(timestamp(start)) * 31 + Long.hashCode(timestamp(end));
+    }
+
+
+    private static long timestamp(DateTime dateTime)
+    {
+        return dateTime == null ? Long.MIN_VALUE : dateTime.getTimestamp();
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
@@ -19,20 +19,33 @@
 
 package org.dmfs.dav.rfc4918;
 
+import org.dmfs.dav.utils.ElementDescriptorMap;
+import org.dmfs.dav.utils.SnapshotInput;
+import org.dmfs.dav.utils.SnapshotOutput;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
 import org.dmfs.xmlobjects.pull.ParserContext;
 import org.dmfs.xmlobjects.pull.Recyclable;
 import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
 
 
 /**
  * Implements the error element as defined in <a href="http://tools.ietf.org/html/rfc4918#section-14.5">RFC 4918 section 14.5</a>.
- *
  * <p>
- * TODO: store any pre- or postcondition and the actual error message. At present we don't store anything inside of that element. The problem is that is allows
- * any content, which makes it difficult to map to Java Objects. We probably need a generic XmlNode Object that stores any attributes, child nodes and text.
+ * An error stores the pre- and postconditions it contains, as long as they have a registered {@link ElementDescriptor}, like the ones in
+ * {@link WebDav.PreConditions} and {@link WebDav.PostConditions}.
+ * </p>
+ * <p>
+ * TODO: store unknown elements and the actual error message. The problem is that the element allows any content, which makes it difficult to map to Java
+ * Objects. We probably need a generic XmlNode Object that stores any attributes, child nodes and text.
  * </p>
  */
 public class Error implements Recyclable
@@ -54,13 +67,147 @@ public class Error implements Recyclable
         }
 
 
+        ;
+
+
+        @Override
+        public <V> Error update(ElementDescriptor<Error> descriptor, Error object, ElementDescriptor<V> childDescriptor, V child, ParserContext context)
+            throws XmlObjectPullParserException
+        {
+            object.addCondition(childDescriptor, child);
+            return object;
+        }
+
+
+        ;
+
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void writeChildren(ElementDescriptor<Error> descriptor, Error object, IXmlChildWriter childWriter, SerializerContext context)
+            throws SerializerException, IOException
+        {
+            ElementDescriptorMap<Object> conditions = object.mConditions;
+            if (conditions != null)
+            {
+                for (int i = 0, count = conditions.size(); i < count; ++i)
+                {
+                    childWriter.writeChild((ElementDescriptor<Object>) conditions.keyAt(i), conditions.valueAt(i), context);
+                }
+            }
+        }
+
+
         ;
     };
 
+    /**
+     * The conditions of this error mapped to their values or <code>null</code> if there are no conditions.
+     */
+    private ElementDescriptorMap<Object> mConditions;
+
+
+    /**
+     * Adds a pre- or postcondition to this error.
+     *
+     * @param condition
+     *     The {@link ElementDescriptor} of the condition.
+     * @param value
+     *     The value of the condition, may be <code>null</code> if the condition has no content.
+     *
+     * @return This instance.
+     */
+    public <T> Error addCondition(ElementDescriptor<T> condition, T value)
+    {
+        if (mConditions == null)
+        {
+            mConditions = new ElementDescriptorMap<Object>(2);
+        }
+        mConditions.put(condition, value);
+        return this;
+    }
+
+
+    /**
+     * Returns whether this error contains the given condition.
+     *
+     * @param condition
+     *     The {@link ElementDescriptor} of the condition.
+     *
+     * @return <code>true</code> if this error contains the condition.
+     */
+    public boolean hasCondition(ElementDescriptor<?> condition)
+    {
+        return mConditions != null && mConditions.containsKey(condition);
+    }
+
+
+    /**
+     * Returns the value of the given condition.
+     *
+     * @param condition
+     *     The {@link ElementDescriptor} of the condition.
+     *
+     * @return The value or <code>null</code> if the condition has no value or is not contained in this error, see {@link #hasCondition(ElementDescriptor)}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getCondition(ElementDescriptor<T> condition)
+    {
+        return mConditions == null ? null : (T) mConditions.get(condition);
+    }
+
+
+    /**
+     * Returns the conditions of this error.
+     *
+     * @return An unmodifiable {@link Set} of the {@link ElementDescriptor}s of all conditions, never <code>null</code>.
+     */
+    public Set<ElementDescriptor<?>> getConditions()
+    {
+        return mConditions == null ? Collections.<ElementDescriptor<?>>emptySet() : Collections.unmodifiableSet(mConditions.keySet());
+    }
+
 
     @Override
     public void recycle()
     {
+        if (mConditions != null)
+        {
+            mConditions.clear();
+        }
+    }
 
+
+    void writeTo(SnapshotOutput out) throws IOException
+    {
+        ElementDescriptorMap<Object> conditions = mConditions;
+        if (conditions == null)
+        {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(conditions.size());
+        for (int i = 0, count = conditions.size(); i < count; ++i)
+        {
+            out.writeDescriptor(conditions.keyAt(i));
+            out.writeValue(conditions.valueAt(i));
+        }
+    }
+
+
+    static Error readFrom(SnapshotInput in) throws IOException
+    {
+        Error result = new Error();
+        int size = in.readVarInt();
+        if (size > 0)
+        {
+            ElementDescriptorMap<Object> conditions = new ElementDescriptorMap<Object>(size);
+            for (int i = 0; i < size; ++i)
+            {
+                conditions.put(in.readDescriptor(), in.readValue());
+            }
+            result.mConditions = conditions;
+        }
+        return result;
     }
 }
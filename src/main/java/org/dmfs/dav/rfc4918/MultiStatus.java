@@ -19,7 +19,10 @@
 
 package org.dmfs.dav.rfc4918;
 
+import org.dmfs.dav.DavParserContext;
 import org.dmfs.dav.rfc6578.WebDavSync;
+import org.dmfs.dav.utils.SnapshotInput;
+import org.dmfs.dav.utils.SnapshotOutput;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
@@ -30,7 +33,11 @@ import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -61,7 +68,9 @@ import java.util.List;
  * &lt;!-- DAV:responsedescription defined in RFC 4918, Section 14.25 --&gt;
  * </pre>
  * <p>
- * TODO: we probably shouldn't use a list to store responses. Instead we could switch to something that allows to render the response on the fly.
+ * By default all responses are collected in a {@link List}. To process large responses with constant memory set a {@link ResponseHandler} on the
+ * {@link DavParserContext}, in that case every response is handed to the handler and recycled immediately.
+ * </p>
  */
 public class MultiStatus implements Recyclable
 {
@@ -74,6 +83,10 @@ public class MultiStatus implements Recyclable
         @Override
         public MultiStatus get(ElementDescriptor<MultiStatus> descriptor, MultiStatus recycle, ParserContext context) throws XmlObjectPullParserException
         {
+            if (recycle == null && context instanceof DavParserContext)
+            {
+                recycle = ((DavParserContext) context).getPooledObject(descriptor);
+            }
             if (recycle != null)
             {
                 recycle.recycle();
@@ -89,6 +102,17 @@ public class MultiStatus implements Recyclable
         {
             if (childDescriptor == WebDav.RESPONSE)
             {
+                ResponseHandler handler = context instanceof DavParserContext ? ((DavParserContext) context).getResponseHandler() : null;
+                if (handler != null)
+                {
+                    // process the response on-the-fly and recycle it, we don't keep it
+                    handler.onResponse((Response) child);
+                    // recycle it right away, so it doesn't keep the property values alive, which may have been taken by the handler
+                    ((Response) child).recycle();
+                    context.recycle(WebDav.RESPONSE, (Response) child);
+                    return object;
+                }
+
                 List<Response> responses = object.mResponses;
                 if (responses == null)
                 {
@@ -120,6 +144,26 @@ public class MultiStatus implements Recyclable
                     childWriter.writeChild(WebDav.RESPONSE, iterator.next(), context);
                 }
             }
+            if (object.mResponseIterator != null)
+            {
+                // pull the responses one by one, each response is written before the next one is requested
+                Iterator<Response> iterator = object.mResponseIterator;
+                Flushable flushable = object.mFlushable;
+                int chunkSize = object.mChunkSize;
+                object.mResponseIterator = null;
+                object.mFlushable = null;
+                int count = 0;
+                while (iterator.hasNext())
+                {
+                    childWriter.writeChild(WebDav.RESPONSE, iterator.next(), context);
+                    if (flushable != null && ++count == chunkSize)
+                    {
+                        // get this chunk onto the wire
+                        flushable.flush();
+                        count = 0;
+                    }
+                }
+            }
             if (object.mResponseDescription != null)
             {
                 childWriter.writeChild(WebDav.RESPONSEDESCRIPTION, object.mResponseDescription, context);
@@ -137,6 +181,24 @@ public class MultiStatus implements Recyclable
      */
     private List<Response> mResponses;
 
+    /**
+     * Whether {@link #mResponses} has been created by the parser. Lists set via {@link #setResponses(List)} belong to the caller, so we must not clear or
+     * recycle them.
+     */
+    private boolean mOwnsResponses = true;
+
+    /**
+     * An {@link Iterator} of {@link Response}s to serialize or <code>null</code>.
+     */
+    private Iterator<Response> mResponseIterator;
+
+    /**
+     * The {@link Flushable} to flush after every {@link #mChunkSize} responses of {@link #mResponseIterator} or <code>null</code>.
+     */
+    private Flushable mFlushable;
+
+    private int mChunkSize;
+
     /**
      * A response description.
      */
@@ -154,6 +216,63 @@ public class MultiStatus implements Recyclable
     public void setResponses(List<Response> responses)
     {
         mResponses = responses;
+        mOwnsResponses = false;
+        mResponseIterator = null;
+        mFlushable = null;
+    }
+
+
+    /**
+     * Sets an {@link Iterator} of responses to serialize. The responses are pulled from the iterator while the multistatus element is being serialized and
+     * each one is written before the next one is requested. So the server can start sending a response before all members have been enumerated and the
+     * memory footprint doesn't depend on the number of responses. The {@link Iterator} may even return the same {@link Response} instance over and over
+     * again, refilled with the data of the next member.
+     * <p>
+     * The {@link Iterator} is consumed by the serializer, so this {@link MultiStatus} can be serialized only once. All responses that may have been added
+     * before will be removed by this call.
+     * </p>
+     * <p>
+     * Note that responses are written to the output of the serializer as they come, but the serializer may buffer them. Use
+     * {@link #setResponses(Iterator, Flushable, int)} to flush the output periodically.
+     * </p>
+     *
+     * @param responses
+     *     An {@link Iterator} of {@link Response}s.
+     */
+    public void setResponses(Iterator<Response> responses)
+    {
+        mResponses = null;
+        mOwnsResponses = true;
+        mResponseIterator = responses;
+        mFlushable = null;
+        mChunkSize = 0;
+    }
+
+
+    /**
+     * Sets an {@link Iterator} of responses to serialize like {@link #setResponses(Iterator)} and flushes the output after every <code>chunkSize</code>
+     * responses. This gets the responses onto the wire in chunks, even if the serializer or the output are buffered.
+     * <p>
+     * The {@link Flushable} must flush the serializer and the output it writes to. With an {@link org.xmlpull.v1.XmlSerializer} that's just
+     * <code>serializer::flush</code>.
+     * </p>
+     *
+     * @param responses
+     *     An {@link Iterator} of {@link Response}s.
+     * @param flushable
+     *     The {@link Flushable} to call after each chunk.
+     * @param chunkSize
+     *     The number of responses in each chunk, must be positive.
+     */
+    public void setResponses(Iterator<Response> responses, Flushable flushable, int chunkSize)
+    {
+        if (chunkSize <= 0)
+        {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        setResponses(responses);
+        mFlushable = flushable;
+        mChunkSize = chunkSize;
     }
 
 
@@ -191,6 +310,94 @@ public class MultiStatus implements Recyclable
     }
 
 
+    /**
+     * Sets the response description. This is used by parsers that don't use {@link #BUILDER}.
+     */
+    void setResponseDescription(String responseDescription)
+    {
+        mResponseDescription = responseDescription;
+    }
+
+
+    /**
+     * Sets the sync-token. This is used by parsers that don't use {@link #BUILDER}.
+     */
+    void setSyncToken(String syncToken)
+    {
+        mSyncToken = syncToken;
+    }
+
+
+    /**
+     * Writes this {@link MultiStatus} in a compact binary format that can be read by {@link #readFrom(DataInput)}. This is much faster and smaller than
+     * serializing it to XML. Like the XML serializer this consumes the {@link Iterator} set with {@link #setResponses(Iterator)}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     *
+     * @throws IOException
+     *     if the output can't be written or a property value has an unsupported type, see {@link SnapshotOutput}.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        out.writeByte(SnapshotOutput.FORMAT_VERSION);
+        SnapshotOutput snapshot = new SnapshotOutput(out);
+        snapshot.writeString(mResponseDescription);
+        snapshot.writeString(mSyncToken);
+        if (mResponses != null)
+        {
+            for (Response response : mResponses)
+            {
+                out.writeBoolean(true);
+                response.writeTo(snapshot);
+            }
+        }
+        if (mResponseIterator != null)
+        {
+            Iterator<Response> iterator = mResponseIterator;
+            mResponseIterator = null;
+            while (iterator.hasNext())
+            {
+                out.writeBoolean(true);
+                iterator.next().writeTo(snapshot);
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+
+    /**
+     * Reads a {@link MultiStatus} written by {@link #writeTo(DataOutput)}. The classes that declare the properties must have been initialized.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return A new {@link MultiStatus}.
+     *
+     * @throws IOException
+     *     if the input can't be read, is malformed or contains properties that are not known in this process.
+     */
+    public static MultiStatus readFrom(DataInput in) throws IOException
+    {
+        int version = in.readUnsignedByte();
+        if (version != SnapshotOutput.FORMAT_VERSION)
+        {
+            throw new StreamCorruptedException("Unsupported snapshot version " + version);
+        }
+        SnapshotInput snapshot = new SnapshotInput(in);
+        MultiStatus result = new MultiStatus();
+        result.mResponseDescription = snapshot.readString();
+        result.mSyncToken = snapshot.readString();
+        List<Response> responses = new ArrayList<Response>(32);
+        while (in.readBoolean())
+        {
+            responses.add(Response.readFrom(snapshot));
+        }
+        result.mResponses = responses;
+        return result;
+    }
+
+
     /**
      * Resolve the {@link URI}s of the {@link Response} href elements objects against the given {@link URI}. This will only work for {@link Response} objects
      * stored in this {@link MultiStatus}.
@@ -216,11 +423,47 @@ public class MultiStatus implements Recyclable
     @Override
     public void recycle()
     {
-        if (mResponses != null)
+        if (!mOwnsResponses)
         {
+            // not our list, just drop it
+            mResponses = null;
+            mOwnsResponses = true;
+        }
+        else if (mResponses != null)
+        {
+            // Note: we don't recycle the responses, because the client may still use them
             mResponses.clear();
         }
+        mResponseIterator = null;
+        mFlushable = null;
+        mChunkSize = 0;
         mResponseDescription = null;
         mSyncToken = null;
     }
+
+
+    /**
+     * Recycles this {@link MultiStatus} and returns all of its {@link Response}s to the given {@link ParserContext}, so the next parser can reuse them. With
+     * an {@link org.dmfs.dav.utils.ObjectPool} (see {@link DavParserContext#setObjectPool(org.dmfs.dav.utils.ObjectPool)}) the responses are added to the
+     * pool.
+     * <p>
+     * <strong>Note:</strong> Only call this when none of the responses is used anymore. Property values are not affected, they can still be used afterwards.
+     * Responses set via {@link #setResponses(List)} belong to the caller, they are not returned.
+     * </p>
+     *
+     * @param context
+     *     The {@link ParserContext} to return the responses to.
+     */
+    public void recycle(ParserContext context)
+    {
+        if (mOwnsResponses && mResponses != null)
+        {
+            List<Response> responses = mResponses;
+            for (int i = 0, count = responses.size(); i < count; ++i)
+            {
+                context.recycle(WebDav.RESPONSE, responses.get(i));
+            }
+        }
+        recycle();
+    }
 }
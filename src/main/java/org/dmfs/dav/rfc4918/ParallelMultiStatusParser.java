@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.utils.ByteBufferInputStream;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+
+/**
+ * A parser that parses large multistatus documents on multiple threads.
+ * <p>
+ * The document is scanned for the boundaries of the top-level <code>response</code> elements first. The responses are split into chunks of roughly
+ * {@link #setChunkSize(int)} bytes, each chunk is wrapped into a multistatus element with the namespace declarations of the original document and parsed by
+ * a task of a {@link ForkJoinPool}, each with its own {@link ParserContext}. The results are merged in document order, including the
+ * <code>responsedescription</code> and the <code>sync-token</code>.
+ * </p>
+ * <p>
+ * The scanner works on the raw bytes, so the document must be in UTF-8 or another ASCII compatible encoding. Documents that can't be split (for instance
+ * because they contain a DTD) are parsed on the calling thread.
+ * </p>
+ * <p>
+ * <strong>Note:</strong> If the contexts have a {@link ResponseHandler}, it's called concurrently by multiple threads and in no particular order.
+ * </p>
+ */
+public final class ParallelMultiStatusParser
+{
+    /**
+     * The default chunk size in bytes.
+     */
+    public final static int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final static XmlPath ROOT_PATH = new XmlPath();
+
+    private final ForkJoinPool mPool;
+    private final Supplier<? extends ParserContext> mContextFactory;
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+
+
+    /**
+     * Create a {@link ParallelMultiStatusParser} that runs on the common {@link ForkJoinPool} and uses default {@link DavParserContext}s.
+     */
+    public ParallelMultiStatusParser()
+    {
+        this(ForkJoinPool.commonPool(), DavParserContext::new);
+    }
+
+
+    /**
+     * Create a {@link ParallelMultiStatusParser}.
+     *
+     * @param pool
+     *     The {@link ForkJoinPool} to parse the chunks on.
+     * @param contextFactory
+     *     A {@link Supplier} of {@link ParserContext}s, it's called once per chunk.
+     */
+    public ParallelMultiStatusParser(ForkJoinPool pool, Supplier<? extends ParserContext> contextFactory)
+    {
+        mPool = pool;
+        mContextFactory = contextFactory;
+    }
+
+
+    /**
+     * Set the size of the chunks to parse in parallel. Smaller chunks distribute better among threads, larger chunks have less overhead.
+     *
+     * @param chunkSize
+     *     The approximate number of bytes per chunk.
+     *
+     * @return This instance.
+     */
+    public ParallelMultiStatusParser setChunkSize(int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        mChunkSize = chunkSize;
+        return this;
+    }
+
+
+    /**
+     * Parse the given multistatus document.
+     *
+     * @param document
+     *     The document.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(byte[] document) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        return parse(ByteBuffer.wrap(document));
+    }
+
+
+    /**
+     * Parse the multistatus document in the remaining bytes of the given {@link ByteBuffer}. The position and the limit of the buffer are not modified, so
+     * it's fine to pass a {@link java.nio.MappedByteBuffer} of a large file.
+     *
+     * @param document
+     *     The document.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(ByteBuffer document) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final int start = document.position();
+        final int end = document.limit();
+
+        XmlTagScanner scanner = new XmlTagScanner(document, start, end);
+
+        // find the root element
+        // the scanner skips the XML declaration, so any declaration it returns is a DTD which may declare entities we can't split
+        int type = scanner.next();
+        if (type != XmlTagScanner.START_TAG || !scanner.localNameEquals("multistatus"))
+        {
+            // a DTD, an empty multistatus or something we don't understand, let the real parser handle it
+            return parseSequentially(new ByteBufferInputStream(document, start, end));
+        }
+
+        final int rootTagEnd = scanner.mTagEnd;
+        final byte[] rootEndTag = ("</" + scanner.name() + ">").getBytes(StandardCharsets.US_ASCII);
+
+        // collect the chunks of responses and all other children of the root element
+        List<int[]> chunks = new ArrayList<int[]>();
+        List<int[]> others = new ArrayList<int[]>();
+        int chunkStart = -1;
+        int chunkEnd = -1;
+        int childStart = -1;
+        boolean childIsResponse = false;
+        int depth = 1;
+
+        while (depth > 0)
+        {
+            type = scanner.next();
+            if (type == XmlTagScanner.EOF || type == XmlTagScanner.DECLARATION)
+            {
+                // truncated or broken, let the real parser report the error
+                return parseSequentially(new ByteBufferInputStream(document, start, end));
+            }
+
+            if (type == XmlTagScanner.END_TAG)
+            {
+                --depth;
+            }
+            else if (depth == 1)
+            {
+                childStart = scanner.mTagStart;
+                childIsResponse = scanner.localNameEquals("response");
+                if (type == XmlTagScanner.START_TAG)
+                {
+                    ++depth;
+                }
+            }
+            else if (type == XmlTagScanner.START_TAG)
+            {
+                ++depth;
+            }
+
+            if (depth == 1 && childStart >= 0)
+            {
+                // a child of the root element just ended
+                int childEnd = scanner.mTagEnd;
+                if (childIsResponse)
+                {
+                    if (chunkStart < 0)
+                    {
+                        chunkStart = childStart;
+                    }
+                    chunkEnd = childEnd;
+                    if (chunkEnd - chunkStart >= mChunkSize)
+                    {
+                        chunks.add(new int[] { chunkStart, chunkEnd });
+                        chunkStart = -1;
+                    }
+                }
+                else
+                {
+                    if (chunkStart >= 0)
+                    {
+                        // don't mix other elements into response chunks
+                        chunks.add(new int[] { chunkStart, chunkEnd });
+                        chunkStart = -1;
+                    }
+                    others.add(new int[] { childStart, childEnd });
+                }
+                childStart = -1;
+            }
+        }
+
+        if (chunkStart >= 0)
+        {
+            chunks.add(new int[] { chunkStart, chunkEnd });
+        }
+
+        // start all tasks
+        List<Future<MultiStatus>> results = new ArrayList<Future<MultiStatus>>(chunks.size());
+        for (int[] chunk : chunks)
+        {
+            results.add(mPool.submit(new ChunkTask(document, start, rootTagEnd, rootEndTag, Collections.singletonList(chunk))));
+        }
+
+        // parse the other elements on this thread, they are usually tiny
+        MultiStatus result = others.isEmpty() ? new MultiStatus() : new ChunkTask(document, start, rootTagEnd, rootEndTag, others).call();
+
+        // merge the results in document order
+        List<Response> responses = new ArrayList<Response>(chunks.size() * 32);
+        for (Future<MultiStatus> future : results)
+        {
+            List<Response> chunkResponses = await(future).getResponses();
+            if (chunkResponses != null)
+            {
+                responses.addAll(chunkResponses);
+            }
+        }
+        result.setResponses(responses);
+        return result;
+    }
+
+
+    private MultiStatus parseSequentially(InputStream in) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        return new XmlObjectPull(newParser(in), mContextFactory.get()).pull(WebDav.MULTISTATUS, null, ROOT_PATH);
+    }
+
+
+    private static MultiStatus await(Future<MultiStatus> future) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parser");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof XmlPullParserException)
+            {
+                throw (XmlPullParserException) cause;
+            }
+            if (cause instanceof XmlObjectPullParserException)
+            {
+                throw (XmlObjectPullParserException) cause;
+            }
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Can't parse chunk", cause);
+        }
+    }
+
+
+    private static XmlPullParser newParser(InputStream in) throws XmlPullParserException
+    {
+        XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        XmlPullParser parser = factory.newPullParser();
+        // let the parser detect the encoding from the XML declaration
+        parser.setInput(in, null);
+        return parser;
+    }
+
+
+    /**
+     * A task that parses a number of ranges of the document wrapped into the prolog and the root element of the original document.
+     */
+    private final class ChunkTask implements Callable<MultiStatus>
+    {
+        private final ByteBuffer mDocument;
+        private final int mDocumentStart;
+        private final int mRootTagEnd;
+        private final byte[] mRootEndTag;
+        private final List<int[]> mRanges;
+
+
+        private ChunkTask(ByteBuffer document, int documentStart, int rootTagEnd, byte[] rootEndTag, List<int[]> ranges)
+        {
+            mDocument = document;
+            mDocumentStart = documentStart;
+            mRootTagEnd = rootTagEnd;
+            mRootEndTag = rootEndTag;
+            mRanges = ranges;
+        }
+
+
+        @Override
+        public MultiStatus call() throws XmlPullParserException, XmlObjectPullParserException, IOException
+        {
+            List<InputStream> parts = new ArrayList<InputStream>(mRanges.size() + 2);
+            // the prolog and the root start tag with all namespace declarations
+            parts.add(new ByteBufferInputStream(mDocument, mDocumentStart, mRootTagEnd));
+            for (int[] range : mRanges)
+            {
+                parts.add(new ByteBufferInputStream(mDocument, range[0], range[1]));
+            }
+            parts.add(new ByteArrayInputStream(mRootEndTag));
+            return parseSequentially(new SequenceInputStream(Collections.enumeration(parts)));
+        }
+    }
+}
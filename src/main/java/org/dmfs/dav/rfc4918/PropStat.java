@@ -20,6 +20,10 @@
 package org.dmfs.dav.rfc4918;
 
 import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.utils.ElementDescriptorMap;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.SnapshotInput;
+import org.dmfs.dav.utils.SnapshotOutput;
 import org.dmfs.httpessentials.HttpStatus;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -31,6 +35,8 @@ import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
@@ -58,6 +64,10 @@ public class PropStat implements Recyclable
         @Override
         public PropStat get(ElementDescriptor<PropStat> descriptor, PropStat recycle, ParserContext context) throws XmlObjectPullParserException
         {
+            if (recycle == null && context instanceof DavParserContext)
+            {
+                recycle = ((DavParserContext) context).getPooledObject(descriptor);
+            }
             if (recycle != null)
             {
                 recycle.recycle();
@@ -81,10 +91,14 @@ public class PropStat implements Recyclable
         {
             if (childDescriptor == WebDav.PROP)
             {
-                // recycle old property map, if any
-                context.recycle(WebDav.PROP, object.mProperties);
+                if (object.mOwnsProperties)
+                {
+                    // recycle old property map, if any
+                    context.recycle(WebDav.PROP, object.mProperties);
+                }
                 // set new property list
                 object.mProperties = (Map<ElementDescriptor<?>, Object>) child;
+                object.mOwnsProperties = true;
             }
             else if (childDescriptor == WebDav.STATUS)
             {
@@ -158,6 +172,12 @@ public class PropStat implements Recyclable
      */
     private Map<ElementDescriptor<?>, Object> mProperties;
 
+    /**
+     * Whether {@link #mProperties} has been created by the parser. Maps set via {@link #setProperties(Map)} belong to the caller, so we must not clear or
+     * recycle them.
+     */
+    private boolean mOwnsProperties = true;
+
     /**
      * The status of this propstat element.
      */
@@ -180,7 +200,13 @@ public class PropStat implements Recyclable
         // Note: we don't recycle the individual property objects, because the client may still use these property values.
         // Also, in general many of them are represented by immutable objects, which can not be recycled anyway.
         mStatus = STATUS_NONE;
-        if (mProperties != null)
+        if (!mOwnsProperties)
+        {
+            // not our map, just drop it
+            mProperties = null;
+            mOwnsProperties = true;
+        }
+        else if (mProperties != null)
         {
             mProperties.clear();
         }
@@ -189,6 +215,72 @@ public class PropStat implements Recyclable
     }
 
 
+    /**
+     * Set the status of this propstat element.
+     *
+     * @param statusCode
+     *     The status code.
+     *
+     * @return This instance.
+     */
+    public PropStat setStatusCode(int statusCode)
+    {
+        mStatus = statusCode;
+        return this;
+    }
+
+
+    /**
+     * Set the properties of this propstat element. The {@link Map} is not copied, it's used as is until this object is recycled or other properties are set.
+     * This object never modifies the given {@link Map}.
+     * <p>
+     * For best performance use an {@link ElementDescriptorMap}.
+     * </p>
+     *
+     * @param properties
+     *     A {@link Map} of property {@link ElementDescriptor}s to their values. The values may be <code>null</code> for non-{@link HttpStatus#OK} status
+     *     codes.
+     *
+     * @return This instance.
+     */
+    public PropStat setProperties(Map<ElementDescriptor<?>, Object> properties)
+    {
+        mProperties = properties;
+        mOwnsProperties = false;
+        return this;
+    }
+
+
+    /**
+     * Set the error element of this propstat element.
+     *
+     * @param error
+     *     The {@link Error} or <code>null</code>.
+     *
+     * @return This instance.
+     */
+    public PropStat setError(Error error)
+    {
+        mError = error;
+        return this;
+    }
+
+
+    /**
+     * Set the responsedescription of this propstat element.
+     *
+     * @param responseDescription
+     *     The response description or <code>null</code>.
+     *
+     * @return This instance.
+     */
+    public PropStat setResponseDescription(String responseDescription)
+    {
+        mResponseDescription = responseDescription;
+        return this;
+    }
+
+
     /**
      * Returns the value of a property in this propstat element.
      *
@@ -204,7 +296,123 @@ public class PropStat implements Recyclable
         {
             return null;
         }
-        return (T) mProperties.get(property);
+
+        Object value = mProperties.get(property);
+        Object decoded = LazyObjectBuilder.resolve(value);
+        if (decoded != value && mOwnsProperties)
+        {
+            // store the decoded value, so we don't have to resolve it again
+            // maps of the caller are never modified, lazy values remember their decoded value anyway
+            mProperties.put(property, decoded);
+        }
+        return (T) decoded;
+    }
+
+
+    /**
+     * Writes this {@link PropStat} in a compact binary format that can be read by {@link #readFrom(DataInput)}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     *
+     * @throws IOException
+     *     if the output can't be written or a property value has an unsupported type, see {@link SnapshotOutput}.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        writeTo(new SnapshotOutput(out));
+    }
+
+
+    /**
+     * Reads a {@link PropStat} written by {@link #writeTo(DataOutput)}. The classes that declare the properties must have been initialized.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return A new {@link PropStat}.
+     *
+     * @throws IOException
+     *     if the input can't be read, is malformed or contains properties that are not known in this process.
+     */
+    public static PropStat readFrom(DataInput in) throws IOException
+    {
+        return readFrom(new SnapshotInput(in));
+    }
+
+
+    @SuppressWarnings("unchecked")
+    void writeTo(SnapshotOutput out) throws IOException
+    {
+        final DataOutput data = out.dataOutput();
+        data.writeInt(mStatus);
+        data.writeBoolean(mError != null);
+        if (mError != null)
+        {
+            mError.writeTo(out);
+        }
+        out.writeString(mResponseDescription);
+
+        Map<ElementDescriptor<?>, Object> properties = mProperties;
+        if (properties == null)
+        {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(properties.size() + 1);
+        if (properties instanceof ElementDescriptorMap)
+        {
+            // iterate without allocating an iterator
+            ElementDescriptorMap<Object> map = (ElementDescriptorMap<Object>) properties;
+            for (int i = 0, count = map.size(); i < count; ++i)
+            {
+                out.writeDescriptor(map.keyAt(i));
+                out.writeValue(map.valueAt(i));
+            }
+        }
+        else
+        {
+            for (Map.Entry<ElementDescriptor<?>, Object> entry : properties.entrySet())
+            {
+                out.writeDescriptor(entry.getKey());
+                out.writeValue(entry.getValue());
+            }
+        }
+    }
+
+
+    static PropStat readFrom(SnapshotInput in) throws IOException
+    {
+        final DataInput data = in.dataInput();
+        PropStat result = new PropStat();
+        result.mStatus = data.readInt();
+        if (data.readBoolean())
+        {
+            result.mError = Error.readFrom(in);
+        }
+        result.mResponseDescription = in.readString();
+
+        int size = in.readVarInt();
+        if (size > 0)
+        {
+            ElementDescriptorMap<Object> properties = new ElementDescriptorMap<Object>(size - 1);
+            for (int i = 1; i < size; ++i)
+            {
+                ElementDescriptor<?> descriptor = in.readDescriptor();
+                properties.put(descriptor, in.readValue());
+            }
+            result.mProperties = properties;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the raw property map of this propstat element. The values have not been decoded yet, see {@link LazyObjectBuilder}.
+     */
+    Map<ElementDescriptor<?>, Object> properties()
+    {
+        return mProperties;
     }
 
 
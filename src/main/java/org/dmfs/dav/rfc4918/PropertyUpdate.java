@@ -19,6 +19,7 @@
 
 package org.dmfs.dav.rfc4918;
 
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
@@ -31,7 +32,6 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -150,7 +150,7 @@ public class PropertyUpdate implements Recyclable
     {
         if (mSet == null)
         {
-            mSet = new HashMap<ElementDescriptor<?>, Object>(16);
+            mSet = new ElementDescriptorMap<Object>(16);
         }
         mSet.put(property, value);
 
@@ -171,7 +171,7 @@ public class PropertyUpdate implements Recyclable
     {
         if (mRemove == null)
         {
-            mRemove = new HashMap<ElementDescriptor<?>, Object>(16);
+            mRemove = new ElementDescriptorMap<Object>(16);
         }
         mRemove.put(property, null);
 
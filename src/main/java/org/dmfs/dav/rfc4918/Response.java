@@ -20,6 +20,11 @@
 package org.dmfs.dav.rfc4918;
 
 import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.utils.ElementDescriptorMap;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
+import org.dmfs.dav.utils.SnapshotInput;
+import org.dmfs.dav.utils.SnapshotOutput;
 import org.dmfs.httpessentials.HttpStatus;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -31,6 +36,8 @@ import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
@@ -56,9 +63,14 @@ public class Response implements Recyclable
         @Override
         public Response get(ElementDescriptor<Response> descriptor, Response recycle, ParserContext context) throws XmlObjectPullParserException
         {
+            if (recycle == null && context instanceof DavParserContext)
+            {
+                recycle = ((DavParserContext) context).getPooledObject(descriptor);
+            }
             if (recycle != null)
             {
                 recycle.recycle();
+                recycle.releasePropStats(context);
                 return recycle;
             }
             return new Response();
@@ -88,7 +100,16 @@ public class Response implements Recyclable
                 else
                 {
                     // add new propstat element and recycle old one with the same status, if any
-                    context.recycle(WebDav.PROPSTAT, object.addPropStat(propStat));
+                    PropStat old = object.putPropStat(propStat);
+                    if (old != null)
+                    {
+                        object.mParsedPropStats.remove(old);
+                        context.recycle(WebDav.PROPSTAT, old);
+                    }
+                    if (!object.mParsedPropStats.contains(propStat))
+                    {
+                        object.mParsedPropStats.add(propStat);
+                    }
                 }
             }
             else if (childDescriptor == WebDav.HREF)
@@ -134,9 +155,16 @@ public class Response implements Recyclable
             else
             {
                 childWriter.writeChild(WebDav.HREF, object.mHrefs.get(0), context);
-                for (PropStat propstat : object.mPropStatByStatus.values())
+                if (object.mPropStatByStatus != null)
                 {
-                    childWriter.writeChild(WebDav.PROPSTAT, propstat, context);
+                    for (PropStat propstat : object.mPropStatByStatus.values())
+                    {
+                        // skip recycled propstats that have not been reused
+                        if (propstat.getStatusCode() != STATUS_NONE)
+                        {
+                            childWriter.writeChild(WebDav.PROPSTAT, propstat, context);
+                        }
+                    }
                 }
             }
 
@@ -175,9 +203,26 @@ public class Response implements Recyclable
     private Map<Integer, PropStat> mPropStatByStatus;
 
     /**
-     * All {@link PropStat} children by {@link ElementDescriptor}.
+     * All {@link PropStat} children by the {@link PropertyOrdinals ordinal} of their properties.
      */
-    private Map<ElementDescriptor<?>, PropStat> mPropStatByProperty;
+    private PropStat[] mPropStatByOrdinal;
+
+    /**
+     * All property values by the {@link PropertyOrdinals ordinal} of their properties.
+     */
+    private Object[] mValueByOrdinal;
+
+    /**
+     * The {@link PropStat}s the parser has added to this response. They are kept when this response is recycled and handed back to the {@link ParserContext}
+     * when the parser reuses this response, so they can be reused as well. {@link PropStat}s added via {@link #addPropStat(PropStat)} belong to the caller and
+     * are never handed to a parser.
+     */
+    private final List<PropStat> mParsedPropStats = new ArrayList<PropStat>(4);
+
+    /**
+     * The {@link PropertyOrdinals ordinals} of all properties in this response.
+     */
+    private final BitSet mProperties = new BitSet();
 
     /**
      * The value of the <code>responsedescription</code> element, if there was any.
@@ -196,37 +241,100 @@ public class Response implements Recyclable
 
 
     /**
-     * Add the given {@link PropStat}. If there already is a {@link PropStat} with the same status code it's replaced by the new one and returned.
+     * Add the given {@link PropStat}. If there already is a {@link PropStat} with the same status code it's replaced by the new one and returned. If the given
+     * {@link PropStat} has been added before (possibly with another status code) it's indexed again.
      *
      * @param propStat
      *     The new {@link PropStat}.
      *
      * @return The old {@link PropStat} instance with the same status code or <code>null</code> if there is none.
      */
-    private PropStat addPropStat(PropStat propStat)
+    private PropStat putPropStat(PropStat propStat)
     {
-        // create Map if necessary
-        Map<ElementDescriptor<?>, PropStat> propStatByProperty = mPropStatByProperty;
-        if (propStatByProperty == null)
+        if (mPropStatByStatus == null)
         {
-            propStatByProperty = mPropStatByProperty = new HashMap<ElementDescriptor<?>, PropStat>(16);
+            mPropStatByStatus = new HashMap<Integer, PropStat>(6 /* the average case has no more than 2 PropStats per Response */);
+        }
+        else if (mPropStatByStatus.containsValue(propStat))
+        {
+            // the PropStat has been added before, it may have a new status and other properties by now
+            mPropStatByStatus.values().remove(propStat);
+            removeProperties(propStat);
+        }
+
+        PropStat old = mPropStatByStatus.put(propStat.getStatusCode(), propStat);
+        if (old != null)
+        {
+            removeProperties(old);
         }
 
-        Set<ElementDescriptor<?>> properties = propStat.getPropertyDescriptors();
-        if (properties != null)
+        Map<ElementDescriptor<?>, Object> properties = propStat.properties();
+        if (properties instanceof ElementDescriptorMap)
+        {
+            // iterate without allocating an iterator
+            ElementDescriptorMap<Object> map = (ElementDescriptorMap<Object>) properties;
+            for (int i = 0, count = map.size(); i < count; ++i)
+            {
+                putProperty(map.keyAt(i), map.valueAt(i), propStat);
+            }
+        }
+        else if (properties != null)
         {
-            for (ElementDescriptor<?> property : properties)
+            for (Map.Entry<ElementDescriptor<?>, Object> entry : properties.entrySet())
             {
-                propStatByProperty.put(property, propStat);
+                putProperty(entry.getKey(), entry.getValue(), propStat);
             }
         }
+        return old;
+    }
 
-        if (mPropStatByStatus == null)
+
+    /**
+     * Removes the properties of the given {@link PropStat} from the property index.
+     */
+    private void removeProperties(PropStat propStat)
+    {
+        BitSet properties = mProperties;
+        for (int i = properties.nextSetBit(0); i >= 0; i = properties.nextSetBit(i + 1))
         {
-            mPropStatByStatus = new HashMap<Integer, PropStat>(6 /* the average case has no more than 2 PropStats per Response */);
+            if (mPropStatByOrdinal[i] == propStat)
+            {
+                mPropStatByOrdinal[i] = null;
+                mValueByOrdinal[i] = null;
+                properties.clear(i);
+            }
         }
+    }
 
-        return mPropStatByStatus.put(propStat.getStatusCode(), propStat);
+
+    private void putProperty(ElementDescriptor<?> property, Object value, PropStat propStat)
+    {
+        int ordinal = PropertyOrdinals.obtain(property);
+        ensureCapacity(ordinal);
+        mPropStatByOrdinal[ordinal] = propStat;
+        mValueByOrdinal[ordinal] = value;
+        mProperties.set(ordinal);
+    }
+
+
+    /**
+     * Make sure the property arrays can take the given ordinal.
+     */
+    private void ensureCapacity(int ordinal)
+    {
+        if (mPropStatByOrdinal == null)
+        {
+            // all properties known so far should fit without growing
+            int capacity = Math.max(ordinal + 1, PropertyOrdinals.count());
+            mPropStatByOrdinal = new PropStat[capacity];
+            mValueByOrdinal = new Object[capacity];
+        }
+        else if (ordinal >= mPropStatByOrdinal.length)
+        {
+            int capacity = Math.max(ordinal + 1, PropertyOrdinals.count());
+            mPropStatByOrdinal = Arrays.copyOf(mPropStatByOrdinal, capacity);
+            mValueByOrdinal = Arrays.copyOf(mValueByOrdinal, capacity);
+        }
     }
 
 
@@ -237,18 +345,23 @@ public class Response implements Recyclable
 
         mStatus = STATUS_NONE;
 
-        if (mPropStatByProperty != null)
+        // release the property values
+        BitSet properties = mProperties;
+        for (int i = properties.nextSetBit(0); i >= 0; i = properties.nextSetBit(i + 1))
         {
-            mPropStatByProperty.clear();
+            mPropStatByOrdinal[i] = null;
+            mValueByOrdinal[i] = null;
         }
+        properties.clear();
 
         if (mPropStatByStatus != null)
         {
-            // recycle the propstat objects, but don't remove them, we probably can use them later
+            // recycle the propstat objects, they may be added again later on, possibly with another status, the parsed ones are kept in mParsedPropStats
             for (PropStat propStat : mPropStatByStatus.values())
             {
                 propStat.recycle();
             }
+            mPropStatByStatus.clear();
         }
 
         mResponseDescription = null;
@@ -257,6 +370,135 @@ public class Response implements Recyclable
     }
 
 
+    /**
+     * Hands the {@link PropStat}s the parser has added to this response back to the given {@link ParserContext}, so the parser can reuse them. This response
+     * must have been recycled before.
+     */
+    private void releasePropStats(ParserContext context)
+    {
+        List<PropStat> propStats = mParsedPropStats;
+        for (int i = 0, count = propStats.size(); i < count; ++i)
+        {
+            context.recycle(WebDav.PROPSTAT, propStats.get(i));
+        }
+        propStats.clear();
+    }
+
+
+    /**
+     * Set the href of this response. This removes any other hrefs.
+     *
+     * @param href
+     *     The href {@link URI}.
+     *
+     * @return This instance.
+     */
+    public Response setHRef(URI href)
+    {
+        mHrefs.clear();
+        mHrefs.add(href);
+        return this;
+    }
+
+
+    /**
+     * Add another href to this response. Note that multiple hrefs are only allowed if the response has a status, see {@link #setStatus(int)}.
+     *
+     * @param href
+     *     The href {@link URI}.
+     *
+     * @return This instance.
+     */
+    public Response addHRef(URI href)
+    {
+        mHrefs.add(href);
+        return this;
+    }
+
+
+    /**
+     * Set the status of this response. A response with a status must not contain any {@link PropStat}s, they are not serialized.
+     *
+     * @param status
+     *     The status code or {@link #STATUS_NONE} if this response contains {@link PropStat}s.
+     *
+     * @return This instance.
+     */
+    public Response setStatus(int status)
+    {
+        mStatus = status;
+        return this;
+    }
+
+
+    /**
+     * Add a {@link PropStat} to this response. A {@link PropStat} with the same status code replaces any {@link PropStat} with that status code that has been
+     * added before.
+     * <p>
+     * The status and the properties of the {@link PropStat} are indexed when it's added, so set them before adding it. Changes made afterwards are not visible
+     * to this response until the {@link PropStat} is added again. Adding the same instance again replaces its previous state.
+     * </p>
+     * <p>
+     * To serialize many responses with a fixed set of objects, {@link #recycle()} this response and the {@link PropStat}s and just add them again.
+     * </p>
+     *
+     * @param propStat
+     *     The {@link PropStat} to add.
+     *
+     * @return This instance.
+     */
+    public Response addPropStat(PropStat propStat)
+    {
+        putPropStat(propStat);
+        return this;
+    }
+
+
+    /**
+     * Set the error element of this response.
+     *
+     * @param error
+     *     The {@link Error} or <code>null</code>.
+     *
+     * @return This instance.
+     */
+    public Response setError(Error error)
+    {
+        mError = error;
+        return this;
+    }
+
+
+    /**
+     * Set the location element of this response.
+     *
+     * @param location
+     *     The location {@link URI} or <code>null</code>.
+     *
+     * @return This instance.
+     */
+    public Response setLocation(URI location)
+    {
+        mLocation = location;
+        return this;
+    }
+
+
+    /**
+     * Set the responsedescription of this response.
+     *
+     * @param responseDescription
+     *     The response description or <code>null</code>.
+     *
+     * @return This instance.
+     */
+    public Response setResponseDescription(String responseDescription)
+    {
+        mResponseDescription = responseDescription;
+        return this;
+    }
+
+
     /**
      * Get the response description, if any.
      *
@@ -342,13 +584,13 @@ public class Response implements Recyclable
      */
     public int getPropertyStatus(ElementDescriptor<?> descriptor)
     {
-        PropStat propStat = mPropStatByProperty.get(descriptor);
-        if (propStat == null)
+        int ordinal = PropertyOrdinals.ordinal(descriptor);
+        if (ordinal < 0 || !mProperties.get(ordinal))
         {
             return STATUS_NONE;
         }
 
-        return propStat.getStatusCode();
+        return mPropStatByOrdinal[ordinal].getStatusCode();
     }
 
 
@@ -361,15 +603,22 @@ public class Response implements Recyclable
      * @return The property value, may be <code>null</code> if the property was not present or didn't contain any value (because it had a non-
      * {@link HttpStatus#OK} status).
      */
+    @SuppressWarnings("unchecked")
     public <T> T getPropertyValue(ElementDescriptor<T> descriptor)
     {
-        PropStat propStat = mPropStatByProperty.get(descriptor);
-        if (propStat == null)
+        int ordinal = PropertyOrdinals.ordinal(descriptor);
+        if (ordinal < 0 || !mProperties.get(ordinal))
         {
             return null;
         }
 
-        return propStat.getPropertyValue(descriptor);
+        Object value = mValueByOrdinal[ordinal];
+        Object decoded = LazyObjectBuilder.resolve(value);
+        if (decoded != value)
+        {
+            mValueByOrdinal[ordinal] = decoded;
+        }
+        return (T) decoded;
     }
 
 
@@ -380,12 +629,12 @@ public class Response implements Recyclable
      */
     public Set<ElementDescriptor<?>> getProperties()
     {
-        if (mPropStatByProperty == null)
+        if (mPropStatByOrdinal == null)
         {
             return null;
         }
 
-        return Collections.unmodifiableSet(mPropStatByProperty.keySet());
+        return new PropertySet();
     }
 
 
@@ -416,4 +665,158 @@ public class Response implements Recyclable
             }
         }
     }
+
+
+    /**
+     * Writes this {@link Response} in a compact binary format that can be read by {@link #readFrom(DataInput)}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     *
+     * @throws IOException
+     *     if the output can't be written or a property value has an unsupported type, see {@link SnapshotOutput}.
+     */
+    public void writeTo(DataOutput out) throws IOException
+    {
+        writeTo(new SnapshotOutput(out));
+    }
+
+
+    /**
+     * Reads a {@link Response} written by {@link #writeTo(DataOutput)}. The classes that declare the properties must have been initialized.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return A new {@link Response}.
+     *
+     * @throws IOException
+     *     if the input can't be read, is malformed or contains properties that are not known in this process.
+     */
+    public static Response readFrom(DataInput in) throws IOException
+    {
+        return readFrom(new SnapshotInput(in));
+    }
+
+
+    void writeTo(SnapshotOutput out) throws IOException
+    {
+        final DataOutput data = out.dataOutput();
+        List<URI> hrefs = mHrefs;
+        out.writeVarInt(hrefs.size());
+        for (int i = 0, count = hrefs.size(); i < count; ++i)
+        {
+            out.writeString(hrefs.get(i).toString());
+        }
+        data.writeInt(mStatus);
+        data.writeBoolean(mError != null);
+        if (mError != null)
+        {
+            mError.writeTo(out);
+        }
+        out.writeString(mResponseDescription);
+        out.writeString(mLocation == null ? null : mLocation.toString());
+
+        int propStatCount = 0;
+        if (mPropStatByStatus != null)
+        {
+            for (PropStat propStat : mPropStatByStatus.values())
+            {
+                // skip recycled propstats that have not been reused
+                if (propStat.getStatusCode() != STATUS_NONE)
+                {
+                    ++propStatCount;
+                }
+            }
+        }
+        out.writeVarInt(propStatCount);
+        if (propStatCount > 0)
+        {
+            for (PropStat propStat : mPropStatByStatus.values())
+            {
+                if (propStat.getStatusCode() != STATUS_NONE)
+                {
+                    propStat.writeTo(out);
+                }
+            }
+        }
+    }
+
+
+    static Response readFrom(SnapshotInput in) throws IOException
+    {
+        final DataInput data = in.dataInput();
+        Response result = new Response();
+        for (int i = 0, count = in.readVarInt(); i < count; ++i)
+        {
+            result.mHrefs.add(in.readUri());
+        }
+        result.mStatus = data.readInt();
+        if (data.readBoolean())
+        {
+            result.mError = Error.readFrom(in);
+        }
+        result.mResponseDescription = in.readString();
+        result.mLocation = in.readUri();
+        for (int i = 0, count = in.readVarInt(); i < count; ++i)
+        {
+            result.putPropStat(PropStat.readFrom(in));
+        }
+        return result;
+    }
+
+
+    /**
+     * An unmodifiable {@link Set} view of the properties of this response, backed by {@link #mProperties}.
+     */
+    private final class PropertySet extends AbstractSet<ElementDescriptor<?>>
+    {
+        @Override
+        public Iterator<ElementDescriptor<?>> iterator()
+        {
+            return new Iterator<ElementDescriptor<?>>()
+            {
+                private int mNext = mProperties.nextSetBit(0);
+
+
+                @Override
+                public boolean hasNext()
+                {
+                    return mNext >= 0;
+                }
+
+
+                @Override
+                public ElementDescriptor<?> next()
+                {
+                    if (mNext < 0)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    ElementDescriptor<?> result = PropertyOrdinals.descriptor(mNext);
+                    mNext = mProperties.nextSetBit(mNext + 1);
+                    return result;
+                }
+            };
+        }
+
+
+        @Override
+        public boolean contains(Object o)
+        {
+            if (!(o instanceof ElementDescriptor))
+            {
+                return false;
+            }
+            int ordinal = PropertyOrdinals.ordinal((ElementDescriptor<?>) o);
+            return ordinal >= 0 && mProperties.get(ordinal);
+        }
+
+
+        @Override
+        public int size()
+        {
+            return mProperties.cardinality();
+        }
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+
+
+/**
+ * A handler that receives the {@link Response}s of a {@link MultiStatus} while it's being parsed. Set it via
+ * {@link DavParserContext#setResponseHandler(ResponseHandler)} to process responses on-the-fly instead of collecting them in a list.
+ * <p>
+ * <strong>Note:</strong> The {@link Response} passed to {@link #onResponse(Response)} is recycled as soon as the method returns. Implementations must not keep
+ * a reference to it. Property values returned by {@link Response#getPropertyValue(org.dmfs.xmlobjects.ElementDescriptor)} are never recycled, they can be
+ * kept. {@link org.dmfs.dav.rfc4791.CalendarData} values that have been written to a temporary file (see
+ * {@link DavParserContext#setCalendarDataSpillThreshold(int)}) must be closed by the handler once they are no longer needed.
+ * </p>
+ */
+public interface ResponseHandler
+{
+    /**
+     * Called for every {@link Response} right after its closing tag has been parsed.
+     *
+     * @param response
+     *     The {@link Response}, only valid until this method returns.
+     *
+     * @throws XmlObjectPullParserException
+     *     to abort parsing.
+     */
+    void onResponse(Response response) throws XmlObjectPullParserException;
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * An {@link Iterator} that lazily parses the {@link Response}s of a <code>multistatus</code> document. A response is parsed only when it's requested, so
+ * the consumer controls the pace and may stop at any time.
+ * <p>
+ * The remaining elements of the multistatus (the <code>responsedescription</code> and the <code>sync-token</code>) are stored in the {@link MultiStatus}
+ * returned by {@link #multiStatus()}. Since these elements follow the responses they are only available once {@link #hasNext()} returned
+ * <code>false</code>.
+ * </p>
+ * <p>
+ * Parser errors are thrown as {@link IllegalStateException}s, I/O errors are thrown as {@link UncheckedIOException}s.
+ * </p>
+ */
+public final class ResponseIterator implements Iterator<Response>
+{
+    private final static int STATE_UNKNOWN = 0;
+    private final static int STATE_RESPONSE = 1;
+    private final static int STATE_DONE = 2;
+
+    private final static XmlPath ROOT_PATH = new XmlPath();
+
+    private final XmlPullParser mParser;
+    private final ParserContext mContext;
+    private final MultiStatus mMultiStatus = new MultiStatus();
+
+    /**
+     * The depth of the multistatus element or -1 if it has not been found yet.
+     */
+    private int mRootDepth = -1;
+
+    private int mState = STATE_UNKNOWN;
+
+
+    /**
+     * Create a {@link ResponseIterator} that reads a multistatus document from the given {@link InputStream}. This requires an {@link XmlPullParser}
+     * implementation to be available via {@link XmlPullParserFactory}.
+     *
+     * @param in
+     *     The {@link InputStream} to read from.
+     * @param encoding
+     *     The encoding of the document or <code>null</code> to detect it automatically.
+     * @param context
+     *     The {@link ParserContext} to use, usually a {@link DavParserContext}.
+     *
+     * @throws XmlPullParserException
+     *     if no parser could be created.
+     */
+    public ResponseIterator(InputStream in, String encoding, ParserContext context) throws XmlPullParserException
+    {
+        this(newParser(in, encoding), context);
+    }
+
+
+    /**
+     * Create a {@link ResponseIterator} that reads a multistatus document from the given {@link XmlPullParser}. The parser must be namespace aware.
+     *
+     * @param parser
+     *     The {@link XmlPullParser} to read from.
+     * @param context
+     *     The {@link ParserContext} to use, usually a {@link DavParserContext}.
+     */
+    public ResponseIterator(XmlPullParser parser, ParserContext context)
+    {
+        mParser = parser;
+        mContext = context;
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+        if (mState == STATE_UNKNOWN)
+        {
+            try
+            {
+                mState = moveToNextResponse() ? STATE_RESPONSE : STATE_DONE;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            catch (XmlPullParserException | XmlObjectPullParserException e)
+            {
+                throw new IllegalStateException("Can't parse multistatus", e);
+            }
+        }
+        return mState == STATE_RESPONSE;
+    }
+
+
+    @Override
+    public Response next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException("No more responses");
+        }
+
+        try
+        {
+            // the parser is located at the start tag of the response, so we pull it from here
+            Response response = new XmlObjectPull(mParser, mContext).pull(WebDav.RESPONSE, null, ROOT_PATH);
+            mState = STATE_UNKNOWN;
+            return response;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (XmlPullParserException | XmlObjectPullParserException e)
+        {
+            throw new IllegalStateException("Can't parse response", e);
+        }
+    }
+
+
+    /**
+     * Returns a sequential {@link Stream} of the remaining {@link Response}s.
+     *
+     * @return A {@link Stream} of {@link Response}s.
+     */
+    public Stream<Response> stream()
+    {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+
+    /**
+     * Returns a {@link MultiStatus} that contains the response description and the sync-token of the document. Since these elements follow the responses,
+     * their values are only reliable after {@link #hasNext()} returned <code>false</code>. The returned {@link MultiStatus} never contains any responses.
+     *
+     * @return A {@link MultiStatus}.
+     */
+    public MultiStatus multiStatus()
+    {
+        return mMultiStatus;
+    }
+
+
+    /**
+     * Moves the parser to the start tag of the next response element. Any other children of the multistatus element are consumed on the way.
+     *
+     * @return <code>true</code> if the parser is located at the start of a response, <code>false</code> if the end of the multistatus has been reached.
+     */
+    private boolean moveToNextResponse() throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        XmlPullParser parser = mParser;
+
+        if (mRootDepth < 0)
+        {
+            int event = parser.getEventType();
+            while (event != XmlPullParser.START_TAG && event != XmlPullParser.END_DOCUMENT)
+            {
+                event = parser.next();
+            }
+
+            if (event == XmlPullParser.END_DOCUMENT || !isDavElement(parser, "multistatus"))
+            {
+                throw new XmlObjectPullParserException("Document doesn't contain a multistatus element");
+            }
+            mRootDepth = parser.getDepth();
+        }
+
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT)
+        {
+            if (event == XmlPullParser.END_TAG && parser.getDepth() == mRootDepth)
+            {
+                // end of multistatus
+                return false;
+            }
+
+            if (event == XmlPullParser.START_TAG && parser.getDepth() == mRootDepth + 1)
+            {
+                if (isDavElement(parser, "response"))
+                {
+                    return true;
+                }
+                else if (isDavElement(parser, "sync-token"))
+                {
+                    mMultiStatus.setSyncToken(parser.nextText());
+                }
+                else if (isDavElement(parser, "responsedescription"))
+                {
+                    mMultiStatus.setResponseDescription(parser.nextText());
+                }
+                else
+                {
+                    skipElement(parser);
+                }
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean isDavElement(XmlPullParser parser, String name)
+    {
+        return WebDav.NAMESPACE.equals(parser.getNamespace()) && name.equals(parser.getName());
+    }
+
+
+    private static void skipElement(XmlPullParser parser) throws XmlPullParserException, IOException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = parser.next();
+            if (event == XmlPullParser.START_TAG)
+            {
+                ++depth;
+            }
+            else if (event == XmlPullParser.END_TAG)
+            {
+                --depth;
+            }
+            else if (event == XmlPullParser.END_DOCUMENT)
+            {
+                return;
+            }
+        }
+    }
+
+
+    private static XmlPullParser newParser(InputStream in, String encoding) throws XmlPullParserException
+    {
+        XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        XmlPullParser parser = factory.newPullParser();
+        parser.setInput(in, encoding);
+        return parser;
+    }
+}
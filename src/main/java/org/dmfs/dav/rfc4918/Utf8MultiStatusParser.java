@@ -0,0 +1,1152 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.dav.rfc6578.WebDavSync;
+import org.dmfs.dav.utils.ByteBufferInputStream;
+import org.dmfs.dav.utils.NameTable;
+import org.dmfs.dav.utils.StatusLines;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * A parser for multistatus documents that reads the structure of the document directly from the bytes of a UTF-8 encoded document.
+ * <p>
+ * The <code>multistatus</code>, <code>response</code>, <code>propstat</code>, <code>href</code>, <code>status</code>, <code>responsedescription</code> and
+ * <code>sync-token</code> elements are tokenized without decoding the document and handed to the regular builders. Only the content of <code>prop</code>
+ * elements (and the rare <code>error</code> and <code>location</code> elements) is parsed by an {@link XmlPullParser}, so all property builders work as
+ * usual. The result is the same as parsing the document with {@link MultiStatus#BUILDER}, including the {@link ResponseHandler} and the object pool of a
+ * {@link DavParserContext}.
+ * </p>
+ * <p>
+ * Documents in other encodings and documents with a DTD are handed to an {@link XmlPullParser} entirely.
+ * </p>
+ * <p>
+ * To re-parse archived documents use {@link #parse(FileChannel)}, which maps the file into memory instead of reading it. With
+ * {@link #setCalendarDataSlices(boolean)} enabled, {@link CalendarData} elements refer to slices of the document instead of holding decoded {@link String}s,
+ * see {@link CalendarData#calendarDataBuffer()}.
+ * </p>
+ * <p>
+ * Instances are not thread-safe, but they can be used to parse any number of documents sequentially.
+ * </p>
+ */
+public final class Utf8MultiStatusParser
+{
+    private final static XmlPath ROOT_PATH = new XmlPath();
+
+    private final static QualifiedName MULTISTATUS = WebDav.MULTISTATUS.qualifiedName;
+    private final static QualifiedName RESPONSE = WebDav.RESPONSE.qualifiedName;
+    private final static QualifiedName PROPSTAT = WebDav.PROPSTAT.qualifiedName;
+    private final static QualifiedName PROP = WebDav.PROP.qualifiedName;
+    private final static QualifiedName HREF = WebDav.HREF.qualifiedName;
+    private final static QualifiedName STATUS = WebDav.STATUS.qualifiedName;
+    private final static QualifiedName RESPONSEDESCRIPTION = WebDav.RESPONSEDESCRIPTION.qualifiedName;
+    private final static QualifiedName ERROR = WebDav.ERROR.qualifiedName;
+    private final static QualifiedName LOCATION = WebDav.LOCATION.qualifiedName;
+    private final static QualifiedName SYNC_TOKEN = WebDavSync.SYNC_TOKEN.qualifiedName;
+    private final static QualifiedName CALENDAR_DATA = CalDav.PROPERTY_CALENDAR_DATA.qualifiedName;
+
+    private final static byte[] WRAPPER_END_TAG = "</w>".getBytes(StandardCharsets.US_ASCII);
+
+    private final ParserContext mContext;
+    private XmlPullParser mPullParser;
+
+    private ByteBuffer mDocument;
+    private XmlTagScanner mScanner;
+
+    /**
+     * The namespace bindings in scope, the innermost binding is last.
+     */
+    private String[] mPrefixes = new String[16];
+    private String[] mNamespaces = new String[16];
+    private int mBindingCount;
+
+    /**
+     * The binding count before each open element.
+     */
+    private int[] mScopes = new int[16];
+    private int mDepth;
+
+    /**
+     * The start tag of the element that wraps sub-documents, it declares all namespaces in scope. It's valid as long as the bindings don't change.
+     */
+    private byte[] mWrapperStartTag;
+    private int mWrapperBindingCount = -1;
+
+    private boolean mCalendarDataSlices;
+
+    private RangeReader mRangeReader;
+
+
+    /**
+     * Create a {@link Utf8MultiStatusParser} with a default {@link DavParserContext}.
+     */
+    public Utf8MultiStatusParser()
+    {
+        this(new DavParserContext());
+    }
+
+
+    /**
+     * Create a {@link Utf8MultiStatusParser} with the given {@link ParserContext}.
+     *
+     * @param context
+     *     The {@link ParserContext} to use, usually a {@link DavParserContext}.
+     */
+    public Utf8MultiStatusParser(ParserContext context)
+    {
+        mContext = context;
+    }
+
+
+    /**
+     * Sets whether the content of <code>calendar-data</code> properties is stored as a slice of the document rather than a {@link String}. The document must
+     * not be modified as long as the {@link CalendarData} objects are in use. This is meant to be used with memory mapped files (see
+     * {@link #parse(FileChannel)}), since the slices keep the entire document in memory.
+     * <p>
+     * Calendar data that contains entity references or CDATA sections is always decoded. Slices contain the raw bytes of the document, so unlike decoded
+     * calendar data their line breaks are not normalized, which is fine for iCalendar parsers, since iCalendar uses CRLF anyway.
+     * </p>
+     *
+     * @param calendarDataSlices
+     *     <code>true</code> to store calendar data as slices of the document.
+     *
+     * @return This instance.
+     */
+    public Utf8MultiStatusParser setCalendarDataSlices(boolean calendarDataSlices)
+    {
+        mCalendarDataSlices = calendarDataSlices;
+        return this;
+    }
+
+
+    /**
+     * Parse the multistatus document in the given file. The file is mapped into memory, so it's not copied to the heap.
+     *
+     * @param file
+     *     The {@link Path} of the file.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(Path file) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return parse(channel);
+        }
+    }
+
+
+    /**
+     * Parse the multistatus document in the given {@link FileChannel}, starting at the current position. The file is mapped into memory, so it's not copied
+     * to the heap. The mapping stays valid after the channel has been closed. Files larger than 2 GB can't be mapped at once, they are read as a stream.
+     *
+     * @param channel
+     *     The {@link FileChannel} of the file.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(FileChannel channel) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        long position = channel.position();
+        long size = channel.size() - position;
+        if (size > Integer.MAX_VALUE)
+        {
+            return pullParser(Channels.newInputStream(channel), null).pull(WebDav.MULTISTATUS, null, ROOT_PATH);
+        }
+        return parse(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+
+    /**
+     * Parse the given multistatus document.
+     *
+     * @param document
+     *     The document.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(byte[] document) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        return parse(ByteBuffer.wrap(document));
+    }
+
+
+    /**
+     * Parse the multistatus document in the remaining bytes of the given {@link ByteBuffer}. The position and the limit of the buffer are not modified.
+     *
+     * @param document
+     *     The document.
+     *
+     * @return The {@link MultiStatus}.
+     */
+    public MultiStatus parse(ByteBuffer document) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final int start = document.position();
+        final int end = document.limit();
+
+        if (!isUtf8(document, start, end))
+        {
+            return pullParser(new ByteBufferInputStream(document, start, end), null).pull(WebDav.MULTISTATUS, null, ROOT_PATH);
+        }
+
+        mDocument = document;
+        mScanner = new XmlTagScanner(document, start, end);
+        mBindingCount = 0;
+        mDepth = 0;
+        mWrapperBindingCount = -1;
+        try
+        {
+            // the scanner skips the XML declaration, any declaration it returns is a DTD, which may declare entities we don't know
+            int type = mScanner.next();
+            if (type != XmlTagScanner.START_TAG && type != XmlTagScanner.EMPTY_TAG)
+            {
+                return pullParser(new ByteBufferInputStream(document, start, end), null).pull(WebDav.MULTISTATUS, null, ROOT_PATH);
+            }
+
+            enterElement();
+            if (elementName() != MULTISTATUS)
+            {
+                throw new XmlObjectPullParserException("Document doesn't contain a multistatus element");
+            }
+            return parseMultiStatus(type);
+        }
+        finally
+        {
+            // don't keep a reference to the document
+            mDocument = null;
+            mScanner = null;
+            Arrays.fill(mNamespaces, null);
+            mWrapperStartTag = null;
+            if (mRangeReader != null)
+            {
+                mRangeReader.reset(null, null, null, 0);
+            }
+        }
+    }
+
+
+    private MultiStatus parseMultiStatus(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final ParserContext context = mContext;
+        MultiStatus multiStatus = MultiStatus.BUILDER.get(WebDav.MULTISTATUS, null, context);
+        if (type == XmlTagScanner.START_TAG)
+        {
+            while ((type = nextTag()) != XmlTagScanner.END_TAG)
+            {
+                enterElement();
+                QualifiedName name = elementName();
+                if (name == RESPONSE)
+                {
+                    multiStatus = MultiStatus.BUILDER.update(WebDav.MULTISTATUS, multiStatus, WebDav.RESPONSE, parseResponse(type), context);
+                }
+                else if (name == SYNC_TOKEN)
+                {
+                    multiStatus = MultiStatus.BUILDER.update(WebDav.MULTISTATUS, multiStatus, WebDavSync.SYNC_TOKEN, text(WebDavSync.SYNC_TOKEN, type),
+                        context);
+                }
+                else if (name == RESPONSEDESCRIPTION)
+                {
+                    multiStatus = MultiStatus.BUILDER.update(WebDav.MULTISTATUS, multiStatus, WebDav.RESPONSEDESCRIPTION,
+                        text(WebDav.RESPONSEDESCRIPTION, type), context);
+                }
+                else
+                {
+                    skipElement(type);
+                }
+                leaveElement();
+            }
+        }
+        leaveElement();
+        return MultiStatus.BUILDER.finish(WebDav.MULTISTATUS, multiStatus, context);
+    }
+
+
+    private Response parseResponse(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final ParserContext context = mContext;
+        Response response = Response.BUILDER.get(WebDav.RESPONSE, null, context);
+        if (type == XmlTagScanner.START_TAG)
+        {
+            while ((type = nextTag()) != XmlTagScanner.END_TAG)
+            {
+                enterElement();
+                QualifiedName name = elementName();
+                if (name == HREF)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.HREF, href(type), context);
+                }
+                else if (name == PROPSTAT)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.PROPSTAT, parsePropStat(type), context);
+                }
+                else if (name == STATUS)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.STATUS, status(type), context);
+                }
+                else if (name == RESPONSEDESCRIPTION)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.RESPONSEDESCRIPTION, text(WebDav.RESPONSEDESCRIPTION, type),
+                        context);
+                }
+                else if (name == ERROR)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.ERROR, pullElement(WebDav.ERROR, type), context);
+                }
+                else if (name == LOCATION)
+                {
+                    response = Response.BUILDER.update(WebDav.RESPONSE, response, WebDav.LOCATION, pullElement(WebDav.LOCATION, type), context);
+                }
+                else
+                {
+                    skipElement(type);
+                }
+                leaveElement();
+            }
+        }
+        return Response.BUILDER.finish(WebDav.RESPONSE, response, context);
+    }
+
+
+    private PropStat parsePropStat(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final ParserContext context = mContext;
+        PropStat propStat = PropStat.BUILDER.get(WebDav.PROPSTAT, null, context);
+        if (type == XmlTagScanner.START_TAG)
+        {
+            while ((type = nextTag()) != XmlTagScanner.END_TAG)
+            {
+                enterElement();
+                QualifiedName name = elementName();
+                if (name == PROP)
+                {
+                    propStat = PropStat.BUILDER.update(WebDav.PROPSTAT, propStat, WebDav.PROP, prop(type), context);
+                }
+                else if (name == STATUS)
+                {
+                    propStat = PropStat.BUILDER.update(WebDav.PROPSTAT, propStat, WebDav.STATUS, status(type), context);
+                }
+                else if (name == RESPONSEDESCRIPTION)
+                {
+                    propStat = PropStat.BUILDER.update(WebDav.PROPSTAT, propStat, WebDav.RESPONSEDESCRIPTION, text(WebDav.RESPONSEDESCRIPTION, type),
+                        context);
+                }
+                else if (name == ERROR)
+                {
+                    propStat = PropStat.BUILDER.update(WebDav.PROPSTAT, propStat, WebDav.ERROR, pullElement(WebDav.ERROR, type), context);
+                }
+                else
+                {
+                    skipElement(type);
+                }
+                leaveElement();
+            }
+        }
+        return PropStat.BUILDER.finish(WebDav.PROPSTAT, propStat, context);
+    }
+
+
+    private Map<ElementDescriptor<?>, Object> prop(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final DavParserContext filter = mContext instanceof DavParserContext && ((DavParserContext) mContext).hasPropertyFilter()
+            ? (DavParserContext) mContext
+            : null;
+        if (!mCalendarDataSlices && filter == null || type == XmlTagScanner.EMPTY_TAG)
+        {
+            // this is where the real parser takes over
+            return pullElement(WebDav.PROP, type);
+        }
+
+        // find the calendar-data properties and the properties that are not accepted, everything else is left to the real parser
+        final XmlTagScanner scanner = mScanner;
+        final int elementStart = scanner.mTagStart;
+        List<CalendarData> calendarData = null;
+        int[] ranges = new int[] { elementStart, -1 };
+        int rangeCount = 1;
+        while ((type = nextTag()) != XmlTagScanner.END_TAG)
+        {
+            enterElement();
+            int childStart = scanner.mTagStart;
+            boolean exclude = false;
+            if (filter != null && !filter.acceptsProperty(propertyName()))
+            {
+                // not accepted, the real parser doesn't even see it
+                skipElement(type);
+                exclude = true;
+            }
+            else if (mCalendarDataSlices && type == XmlTagScanner.START_TAG && elementName() == CALENDAR_DATA)
+            {
+                CalendarData slice = calendarDataSlice();
+                if (slice != null)
+                {
+                    if (calendarData == null)
+                    {
+                        calendarData = new ArrayList<CalendarData>(1);
+                    }
+                    calendarData.add(slice);
+                    exclude = true;
+                }
+            }
+            else
+            {
+                skipElement(type);
+            }
+
+            if (exclude)
+            {
+                // exclude the element from the range the real parser sees
+                if (ranges.length < rangeCount * 2 + 2)
+                {
+                    ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                }
+                ranges[rangeCount * 2 - 1] = childStart;
+                ranges[rangeCount * 2] = scanner.mTagEnd;
+                ++rangeCount;
+            }
+            leaveElement();
+        }
+        ranges[rangeCount * 2 - 1] = scanner.mTagEnd;
+
+        Map<ElementDescriptor<?>, Object> properties = pullRanges(WebDav.PROP, ranges, rangeCount);
+        if (calendarData != null)
+        {
+            for (CalendarData slice : calendarData)
+            {
+                properties.put(CalDav.PROPERTY_CALENDAR_DATA, slice);
+            }
+        }
+        return properties;
+    }
+
+
+    /**
+     * Returns the interned name of the current tag, including names that are not known to the {@link NameTable}.
+     */
+    private QualifiedName propertyName() throws XmlObjectPullParserException
+    {
+        QualifiedName name = elementName();
+        if (name != null)
+        {
+            return name;
+        }
+        final XmlTagScanner scanner = mScanner;
+        String namespace = namespace();
+        String localName = decode(scanner.mLocalNameStart, scanner.mNameEnd);
+        return namespace.isEmpty() ? QualifiedName.get(localName) : QualifiedName.get(namespace, localName);
+    }
+
+
+    /**
+     * Returns a {@link CalendarData} that refers to the content of the current element and moves behind its end tag. If the content is not plain text
+     * without any entity references this returns <code>null</code>.
+     */
+    private CalendarData calendarDataSlice() throws XmlObjectPullParserException
+    {
+        final XmlTagScanner scanner = mScanner;
+        final ParserContext context = mContext;
+        final int contentStart = scanner.mTagEnd;
+
+        CalendarData calendarData = CalendarData.BUILDER.get(CalDav.PROPERTY_CALENDAR_DATA, null, context);
+        scanner.rewindAttributes();
+        while (scanner.nextAttribute())
+        {
+            String name = scanner.attributeName();
+            if (name.indexOf(':') < 0 && !"xmlns".equals(name))
+            {
+                calendarData = CalendarData.BUILDER.update(CalDav.PROPERTY_CALENDAR_DATA, calendarData, QualifiedName.get(name),
+                    decodeAttribute(scanner.mAttributeValueStart, scanner.mAttributeValueEnd), context);
+            }
+        }
+
+        if (scanner.next() == XmlTagScanner.END_TAG && !scanner.mTextHasMarkup
+            && scanner.indexOf((byte) '&', scanner.mTextStart, scanner.mTagStart) < 0)
+        {
+            ByteBuffer slice = mDocument.duplicate();
+            // cast to Buffer to stay compatible with Java 8 runtimes
+            ((Buffer) slice).limit(scanner.mTagStart);
+            ((Buffer) slice).position(scanner.mTextStart);
+            return calendarData.setCalendarData(slice);
+        }
+
+        // not plain text, leave it to the real parser
+        context.recycle(CalDav.PROPERTY_CALENDAR_DATA, calendarData);
+        scanner.position(contentStart);
+        elementEnd();
+        return null;
+    }
+
+
+    private URI href(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final int elementStart = mScanner.mTagStart;
+        String text = plainText(type);
+        if (text == null)
+        {
+            return pullRange(WebDav.HREF, elementStart, elementEnd());
+        }
+        try
+        {
+            return new URI(text.trim());
+        }
+        catch (URISyntaxException e)
+        {
+            throw new XmlObjectPullParserException("Invalid href: " + text, e);
+        }
+    }
+
+
+    private Integer status(int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final int elementStart = mScanner.mTagStart;
+        String text = plainText(type);
+        if (text == null)
+        {
+            return pullRange(WebDav.STATUS, elementStart, elementEnd());
+        }
+        int status = StatusLines.statusCode(text);
+        if (status == StatusLines.INVALID && (!(mContext instanceof DavParserContext) || ((DavParserContext) mContext).isStrict()))
+        {
+            throw new XmlObjectPullParserException("Invalid status line: " + text);
+        }
+        return status;
+    }
+
+
+    private String text(ElementDescriptor<String> descriptor, int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final int elementStart = mScanner.mTagStart;
+        String text = plainText(type);
+        return text == null ? pullRange(descriptor, elementStart, elementEnd()) : text;
+    }
+
+
+    /**
+     * Returns the text of the current element and moves behind its end tag. If the element contains anything but plain text (like comments, CDATA sections
+     * or child elements) this returns <code>null</code> and moves the scanner back behind the start tag.
+     */
+    private String plainText(int type) throws XmlObjectPullParserException
+    {
+        if (type == XmlTagScanner.EMPTY_TAG)
+        {
+            return "";
+        }
+
+        final XmlTagScanner scanner = mScanner;
+        final int contentStart = scanner.mTagEnd;
+        if (scanner.next() == XmlTagScanner.END_TAG && !scanner.mTextHasMarkup)
+        {
+            return decode(scanner.mTextStart, scanner.mTagStart);
+        }
+        scanner.position(contentStart);
+        return null;
+    }
+
+
+    /**
+     * Parses the current element with the real parser.
+     */
+    private <T> T pullElement(ElementDescriptor<T> descriptor, int type) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        final XmlTagScanner scanner = mScanner;
+        final int elementStart = scanner.mTagStart;
+        return pullRange(descriptor, elementStart, type == XmlTagScanner.EMPTY_TAG ? scanner.mTagEnd : elementEnd());
+    }
+
+
+    private <T> T pullRange(ElementDescriptor<T> descriptor, int start, int end) throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        return pullRanges(descriptor, new int[] { start, end }, 1);
+    }
+
+
+    /**
+     * Parses the concatenation of the given ranges of the document with the real parser.
+     *
+     * @param ranges
+     *     The start and end index of each range.
+     * @param rangeCount
+     *     The number of ranges.
+     */
+    private <T> T pullRanges(ElementDescriptor<T> descriptor, int[] ranges, int rangeCount)
+        throws XmlPullParserException, XmlObjectPullParserException, IOException
+    {
+        // wrap the element into an element that declares all namespaces in scope, the reader is reused for all elements of a document
+        if (mRangeReader == null)
+        {
+            mRangeReader = new RangeReader();
+        }
+        mRangeReader.reset(wrapperStartTag(), mDocument, ranges, rangeCount);
+
+        XmlObjectPull pull = pullParser(mRangeReader);
+        // move to the start tag of the element
+        mPullParser.nextTag();
+        mPullParser.nextTag();
+        return pull.pull(descriptor, null, ROOT_PATH);
+    }
+
+
+    private XmlObjectPull pullParser(InputStream in, String encoding) throws XmlPullParserException
+    {
+        pullParser().setInput(in, encoding);
+        return new XmlObjectPull(mPullParser, mContext);
+    }
+
+
+    private XmlObjectPull pullParser(Reader reader) throws XmlPullParserException
+    {
+        pullParser().setInput(reader);
+        return new XmlObjectPull(mPullParser, mContext);
+    }
+
+
+    private XmlPullParser pullParser() throws XmlPullParserException
+    {
+        if (mPullParser == null)
+        {
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            mPullParser = factory.newPullParser();
+        }
+        return mPullParser;
+    }
+
+
+    private byte[] wrapperStartTag()
+    {
+        if (mWrapperBindingCount == mBindingCount && mWrapperStartTag != null)
+        {
+            return mWrapperStartTag;
+        }
+
+        StringBuilder builder = new StringBuilder(64 + mBindingCount * 48);
+        builder.append("<w");
+        for (int i = mBindingCount - 1; i >= 0; --i)
+        {
+            String prefix = mPrefixes[i];
+            if (isShadowed(prefix, i))
+            {
+                continue;
+            }
+            builder.append(prefix.isEmpty() ? " xmlns" : " xmlns:").append(prefix).append("=\"");
+            String namespace = mNamespaces[i];
+            for (int j = 0, length = namespace.length(); j < length; ++j)
+            {
+                char c = namespace.charAt(j);
+                switch (c)
+                {
+                    case '&':
+                        builder.append("&amp;");
+                        break;
+                    case '<':
+                        builder.append("&lt;");
+                        break;
+                    case '"':
+                        builder.append("&quot;");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+            builder.append('"');
+        }
+        builder.append('>');
+
+        mWrapperBindingCount = mBindingCount;
+        return mWrapperStartTag = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    private boolean isShadowed(String prefix, int index)
+    {
+        for (int i = index + 1; i < mBindingCount; ++i)
+        {
+            if (prefix.equals(mPrefixes[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Returns the next tag, throwing an exception at the end of the document.
+     */
+    private int nextTag() throws XmlObjectPullParserException
+    {
+        int type = mScanner.next();
+        if (type == XmlTagScanner.EOF || type == XmlTagScanner.DECLARATION)
+        {
+            throw new XmlObjectPullParserException("Unexpected end of document");
+        }
+        return type;
+    }
+
+
+    /**
+     * Skips the content and the end tag of the current element.
+     */
+    private void skipElement(int type) throws XmlObjectPullParserException
+    {
+        if (type == XmlTagScanner.START_TAG)
+        {
+            elementEnd();
+        }
+    }
+
+
+    /**
+     * Moves the scanner behind the end tag of the current element. The scanner must be located behind the start tag.
+     *
+     * @return The index after the end tag.
+     */
+    private int elementEnd() throws XmlObjectPullParserException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int type = nextTag();
+            if (type == XmlTagScanner.START_TAG)
+            {
+                ++depth;
+            }
+            else if (type == XmlTagScanner.END_TAG)
+            {
+                --depth;
+            }
+        }
+        return mScanner.mTagEnd;
+    }
+
+
+    /**
+     * Opens a namespace scope for the current tag and adds the namespace declarations of the tag.
+     */
+    private void enterElement() throws XmlObjectPullParserException
+    {
+        if (mDepth == mScopes.length)
+        {
+            mScopes = Arrays.copyOf(mScopes, mDepth * 2);
+        }
+        mScopes[mDepth++] = mBindingCount;
+
+        final XmlTagScanner scanner = mScanner;
+        while (scanner.nextAttribute())
+        {
+            int length = scanner.mAttributeNameEnd - scanner.mAttributeNameStart;
+            if (length < 5 || mDocument.get(scanner.mAttributeNameStart) != 'x')
+            {
+                // fast path for attributes that can't be namespace declarations
+                continue;
+            }
+            String name = scanner.attributeName();
+            if ("xmlns".equals(name))
+            {
+                bind("", decodeAttribute(scanner.mAttributeValueStart, scanner.mAttributeValueEnd));
+            }
+            else if (name.startsWith("xmlns:"))
+            {
+                bind(name.substring(6), decodeAttribute(scanner.mAttributeValueStart, scanner.mAttributeValueEnd));
+            }
+        }
+    }
+
+
+    private void leaveElement()
+    {
+        int bindingCount = mScopes[--mDepth];
+        for (int i = bindingCount; i < mBindingCount; ++i)
+        {
+            mNamespaces[i] = null;
+        }
+        mBindingCount = bindingCount;
+    }
+
+
+    private void bind(String prefix, String namespace)
+    {
+        if (mBindingCount == mPrefixes.length)
+        {
+            mPrefixes = Arrays.copyOf(mPrefixes, mBindingCount * 2);
+            mNamespaces = Arrays.copyOf(mNamespaces, mBindingCount * 2);
+        }
+        mPrefixes[mBindingCount] = prefix;
+        mNamespaces[mBindingCount] = namespace;
+        ++mBindingCount;
+        // a binding count we've seen before may now have different bindings
+        mWrapperBindingCount = -1;
+    }
+
+
+    /**
+     * Returns the interned name of the current tag.
+     *
+     * @return The {@link QualifiedName} or <code>null</code> if the name is not known to the {@link NameTable}.
+     */
+    private QualifiedName elementName()
+    {
+        final XmlTagScanner scanner = mScanner;
+        return NameTable.qualifiedName(namespace(), mDocument, scanner.mLocalNameStart, scanner.mNameEnd);
+    }
+
+
+    /**
+     * Returns the namespace of the current tag.
+     */
+    private String namespace()
+    {
+        final XmlTagScanner scanner = mScanner;
+        for (int i = mBindingCount - 1; i >= 0; --i)
+        {
+            if (scanner.prefixEquals(mPrefixes[i]))
+            {
+                return mNamespaces[i];
+            }
+        }
+        return "";
+    }
+
+
+    /**
+     * Decodes the given range of the document, resolving the predefined entities and character references.
+     */
+    private String decode(int start, int end) throws XmlObjectPullParserException
+    {
+        return decode(start, end, false);
+    }
+
+
+    /**
+     * Decodes the given attribute value, resolving the predefined entities and character references.
+     */
+    private String decodeAttribute(int start, int end) throws XmlObjectPullParserException
+    {
+        return decode(start, end, true);
+    }
+
+
+    /**
+     * Decodes the given range of the document like an XML parser does. Line breaks are normalized to <code>\n</code> before entities are resolved, so
+     * <code>&amp;#13;</code> still results in a <code>\r</code>. In attribute values line breaks and tabs are normalized to spaces, see
+     * <a href="https://www.w3.org/TR/xml/#sec-line-ends">XML 1.0, section 2.11</a> and <a href="https://www.w3.org/TR/xml/#AVNormalize">section 3.3.3</a>.
+     */
+    private String decode(int start, int end, boolean attribute) throws XmlObjectPullParserException
+    {
+        ByteBuffer range = mDocument.duplicate();
+        // cast to Buffer to stay compatible with Java 8 runtimes
+        ((Buffer) range).limit(end);
+        ((Buffer) range).position(start);
+        String text = normalizeWhitespace(StandardCharsets.UTF_8.decode(range).toString(), attribute);
+
+        int amp = text.indexOf('&');
+        if (amp < 0)
+        {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        int pos = 0;
+        while (amp >= 0)
+        {
+            result.append(text, pos, amp);
+            int semicolon = text.indexOf(';', amp);
+            if (semicolon < 0)
+            {
+                throw new XmlObjectPullParserException("Unterminated entity reference in " + text);
+            }
+            String entity = text.substring(amp + 1, semicolon);
+            if ("amp".equals(entity))
+            {
+                result.append('&');
+            }
+            else if ("lt".equals(entity))
+            {
+                result.append('<');
+            }
+            else if ("gt".equals(entity))
+            {
+                result.append('>');
+            }
+            else if ("quot".equals(entity))
+            {
+                result.append('"');
+            }
+            else if ("apos".equals(entity))
+            {
+                result.append('\'');
+            }
+            else if (entity.startsWith("#"))
+            {
+                try
+                {
+                    result.appendCodePoint(entity.startsWith("#x") ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1)));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new XmlObjectPullParserException("Invalid character reference &" + entity + ";", e);
+                }
+            }
+            else
+            {
+                throw new XmlObjectPullParserException("Unknown entity &" + entity + ";");
+            }
+            pos = semicolon + 1;
+            amp = text.indexOf('&', pos);
+        }
+        result.append(text, pos, text.length());
+        return result.toString();
+    }
+
+
+    private static String normalizeWhitespace(String text, boolean attribute)
+    {
+        if (text.indexOf('\r') < 0 && (!attribute || text.indexOf('\n') < 0 && text.indexOf('\t') < 0))
+        {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0, length = text.length(); i < length; ++i)
+        {
+            char c = text.charAt(i);
+            if (c == '\r')
+            {
+                if (i + 1 < length && text.charAt(i + 1) == '\n')
+                {
+                    // CRLF is a single line break
+                    ++i;
+                }
+                c = '\n';
+            }
+            result.append(attribute && (c == '\n' || c == '\t') ? ' ' : c);
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * Returns whether the document in the given range is encoded in UTF-8 (or US-ASCII).
+     */
+    private static boolean isUtf8(ByteBuffer document, int start, int end)
+    {
+        if (end - start < 2)
+        {
+            return true;
+        }
+        int b0 = document.get(start) & 0xff;
+        int b1 = document.get(start + 1) & 0xff;
+        if (b0 == 0xfe || b0 == 0xff || b0 == 0 || b1 == 0)
+        {
+            // UTF-16 or UTF-32
+            return false;
+        }
+        if (b0 == 0xef)
+        {
+            // skip the UTF-8 byte order mark
+            start += 3;
+        }
+
+        if (end - start < 5 || document.get(start) != '<' || document.get(start + 1) != '?')
+        {
+            // no XML declaration, so it's UTF-8
+            return true;
+        }
+
+        // get the XML declaration, it's ASCII
+        StringBuilder declaration = new StringBuilder(64);
+        for (int i = start; i < end; ++i)
+        {
+            char c = (char) (document.get(i) & 0xff);
+            declaration.append(c);
+            if (c == '>')
+            {
+                break;
+            }
+        }
+        String xmlDeclaration = declaration.toString();
+        int encoding = xmlDeclaration.indexOf("encoding");
+        if (!xmlDeclaration.startsWith("<?xml") || encoding < 0)
+        {
+            return true;
+        }
+        int quote = encoding + 8;
+        while (quote < xmlDeclaration.length() && xmlDeclaration.charAt(quote) != '"' && xmlDeclaration.charAt(quote) != '\'')
+        {
+            ++quote;
+        }
+        int quoteEnd = quote + 1 < xmlDeclaration.length() ? xmlDeclaration.indexOf(xmlDeclaration.charAt(quote), quote + 1) : -1;
+        if (quoteEnd < 0)
+        {
+            return false;
+        }
+        String charset = xmlDeclaration.substring(quote + 1, quoteEnd).trim().toUpperCase(Locale.ENGLISH);
+        return "UTF-8".equals(charset) || "UTF8".equals(charset) || "US-ASCII".equals(charset) || "ASCII".equals(charset);
+    }
+
+
+    /**
+     * A {@link Reader} that decodes the wrapper start tag, the given ranges of a UTF-8 encoded document and the wrapper end tag in that order. Unlike a
+     * <code>SequenceInputStream</code> of {@link InputStream}s it can be reset to new ranges, so parsing a
+     * <code>prop</code> element doesn't allocate any streams or decoder buffers.
+     * <p>
+     * The ranges must start and end at character boundaries, which is true for ranges that start and end at tags.
+     * </p>
+     */
+    private final static class RangeReader extends Reader
+    {
+        private final CharsetDecoder mDecoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer mWrapperEndTag = ByteBuffer.wrap(WRAPPER_END_TAG);
+
+        private byte[] mWrapperStartTagBytes;
+        private ByteBuffer mWrapperStartTag;
+        private ByteBuffer mSource;
+        private ByteBuffer mDocument;
+        private int[] mRanges;
+        private int mRangeCount;
+
+        /**
+         * The current part, 0 is the wrapper start tag, 1 to mRangeCount are the ranges and mRangeCount + 1 is the wrapper end tag.
+         */
+        private int mPart;
+        private ByteBuffer mCurrent;
+
+
+        void reset(byte[] wrapperStartTag, ByteBuffer document, int[] ranges, int rangeCount)
+        {
+            if (wrapperStartTag != mWrapperStartTagBytes)
+            {
+                mWrapperStartTagBytes = wrapperStartTag;
+                mWrapperStartTag = wrapperStartTag == null ? null : ByteBuffer.wrap(wrapperStartTag);
+            }
+            if (document != mSource)
+            {
+                // use a view, so the position and limit of the document are not modified
+                mSource = document;
+                mDocument = document == null ? null : document.duplicate();
+            }
+            mRanges = ranges;
+            mRangeCount = rangeCount;
+            mPart = 0;
+            mCurrent = null;
+            mDecoder.reset();
+        }
+
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+            CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+            while (out.hasRemaining())
+            {
+                if (mCurrent == null || !mCurrent.hasRemaining())
+                {
+                    if (!nextPart())
+                    {
+                        break;
+                    }
+                    continue;
+                }
+                mDecoder.decode(mCurrent, out, false);
+                if (mCurrent.hasRemaining())
+                {
+                    // the output buffer is full
+                    break;
+                }
+            }
+            int count = out.position() - offset;
+            return count == 0 && mCurrent == null ? -1 : count;
+        }
+
+
+        /**
+         * Moves to the next part. Returns <code>false</code> and sets the current part to <code>null</code> if there are no more parts.
+         */
+        private boolean nextPart()
+        {
+            int part = mPart++;
+            if (part == 0)
+            {
+                mCurrent = mWrapperStartTag;
+                // cast to Buffer to stay compatible with Java 8 runtimes
+                ((Buffer) mCurrent).rewind();
+            }
+            else if (part <= mRangeCount)
+            {
+                mCurrent = mDocument;
+                // the limit must be set first, since the new position may be behind the old limit
+                ((Buffer) mCurrent).limit(mRanges[part * 2 - 1]);
+                ((Buffer) mCurrent).position(mRanges[part * 2 - 2]);
+            }
+            else if (part == mRangeCount + 1)
+            {
+                mCurrent = mWrapperEndTag;
+                ((Buffer) mCurrent).rewind();
+            }
+            else
+            {
+                mCurrent = null;
+                return false;
+            }
+            return true;
+        }
+
+
+        @Override
+        public void close()
+        {
+            // nothing to close
+        }
+    }
+}
@@ -19,10 +19,15 @@
 
 package org.dmfs.dav.rfc4918;
 
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.dav.utils.ElementDescriptorMapObjectBuilder;
+import org.dmfs.dav.utils.LazyObjectBuilder;
+import org.dmfs.dav.utils.PropertyOrdinals;
+import org.dmfs.dav.utils.StatusLines;
 import org.dmfs.httpessentials.HttpMethod;
 import org.dmfs.httpessentials.methods.IdempotentMethod;
 import org.dmfs.httpessentials.methods.SafeMethod;
-import org.dmfs.httpessentials.status.StatusLineHttpStatus;
 import org.dmfs.httpessentials.types.MediaType;
 import org.dmfs.httpessentials.types.StringMediaType;
 import org.dmfs.xmlobjects.ElementDescriptor;
@@ -123,7 +128,7 @@ public final class WebDav
      * to the one of {@link WebDav#PROP}.
      */
     public final static ElementDescriptor<Map<ElementDescriptor<?>, Object>> INCLUDE = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "include"),
-        ElementMapObjectBuilder.INSTANCE);
+        ElementDescriptorMapObjectBuilder.INSTANCE);
 
     /**
      * location element as defined in <a href="http://tools.ietf.org/html/rfc4918#section-14.9">RFC 4918 Section 14.9</a>.
@@ -164,9 +169,32 @@ public final class WebDav
 
     /**
      * prop element as defined in <a href="http://tools.ietf.org/html/rfc4918#section-14.18">RFC 4918 Section 14.18</a>.
+     * <p>
+     * When parsing with a {@link DavParserContext} that has a property filter, all properties that are not accepted by the filter are dropped.
+     * </p>
      */
     public final static ElementDescriptor<Map<ElementDescriptor<?>, Object>> PROP = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "prop"),
-        ElementMapObjectBuilder.INSTANCE);
+        new ElementDescriptorMapObjectBuilder()
+        {
+            @Override
+            public <V> Map<ElementDescriptor<?>, Object> update(ElementDescriptor<Map<ElementDescriptor<?>, Object>> descriptor,
+                Map<ElementDescriptor<?>, Object> object, ElementDescriptor<V> childDescriptor, V child, ParserContext context)
+                throws XmlObjectPullParserException
+            {
+                if (context instanceof DavParserContext && !((DavParserContext) context).acceptsProperty(childDescriptor))
+                {
+                    // this property has not been requested, don't store it
+                    if (child instanceof CalendarData)
+                    {
+                        // nobody else will ever see it, so we have to release its temporary file
+                        ((CalendarData) child).close();
+                    }
+                    context.recycle(childDescriptor, child);
+                    return object;
+                }
+                return super.update(descriptor, object, childDescriptor, child, context);
+            }
+        });
 
     /**
      * propertyupdate element as defined in <a href="http://tools.ietf.org/html/rfc4918#section-14.19">RFC 4918 Section 14.19</a>.
@@ -222,6 +250,10 @@ public final class WebDav
     /**
      * status element as defined in <a href="http://tools.ietf.org/html/rfc4918#section-14.28">RFC 4918 Section 14.28</a>. This element returns the actual
      * status code only, not the entire status line.
+     * <p>
+     * A malformed status line is an error, unless strict parsing has been disabled (see {@link DavParserContext#setStrict(boolean)}). In that case it results
+     * in {@link StatusLines#INVALID}, which the {@link PropStat} and {@link Response} builders treat like a missing status.
+     * </p>
      */
     public final static ElementDescriptor<Integer> STATUS = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "status"),
         new AbstractObjectBuilder<Integer>()
@@ -229,14 +261,19 @@ public final class WebDav
             public Integer update(ElementDescriptor<Integer> descriptor, Integer object, String text, ParserContext context)
                 throws XmlObjectPullParserException
             {
-                return new StatusLineHttpStatus(text.trim()).statusCode();
+                int statusCode = StatusLines.statusCode(text);
+                if (statusCode == StatusLines.INVALID && (!(context instanceof DavParserContext) || ((DavParserContext) context).isStrict()))
+                {
+                    throw new XmlObjectPullParserException("Invalid status line: " + text);
+                }
+                return statusCode;
             }
 
 
             public void writeChildren(ElementDescriptor<Integer> descriptor, Integer object, IXmlChildWriter childWriter, SerializerContext context)
                 throws SerializerException, IOException
             {
-                childWriter.writeText(object + " Unknown", context);
+                childWriter.writeText(StatusLines.statusLine(object), context);
             }
         });
 
@@ -327,13 +364,13 @@ public final class WebDav
          * getcontentlength property as defined in <a href="http://tools.ietf.org/html/rfc4918#section-15.4">RFC 4918 Section 15.4</a>
          */
         public final static ElementDescriptor<Integer> GETCONTENTLENGTH = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "getcontentlength"),
-            IntegerObjectBuilder.INSTANCE);
+            new LazyObjectBuilder<Integer>(IntegerObjectBuilder.INSTANCE));
 
         /**
          * getcontenttype property as defined in <a href="http://tools.ietf.org/html/rfc4918#section-15.5">RFC 4918 Section 15.5</a>
          */
         public final static ElementDescriptor<MediaType> GETCONTENTTYPE = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "getcontenttype"),
-            new AbstractObjectBuilder<MediaType>()
+            new LazyObjectBuilder<MediaType>(new AbstractObjectBuilder<MediaType>()
             {
                 public MediaType update(ElementDescriptor<MediaType> descriptor, MediaType object, String text, ParserContext context)
                 {
@@ -352,7 +389,7 @@ public final class WebDav
 
 
                 ;
-            });
+            }));
 
         /**
          * getetag property as defined in <a href="http://tools.ietf.org/html/rfc4918#section-15.6">RFC 4918 Section 15.6</a>
@@ -368,11 +405,17 @@ public final class WebDav
          * resourcetype property as defined in <a href="http://tools.ietf.org/html/rfc4918#section-15.9">RFC 4918 Section 15.9</a>
          */
         public final static ElementDescriptor<Set<QualifiedName>> RESOURCETYPE = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "resourcetype"),
-            new SetObjectBuilder<QualifiedName>(QualifiedNameObjectBuilder.INSTANCE));
+            new LazyObjectBuilder<Set<QualifiedName>>(new SetObjectBuilder<QualifiedName>(QualifiedNameObjectBuilder.INSTANCE)));
 
         // TODO: add supportedlock property
 
 
+        static
+        {
+            PropertyOrdinals.register(DISPLAYNAME, GETCONTENTLANGUAGE, GETCONTENTLENGTH, GETCONTENTTYPE, GETETAG, RESOURCETYPE);
+        }
+
+
         /**
          * No instances allowed.
          */
@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc4918;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A minimal scanner that finds the tags of an XML document in a {@link ByteBuffer}. It works on the raw bytes of documents in UTF-8 or any other ASCII
+ * compatible encoding, since all markup characters are ASCII. It doesn't decode anything and it doesn't check well-formedness, that's left to the real
+ * parser.
+ * <p>
+ * Comments, processing instructions and CDATA sections are skipped. Quoted attribute values are respected.
+ * </p>
+ */
+final class XmlTagScanner
+{
+    /**
+     * The end of the input has been reached or the input is truncated.
+     */
+    final static int EOF = 0;
+
+    /**
+     * A start tag like <code>&lt;name attr="value"&gt;</code>.
+     */
+    final static int START_TAG = 1;
+
+    /**
+     * An end tag like <code>&lt;/name&gt;</code>.
+     */
+    final static int END_TAG = 2;
+
+    /**
+     * An empty element tag like <code>&lt;name/&gt;</code>.
+     */
+    final static int EMPTY_TAG = 3;
+
+    /**
+     * A declaration like <code>&lt;!DOCTYPE ...&gt;</code>.
+     */
+    final static int DECLARATION = 4;
+
+    private final ByteBuffer mBuffer;
+    private final int mEnd;
+    private int mPos;
+
+    /**
+     * The start of the text before the current tag.
+     */
+    int mTextStart;
+
+    /**
+     * Whether the text before the current tag contained comments, processing instructions or CDATA sections.
+     */
+    boolean mTextHasMarkup;
+
+    /**
+     * The index of the <code>&lt;</code> of the current tag.
+     */
+    int mTagStart;
+
+    /**
+     * The index after the <code>&gt;</code> of the current tag.
+     */
+    int mTagEnd;
+
+    /**
+     * The index of the first character of the qualified name of the current tag.
+     */
+    int mNameStart;
+
+    /**
+     * The index of the first character of the local name of the current tag, i.e. the character after the colon, if any.
+     */
+    int mLocalNameStart;
+
+    /**
+     * The index after the last character of the name of the current tag.
+     */
+    int mNameEnd;
+
+    /**
+     * The index of the first character of the name of the current attribute.
+     */
+    int mAttributeNameStart;
+
+    /**
+     * The index after the last character of the name of the current attribute.
+     */
+    int mAttributeNameEnd;
+
+    /**
+     * The index of the first character of the value of the current attribute.
+     */
+    int mAttributeValueStart;
+
+    /**
+     * The index after the last character of the value of the current attribute.
+     */
+    int mAttributeValueEnd;
+
+    private int mAttributePos;
+
+
+    /**
+     * Create a scanner for the given range of a {@link ByteBuffer}. The position and limit of the buffer are ignored.
+     *
+     * @param buffer
+     *     The {@link ByteBuffer} to scan.
+     * @param start
+     *     The absolute index to start at.
+     * @param end
+     *     The absolute index to stop at.
+     */
+    XmlTagScanner(ByteBuffer buffer, int start, int end)
+    {
+        mBuffer = buffer;
+        mPos = start;
+        mEnd = end;
+    }
+
+
+    /**
+     * Moves to the next tag.
+     *
+     * @return The type of the tag, one of {@link #START_TAG}, {@link #END_TAG}, {@link #EMPTY_TAG}, {@link #DECLARATION} or {@link #EOF}.
+     */
+    int next()
+    {
+        final ByteBuffer buffer = mBuffer;
+        final int end = mEnd;
+        int pos = mPos;
+        mTextStart = pos;
+        mTextHasMarkup = false;
+
+        while (true)
+        {
+            pos = indexOf((byte) '<', pos);
+            if (pos < 0 || pos + 1 >= end)
+            {
+                return eof();
+            }
+
+            byte next = buffer.get(pos + 1);
+            if (next == '?')
+            {
+                pos = indexOf("?>", pos + 2);
+                if (pos < 0)
+                {
+                    return eof();
+                }
+                pos += 2;
+                mTextHasMarkup = true;
+                continue;
+            }
+
+            if (next == '!')
+            {
+                if (startsWith(pos, "<!--"))
+                {
+                    pos = indexOf("-->", pos + 4);
+                    if (pos < 0)
+                    {
+                        return eof();
+                    }
+                    pos += 3;
+                    mTextHasMarkup = true;
+                    continue;
+                }
+                if (startsWith(pos, "<![CDATA["))
+                {
+                    pos = indexOf("]]>", pos + 9);
+                    if (pos < 0)
+                    {
+                        return eof();
+                    }
+                    pos += 3;
+                    mTextHasMarkup = true;
+                    continue;
+                }
+            }
+
+            mTagStart = pos;
+            boolean endTag = next == '/';
+            int p = endTag ? pos + 2 : pos + 1;
+            mNameStart = p;
+            mLocalNameStart = p;
+            while (p < end)
+            {
+                byte c = buffer.get(p);
+                if (c == ':')
+                {
+                    mLocalNameStart = p + 1;
+                }
+                else if (c == '>' || c == '/' || c == ' ' || c == '\t' || c == '\r' || c == '\n')
+                {
+                    break;
+                }
+                ++p;
+            }
+            mNameEnd = p;
+            mAttributePos = p;
+
+            // find the end of the tag, skipping quoted attribute values
+            byte quote = 0;
+            while (p < end)
+            {
+                byte c = buffer.get(p);
+                if (quote != 0)
+                {
+                    if (c == quote)
+                    {
+                        quote = 0;
+                    }
+                }
+                else if (c == '"' || c == '\'')
+                {
+                    quote = c;
+                }
+                else if (c == '>')
+                {
+                    break;
+                }
+                ++p;
+            }
+
+            if (p >= end)
+            {
+                return eof();
+            }
+
+            mTagEnd = mPos = p + 1;
+
+            if (next == '!')
+            {
+                return DECLARATION;
+            }
+            if (endTag)
+            {
+                return END_TAG;
+            }
+            return buffer.get(p - 1) == '/' ? EMPTY_TAG : START_TAG;
+        }
+    }
+
+
+    /**
+     * Returns whether the local name of the current tag equals the given ASCII name.
+     *
+     * @param localName
+     *     The local name to compare.
+     *
+     * @return <code>true</code> if the names are equal.
+     */
+    boolean localNameEquals(String localName)
+    {
+        int length = localName.length();
+        if (mNameEnd - mLocalNameStart != length)
+        {
+            return false;
+        }
+        final ByteBuffer buffer = mBuffer;
+        for (int i = 0; i < length; ++i)
+        {
+            if (buffer.get(mLocalNameStart + i) != localName.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the qualified name of the current tag.
+     *
+     * @return The name, including the prefix if there is any.
+     */
+    String name()
+    {
+        return ascii(mNameStart, mNameEnd);
+    }
+
+
+    /**
+     * Returns the prefix of the current tag.
+     *
+     * @return The prefix or an empty {@link String} if the tag has no prefix.
+     */
+    String prefix()
+    {
+        return mLocalNameStart == mNameStart ? "" : ascii(mNameStart, mLocalNameStart - 1);
+    }
+
+
+    /**
+     * Returns whether the prefix of the current tag equals the given ASCII prefix.
+     *
+     * @param prefix
+     *     The prefix to compare, an empty {@link String} matches tags without a prefix.
+     *
+     * @return <code>true</code> if the prefixes are equal.
+     */
+    boolean prefixEquals(String prefix)
+    {
+        int length = prefix.length();
+        if (length == 0)
+        {
+            return mLocalNameStart == mNameStart;
+        }
+        if (mLocalNameStart - 1 - mNameStart != length)
+        {
+            return false;
+        }
+        final ByteBuffer buffer = mBuffer;
+        for (int i = 0; i < length; ++i)
+        {
+            if (buffer.get(mNameStart + i) != prefix.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Moves to the next attribute of the current tag. The attribute is available in {@link #mAttributeNameStart}, {@link #mAttributeNameEnd},
+     * {@link #mAttributeValueStart} and {@link #mAttributeValueEnd}, the value is not decoded.
+     *
+     * @return <code>true</code> if there was another attribute, <code>false</code> otherwise.
+     */
+    boolean nextAttribute()
+    {
+        final ByteBuffer buffer = mBuffer;
+        final int end = mTagEnd - 1;
+        int p = skipWhitespace(mAttributePos, end);
+        if (p >= end || buffer.get(p) == '/')
+        {
+            return false;
+        }
+
+        mAttributeNameStart = p;
+        while (p < end)
+        {
+            byte c = buffer.get(p);
+            if (c == '=' || c == ' ' || c == '\t' || c == '\r' || c == '\n')
+            {
+                break;
+            }
+            ++p;
+        }
+        mAttributeNameEnd = p;
+
+        p = skipWhitespace(p, end);
+        if (p >= end || buffer.get(p) != '=')
+        {
+            return false;
+        }
+        p = skipWhitespace(p + 1, end);
+        if (p >= end)
+        {
+            return false;
+        }
+
+        byte quote = buffer.get(p);
+        if (quote != '"' && quote != '\'')
+        {
+            return false;
+        }
+        mAttributeValueStart = ++p;
+        while (p < end && buffer.get(p) != quote)
+        {
+            ++p;
+        }
+        mAttributeValueEnd = p;
+        mAttributePos = p + 1;
+        return true;
+    }
+
+
+    /**
+     * Moves back to the first attribute of the current tag, so {@link #nextAttribute()} returns the attributes again.
+     */
+    void rewindAttributes()
+    {
+        mAttributePos = mNameEnd;
+    }
+
+
+    /**
+     * Returns the name of the current attribute.
+     *
+     * @return The qualified name of the attribute.
+     */
+    String attributeName()
+    {
+        return ascii(mAttributeNameStart, mAttributeNameEnd);
+    }
+
+
+    /**
+     * Returns the current position, i.e. the index after the current tag.
+     *
+     * @return The position.
+     */
+    int position()
+    {
+        return mPos;
+    }
+
+
+    /**
+     * Continues scanning at the given position.
+     *
+     * @param position
+     *     The absolute index to continue at.
+     */
+    void position(int position)
+    {
+        mPos = position;
+    }
+
+
+    private int eof()
+    {
+        mPos = mEnd;
+        return EOF;
+    }
+
+
+    /**
+     * Returns the index of the given byte in the given range.
+     *
+     * @return The index or <code>-1</code> if the range doesn't contain the byte.
+     */
+    int indexOf(byte b, int from, int to)
+    {
+        final ByteBuffer buffer = mBuffer;
+        for (int i = from; i < to; ++i)
+        {
+            if (buffer.get(i) == b)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    private int skipWhitespace(int pos, int end)
+    {
+        final ByteBuffer buffer = mBuffer;
+        while (pos < end)
+        {
+            byte c = buffer.get(pos);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n')
+            {
+                break;
+            }
+            ++pos;
+        }
+        return pos;
+    }
+
+
+    private String ascii(int start, int end)
+    {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; ++i)
+        {
+            chars[i - start] = (char) (mBuffer.get(i) & 0xff);
+        }
+        return new String(chars);
+    }
+
+
+    private int indexOf(byte b, int from)
+    {
+        return indexOf(b, from, mEnd);
+    }
+
+
+    private int indexOf(String sequence, int from)
+    {
+        byte first = (byte) sequence.charAt(0);
+        int pos = from;
+        while ((pos = indexOf(first, pos)) >= 0)
+        {
+            if (startsWith(pos, sequence))
+            {
+                return pos;
+            }
+            ++pos;
+        }
+        return -1;
+    }
+
+
+    private boolean startsWith(int pos, String sequence)
+    {
+        int length = sequence.length();
+        if (pos + length > mEnd)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; ++i)
+        {
+            if (mBuffer.get(pos + i) != sequence.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
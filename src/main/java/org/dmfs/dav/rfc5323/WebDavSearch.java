@@ -20,9 +20,9 @@
 package org.dmfs.dav.rfc5323;
 
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.ElementDescriptorMapObjectBuilder;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
-import org.dmfs.xmlobjects.builder.ElementMapObjectBuilder;
 import org.dmfs.xmlobjects.builder.IntegerObjectBuilder;
 
 import java.util.Map;
@@ -65,7 +65,7 @@ public final class WebDavSearch
      * </pre>
      */
     public final static ElementDescriptor<Map<ElementDescriptor<?>, Object>> LIMIT = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "limit"),
-        ElementMapObjectBuilder.INSTANCE);
+        ElementDescriptorMapObjectBuilder.INSTANCE);
 
 
     /**
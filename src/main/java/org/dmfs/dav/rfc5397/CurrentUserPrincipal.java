@@ -21,6 +21,7 @@ package org.dmfs.dav.rfc5397;
 
 import org.dmfs.dav.rfc3744.WebDavAcl;
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.TransientObjectBuilder;
@@ -129,6 +130,12 @@ public final class CurrentUserPrincipal
         });
 
 
+    static
+    {
+        PropertyOrdinals.register(CURRENT_USER_PRINCIPAL);
+    }
+
+
     /**
      * No instances allowed.
      */
@@ -23,6 +23,7 @@ import org.dmfs.dav.DavParserContext;
 import org.dmfs.dav.rfc4918.PropStat;
 import org.dmfs.dav.rfc4918.Response;
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.httpessentials.HttpStatus;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
@@ -149,7 +150,7 @@ public class MkColResponse implements Recyclable
         Map<ElementDescriptor<?>, PropStat> propStatByProperty = mPropStatByProperty;
         if (propStatByProperty == null)
         {
-            propStatByProperty = mPropStatByProperty = new HashMap<ElementDescriptor<?>, PropStat>(16);
+            propStatByProperty = mPropStatByProperty = new ElementDescriptorMap<PropStat>(16);
         }
 
         Set<ElementDescriptor<?>> properties = propStat.getPropertyDescriptors();
@@ -20,6 +20,7 @@
 package org.dmfs.dav.rfc5842;
 
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.httpessentials.HttpMethod;
 import org.dmfs.httpessentials.methods.IdempotentMethod;
 import org.dmfs.xmlobjects.ElementDescriptor;
@@ -102,6 +103,12 @@ public final class WebDavBind
         public final static ElementDescriptor<String> RESOURCE_ID = WebDavBind.PROPERTY_RESOURCE_ID;
 
 
+        static
+        {
+            PropertyOrdinals.register(RESOURCE_ID);
+        }
+
+
         /**
          * No instances allowed.
          */
@@ -20,6 +20,7 @@
 package org.dmfs.dav.rfc5995;
 
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.TransientObjectBuilder;
@@ -55,6 +56,12 @@ public final class AddMember
             new TransientObjectBuilder<URI>(WebDav.HREF));
 
 
+        static
+        {
+            PropertyOrdinals.register(ADD_MEMBER);
+        }
+
+
         /**
          * No instances allowed.
          */
@@ -31,6 +31,7 @@ import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -166,6 +167,32 @@ public class AddressbookMultiget extends PropertyRequest
     }
 
 
+    /**
+     * Returns a new {@link AddressbookMultiget} that requests the same properties as this one, but for the given hrefs. This is useful to split a large request into
+     * several smaller ones.
+     *
+     * @param hrefs
+     *     The {@link URI}s to request.
+     *
+     * @return A new {@link AddressbookMultiget}.
+     */
+    public AddressbookMultiget withHrefs(Collection<URI> hrefs)
+    {
+        AddressbookMultiget result = new AddressbookMultiget();
+        result.mAllProp = mAllProp;
+        result.mPropName = mPropName;
+        if (mProp != null)
+        {
+            for (ElementDescriptor<?> property : mProp.keySet())
+            {
+                result.addProperty(property);
+            }
+        }
+        result.mUris.addAll(hrefs);
+        return result;
+    }
+
+
     @Override
     public void recycle()
     {
@@ -20,21 +20,26 @@
 package org.dmfs.dav.rfc6352;
 
 import org.dmfs.dav.PropertyRequest;
-import org.dmfs.dav.rfc4791.filter.CompFilter;
 import org.dmfs.dav.rfc4918.PropFind;
 import org.dmfs.dav.rfc4918.WebDav;
 import org.dmfs.dav.rfc5323.WebDavSearch;
+import org.dmfs.dav.rfc6352.filter.FilterTestType;
 import org.dmfs.dav.rfc6352.filter.PropFilter;
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
 import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -48,11 +53,62 @@ import java.util.Map;
  */
 public class AddressbookQuery extends PropertyRequest
 {
+    private final static QualifiedName ATTRIBUTE_TEST = QualifiedName.get("test");
+
     /**
-     * An {@link IObjectBuilder} to serialize addressbook-query objects to XML.
+     * An {@link IObjectBuilder} to parse and serialize addressbook-query objects.
      */
     public final static IObjectBuilder<AddressbookQuery> BUILDER = new AbstractObjectBuilder<AddressbookQuery>()
     {
+        public AddressbookQuery get(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery recycle, ParserContext context)
+            throws XmlObjectPullParserException
+        {
+            if (recycle != null)
+            {
+                recycle.recycle();
+                return recycle;
+            }
+            return new AddressbookQuery();
+        }
+
+
+        ;
+
+
+        @SuppressWarnings("unchecked")
+        public <V extends Object> AddressbookQuery update(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object,
+            ElementDescriptor<V> childDescriptor, V child, ParserContext context) throws XmlObjectPullParserException
+        {
+            if (childDescriptor == WebDav.PROP)
+            {
+                object.mProp = (Map<ElementDescriptor<?>, Object>) child;
+            }
+            else if (childDescriptor == WebDav.ALLPROP)
+            {
+                object.mAllProp = true;
+            }
+            else if (childDescriptor == WebDav.PROPNAME)
+            {
+                object.mPropName = true;
+            }
+            else if (childDescriptor == CardDav.ADDRESSBOOK_QUERY_FILTER)
+            {
+                // the filter has been parsed into a separate query, take its filters and test
+                AddressbookQuery filter = (AddressbookQuery) child;
+                object.mFilters = filter.mFilters;
+                object.mFilterTest = filter.mFilterTest;
+            }
+            else if (childDescriptor == WebDavSearch.LIMIT)
+            {
+                object.mLimit = (Map<ElementDescriptor<?>, Object>) child;
+            }
+            return object;
+        }
+
+
+        ;
+
+
         @Override
         public void writeChildren(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object, IXmlChildWriter childWriter,
             SerializerContext context) throws SerializerException, IOException
@@ -70,9 +126,9 @@ public class AddressbookQuery extends PropertyRequest
                 childWriter.writeChild(WebDav.PROP, object.mProp, context);
             }
 
-            if (object.mFilter != null && object.mFilter.size() > 0)
+            if (object.mFilters != null && object.mFilters.size() > 0)
             {
-                childWriter.writeChild(CardDav.FILTER, object.mFilter, context);
+                childWriter.writeChild(CardDav.ADDRESSBOOK_QUERY_FILTER, object, context);
             }
 
             if (object.mLimit != null && object.mLimit.size() > 0)
@@ -85,6 +141,86 @@ public class AddressbookQuery extends PropertyRequest
         ;
     };
 
+    /**
+     * An {@link IObjectBuilder} for the <code>filter</code> element of an addressbook-query, see {@link CardDav#ADDRESSBOOK_QUERY_FILTER}. It writes the
+     * {@link PropFilter}s and the <code>test</code> attribute of a query. When parsing, the filter is read into a separate {@link AddressbookQuery} that's
+     * merged into the parent query by {@link #BUILDER}.
+     */
+    final static IObjectBuilder<AddressbookQuery> FILTER_BUILDER = new AbstractObjectBuilder<AddressbookQuery>()
+    {
+        public AddressbookQuery get(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery recycle, ParserContext context)
+            throws XmlObjectPullParserException
+        {
+            if (recycle != null)
+            {
+                recycle.recycle();
+                return recycle;
+            }
+            return new AddressbookQuery();
+        }
+
+
+        ;
+
+
+        @Override
+        public AddressbookQuery update(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object, QualifiedName attribute, String value,
+            ParserContext context) throws XmlObjectPullParserException
+        {
+            if (attribute == ATTRIBUTE_TEST)
+            {
+                object.mFilterTest = FilterTestType.allof.name().equals(value) ? FilterTestType.allof : FilterTestType.anyof;
+            }
+            return object;
+        }
+
+
+        ;
+
+
+        public <V extends Object> AddressbookQuery update(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object,
+            ElementDescriptor<V> childDescriptor, V child, ParserContext context) throws XmlObjectPullParserException
+        {
+            if (childDescriptor == PropFilter.DESCRIPTOR && child != null)
+            {
+                object.addFilter((PropFilter) child);
+            }
+            return object;
+        }
+
+
+        ;
+
+
+        @Override
+        public void writeAttributes(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object, IXmlAttributeWriter attributeWriter,
+            SerializerContext context) throws SerializerException, IOException
+        {
+            if (object.mFilterTest == FilterTestType.allof)
+            {
+                // anyof is the default, no need to write it
+                attributeWriter.writeAttribute(ATTRIBUTE_TEST, object.mFilterTest.toString(), context);
+            }
+        }
+
+
+        ;
+
+
+        @Override
+        public void writeChildren(ElementDescriptor<AddressbookQuery> descriptor, AddressbookQuery object, IXmlChildWriter childWriter,
+            SerializerContext context) throws SerializerException, IOException
+        {
+            for (PropFilter filter : object.mFilters)
+            {
+                childWriter.writeChild(PropFilter.DESCRIPTOR, filter, context);
+            }
+        }
+
+
+        ;
+    };
+
     /**
      * Specifies that all names and values of dead properties and the live properties defined by this document existing on the resource are to be returned.
      */
@@ -103,7 +239,12 @@ public class AddressbookQuery extends PropertyRequest
     /**
      * The list of filters.
      */
-    private List<PropFilter> mFilter;
+    private List<PropFilter> mFilters;
+
+    /**
+     * Whether any or all of the filters must match.
+     */
+    private FilterTestType mFilterTest = FilterTestType.anyof;
 
 
     /**
@@ -160,6 +301,18 @@ public class AddressbookQuery extends PropertyRequest
     }
 
 
+    /**
+     * Returns the maximum number of results in the response.
+     *
+     * @return The limit or <code>-1</code> if the number of results is not limited.
+     */
+    public int getNumberOfResultsLimit()
+    {
+        Object limit = mLimit == null ? null : mLimit.get(WebDavSearch.NRESULTS);
+        return limit == null ? -1 : (Integer) limit;
+    }
+
+
     /**
      * Add a limit to the request.
      *
@@ -172,7 +325,7 @@ public class AddressbookQuery extends PropertyRequest
     {
         if (mLimit == null)
         {
-            mLimit = new HashMap<ElementDescriptor<?>, Object>(8);
+            mLimit = new ElementDescriptorMap<Object>(4);
         }
         mLimit.put(descriptor, limit);
     }
@@ -197,16 +350,53 @@ public class AddressbookQuery extends PropertyRequest
      * Adds a {@link PropFilter} to send with the request.
      *
      * @param filter
-     *     A {@link CompFilter}.
+     *     A {@link PropFilter}.
      */
     public void addFilter(PropFilter filter)
     {
-        if (mFilter == null)
+        if (mFilters == null)
         {
-            mFilter = new ArrayList<PropFilter>(8);
+            mFilters = new ArrayList<PropFilter>(8);
         }
 
-        mFilter.add(filter);
+        mFilters.add(filter);
+    }
+
+
+    /**
+     * Sets whether any ({@link FilterTestType#anyof}, the default) or all ({@link FilterTestType#allof}) of the {@link PropFilter}s must match.
+     *
+     * @param test
+     *     The {@link FilterTestType}.
+     *
+     * @return This instance.
+     */
+    public AddressbookQuery setFilterTest(FilterTestType test)
+    {
+        mFilterTest = test;
+        return this;
+    }
+
+
+    /**
+     * Returns how the {@link PropFilter}s are combined.
+     *
+     * @return The {@link FilterTestType}.
+     */
+    public FilterTestType getFilterTest()
+    {
+        return mFilterTest;
+    }
+
+
+    /**
+     * Returns the {@link PropFilter}s of this query.
+     *
+     * @return An unmodifiable {@link List} of {@link PropFilter}s, may be empty.
+     */
+    public List<PropFilter> getFilters()
+    {
+        return mFilters == null ? Collections.<PropFilter>emptyList() : Collections.unmodifiableList(mFilters);
     }
 
 
@@ -223,6 +413,11 @@ public class AddressbookQuery extends PropertyRequest
         {
             mProp.clear();
         }
+        if (mFilters != null)
+        {
+            mFilters.clear();
+        }
+        mFilterTest = FilterTestType.anyof;
     }
 
 }
@@ -57,6 +57,13 @@ public final class CardDav
     public final static ElementDescriptor<AddressbookQuery> ADDRESSBOOK_QUERY = ElementDescriptor.register(ReportTypes.ADDRESSBOOK_QUERY,
         AddressbookQuery.BUILDER);
 
+    /**
+     * Definition of <code>filter</code> in the context of an {@link #ADDRESSBOOK_QUERY} element. It takes the {@link PropFilter}s and the <code>test</code>
+     * attribute of the {@link AddressbookQuery}.
+     */
+    final static ElementDescriptor<AddressbookQuery> ADDRESSBOOK_QUERY_FILTER = ElementDescriptor.registerWithParents(FILTER.qualifiedName,
+        AddressbookQuery.FILTER_BUILDER, ADDRESSBOOK_QUERY);
+
     /**
      * Definition of <code>addressbook-multiget</code>. This definition is only valid in the context of a {@link WebDavVersioning#REPORT} element.
      */
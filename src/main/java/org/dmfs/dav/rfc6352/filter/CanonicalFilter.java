@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc6352.filter;
+
+import org.dmfs.dav.rfc6352.AddressbookQuery;
+import org.dmfs.dav.utils.Fingerprint;
+import org.dmfs.dav.utils.TextMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Canonical forms and fingerprints of CardDAV filters, see <a href="http://tools.ietf.org/html/rfc6352#section-10.5">RFC 6352, section 10.5</a>.
+ * <p>
+ * Filters that select the same vCards on any server have the same canonical form. A canonical filter has
+ * </p>
+ * <ul>
+ * <li>property and parameter names in upper case,</li>
+ * <li>no children if it's an <code>is-not-defined</code> filter,</li>
+ * <li>an explicit collation and match type in each text-match,</li>
+ * <li>its sub-filters sorted and without duplicates,</li>
+ * <li>the test {@link FilterTestType#anyof} if it has less than two sub-filters, because both tests are equivalent in that case,</li>
+ * <li>the text of each text-match folded to lower case if its collation ignores the case, see {@link TextMatcher#fold(String, String)}.</li>
+ * </ul>
+ */
+public final class CanonicalFilter
+{
+    /**
+     * Returns the canonical form of the given filters.
+     *
+     * @param filters
+     *     The {@link PropFilter}s of a <code>filter</code> element.
+     *
+     * @return A new {@link List} of canonical {@link PropFilter}s.
+     */
+    public static List<PropFilter> canonicalize(List<PropFilter> filters)
+    {
+        Map<String, PropFilter> sorted = new TreeMap<String, PropFilter>();
+        for (PropFilter filter : filters)
+        {
+            PropFilter canonical = canonicalize(filter);
+            sorted.put(key(canonical), canonical);
+        }
+        return new ArrayList<PropFilter>(sorted.values());
+    }
+
+
+    /**
+     * Returns the canonical form of the given filter.
+     *
+     * @param filter
+     *     A {@link PropFilter}.
+     *
+     * @return The canonical {@link PropFilter}.
+     */
+    public static PropFilter canonicalize(PropFilter filter)
+    {
+        String name = filter.name.toUpperCase(Locale.ENGLISH);
+        if (filter.isNotDefined)
+        {
+            return new PropFilter(name, true);
+        }
+
+        ParamFilter[] filters = null;
+        if (filter.filters != null && filter.filters.length > 0)
+        {
+            Map<String, ParamFilter> sorted = new TreeMap<String, ParamFilter>();
+            for (ParamFilter child : filter.filters)
+            {
+                ParamFilter canonical = canonicalize(child);
+                sorted.put(key(canonical), canonical);
+            }
+            filters = sorted.values().toArray(new ParamFilter[sorted.size()]);
+        }
+        int children = (filter.textMatch == null ? 0 : 1) + (filters == null ? 0 : filters.length);
+        return new PropFilter(name, children < 2 || filter.test == null ? FilterTestType.anyof : filter.test, canonicalize(filter.textMatch), filters);
+    }
+
+
+    /**
+     * Returns the fingerprint of the canonical form of the given filters. Filters with the same canonical form have the same fingerprint.
+     *
+     * @param filters
+     *     The {@link PropFilter}s of a <code>filter</code> element.
+     * @param test
+     *     Whether any or all of the filters must match.
+     *
+     * @return The fingerprint.
+     */
+    public static long fingerprint(List<PropFilter> filters, FilterTestType test)
+    {
+        StringBuilder builder = new StringBuilder(64);
+        append(builder, filters, test);
+        return Fingerprint.of(builder);
+    }
+
+
+    /**
+     * Returns the canonical form of the filter and the result limit of the given {@link AddressbookQuery} as text. Queries with the same text have the same
+     * results, so it can serve as a cache key. See {@link #fingerprint(AddressbookQuery)}.
+     *
+     * @param query
+     *     An {@link AddressbookQuery}.
+     *
+     * @return The text of the canonical form.
+     */
+    public static String canonicalForm(AddressbookQuery query)
+    {
+        StringBuilder builder = new StringBuilder(64);
+        append(builder, query.getFilters(), query.getFilterTest());
+        int limit = query.getNumberOfResultsLimit();
+        if (limit >= 0)
+        {
+            builder.append("limit(").append(limit).append(')');
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * Returns the fingerprint of the filter and the result limit of the given {@link AddressbookQuery}. A limited query has a different fingerprint than the
+     * same query with another or no limit, because it may return fewer results.
+     *
+     * @param query
+     *     An {@link AddressbookQuery}.
+     *
+     * @return The fingerprint.
+     */
+    public static long fingerprint(AddressbookQuery query)
+    {
+        return Fingerprint.of(canonicalForm(query));
+    }
+
+
+    private static ParamFilter canonicalize(ParamFilter filter)
+    {
+        String name = filter.name.toUpperCase(Locale.ENGLISH);
+        if (filter.isNotDefined)
+        {
+            return new ParamFilter(name, true);
+        }
+        return filter.textMatch == null ? new ParamFilter(name) : new ParamFilter(name, canonicalize(filter.textMatch));
+    }
+
+
+    private static TextMatch canonicalize(TextMatch textMatch)
+    {
+        if (textMatch == null)
+        {
+            return null;
+        }
+        String collation = textMatch.collation == null ? TextMatch.COLLATION_I_UNICODE_CASEMAP : textMatch.collation;
+        return new TextMatch(TextMatcher.fold(textMatch.value, collation), textMatch.negate, collation,
+            textMatch.matchType == null ? TextMatch.MatchType.equals : textMatch.matchType);
+    }
+
+
+    private static String key(PropFilter filter)
+    {
+        StringBuilder builder = new StringBuilder(64);
+        append(builder, filter);
+        return builder.toString();
+    }
+
+
+    private static String key(ParamFilter filter)
+    {
+        StringBuilder builder = new StringBuilder(32);
+        append(builder, filter);
+        return builder.toString();
+    }
+
+
+    private static void append(StringBuilder builder, List<PropFilter> filters, FilterTestType test)
+    {
+        List<PropFilter> canonical = canonicalize(filters);
+        builder.append("filter(").append(canonical.size() < 2 || test == null ? FilterTestType.anyof : test);
+        for (PropFilter filter : canonical)
+        {
+            append(builder, filter);
+        }
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, PropFilter filter)
+    {
+        builder.append("prop(");
+        append(builder, filter.name);
+        if (filter.isNotDefined)
+        {
+            builder.append('!');
+        }
+        builder.append(filter.test);
+        append(builder, filter.textMatch);
+        if (filter.filters != null)
+        {
+            for (ParamFilter child : filter.filters)
+            {
+                append(builder, child);
+            }
+        }
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, ParamFilter filter)
+    {
+        builder.append("param(");
+        append(builder, filter.name);
+        if (filter.isNotDefined)
+        {
+            builder.append('!');
+        }
+        append(builder, filter.textMatch);
+        builder.append(')');
+    }
+
+
+    private static void append(StringBuilder builder, TextMatch textMatch)
+    {
+        if (textMatch != null)
+        {
+            builder.append("text(");
+            append(builder, textMatch.collation);
+            builder.append(textMatch.matchType);
+            builder.append(textMatch.negate ? '!' : '=');
+            append(builder, textMatch.value);
+            builder.append(')');
+        }
+    }
+
+
+    /**
+     * Appends a length prefixed string, so the key stays unambiguous whatever the string contains.
+     */
+    private static void append(StringBuilder builder, String value)
+    {
+        if (value == null)
+        {
+            builder.append('-');
+        }
+        else
+        {
+            builder.append(value.length()).append(':').append(value);
+        }
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private CanonicalFilter()
+    {
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc6352.filter;
+
+import org.dmfs.dav.rfc6352.AddressbookQuery;
+import org.dmfs.dav.rfc6352.CardDav;
+import org.dmfs.dav.utils.ContentComponent;
+import org.dmfs.dav.utils.ContentLine;
+import org.dmfs.dav.utils.ContentLineParser;
+import org.dmfs.dav.utils.TextMatcher;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+
+/**
+ * A {@link CardDav#FILTER} that has been compiled for local evaluation, as specified in <a href="http://tools.ietf.org/html/rfc6352#section-10.5">RFC 6352,
+ * section 10.5</a>. A filter is compiled once and can be evaluated against any number of vCards, which have to be parsed with {@link ContentLineParser}.
+ * Instances are immutable and can be shared among threads. Evaluating a filter doesn't create any objects.
+ * <p>
+ * Text is matched with {@link TextMatch#matcher()}, so all collations of {@link TextMatcher} are supported. A {@link TextMatch} without a collation uses
+ * <code>i;unicode-casemap</code>, which is the default of RFC 6352.
+ * </p>
+ */
+public final class CompiledFilter implements Predicate<ContentComponent>
+{
+    /**
+     * The collation that matches text exactly.
+     */
+    public final static String COLLATION_I_OCTET = TextMatcher.COLLATION_I_OCTET;
+
+    /**
+     * The collation that ignores the case of ASCII characters.
+     */
+    public final static String COLLATION_I_ASCII_CASEMAP = TextMatcher.COLLATION_I_ASCII_CASEMAP;
+
+    private final PropMatcher[] mFilters;
+    private final boolean mAllOf;
+
+
+    /**
+     * Compiles the filter of the given {@link AddressbookQuery}.
+     *
+     * @param query
+     *     The {@link AddressbookQuery}.
+     *
+     * @return A {@link CompiledFilter}.
+     *
+     * @throws IllegalArgumentException
+     *     if the filter uses an unsupported collation.
+     */
+    public static CompiledFilter compile(AddressbookQuery query)
+    {
+        return compile(query.getFilters(), query.getFilterTest());
+    }
+
+
+    /**
+     * Compiles the given filters.
+     *
+     * @param filters
+     *     The {@link PropFilter}s of the <code>filter</code> element.
+     * @param test
+     *     Whether any or all of the filters must match.
+     *
+     * @return A {@link CompiledFilter}.
+     *
+     * @throws IllegalArgumentException
+     *     if the filter uses an unsupported collation.
+     */
+    public static CompiledFilter compile(List<PropFilter> filters, FilterTestType test)
+    {
+        PropMatcher[] matchers = new PropMatcher[filters.size()];
+        for (int i = 0; i < matchers.length; ++i)
+        {
+            matchers[i] = compile(filters.get(i));
+        }
+        return new CompiledFilter(matchers, test == FilterTestType.allof);
+    }
+
+
+    private CompiledFilter(PropMatcher[] filters, boolean allOf)
+    {
+        mFilters = filters;
+        mAllOf = allOf;
+    }
+
+
+    /**
+     * Returns whether the given vCard matches this filter. An empty filter matches all vCards.
+     *
+     * @param vcard
+     *     The <code>VCARD</code> component.
+     *
+     * @return <code>true</code> if the vCard matches, <code>false</code> otherwise.
+     */
+    public boolean matches(ContentComponent vcard)
+    {
+        PropMatcher[] filters = mFilters;
+        if (filters.length == 0)
+        {
+            return true;
+        }
+        for (PropMatcher filter : filters)
+        {
+            if (filter.matches(vcard) != mAllOf)
+            {
+                // anyof: a match decides, allof: a mismatch decides
+                return !mAllOf;
+            }
+        }
+        return mAllOf;
+    }
+
+
+    @Override
+    public boolean test(ContentComponent vcard)
+    {
+        return matches(vcard);
+    }
+
+
+    private static PropMatcher compile(PropFilter filter)
+    {
+        ParamMatcher[] params = new ParamMatcher[filter.filters == null ? 0 : filter.filters.length];
+        for (int i = 0; i < params.length; ++i)
+        {
+            ParamFilter paramFilter = filter.filters[i];
+            params[i] = new ParamMatcher(paramFilter.name.toUpperCase(Locale.ENGLISH), paramFilter.isNotDefined, compile(paramFilter.textMatch));
+        }
+        return new PropMatcher(filter.name.toUpperCase(Locale.ENGLISH), filter.isNotDefined, filter.test == FilterTestType.allof, compile(filter.textMatch),
+            params);
+    }
+
+
+    private static TextMatcher compile(TextMatch textMatch)
+    {
+        return textMatch == null ? null : textMatch.matcher();
+    }
+
+
+    /**
+     * Matches a prop-filter.
+     */
+    private final static class PropMatcher
+    {
+        private final String mName;
+        private final boolean mIsNotDefined;
+        private final boolean mAllOf;
+        private final TextMatcher mText;
+        private final ParamMatcher[] mParams;
+
+
+        private PropMatcher(String name, boolean isNotDefined, boolean allOf, TextMatcher text, ParamMatcher[] params)
+        {
+            mName = name;
+            mIsNotDefined = isNotDefined;
+            mAllOf = allOf;
+            mText = text;
+            mParams = params;
+        }
+
+
+        boolean matches(ContentComponent vcard)
+        {
+            List<ContentLine> properties = vcard.properties();
+            for (int i = 0, count = properties.size(); i < count; ++i)
+            {
+                ContentLine property = properties.get(i);
+                if (mName.equals(property.name()))
+                {
+                    if (mIsNotDefined)
+                    {
+                        return false;
+                    }
+                    if (matchesProperty(property))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return mIsNotDefined;
+        }
+
+
+        private boolean matchesProperty(ContentLine property)
+        {
+            if (mText == null && mParams.length == 0)
+            {
+                return true;
+            }
+
+            final boolean allOf = mAllOf;
+            if (mText != null && mText.matches(property.value()) != allOf)
+            {
+                return !allOf;
+            }
+            for (ParamMatcher param : mParams)
+            {
+                if (param.matches(property) != allOf)
+                {
+                    return !allOf;
+                }
+            }
+            return allOf;
+        }
+    }
+
+
+    /**
+     * Matches a param-filter.
+     */
+    private final static class ParamMatcher
+    {
+        private final String mName;
+        private final boolean mIsNotDefined;
+        private final TextMatcher mText;
+
+
+        private ParamMatcher(String name, boolean isNotDefined, TextMatcher text)
+        {
+            mName = name;
+            mIsNotDefined = isNotDefined;
+            mText = text;
+        }
+
+
+        boolean matches(ContentLine property)
+        {
+            for (int i = 0, count = property.parameterCount(); i < count; ++i)
+            {
+                if (mName.equals(property.parameterName(i)))
+                {
+                    if (mIsNotDefined)
+                    {
+                        return false;
+                    }
+                    if (mText == null || mText.matches(property.parameterValue(i)))
+                    {
+                        return true;
+                    }
+                }
+            }
+            return mIsNotDefined;
+        }
+    }
+}
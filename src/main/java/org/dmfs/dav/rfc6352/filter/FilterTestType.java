@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc6352.filter;
+
+/**
+ * The values of the <code>test</code> attribute of the <code>filter</code> and <code>prop-filter</code> elements, see <a
+ * href="http://tools.ietf.org/html/rfc6352#section-10.5">RFC 6352, section 10.5</a>.
+ */
+public enum FilterTestType
+{
+    /**
+     * The filter matches if any of its children matches. This is the default.
+     */
+    anyof,
+
+    /**
+     * The filter matches if all of its children match.
+     */
+    allof;
+}
@@ -23,12 +23,15 @@ import org.dmfs.dav.FilterBase;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
 import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 
 /**
@@ -41,6 +44,66 @@ public final class ParamFilter extends CardDavFilter
     public final static ElementDescriptor<ParamFilter> DESCRIPTOR = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "param-filter"),
         new AbstractObjectBuilder<ParamFilter>()
         {
+            @Override
+            public ParamFilter get(ElementDescriptor<ParamFilter> descriptor, ParamFilter recycle, ParserContext context)
+                throws XmlObjectPullParserException
+            {
+                return new ParamFilter(null, false, null);
+            }
+
+
+            ;
+
+
+            @Override
+            public ParamFilter update(ElementDescriptor<ParamFilter> descriptor, ParamFilter object, QualifiedName attribute, String value,
+                ParserContext context) throws XmlObjectPullParserException
+            {
+                if (attribute == ATTRIBUTE_NAME)
+                {
+                    return new ParamFilter(value, object.isNotDefined, object.textMatch);
+                }
+                return object;
+            }
+
+
+            ;
+
+
+            @Override
+            public <V> ParamFilter update(ElementDescriptor<ParamFilter> descriptor, ParamFilter object, ElementDescriptor<V> childDescriptor, V child,
+                ParserContext context) throws XmlObjectPullParserException
+            {
+                if (childDescriptor == FILTER_ISNOTDEFINED)
+                {
+                    return new ParamFilter(object.name, true, null);
+                }
+                if (childDescriptor == TextMatch.DESCRIPTOR)
+                {
+                    return new ParamFilter(object.name, false, (TextMatch) child);
+                }
+                return object;
+            }
+
+
+            ;
+
+
+            @Override
+            public ParamFilter finish(ElementDescriptor<ParamFilter> descriptor, ParamFilter object, ParserContext context)
+                throws XmlObjectPullParserException
+            {
+                if (object.name == null || object.name.length() == 0)
+                {
+                    throw new XmlObjectPullParserException("<param-filter> must have a name attribute!");
+                }
+                return object;
+            }
+
+
+            ;
+
+
             @Override
             public void writeAttributes(ElementDescriptor<ParamFilter> descriptor, ParamFilter object, IXmlAttributeWriter attributeWriter,
                 SerializerContext context) throws SerializerException, IOException
@@ -135,6 +198,41 @@ public final class ParamFilter extends CardDavFilter
     }
 
 
+    /**
+     * Creates a filter with the given values, without validating the name. This is used by the parser, which validates the name when the element has been
+     * finished.
+     */
+    private ParamFilter(String name, boolean isNotDefined, TextMatch textMatch)
+    {
+        this.name = name;
+        this.isNotDefined = isNotDefined;
+        this.textMatch = textMatch;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof ParamFilter))
+        {
+            return false;
+        }
+        ParamFilter other = (ParamFilter) o;
+        return isNotDefined == other.isNotDefined && Objects.equals(name, other.name) && Objects.equals(textMatch, other.textMatch);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, isNotDefined, textMatch);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
@@ -23,12 +23,16 @@ import org.dmfs.dav.FilterBase;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
 import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
 
 
 /**
@@ -37,15 +41,92 @@ import java.io.IOException;
 public final class PropFilter extends StructuredFilter
 {
     private final static QualifiedName ATTRIBUTE_NAME = QualifiedName.get("name");
+    private final static QualifiedName ATTRIBUTE_TEST = QualifiedName.get("test");
+
+    private final static ParamFilter[] NO_FILTERS = new ParamFilter[0];
 
     public final static ElementDescriptor<PropFilter> DESCRIPTOR = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "prop-filter"),
         new AbstractObjectBuilder<PropFilter>()
         {
+            @Override
+            public PropFilter get(ElementDescriptor<PropFilter> descriptor, PropFilter recycle, ParserContext context) throws XmlObjectPullParserException
+            {
+                return new PropFilter(null, false, FilterTestType.anyof, null, NO_FILTERS);
+            }
+
+
+            ;
+
+
+            @Override
+            public PropFilter update(ElementDescriptor<PropFilter> descriptor, PropFilter object, QualifiedName attribute, String value,
+                ParserContext context) throws XmlObjectPullParserException
+            {
+                if (attribute == ATTRIBUTE_NAME)
+                {
+                    return new PropFilter(value, object.isNotDefined, object.test, object.textMatch, object.filters);
+                }
+                if (attribute == ATTRIBUTE_TEST)
+                {
+                    FilterTestType test = FilterTestType.allof.name().equals(value) ? FilterTestType.allof : FilterTestType.anyof;
+                    return new PropFilter(object.name, object.isNotDefined, test, object.textMatch, object.filters);
+                }
+                return object;
+            }
+
+
+            ;
+
+
+            @Override
+            public <V> PropFilter update(ElementDescriptor<PropFilter> descriptor, PropFilter object, ElementDescriptor<V> childDescriptor, V child,
+                ParserContext context) throws XmlObjectPullParserException
+            {
+                if (childDescriptor == FILTER_ISNOTDEFINED)
+                {
+                    return new PropFilter(object.name, true, object.test, null, NO_FILTERS);
+                }
+                if (childDescriptor == TextMatch.DESCRIPTOR)
+                {
+                    return new PropFilter(object.name, object.isNotDefined, object.test, (TextMatch) child, object.filters);
+                }
+                if (childDescriptor == ParamFilter.DESCRIPTOR)
+                {
+                    ParamFilter[] filters = Arrays.copyOf(object.filters, object.filters.length + 1);
+                    filters[object.filters.length] = (ParamFilter) child;
+                    return new PropFilter(object.name, object.isNotDefined, object.test, object.textMatch, filters);
+                }
+                return object;
+            }
+
+
+            ;
+
+
+            @Override
+            public PropFilter finish(ElementDescriptor<PropFilter> descriptor, PropFilter object, ParserContext context) throws XmlObjectPullParserException
+            {
+                if (object.name == null)
+                {
+                    throw new XmlObjectPullParserException("<prop-filter> must have a name attribute!");
+                }
+                return object;
+            }
+
+
+            ;
+
+
             @Override
             public void writeAttributes(ElementDescriptor<PropFilter> descriptor, PropFilter object, IXmlAttributeWriter attributeWriter,
                 SerializerContext context) throws SerializerException, IOException
             {
                 attributeWriter.writeAttribute(ATTRIBUTE_NAME, object.name, context);
+                if (object.test == FilterTestType.allof)
+                {
+                    // anyof is the default, no need to write it
+                    attributeWriter.writeAttribute(ATTRIBUTE_TEST, object.test.toString(), context);
+                }
             }
 
 
@@ -87,6 +168,11 @@ public final class PropFilter extends StructuredFilter
     public final TextMatch textMatch;
     public final ParamFilter[] filters;
 
+    /**
+     * Whether any or all of the text-match and param-filters must match.
+     */
+    public final FilterTestType test;
+
 
     /**
      * Creates a filter that matches the presence of a specific property.
@@ -114,6 +200,7 @@ public final class PropFilter extends StructuredFilter
         this.isNotDefined = isNotDefined;
         this.textMatch = null;
         this.filters = null;
+        this.test = FilterTestType.anyof;
     }
 
 
@@ -142,11 +229,61 @@ public final class PropFilter extends StructuredFilter
      *     Optional list of {@link ParamFilter}s.
      */
     public PropFilter(String name, TextMatch textMatch, ParamFilter... filters)
+    {
+        this(name, FilterTestType.anyof, textMatch, filters);
+    }
+
+
+    /**
+     * Creates a filter that matches a property by a specific text value and a list of {@link ParamFilter}s, combined with the given {@link FilterTestType}.
+     *
+     * @param name
+     *     The name of the property to match.
+     * @param test
+     *     Whether any ({@link FilterTestType#anyof}) or all ({@link FilterTestType#allof}) of the text filter and the {@link ParamFilter}s must match.
+     * @param textMatch
+     *     The text filter, may be <code>null</code>.
+     * @param filters
+     *     Optional list of {@link ParamFilter}s.
+     */
+    public PropFilter(String name, FilterTestType test, TextMatch textMatch, ParamFilter... filters)
+    {
+        this(name, false, test, textMatch, filters);
+    }
+
+
+    private PropFilter(String name, boolean isNotDefined, FilterTestType test, TextMatch textMatch, ParamFilter[] filters)
     {
         this.name = name;
-        this.isNotDefined = false;
+        this.isNotDefined = isNotDefined;
         this.textMatch = textMatch;
         this.filters = filters;
+        this.test = test;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof PropFilter))
+        {
+            return false;
+        }
+        PropFilter other = (PropFilter) o;
+        return isNotDefined == other.isNotDefined && test == other.test && Objects.equals(name, other.name) && Objects.equals(textMatch, other.textMatch)
+            && Arrays.equals(filters == null ? NO_FILTERS : filters, other.filters == null ? NO_FILTERS : other.filters);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        // no filters and an empty array of filters are equal
+        return Objects.hash(name, isNotDefined, test, textMatch) * 31 + Arrays.hashCode(filters == null ? NO_FILTERS : filters);
     }
 
 
@@ -20,15 +20,19 @@
 package org.dmfs.dav.rfc6352.filter;
 
 import org.dmfs.dav.FilterBase;
+import org.dmfs.dav.utils.TextMatcher;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
 import org.dmfs.xmlobjects.serializer.SerializerContext;
 import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
+import java.util.Objects;
 
 
 /**
@@ -69,6 +73,58 @@ public final class TextMatch extends CardDavFilter
     public final static ElementDescriptor<TextMatch> DESCRIPTOR = ElementDescriptor.register(QualifiedName.get(NAMESPACE, "text-match"),
         new AbstractObjectBuilder<TextMatch>()
         {
+            @Override
+            public TextMatch get(ElementDescriptor<TextMatch> descriptor, TextMatch recycle, ParserContext context) throws XmlObjectPullParserException
+            {
+                // contains is the default match type of RFC 6352
+                return new TextMatch(null, false, null, MatchType.contains);
+            }
+
+
+            ;
+
+
+            @Override
+            public TextMatch update(ElementDescriptor<TextMatch> descriptor, TextMatch object, QualifiedName attribute, String value,
+                ParserContext context) throws XmlObjectPullParserException
+            {
+                if (attribute == ATTRIBUTE_NEGATE_CONDITION)
+                {
+                    return new TextMatch(object.value, "yes".equals(value), object.collation, object.matchType);
+                }
+                if (attribute == ATTRIBUTE_COLLATION)
+                {
+                    return new TextMatch(object.value, object.negate, value, object.matchType);
+                }
+                if (attribute == ATTRIBUTE_MATCH_TYPE)
+                {
+                    for (MatchType matchType : MatchType.values())
+                    {
+                        if (matchType.toString().equals(value))
+                        {
+                            return new TextMatch(object.value, object.negate, object.collation, matchType);
+                        }
+                    }
+                    throw new XmlObjectPullParserException("invalid match-type value " + value);
+                }
+                return object;
+            }
+
+
+            ;
+
+
+            @Override
+            public TextMatch update(ElementDescriptor<TextMatch> descriptor, TextMatch object, String text, ParserContext context)
+                throws XmlObjectPullParserException
+            {
+                return new TextMatch(text, object.negate, object.collation, object.matchType);
+            }
+
+
+            ;
+
+
             @Override
             public void writeAttributes(ElementDescriptor<TextMatch> descriptor, TextMatch object, IXmlAttributeWriter attributeWriter,
                 SerializerContext context) throws SerializerException, IOException
@@ -115,6 +171,11 @@ public final class TextMatch extends CardDavFilter
 
     public final MatchType matchType;
 
+    /**
+     * The {@link TextMatcher} of this filter, created on demand.
+     */
+    private TextMatcher mMatcher;
+
 
     /**
      * Creates a non-negated, case-insensitive text-match filter, using the default collation {@link #COLLATION_I_UNICODE_CASEMAP}.
@@ -178,6 +239,71 @@ public final class TextMatch extends CardDavFilter
     }
 
 
+    /**
+     * Returns a {@link TextMatcher} that matches values like a server would evaluate this filter. Filters without a collation use the default collation
+     * {@link #COLLATION_I_UNICODE_CASEMAP}. The matcher is created on the first call.
+     *
+     * @return A {@link TextMatcher}.
+     *
+     * @throws IllegalArgumentException
+     *     if the collation is not supported by {@link TextMatcher}.
+     */
+    public TextMatcher matcher()
+    {
+        TextMatcher matcher = mMatcher;
+        if (matcher == null)
+        {
+            // this is racy, but in the worst case we just create the same matcher twice
+            matcher = mMatcher = new TextMatcher(value == null ? "" : value, collation == null ? COLLATION_I_UNICODE_CASEMAP : collation,
+                matcherType(matchType), negate);
+        }
+        return matcher;
+    }
+
+
+    private static int matcherType(MatchType matchType)
+    {
+        if (matchType == null)
+        {
+            return TextMatcher.MATCH_EQUALS;
+        }
+        switch (matchType)
+        {
+            case contains:
+                return TextMatcher.MATCH_CONTAINS;
+            case starts_with:
+                return TextMatcher.MATCH_STARTS_WITH;
+            case ends_with:
+                return TextMatcher.MATCH_ENDS_WITH;
+            default:
+                return TextMatcher.MATCH_EQUALS;
+        }
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof TextMatch))
+        {
+            return false;
+        }
+        TextMatch other = (TextMatch) o;
+        return negate == other.negate && matchType == other.matchType && Objects.equals(value, other.value) && Objects.equals(collation, other.collation);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(value, collation, negate, matchType);
+    }
+
+
     @Override
     public ElementDescriptor<? extends FilterBase> getElementDescriptor()
     {
@@ -23,6 +23,7 @@ import org.dmfs.dav.PropertyRequest;
 import org.dmfs.dav.rfc4918.MultiStatus;
 import org.dmfs.dav.rfc4918.WebDav;
 import org.dmfs.dav.rfc5323.WebDavSearch;
+import org.dmfs.dav.utils.ElementDescriptorMap;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
 import org.dmfs.xmlobjects.builder.IObjectBuilder;
@@ -33,7 +34,6 @@ import org.dmfs.xmlobjects.serializer.SerializerException;
 import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 
@@ -144,6 +144,17 @@ public final class SyncCollection extends PropertyRequest
     }
 
 
+    /**
+     * Get the sync token to send.
+     *
+     * @return The sync token, an empty {@link String} for an initial sync.
+     */
+    public String getSyncToken()
+    {
+        return mSyncToken;
+    }
+
+
     /**
      * Set the sync-level. This has to be either {@link SyncLevel#infinite} or {@link SyncLevel#one}, the later one being the default value.
      *
@@ -226,7 +237,7 @@ public final class SyncCollection extends PropertyRequest
     {
         if (mLimit == null)
         {
-            mLimit = new HashMap<ElementDescriptor<?>, Object>(6);
+            mLimit = new ElementDescriptorMap<Object>(4);
         }
         mLimit.put(descriptor, limit);
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc6578;
+
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseIterator;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.util.function.Supplier;
+
+
+/**
+ * Runs the paging loop of <a href="http://tools.ietf.org/html/rfc6578#section-3.6">RFC 6578, section 3.6</a>.
+ * <p>
+ * A server may truncate the result of a <code>sync-collection</code> report. In that case the multistatus contains a response with status 507 for the
+ * request-URI and a new sync-token. The client has to repeat the report with this sync-token to get the remaining changes. This driver sends one report after
+ * the other until the result is complete. The responses are parsed one at a time and handed to a {@link SyncListener}, so only one response is held in memory
+ * at a time, no matter how large the collection is.
+ * </p>
+ * <p>
+ * Sending the requests is left to a {@link RequestExecutor}.
+ * </p>
+ */
+public final class SyncCollectionDriver
+{
+    /**
+     * The status of a response that indicates a truncated result.
+     */
+    private final static int STATUS_INSUFFICIENT_STORAGE = 507;
+
+    /**
+     * The status of a response that indicates a removed member.
+     */
+    private final static int STATUS_NOT_FOUND = 404;
+
+
+    /**
+     * Sends a sync-collection report to the server.
+     */
+    public interface RequestExecutor
+    {
+        /**
+         * Sends the given request and returns the multistatus response.
+         *
+         * @param request
+         *     The {@link SyncCollection} to send.
+         *
+         * @return An {@link InputStream} of the multistatus response. It will be closed by the caller.
+         *
+         * @throws IOException
+         *     if the request fails.
+         */
+        InputStream execute(SyncCollection request) throws IOException;
+    }
+
+
+    /**
+     * Receives the changes of a collection.
+     */
+    public interface SyncListener
+    {
+        /**
+         * Called for each member that has been added or changed.
+         *
+         * @param response
+         *     The {@link Response} of the member.
+         */
+        void onChanged(Response response);
+
+
+        /**
+         * Called for each member that has been removed.
+         *
+         * @param response
+         *     The {@link Response} of the member.
+         */
+        void onRemoved(Response response);
+    }
+
+
+    private final SyncCollection mRequest;
+    private final RequestExecutor mExecutor;
+    private final Supplier<? extends ParserContext> mContextFactory;
+    private int mMaxRounds = Integer.MAX_VALUE;
+
+
+    /**
+     * Create a {@link SyncCollectionDriver}.
+     *
+     * @param request
+     *     The {@link SyncCollection} to send. Its sync-token is updated with each round trip.
+     * @param executor
+     *     The {@link RequestExecutor} that sends the requests.
+     * @param contextFactory
+     *     A {@link Supplier} of the {@link ParserContext} to parse each response with.
+     */
+    public SyncCollectionDriver(SyncCollection request, RequestExecutor executor, Supplier<? extends ParserContext> contextFactory)
+    {
+        mRequest = request;
+        mExecutor = executor;
+        mContextFactory = contextFactory;
+    }
+
+
+    /**
+     * Limits the number of results per round trip by setting the <code>nresults</code> limit of the request, see
+     * {@link SyncCollection#limitNumberOfResults(int)}. Servers may ignore this limit or truncate the results earlier.
+     *
+     * @param pageSize
+     *     The maximum number of results per round trip, a non-positive value removes the limit.
+     *
+     * @return This instance.
+     */
+    public SyncCollectionDriver setPageSize(int pageSize)
+    {
+        mRequest.limitNumberOfResults(pageSize);
+        return this;
+    }
+
+
+    /**
+     * Sets the maximum number of round trips of a single {@link #sync(String, SyncListener)} call. This protects against servers that never complete the
+     * result.
+     *
+     * @param maxRounds
+     *     The maximum number of round trips.
+     *
+     * @return This instance.
+     */
+    public SyncCollectionDriver setMaxRounds(int maxRounds)
+    {
+        mMaxRounds = maxRounds;
+        return this;
+    }
+
+
+    /**
+     * Retrieves all changes since the given sync-token. If the server truncates the results, the report is repeated with the new sync-token until all changes
+     * have been received.
+     * <p>
+     * Note that the listener may already have received some changes when this method throws. Those changes remain valid, but the caller should only store the
+     * last sync-token that has been returned successfully.
+     * </p>
+     *
+     * @param syncToken
+     *     The sync-token of the last sync or <code>null</code> for an initial sync.
+     * @param listener
+     *     The {@link SyncListener} to receive the changes.
+     *
+     * @return The new sync-token.
+     *
+     * @throws IOException
+     *     if a request fails, the response can't be parsed or the server doesn't make progress.
+     */
+    public String sync(String syncToken, SyncListener listener) throws IOException
+    {
+        String token = syncToken;
+        for (int round = 0; round < mMaxRounds; ++round)
+        {
+            mRequest.setSyncToken(token);
+
+            boolean truncated = false;
+            String newToken;
+            try (InputStream in = mExecutor.execute(mRequest))
+            {
+                ResponseIterator responses = new ResponseIterator(in, null, mContextFactory.get());
+                while (responses.hasNext())
+                {
+                    Response response = responses.next();
+                    int status = response.getStatus();
+                    if (status == STATUS_INSUFFICIENT_STORAGE)
+                    {
+                        // the truncation marker, refers to the request-URI
+                        truncated = true;
+                    }
+                    else if (status == STATUS_NOT_FOUND)
+                    {
+                        listener.onRemoved(response);
+                    }
+                    else
+                    {
+                        listener.onChanged(response);
+                    }
+                }
+                newToken = responses.multiStatus().getSyncToken();
+            }
+            catch (XmlPullParserException e)
+            {
+                throw new IOException("Can't create parser", e);
+            }
+            catch (UncheckedIOException e)
+            {
+                // thrown by the ResponseIterator if the response can't be read
+                throw e.getCause();
+            }
+            catch (IllegalStateException e)
+            {
+                // thrown by the ResponseIterator if the response can't be parsed, anything else is not ours to handle
+                if (e.getCause() instanceof XmlPullParserException || e.getCause() instanceof XmlObjectPullParserException)
+                {
+                    throw new IOException("Can't parse sync-collection response", e.getCause());
+                }
+                throw e;
+            }
+
+            if (newToken == null)
+            {
+                throw new ProtocolException("Response doesn't contain a sync-token");
+            }
+
+            if (!truncated)
+            {
+                return newToken;
+            }
+
+            if (newToken.equals(token))
+            {
+                throw new ProtocolException("Result has been truncated, but the sync-token didn't change");
+            }
+            token = newToken;
+        }
+        throw new ProtocolException("Result still incomplete after " + mMaxRounds + " round trips");
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.rfc6578;
+
+import org.dmfs.dav.nonrfc.NonRfc;
+import org.dmfs.dav.rfc4918.PropFind;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.ResponseIterator;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * Synchronizes many collections concurrently.
+ * <p>
+ * The scheduler keeps the sync-token and the {@link NonRfc.Properties#GETCTAG} of each collection. {@link #sync(URI)} sends a single PROPFIND with depth 1 to
+ * a home set to retrieve the current ctags and sync-tokens of all collections in it. Only the collections with a changed ctag (or a changed sync-token, if
+ * the server doesn't support ctags) are synchronized with a {@link SyncCollectionDriver}.
+ * </p>
+ * <p>
+ * The synchronizations run on the given {@link ExecutorService}. In addition, the number of concurrent synchronizations per host is limited. Synchronizations
+ * beyond that limit are queued per host and handed to the executor when a synchronization of the same host completes, so they never block an executor
+ * thread.
+ * </p>
+ * <p>
+ * Instances are thread safe.
+ * </p>
+ */
+public final class SyncScheduler
+{
+    /**
+     * Sends the requests of a {@link SyncScheduler} to the server.
+     */
+    public interface RequestExecutor
+    {
+        /**
+         * Sends the given PROPFIND request with a <code>Depth: 1</code> header and returns the multistatus response.
+         *
+         * @param uri
+         *     The {@link URI} of the home set.
+         * @param request
+         *     The {@link PropFind} to send.
+         *
+         * @return An {@link InputStream} of the multistatus response. It will be closed by the caller.
+         *
+         * @throws IOException
+         *     if the request fails.
+         */
+        InputStream propFind(URI uri, PropFind request) throws IOException;
+
+
+        /**
+         * Sends the given sync-collection REPORT and returns the multistatus response.
+         *
+         * @param uri
+         *     The {@link URI} of the collection.
+         * @param request
+         *     The {@link SyncCollection} to send.
+         *
+         * @return An {@link InputStream} of the multistatus response. It will be closed by the caller.
+         *
+         * @throws IOException
+         *     if the request fails.
+         */
+        InputStream syncCollection(URI uri, SyncCollection request) throws IOException;
+    }
+
+
+    /**
+     * The sync state of a collection.
+     */
+    public final static class CollectionState
+    {
+        /**
+         * The sync-token of the last successful sync, may be <code>null</code>.
+         */
+        public final String syncToken;
+
+        /**
+         * The ctag at the time of the last successful sync, may be <code>null</code>.
+         */
+        public final String ctag;
+
+
+        /**
+         * Create a {@link CollectionState}.
+         *
+         * @param syncToken
+         *     The sync-token, may be <code>null</code>.
+         * @param ctag
+         *     The ctag, may be <code>null</code>.
+         */
+        public CollectionState(String syncToken, String ctag)
+        {
+            this.syncToken = syncToken;
+            this.ctag = ctag;
+        }
+    }
+
+
+    private final ExecutorService mExecutor;
+    private final RequestExecutor mRequestExecutor;
+    private final Supplier<? extends ParserContext> mContextFactory;
+    private final SyncCollection mTemplate;
+    private final Function<URI, SyncCollectionDriver.SyncListener> mListenerFactory;
+    private final int mMaxPerHost;
+
+    private final ConcurrentMap<URI, CollectionState> mStates = new ConcurrentHashMap<URI, CollectionState>();
+    private final ConcurrentMap<String, HostQueue> mHostQueues = new ConcurrentHashMap<String, HostQueue>();
+
+    /**
+     * The collections that are being synchronized right now, to avoid running two syncs of the same collection concurrently.
+     */
+    private final ConcurrentMap<URI, Boolean> mRunning = new ConcurrentHashMap<URI, Boolean>();
+
+
+    /**
+     * Create a {@link SyncScheduler}.
+     *
+     * @param executor
+     *     The {@link ExecutorService} to run the synchronizations on.
+     * @param requestExecutor
+     *     The {@link RequestExecutor} that sends the requests.
+     * @param contextFactory
+     *     A {@link Supplier} of the {@link ParserContext} to parse each response with.
+     * @param template
+     *     A {@link SyncCollection} that specifies the sync-level, the properties and the limits of each report. The template itself is never sent.
+     * @param listenerFactory
+     *     A {@link Function} that returns the {@link SyncCollectionDriver.SyncListener} for a collection.
+     * @param maxPerHost
+     *     The maximum number of concurrent synchronizations per host.
+     */
+    public SyncScheduler(ExecutorService executor, RequestExecutor requestExecutor, Supplier<? extends ParserContext> contextFactory, SyncCollection template,
+        Function<URI, SyncCollectionDriver.SyncListener> listenerFactory, int maxPerHost)
+    {
+        if (maxPerHost < 1)
+        {
+            throw new IllegalArgumentException("The maximum number of synchronizations per host must be positive");
+        }
+        mExecutor = executor;
+        mRequestExecutor = requestExecutor;
+        mContextFactory = contextFactory;
+        mTemplate = template;
+        mListenerFactory = listenerFactory;
+        mMaxPerHost = maxPerHost;
+    }
+
+
+    /**
+     * Sets the sync state of a collection, usually to restore a persisted state.
+     *
+     * @param collection
+     *     The {@link URI} of the collection.
+     * @param state
+     *     The {@link CollectionState} or <code>null</code> to remove the state.
+     */
+    public void setState(URI collection, CollectionState state)
+    {
+        if (state == null)
+        {
+            mStates.remove(collection);
+        }
+        else
+        {
+            mStates.put(collection, state);
+        }
+    }
+
+
+    /**
+     * Returns the sync state of a collection.
+     *
+     * @param collection
+     *     The {@link URI} of the collection.
+     *
+     * @return The {@link CollectionState} or <code>null</code> if the collection has not been synchronized yet.
+     */
+    public CollectionState state(URI collection)
+    {
+        return mStates.get(collection);
+    }
+
+
+    /**
+     * Finds the changed collections in the given home set and schedules their synchronization. Collections that are being synchronized already are skipped.
+     *
+     * @param homeSet
+     *     The {@link URI} of a calendar or address book home set.
+     *
+     * @return A {@link Map} of the {@link URI}s of the scheduled collections to a {@link Future} of the new sync-token.
+     *
+     * @throws IOException
+     *     if the PROPFIND request fails. Synchronizations that have been scheduled before the error are cancelled, unless they have started already.
+     */
+    public Map<URI, Future<String>> sync(URI homeSet) throws IOException
+    {
+        PropFind propFind = new PropFind();
+        propFind.addProperty(NonRfc.Properties.GETCTAG);
+        propFind.addProperty(WebDavSync.Properties.SYNC_TOKEN);
+
+        Map<URI, Future<String>> result = new LinkedHashMap<URI, Future<String>>();
+        List<SyncTask> tasks = new ArrayList<SyncTask>();
+        boolean completed = false;
+        try (InputStream in = mRequestExecutor.propFind(homeSet, propFind))
+        {
+            ResponseIterator responses = new ResponseIterator(in, null, mContextFactory.get());
+            while (responses.hasNext())
+            {
+                Response response = responses.next();
+                response.resolveHRefs(homeSet);
+                URI collection = response.getHRef();
+                if (collection == null || sameResource(collection, homeSet))
+                {
+                    continue;
+                }
+
+                String ctag = property(response, NonRfc.Properties.GETCTAG);
+                String syncToken = property(response, WebDavSync.Properties.SYNC_TOKEN);
+                if (syncToken == null)
+                {
+                    // not a collection that supports sync-collection
+                    continue;
+                }
+
+                if (changed(mStates.get(collection), ctag, syncToken) && mRunning.putIfAbsent(collection, Boolean.TRUE) == null)
+                {
+                    SyncTask task = new SyncTask(collection, ctag);
+                    SyncFuture future = new SyncFuture(task);
+                    try
+                    {
+                        hostQueue(collection).submit(future);
+                        result.put(collection, future);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        mRunning.remove(collection);
+                        throw e;
+                    }
+                    tasks.add(task);
+                }
+            }
+            completed = true;
+        }
+        catch (XmlPullParserException e)
+        {
+            throw new IOException("Can't create parser", e);
+        }
+        catch (UncheckedIOException e)
+        {
+            // thrown by the ResponseIterator if the response can't be read
+            throw e.getCause();
+        }
+        finally
+        {
+            if (!completed)
+            {
+                // the caller won't get the futures, so don't leave any tasks behind that nobody waits for
+                cancel(tasks, result);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Cancels the given tasks unless they have started already. Tasks that have started complete in the background.
+     */
+    private static void cancel(List<SyncTask> tasks, Map<URI, Future<String>> futures)
+    {
+        for (SyncTask task : tasks)
+        {
+            if (task.abandon())
+            {
+                futures.get(task.mCollection).cancel(false);
+            }
+        }
+    }
+
+
+    /**
+     * Returns whether a collection needs to be synchronized.
+     */
+    private static boolean changed(CollectionState state, String ctag, String syncToken)
+    {
+        if (state == null)
+        {
+            return true;
+        }
+        if (ctag != null && state.ctag != null)
+        {
+            return !ctag.equals(state.ctag);
+        }
+        return !syncToken.equals(state.syncToken);
+    }
+
+
+    private static String property(Response response, ElementDescriptor<String> property)
+    {
+        return response.getPropertyStatus(property) == 200 ? response.getPropertyValue(property) : null;
+    }
+
+
+    /**
+     * Compares two {@link URI}s ignoring a trailing slash.
+     */
+    private static boolean sameResource(URI uri1, URI uri2)
+    {
+        String path1 = uri1.normalize().getRawPath();
+        String path2 = uri2.normalize().getRawPath();
+        if (path1 == null || path2 == null)
+        {
+            return uri1.equals(uri2);
+        }
+        int length1 = path1.endsWith("/") ? path1.length() - 1 : path1.length();
+        int length2 = path2.endsWith("/") ? path2.length() - 1 : path2.length();
+        return length1 == length2 && path1.regionMatches(0, path2, 0, length1);
+    }
+
+
+    private HostQueue hostQueue(URI collection)
+    {
+        String host = collection.getAuthority() == null ? "" : collection.getAuthority();
+        HostQueue queue = mHostQueues.get(host);
+        if (queue == null)
+        {
+            HostQueue newQueue = new HostQueue();
+            queue = mHostQueues.putIfAbsent(host, newQueue);
+            if (queue == null)
+            {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
+
+    /**
+     * Returns a new {@link SyncCollection} with the settings of the template.
+     */
+    private SyncCollection newRequest()
+    {
+        SyncCollection template = mTemplate;
+        SyncCollection request = new SyncCollection();
+        request.setSyncLevel(template.getSyncLevel());
+        request.limitNumberOfResults(template.getNumberOfResultsLimit());
+        Set<ElementDescriptor<?>> properties = template.getProperties();
+        if (properties != null)
+        {
+            for (ElementDescriptor<?> property : properties)
+            {
+                request.addProperty(property);
+            }
+        }
+        return request;
+    }
+
+
+    /**
+     * Synchronizes a single collection.
+     */
+    private final class SyncTask implements Callable<String>
+    {
+        private final URI mCollection;
+        private final String mCtag;
+
+        /**
+         * Whether the task has been started or abandoned, whichever comes first wins.
+         */
+        private final AtomicBoolean mClaimed = new AtomicBoolean();
+
+
+        private SyncTask(URI collection, String ctag)
+        {
+            mCollection = collection;
+            mCtag = ctag;
+        }
+
+
+        /**
+         * Abandons this task if it hasn't started yet.
+         *
+         * @return <code>true</code> if the task has been abandoned and will never run, <code>false</code> if it has started already.
+         */
+        boolean abandon()
+        {
+            if (mClaimed.compareAndSet(false, true))
+            {
+                mRunning.remove(mCollection);
+                return true;
+            }
+            return false;
+        }
+
+
+        @Override
+        public String call() throws IOException
+        {
+            final URI collection = mCollection;
+            if (!mClaimed.compareAndSet(false, true))
+            {
+                throw new CancellationException("Synchronization of " + collection + " has been cancelled");
+            }
+            try
+            {
+                CollectionState state = mStates.get(collection);
+                SyncCollectionDriver driver = new SyncCollectionDriver(newRequest(), request -> mRequestExecutor.syncCollection(collection, request),
+                    mContextFactory);
+                String syncToken = driver.sync(state == null ? null : state.syncToken, mListenerFactory.apply(collection));
+                mStates.put(collection, new CollectionState(syncToken, mCtag));
+                return syncToken;
+            }
+            finally
+            {
+                mRunning.remove(collection);
+            }
+        }
+    }
+
+
+    /**
+     * The {@link Future} of a {@link SyncTask}.
+     */
+    private final static class SyncFuture extends FutureTask<String>
+    {
+        private final SyncTask mTask;
+
+
+        private SyncFuture(SyncTask task)
+        {
+            super(task);
+            mTask = task;
+        }
+
+
+        /**
+         * Fails this future because the executor didn't accept it.
+         */
+        void reject(RejectedExecutionException e)
+        {
+            if (mTask.abandon())
+            {
+                setException(e);
+            }
+        }
+    }
+
+
+    /**
+     * Limits the number of concurrent synchronizations of a host. Synchronizations beyond the limit wait in this queue, not on an executor thread.
+     */
+    private final class HostQueue
+    {
+        /**
+         * The synchronizations waiting for a slot, guarded by <code>this</code>.
+         */
+        private final Deque<SyncFuture> mPending = new ArrayDeque<SyncFuture>();
+
+        /**
+         * The number of synchronizations that have been handed to the executor and not completed yet, guarded by <code>this</code>.
+         */
+        private int mActive;
+
+
+        /**
+         * Hands the given synchronization to the executor, or queues it if the host has no free slot.
+         *
+         * @throws RejectedExecutionException
+         *     if the executor doesn't accept the synchronization.
+         */
+        void submit(SyncFuture future)
+        {
+            synchronized (this)
+            {
+                if (mActive >= mMaxPerHost)
+                {
+                    mPending.addLast(future);
+                    return;
+                }
+                ++mActive;
+            }
+            execute(future);
+        }
+
+
+        private void execute(final SyncFuture future)
+        {
+            try
+            {
+                mExecutor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            future.run();
+                        }
+                        finally
+                        {
+                            completed();
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                // give the slot to the next one
+                completed();
+                throw e;
+            }
+        }
+
+
+        /**
+         * Frees the slot of a completed synchronization by handing it to the next queued one.
+         */
+        private void completed()
+        {
+            SyncFuture next;
+            synchronized (this)
+            {
+                next = mPending.pollFirst();
+                if (next == null)
+                {
+                    --mActive;
+                    return;
+                }
+            }
+            try
+            {
+                execute(next);
+            }
+            catch (RejectedExecutionException e)
+            {
+                next.reject(e);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.dmfs.dav.rfc6578;
 
 import org.dmfs.dav.rfc3253.WebDavVersioning;
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.QualifiedNameObjectBuilder;
@@ -96,6 +97,12 @@ public final class WebDavSync
         public final static ElementDescriptor<String> SYNC_TOKEN = WebDavSync.SYNC_TOKEN; /* the definition equals WebDavSync.SYNC_TOKEN */
 
 
+        static
+        {
+            PropertyOrdinals.register(SYNC_TOKEN);
+        }
+
+
         /**
          * No instances allowed.
          */
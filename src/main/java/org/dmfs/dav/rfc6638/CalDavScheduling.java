@@ -21,6 +21,7 @@ package org.dmfs.dav.rfc6638;
 
 import org.dmfs.dav.rfc4791.CalDav;
 import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.utils.PropertyOrdinals;
 import org.dmfs.xmlobjects.ElementDescriptor;
 import org.dmfs.xmlobjects.QualifiedName;
 import org.dmfs.xmlobjects.builder.SetObjectBuilder;
@@ -96,6 +97,12 @@ public final class CalDavScheduling
         public final static ElementDescriptor<Set<URI>> CALENDAR_USER_ADDRESS_SET = CalDavScheduling.PROPERTY_CALENDAR_USER_ADDRESS_SET;
 
 
+        static
+        {
+            PropertyOrdinals.register(CALENDAR_USER_ADDRESS_SET);
+        }
+
+
         /**
          * No instances allowed.
          */
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+
+/**
+ * An {@link InputStream} that reads a range of a {@link ByteBuffer}. The buffer is not copied and its position and limit are not modified, so many streams
+ * can read the same buffer concurrently.
+ */
+public final class ByteBufferInputStream extends InputStream
+{
+    private final ByteBuffer mBuffer;
+    private int mMark;
+
+
+    /**
+     * Create an {@link InputStream} that reads the remaining bytes of the given {@link ByteBuffer}.
+     *
+     * @param buffer
+     *     The {@link ByteBuffer} to read.
+     */
+    public ByteBufferInputStream(ByteBuffer buffer)
+    {
+        mBuffer = buffer.duplicate();
+        mMark = mBuffer.position();
+    }
+
+
+    /**
+     * Create an {@link InputStream} that reads the given range of the given {@link ByteBuffer}.
+     *
+     * @param buffer
+     *     The {@link ByteBuffer} to read.
+     * @param start
+     *     The absolute index of the first byte to read.
+     * @param end
+     *     The absolute index after the last byte to read.
+     */
+    public ByteBufferInputStream(ByteBuffer buffer, int start, int end)
+    {
+        mBuffer = buffer.duplicate();
+        // cast to Buffer to stay compatible with Java 8 runtimes
+        ((Buffer) mBuffer).limit(end);
+        ((Buffer) mBuffer).position(start);
+        mMark = start;
+    }
+
+
+    @Override
+    public int read()
+    {
+        return mBuffer.hasRemaining() ? mBuffer.get() & 0xff : -1;
+    }
+
+
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int count = Math.min(len, mBuffer.remaining());
+        if (count == 0)
+        {
+            return -1;
+        }
+        mBuffer.get(b, off, count);
+        return count;
+    }
+
+
+    @Override
+    public long skip(long n)
+    {
+        int count = (int) Math.max(0, Math.min(n, mBuffer.remaining()));
+        ((Buffer) mBuffer).position(mBuffer.position() + count);
+        return count;
+    }
+
+
+    @Override
+    public int available()
+    {
+        return mBuffer.remaining();
+    }
+
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+        mMark = mBuffer.position();
+    }
+
+
+    @Override
+    public synchronized void reset()
+    {
+        ((Buffer) mBuffer).position(mMark);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A component of an iCalendar or vCard object, i.e. everything between a <code>BEGIN</code> and the matching <code>END</code> line. Use
+ * {@link ContentLineParser} to parse components.
+ */
+public final class ContentComponent
+{
+    private final String mName;
+    private final List<ContentLine> mProperties = new ArrayList<ContentLine>();
+    private final List<ContentComponent> mComponents = new ArrayList<ContentComponent>(2);
+
+
+    /**
+     * Create an empty {@link ContentComponent}.
+     *
+     * @param name
+     *     The name of the component in upper case, like <code>VEVENT</code>.
+     */
+    public ContentComponent(String name)
+    {
+        mName = name;
+    }
+
+
+    /**
+     * Returns the name of this component in upper case.
+     *
+     * @return The name.
+     */
+    public String name()
+    {
+        return mName;
+    }
+
+
+    /**
+     * Returns the properties of this component in the order they appear.
+     *
+     * @return A modifiable {@link List} of {@link ContentLine}s.
+     */
+    public List<ContentLine> properties()
+    {
+        return mProperties;
+    }
+
+
+    /**
+     * Returns the sub-components of this component in the order they appear.
+     *
+     * @return A modifiable {@link List} of {@link ContentComponent}s.
+     */
+    public List<ContentComponent> components()
+    {
+        return mComponents;
+    }
+
+
+    /**
+     * Returns the first property with the given name.
+     *
+     * @param name
+     *     The name of the property in upper case.
+     *
+     * @return The {@link ContentLine} or <code>null</code> if there is no such property.
+     */
+    public ContentLine property(String name)
+    {
+        List<ContentLine> properties = mProperties;
+        for (int i = 0, count = properties.size(); i < count; ++i)
+        {
+            ContentLine property = properties.get(i);
+            if (name.equals(property.name()))
+            {
+                return property;
+            }
+        }
+        return null;
+    }
+}
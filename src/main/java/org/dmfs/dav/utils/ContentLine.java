@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+/**
+ * A property of an iCalendar or vCard object, i.e. a single unfolded content line like <code>DTSTART;TZID=Europe/Berlin:20260101T100000</code>.
+ * <p>
+ * Parameters with multiple values are split into several parameters with the same name, quotes are removed from parameter values.
+ * </p>
+ */
+public final class ContentLine
+{
+    private final String mGroup;
+    private final String mName;
+    private final String[] mParameters;
+    private final String mValue;
+
+
+    /**
+     * Create a {@link ContentLine}.
+     *
+     * @param group
+     *     The group of the property (vCard only) or <code>null</code>.
+     * @param name
+     *     The name of the property in upper case.
+     * @param parameters
+     *     The parameter names (in upper case) and values, alternating.
+     * @param value
+     *     The value of the property.
+     */
+    public ContentLine(String group, String name, String[] parameters, String value)
+    {
+        mGroup = group;
+        mName = name;
+        mParameters = parameters;
+        mValue = value;
+    }
+
+
+    /**
+     * Returns the group of this property. Only vCard properties can have a group.
+     *
+     * @return The group or <code>null</code>.
+     */
+    public String group()
+    {
+        return mGroup;
+    }
+
+
+    /**
+     * Returns the name of this property in upper case.
+     *
+     * @return The name.
+     */
+    public String name()
+    {
+        return mName;
+    }
+
+
+    /**
+     * Returns the value of this property. Text values have already been unescaped.
+     *
+     * @return The value.
+     */
+    public String value()
+    {
+        return mValue;
+    }
+
+
+    /**
+     * Returns the number of parameter values of this property.
+     *
+     * @return The number of parameter values.
+     */
+    public int parameterCount()
+    {
+        return mParameters.length >> 1;
+    }
+
+
+    /**
+     * Returns the name of the parameter at the given index.
+     *
+     * @param index
+     *     The index of the parameter.
+     *
+     * @return The parameter name in upper case.
+     */
+    public String parameterName(int index)
+    {
+        return mParameters[index << 1];
+    }
+
+
+    /**
+     * Returns the value of the parameter at the given index.
+     *
+     * @param index
+     *     The index of the parameter.
+     *
+     * @return The parameter value.
+     */
+    public String parameterValue(int index)
+    {
+        return mParameters[(index << 1) + 1];
+    }
+
+
+    /**
+     * Returns the first value of the parameter with the given name.
+     *
+     * @param name
+     *     The name of the parameter in upper case.
+     *
+     * @return The parameter value or <code>null</code> if there is no such parameter.
+     */
+    public String parameter(String name)
+    {
+        String[] parameters = mParameters;
+        for (int i = 0; i < parameters.length; i += 2)
+        {
+            if (name.equals(parameters[i]))
+            {
+                return parameters[i + 1];
+            }
+        }
+        return null;
+    }
+}
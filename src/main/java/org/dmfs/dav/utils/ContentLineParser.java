@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * A minimal parser for the content line format of iCalendar (<a href="http://tools.ietf.org/html/rfc5545#section-3.1">RFC 5545, section 3.1</a>) and vCard
+ * (<a href="http://tools.ietf.org/html/rfc6350#section-3.3">RFC 6350, section 3.3</a>) objects.
+ * <p>
+ * The parser unfolds lines, splits properties into name, parameters and value and builds the component tree. Names are converted to upper case. Text values
+ * are unescaped, values of structured properties (like <code>N</code> or <code>RRULE</code>) and of properties with a non-text value type are returned as
+ * they are. Values are not interpreted otherwise.
+ * </p>
+ * <p>
+ * The parser is lenient, lines without a colon are ignored.
+ * </p>
+ */
+public final class ContentLineParser
+{
+    private final static String[] NO_PARAMETERS = new String[0];
+
+    /**
+     * Properties that don't have a text value or that have a structured value that would lose its structure when unescaped.
+     */
+    private final static Set<String> RAW_PROPERTIES = new HashSet<String>(
+        Arrays.asList("ATTACH", "URL", "TZURL", "ORGANIZER", "ATTENDEE", "SOURCE", "CONFERENCE", "IMAGE", "RRULE", "EXRULE", "REQUEST-STATUS", "GEO", "N",
+            "ADR", "ORG", "PHOTO", "LOGO", "SOUND", "KEY", "CLIENTPIDMAP"));
+
+
+    /**
+     * Parses the first component of the given object.
+     *
+     * @param reader
+     *     A {@link Reader} that returns an iCalendar or vCard object.
+     *
+     * @return The first top level {@link ContentComponent} or <code>null</code> if there is none.
+     *
+     * @throws IOException
+     *     if the object can't be read or is malformed.
+     */
+    public static ContentComponent parse(Reader reader) throws IOException
+    {
+        List<ContentComponent> components = parseAll(reader);
+        return components.isEmpty() ? null : components.get(0);
+    }
+
+
+    /**
+     * Parses the first component of the given object.
+     *
+     * @param object
+     *     An iCalendar or vCard object.
+     *
+     * @return The first top level {@link ContentComponent} or <code>null</code> if there is none.
+     *
+     * @throws IOException
+     *     if the object is malformed.
+     */
+    public static ContentComponent parse(String object) throws IOException
+    {
+        return parse(new StringReader(object));
+    }
+
+
+    /**
+     * Parses all top level components of the given object, for instance all vCards of a vCard file.
+     *
+     * @param reader
+     *     A {@link Reader} that returns iCalendar or vCard objects.
+     *
+     * @return A {@link List} of the top level {@link ContentComponent}s.
+     *
+     * @throws IOException
+     *     if the object can't be read or is malformed.
+     */
+    public static List<ContentComponent> parseAll(Reader reader) throws IOException
+    {
+        List<ContentComponent> result = new ArrayList<ContentComponent>(1);
+        List<ContentComponent> stack = new ArrayList<ContentComponent>(4);
+        StringBuilder line = new StringBuilder(128);
+        int lineNumber = 0;
+
+        boolean more = true;
+        int c = reader.read();
+        while (more)
+        {
+            // read one unfolded line
+            line.setLength(0);
+            while (true)
+            {
+                if (c < 0)
+                {
+                    more = false;
+                    break;
+                }
+                if (c == '\r' || c == '\n')
+                {
+                    if (c == '\r')
+                    {
+                        c = reader.read();
+                        if (c == '\n')
+                        {
+                            c = reader.read();
+                        }
+                    }
+                    else
+                    {
+                        c = reader.read();
+                    }
+                    ++lineNumber;
+                    if (c == ' ' || c == '\t')
+                    {
+                        // folded line, skip the white space and continue
+                        c = reader.read();
+                        continue;
+                    }
+                    break;
+                }
+                line.append((char) c);
+                c = reader.read();
+            }
+
+            if (line.length() == 0)
+            {
+                continue;
+            }
+
+            ContentLine property = parseLine(line);
+            if (property == null)
+            {
+                continue;
+            }
+
+            if ("BEGIN".equals(property.name()))
+            {
+                ContentComponent component = new ContentComponent(property.value().trim().toUpperCase(Locale.ENGLISH));
+                if (stack.isEmpty())
+                {
+                    result.add(component);
+                }
+                else
+                {
+                    stack.get(stack.size() - 1).components().add(component);
+                }
+                stack.add(component);
+            }
+            else if ("END".equals(property.name()))
+            {
+                if (stack.isEmpty() || !stack.get(stack.size() - 1).name().equals(property.value().trim().toUpperCase(Locale.ENGLISH)))
+                {
+                    throw new IOException("Unexpected END:" + property.value() + " in line " + lineNumber);
+                }
+                stack.remove(stack.size() - 1);
+            }
+            else if (!stack.isEmpty())
+            {
+                stack.get(stack.size() - 1).properties().add(property);
+            }
+        }
+
+        if (!stack.isEmpty())
+        {
+            throw new IOException("Missing END:" + stack.get(stack.size() - 1).name());
+        }
+        return result;
+    }
+
+
+    /**
+     * Parses a single unfolded content line.
+     *
+     * @return The {@link ContentLine} or <code>null</code> if the line is malformed.
+     */
+    private static ContentLine parseLine(CharSequence line)
+    {
+        final int length = line.length();
+        int pos = 0;
+        while (pos < length && line.charAt(pos) != ';' && line.charAt(pos) != ':')
+        {
+            ++pos;
+        }
+        if (pos == length)
+        {
+            return null;
+        }
+
+        String group = null;
+        String name = line.subSequence(0, pos).toString().trim().toUpperCase(Locale.ENGLISH);
+        int dot = name.indexOf('.');
+        if (dot > 0)
+        {
+            group = name.substring(0, dot);
+            name = name.substring(dot + 1);
+        }
+
+        List<String> parameters = null;
+        while (pos < length && line.charAt(pos) == ';')
+        {
+            int nameStart = ++pos;
+            while (pos < length && line.charAt(pos) != '=' && line.charAt(pos) != ';' && line.charAt(pos) != ':')
+            {
+                ++pos;
+            }
+            if (parameters == null)
+            {
+                parameters = new ArrayList<String>(4);
+            }
+            String parameterName = line.subSequence(nameStart, pos).toString().trim().toUpperCase(Locale.ENGLISH);
+            if (pos == length || line.charAt(pos) != '=')
+            {
+                // a parameter without a value (vCard 2.1 style)
+                parameters.add(parameterName);
+                parameters.add("");
+                continue;
+            }
+
+            // read the comma separated parameter values
+            do
+            {
+                int valueStart = ++pos;
+                if (pos < length && line.charAt(pos) == '"')
+                {
+                    int quoteEnd = pos + 1;
+                    while (quoteEnd < length && line.charAt(quoteEnd) != '"')
+                    {
+                        ++quoteEnd;
+                    }
+                    parameters.add(parameterName);
+                    parameters.add(line.subSequence(pos + 1, Math.min(quoteEnd, length)).toString());
+                    pos = Math.min(quoteEnd + 1, length);
+                }
+                else
+                {
+                    while (pos < length && line.charAt(pos) != ',' && line.charAt(pos) != ';' && line.charAt(pos) != ':')
+                    {
+                        ++pos;
+                    }
+                    parameters.add(parameterName);
+                    parameters.add(line.subSequence(valueStart, pos).toString());
+                }
+            }
+            while (pos < length && line.charAt(pos) == ',');
+        }
+
+        if (pos >= length || line.charAt(pos) != ':')
+        {
+            return null;
+        }
+
+        String[] parameterArray = parameters == null ? NO_PARAMETERS : parameters.toArray(new String[parameters.size()]);
+        String value = line.subSequence(pos + 1, length).toString();
+        if (value.indexOf('\\') >= 0 && isText(name, parameterArray))
+        {
+            value = unescape(value);
+        }
+        return new ContentLine(group, name, parameterArray, value);
+    }
+
+
+    private static boolean isText(String name, String[] parameters)
+    {
+        if (RAW_PROPERTIES.contains(name))
+        {
+            return false;
+        }
+        for (int i = 0; i < parameters.length; i += 2)
+        {
+            if ("VALUE".equals(parameters[i]) && !"TEXT".equalsIgnoreCase(parameters[i + 1]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static String unescape(String value)
+    {
+        final int length = value.length();
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; ++i)
+        {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < length)
+            {
+                c = value.charAt(++i);
+                result.append(c == 'n' || c == 'N' ? '\n' : c);
+            }
+            else
+            {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private ContentLineParser()
+    {
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.xmlobjects.ElementDescriptor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * A compact {@link Map} with {@link ElementDescriptor} keys. Keys and values are stored in two parallel arrays in insertion order.
+ * <p>
+ * Property maps usually contain just a handful of entries, in which case a linear scan over the keys is faster than hashing and this map allocates just two
+ * small arrays instead of a hash table and one node per entry. Since {@link ElementDescriptor}s are singletons the scan compares
+ * identities only.
+ * </p>
+ * <p>
+ * For allocation free iteration use {@link #size()}, {@link #keyAt(int)} and {@link #valueAt(int)}.
+ * </p>
+ * <p>
+ * This map doesn't support <code>null</code> keys, but it supports <code>null</code> values. It's not thread safe.
+ * </p>
+ *
+ * @param <V>
+ *     The type of the values.
+ */
+public final class ElementDescriptorMap<V> extends AbstractMap<ElementDescriptor<?>, V>
+{
+    private final static int DEFAULT_INITIAL_CAPACITY = 8;
+
+    private ElementDescriptor<?>[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    /**
+     * Incremented on every structural modification to detect concurrent modifications during iteration.
+     */
+    private int mModCount;
+
+    private Set<Entry<ElementDescriptor<?>, V>> mEntrySet;
+
+
+    public ElementDescriptorMap()
+    {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+
+    public ElementDescriptorMap(int initialCapacity)
+    {
+        mKeys = new ElementDescriptor<?>[Math.max(initialCapacity, 1)];
+        mValues = new Object[mKeys.length];
+    }
+
+
+    /**
+     * Returns the index of the given key or -1 if there is no such key.
+     */
+    private int indexOf(Object key)
+    {
+        final ElementDescriptor<?>[] keys = mKeys;
+        final int size = mSize;
+        for (int i = 0; i < size; ++i)
+        {
+            if (keys[i] == key)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns the key at the given position.
+     *
+     * @param index
+     *     The position of the key, must be less than {@link #size()}.
+     *
+     * @return The {@link ElementDescriptor} at the given position.
+     */
+    public ElementDescriptor<?> keyAt(int index)
+    {
+        if (index >= mSize)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + mSize);
+        }
+        return mKeys[index];
+    }
+
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param index
+     *     The position of the value, must be less than {@link #size()}.
+     *
+     * @return The value at the given position, may be <code>null</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index)
+    {
+        if (index >= mSize)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + mSize);
+        }
+        return (V) mValues[index];
+    }
+
+
+    @Override
+    public int size()
+    {
+        return mSize;
+    }
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return mSize == 0;
+    }
+
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key)
+    {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) mValues[index];
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(ElementDescriptor<?> key, V value)
+    {
+        if (key == null)
+        {
+            throw new NullPointerException("null keys are not supported");
+        }
+
+        int index = indexOf(key);
+        if (index >= 0)
+        {
+            V old = (V) mValues[index];
+            mValues[index] = value;
+            return old;
+        }
+
+        if (mSize == mKeys.length)
+        {
+            int newCapacity = mSize * 2;
+            mKeys = Arrays.copyOf(mKeys, newCapacity);
+            mValues = Arrays.copyOf(mValues, newCapacity);
+        }
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        ++mSize;
+        ++mModCount;
+        return null;
+    }
+
+
+    @Override
+    public V remove(Object key)
+    {
+        int index = indexOf(key);
+        return index < 0 ? null : removeAt(index);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private V removeAt(int index)
+    {
+        V old = (V) mValues[index];
+        int moved = mSize - index - 1;
+        if (moved > 0)
+        {
+            // keep the insertion order
+            System.arraycopy(mKeys, index + 1, mKeys, index, moved);
+            System.arraycopy(mValues, index + 1, mValues, index, moved);
+        }
+        --mSize;
+        mKeys[mSize] = null;
+        mValues[mSize] = null;
+        ++mModCount;
+        return old;
+    }
+
+
+    @Override
+    public void clear()
+    {
+        if (mSize > 0)
+        {
+            Arrays.fill(mKeys, 0, mSize, null);
+            Arrays.fill(mValues, 0, mSize, null);
+            mSize = 0;
+            ++mModCount;
+        }
+    }
+
+
+    @Override
+    public Set<Entry<ElementDescriptor<?>, V>> entrySet()
+    {
+        Set<Entry<ElementDescriptor<?>, V>> entrySet = mEntrySet;
+        if (entrySet == null)
+        {
+            entrySet = mEntrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+
+    private final class EntrySet extends AbstractSet<Entry<ElementDescriptor<?>, V>>
+    {
+        @Override
+        public Iterator<Entry<ElementDescriptor<?>, V>> iterator()
+        {
+            return new EntryIterator();
+        }
+
+
+        @Override
+        public int size()
+        {
+            return mSize;
+        }
+
+
+        @Override
+        public void clear()
+        {
+            ElementDescriptorMap.this.clear();
+        }
+    }
+
+
+    private final class EntryIterator implements Iterator<Entry<ElementDescriptor<?>, V>>
+    {
+        private int mNext;
+        private int mLast = -1;
+        private int mExpectedModCount = mModCount;
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return mNext < mSize;
+        }
+
+
+        @Override
+        public Entry<ElementDescriptor<?>, V> next()
+        {
+            if (mExpectedModCount != mModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (mNext >= mSize)
+            {
+                throw new NoSuchElementException();
+            }
+            mLast = mNext++;
+            return new IndexEntry(mLast);
+        }
+
+
+        @Override
+        public void remove()
+        {
+            if (mLast < 0)
+            {
+                throw new IllegalStateException();
+            }
+            if (mExpectedModCount != mModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(mLast);
+            mNext = mLast;
+            mLast = -1;
+            mExpectedModCount = mModCount;
+        }
+    }
+
+
+    /**
+     * An {@link Entry} that writes through to the backing arrays.
+     */
+    private final class IndexEntry extends SimpleEntry<ElementDescriptor<?>, V>
+    {
+        private final int mIndex;
+
+
+        private IndexEntry(int index)
+        {
+            super(keyAt(index), valueAt(index));
+            mIndex = index;
+        }
+
+
+        @Override
+        public V setValue(V value)
+        {
+            mValues[mIndex] = value;
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.builder.ElementMapObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+
+/**
+ * A drop-in replacement for {@link ElementMapObjectBuilder} that builds {@link ElementDescriptorMap}s. It maps the {@link ElementDescriptor}s of all child
+ * elements to their values.
+ */
+public class ElementDescriptorMapObjectBuilder extends AbstractObjectBuilder<Map<ElementDescriptor<?>, Object>>
+{
+    /**
+     * A shared instance of this builder.
+     */
+    public final static ElementDescriptorMapObjectBuilder INSTANCE = new ElementDescriptorMapObjectBuilder();
+
+
+    @Override
+    public Map<ElementDescriptor<?>, Object> get(ElementDescriptor<Map<ElementDescriptor<?>, Object>> descriptor, Map<ElementDescriptor<?>, Object> recycle,
+        ParserContext context) throws XmlObjectPullParserException
+    {
+        if (recycle == null && context instanceof DavParserContext)
+        {
+            recycle = ((DavParserContext) context).getPooledObject(descriptor);
+        }
+        if (recycle != null)
+        {
+            recycle.clear();
+            return recycle;
+        }
+        return new ElementDescriptorMap<Object>();
+    }
+
+
+    @Override
+    public <V> Map<ElementDescriptor<?>, Object> update(ElementDescriptor<Map<ElementDescriptor<?>, Object>> descriptor, Map<ElementDescriptor<?>, Object> object,
+        ElementDescriptor<V> childDescriptor, V child, ParserContext context) throws XmlObjectPullParserException
+    {
+        object.put(childDescriptor, child);
+        return object;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void writeChildren(ElementDescriptor<Map<ElementDescriptor<?>, Object>> descriptor, Map<ElementDescriptor<?>, Object> object,
+        IXmlChildWriter childWriter, SerializerContext context) throws SerializerException, IOException
+    {
+        if (object == null)
+        {
+            return;
+        }
+
+        if (object instanceof ElementDescriptorMap)
+        {
+            // iterate without allocating any entries
+            ElementDescriptorMap<Object> map = (ElementDescriptorMap<Object>) object;
+            for (int i = 0, count = map.size(); i < count; ++i)
+            {
+                childWriter.writeChild((ElementDescriptor<Object>) map.keyAt(i), map.valueAt(i), context);
+            }
+        }
+        else
+        {
+            for (Map.Entry<ElementDescriptor<?>, Object> entry : object.entrySet())
+            {
+                childWriter.writeChild((ElementDescriptor<Object>) entry.getKey(), entry.getValue(), context);
+            }
+        }
+    }
+}
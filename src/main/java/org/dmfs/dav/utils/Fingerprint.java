@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+/**
+ * Stable 64 bit fingerprints of text. Unlike {@link String#hashCode()} fingerprints are wide enough to be used as cache keys and they are the same on every
+ * platform and in every version, so they can be persisted.
+ * <p>
+ * Fingerprints are calculated with the 64 bit FNV-1a hash over the UTF-16 code units of the text, low byte first.
+ * </p>
+ */
+public final class Fingerprint
+{
+    private final static long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private final static long FNV_PRIME = 0x100000001b3L;
+
+
+    /**
+     * Returns the fingerprint of the given text.
+     *
+     * @param text
+     *     The text.
+     *
+     * @return The fingerprint.
+     */
+    public static long of(CharSequence text)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0, length = text.length(); i < length; ++i)
+        {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private Fingerprint()
+    {
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An index of closed intervals of <code>long</code> values, usually timestamps. Each value is stored with exactly one interval, putting a value again
+ * replaces its interval.
+ * <p>
+ * The intervals are kept in an implicit balanced search tree over an array that is sorted by the start of the intervals. Each node knows the largest end
+ * in its sub-tree, so a query takes <code>O(log n + k)</code> steps to find <code>k</code> intervals out of <code>n</code>.
+ * </p>
+ * <p>
+ * The tree is rebuilt on the first query after a modification, which takes <code>O(n log n)</code>. That suits caches that are updated in batches, like
+ * after a sync, and queried many times in between.
+ * </p>
+ * <p>
+ * This class is thread safe. Queries don't block each other, unless the tree needs to be rebuilt.
+ * </p>
+ *
+ * @param <T>
+ *     The type of the values.
+ */
+public final class IntervalIndex<T>
+{
+    private final Map<T, long[]> mIntervals = new HashMap<T, long[]>();
+
+    /**
+     * The current tree or <code>null</code> if it has to be rebuilt.
+     */
+    private volatile Tree<T> mTree;
+
+
+    /**
+     * Stores a value with the given interval, replacing any previous interval of the value.
+     *
+     * @param value
+     *     The value.
+     * @param start
+     *     The start of the interval.
+     * @param end
+     *     The end of the interval, must not be less than <code>start</code>.
+     *
+     * @throws IllegalArgumentException
+     *     if <code>end</code> is less than <code>start</code>.
+     */
+    public synchronized void put(T value, long start, long end)
+    {
+        if (end < start)
+        {
+            throw new IllegalArgumentException("Interval ends before it starts");
+        }
+        mIntervals.put(value, new long[] { start, end });
+        mTree = null;
+    }
+
+
+    /**
+     * Removes a value from the index.
+     *
+     * @param value
+     *     The value to remove.
+     *
+     * @return <code>true</code> if the value has been removed, <code>false</code> if it was not in the index.
+     */
+    public synchronized boolean remove(T value)
+    {
+        if (mIntervals.remove(value) == null)
+        {
+            return false;
+        }
+        mTree = null;
+        return true;
+    }
+
+
+    /**
+     * Removes all values from the index.
+     */
+    public synchronized void clear()
+    {
+        mIntervals.clear();
+        mTree = null;
+    }
+
+
+    /**
+     * Returns the number of values in the index.
+     *
+     * @return The number of values.
+     */
+    public synchronized int size()
+    {
+        return mIntervals.size();
+    }
+
+
+    /**
+     * Returns all values with an interval that intersects the given closed interval, i.e. with <code>intervalStart &lt;= end</code> and <code>intervalEnd
+     * &gt;= start</code>, in the order of the start of their intervals.
+     *
+     * @param start
+     *     The start of the interval to query.
+     * @param end
+     *     The end of the interval to query.
+     *
+     * @return A {@link List} of the values.
+     */
+    public List<T> query(long start, long end)
+    {
+        List<T> result = new ArrayList<T>();
+        Tree<T> tree = tree();
+        tree.query(0, tree.mValues.length, start, end, result);
+        return result;
+    }
+
+
+    private Tree<T> tree()
+    {
+        Tree<T> tree = mTree;
+        if (tree == null)
+        {
+            synchronized (this)
+            {
+                tree = mTree;
+                if (tree == null)
+                {
+                    tree = mTree = new Tree<T>(mIntervals);
+                }
+            }
+        }
+        return tree;
+    }
+
+
+    /**
+     * An immutable snapshot of the intervals.
+     */
+    private final static class Tree<T>
+    {
+        private final Object[] mValues;
+        private final long[] mStarts;
+        private final long[] mEnds;
+
+        /**
+         * The largest end in the sub-tree of each node.
+         */
+        private final long[] mMaxEnds;
+
+
+        @SuppressWarnings("unchecked")
+        private Tree(Map<T, long[]> intervals)
+        {
+            Map.Entry<T, long[]>[] entries = intervals.entrySet().toArray(new Map.Entry[intervals.size()]);
+            Arrays.sort(entries, new Comparator<Map.Entry<T, long[]>>()
+            {
+                @Override
+                public int compare(Map.Entry<T, long[]> o1, Map.Entry<T, long[]> o2)
+                {
+                    return Long.compare(o1.getValue()[0], o2.getValue()[0]);
+                }
+            });
+
+            final int size = entries.length;
+            mValues = new Object[size];
+            mStarts = new long[size];
+            mEnds = new long[size];
+            mMaxEnds = new long[size];
+            for (int i = 0; i < size; ++i)
+            {
+                mValues[i] = entries[i].getKey();
+                mStarts[i] = entries[i].getValue()[0];
+                mEnds[i] = entries[i].getValue()[1];
+            }
+            maxEnd(0, size);
+        }
+
+
+        /**
+         * Initializes {@link #mMaxEnds} of the sub-tree in the given range and returns its largest end.
+         */
+        private long maxEnd(int from, int to)
+        {
+            if (from >= to)
+            {
+                return Long.MIN_VALUE;
+            }
+            int node = (from + to) >>> 1;
+            long result = Math.max(mEnds[node], Math.max(maxEnd(from, node), maxEnd(node + 1, to)));
+            mMaxEnds[node] = result;
+            return result;
+        }
+
+
+        @SuppressWarnings("unchecked")
+        private void query(int from, int to, long start, long end, List<T> result)
+        {
+            while (from < to)
+            {
+                int node = (from + to) >>> 1;
+                if (mMaxEnds[node] < start)
+                {
+                    // nothing in this sub-tree ends late enough
+                    return;
+                }
+                query(from, node, start, end, result);
+                if (mStarts[node] > end)
+                {
+                    // neither this node nor any node to the right starts early enough
+                    return;
+                }
+                if (mEnds[node] >= start)
+                {
+                    result.add((T) mValues[node]);
+                }
+                // continue with the right sub-tree
+                from = node + 1;
+            }
+        }
+    }
+}
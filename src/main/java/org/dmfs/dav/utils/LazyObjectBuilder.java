@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.builder.IObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.SerializerException;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlAttributeWriter;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer.IXmlChildWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * An {@link IObjectBuilder} that defers the work of another builder until the value is actually needed. This is enabled by
+ * {@link DavParserContext#setDecodePropertiesLazily(boolean)}, with any other {@link ParserContext} this just delegates to the wrapped builder.
+ * <p>
+ * In lazy mode the attributes, the text and the child objects of an element are only recorded. The wrapped builder sees them when the value is passed to
+ * {@link #resolve(Object)}, which happens on the first call to {@link org.dmfs.dav.rfc4918.PropStat#getPropertyValue(ElementDescriptor)} or
+ * {@link org.dmfs.dav.rfc4918.Response#getPropertyValue(ElementDescriptor)}.
+ * </p>
+ * <p>
+ * Properties that are not accepted by the property filter of the {@link DavParserContext} are not built at all.
+ * </p>
+ * <p>
+ * <strong>Note:</strong> Only use this for properties, i.e. for elements that are direct children of a <code>prop</code> element, no other builder knows how
+ * to handle lazy values. Also note that child elements are still built eagerly by their own builders, only the work of the wrapped builder is deferred.
+ * </p>
+ *
+ * @param <T>
+ *     The type of the objects built by this builder.
+ */
+public final class LazyObjectBuilder<T> extends AbstractObjectBuilder<T>
+{
+    /**
+     * A marker for values of properties that are not accepted by the property filter of the {@link DavParserContext}.
+     */
+    private final static Object SKIPPED = new Object();
+
+    private final IObjectBuilder<T> mDelegate;
+
+
+    /**
+     * Create a {@link LazyObjectBuilder} that defers the given builder.
+     *
+     * @param delegate
+     *     The {@link IObjectBuilder} that decodes the values.
+     */
+    public LazyObjectBuilder(IObjectBuilder<T> delegate)
+    {
+        mDelegate = delegate;
+    }
+
+
+    /**
+     * Returns the decoded value of the given property value. Values that are not lazy are returned unchanged.
+     *
+     * @param value
+     *     A property value.
+     *
+     * @return The decoded value.
+     *
+     * @throws IllegalStateException
+     *     if the value can't be decoded.
+     */
+    public static Object resolve(Object value)
+    {
+        return value instanceof LazyValue ? ((LazyValue<?>) value).decode() : value;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(ElementDescriptor<T> descriptor, T recycle, ParserContext context) throws XmlObjectPullParserException
+    {
+        if (recycle == SKIPPED)
+        {
+            recycle = null;
+        }
+
+        if (context instanceof DavParserContext && !((DavParserContext) context).acceptsProperty(descriptor))
+        {
+            // the property is dropped anyway, don't build anything
+            return (T) SKIPPED;
+        }
+
+        if (context instanceof DavParserContext && ((DavParserContext) context).getDecodePropertiesLazily())
+        {
+            boolean strict = ((DavParserContext) context).isStrict();
+            if (recycle instanceof LazyValue)
+            {
+                LazyValue<T> lazyValue = (LazyValue<T>) recycle;
+                lazyValue.reset(strict);
+                return recycle;
+            }
+            return (T) new LazyValue<T>(descriptor, mDelegate, strict);
+        }
+        return mDelegate.get(descriptor, recycle instanceof LazyValue ? null : recycle, context);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T update(ElementDescriptor<T> descriptor, T object, QualifiedName attribute, String value, ParserContext context)
+        throws XmlObjectPullParserException
+    {
+        if (object == SKIPPED)
+        {
+            return object;
+        }
+        if (object instanceof LazyValue)
+        {
+            ((LazyValue<T>) object).add(attribute, value);
+            return object;
+        }
+        return mDelegate.update(descriptor, object, attribute, value, context);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <V> T update(ElementDescriptor<T> descriptor, T object, ElementDescriptor<V> childDescriptor, V child, ParserContext context)
+        throws XmlObjectPullParserException
+    {
+        if (object == SKIPPED)
+        {
+            return object;
+        }
+        if (object instanceof LazyValue)
+        {
+            ((LazyValue<T>) object).add(childDescriptor, child);
+            return object;
+        }
+        return mDelegate.update(descriptor, object, childDescriptor, child, context);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T update(ElementDescriptor<T> descriptor, T object, String text, ParserContext context) throws XmlObjectPullParserException
+    {
+        if (object == SKIPPED)
+        {
+            return object;
+        }
+        if (object instanceof LazyValue)
+        {
+            ((LazyValue<T>) object).add(null, text);
+            return object;
+        }
+        return mDelegate.update(descriptor, object, text, context);
+    }
+
+
+    @Override
+    public T finish(ElementDescriptor<T> descriptor, T object, ParserContext context) throws XmlObjectPullParserException
+    {
+        if (object == SKIPPED || object instanceof LazyValue)
+        {
+            return object;
+        }
+        return mDelegate.finish(descriptor, object, context);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void writeAttributes(ElementDescriptor<T> descriptor, T object, IXmlAttributeWriter attributeWriter, SerializerContext context)
+        throws SerializerException, IOException
+    {
+        mDelegate.writeAttributes(descriptor, (T) resolve(object), attributeWriter, context);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void writeChildren(ElementDescriptor<T> descriptor, T object, IXmlChildWriter childWriter, SerializerContext context)
+        throws SerializerException, IOException
+    {
+        mDelegate.writeChildren(descriptor, (T) resolve(object), childWriter, context);
+    }
+
+
+    /**
+     * A value that has not been decoded yet. It records everything the wrapped builder needs to decode the value later on.
+     * <p>
+     * The recorded items are stored as key value pairs. A {@link QualifiedName} key denotes an attribute, an {@link ElementDescriptor} key denotes a child
+     * element and a <code>null</code> key denotes text. Most properties consist of a single text node or a single child element, so the first item is stored
+     * in fields and an array is only allocated for any further items.
+     * </p>
+     * <p>
+     * The value doesn't keep a reference to the {@link ParserContext} it has been parsed with. That context is probably reused by the next parser (possibly on
+     * another thread) by the time the value is decoded, so the value is decoded with a {@link DavParserContext} of the decoding thread that has the same
+     * strictness.
+     * </p>
+     */
+    private final static class LazyValue<T>
+    {
+        /**
+         * The contexts to decode values with, per thread. The first one is lenient, the second one is strict.
+         */
+        private final static ThreadLocal<ParserContext[]> DECODE_CONTEXTS = new ThreadLocal<ParserContext[]>()
+        {
+            @Override
+            protected ParserContext[] initialValue()
+            {
+                return new ParserContext[] { new DavParserContext().setStrict(false), new DavParserContext().setStrict(true) };
+            }
+        };
+
+        private final ElementDescriptor<T> mDescriptor;
+        private final IObjectBuilder<T> mBuilder;
+        private boolean mStrict;
+        private Object mFirstKey;
+        private Object mFirstValue;
+        private Object[] mItems;
+        private int mSize;
+        private boolean mDecoded;
+        private T mValue;
+
+
+        private LazyValue(ElementDescriptor<T> descriptor, IObjectBuilder<T> builder, boolean strict)
+        {
+            mDescriptor = descriptor;
+            mBuilder = builder;
+            mStrict = strict;
+        }
+
+
+        private void add(Object key, Object value)
+        {
+            if (mSize == 0)
+            {
+                mFirstKey = key;
+                mFirstValue = value;
+                mSize = 1;
+                return;
+            }
+
+            int index = (mSize - 1) * 2;
+            if (mItems == null)
+            {
+                mItems = new Object[4];
+            }
+            else if (index + 2 > mItems.length)
+            {
+                mItems = Arrays.copyOf(mItems, mItems.length * 2);
+            }
+            mItems[index] = key;
+            mItems[index + 1] = value;
+            ++mSize;
+        }
+
+
+        private void reset(boolean strict)
+        {
+            release();
+            mStrict = strict;
+            mDecoded = false;
+            mValue = null;
+        }
+
+
+        /**
+         * Releases the recorded items.
+         */
+        private void release()
+        {
+            if (mItems != null && mSize > 1)
+            {
+                Arrays.fill(mItems, 0, (mSize - 1) * 2, null);
+            }
+            mFirstKey = null;
+            mFirstValue = null;
+            mSize = 0;
+        }
+
+
+        @SuppressWarnings("unchecked")
+        private T decode()
+        {
+            if (mDecoded)
+            {
+                return mValue;
+            }
+
+            final ElementDescriptor<T> descriptor = mDescriptor;
+            final IObjectBuilder<T> builder = mBuilder;
+            final ParserContext context = DECODE_CONTEXTS.get()[mStrict ? 1 : 0];
+            try
+            {
+                T object = builder.get(descriptor, null, context);
+                for (int i = 0; i < mSize; ++i)
+                {
+                    Object key = i == 0 ? mFirstKey : mItems[i * 2 - 2];
+                    Object value = i == 0 ? mFirstValue : mItems[i * 2 - 1];
+                    if (key == null)
+                    {
+                        object = builder.update(descriptor, object, (String) value, context);
+                    }
+                    else if (key instanceof QualifiedName)
+                    {
+                        object = builder.update(descriptor, object, (QualifiedName) key, (String) value, context);
+                    }
+                    else
+                    {
+                        object = builder.update(descriptor, object, (ElementDescriptor<Object>) key, value, context);
+                    }
+                }
+                mValue = builder.finish(descriptor, object, context);
+            }
+            catch (XmlObjectPullParserException e)
+            {
+                throw new IllegalStateException("Can't decode value of " + descriptor, e);
+            }
+
+            // release the raw data
+            release();
+            mDecoded = true;
+            return mValue;
+        }
+    }
+}
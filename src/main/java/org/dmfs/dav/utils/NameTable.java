@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.nonrfc.NonRfc;
+import org.dmfs.dav.rfc3744.WebDavAcl;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.rfc6352.CardDav;
+import org.dmfs.dav.rfc6578.WebDavSync;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * An immutable table of the interned {@link QualifiedName}s and {@link ElementDescriptor}s defined by {@link WebDav}, {@link CalDav}, {@link CardDav},
+ * {@link WebDavAcl}, {@link WebDavSync} and {@link NonRfc}.
+ * <p>
+ * Lookups take a namespace and a range of characters (or ASCII bytes) of the local name, so parsers can resolve element names without creating
+ * {@link String}s. The table is built once when this class is initialized and never changes afterwards, so any number of threads can read it without
+ * locking.
+ * </p>
+ * <p>
+ * Note that some names are used by more than one descriptor, for instance when a descriptor depends on the parent element. For such names
+ * {@link #descriptor(String, CharSequence, int, int)} returns <code>null</code>, but {@link #qualifiedName(String, CharSequence, int, int)} still returns the
+ * interned name.
+ * </p>
+ */
+public final class NameTable
+{
+    private final static int FNV_OFFSET = 0x811c9dc5;
+    private final static int FNV_PRIME = 0x01000193;
+
+    private final static String[] NAMESPACES;
+    private final static String[] NAMES;
+    private final static int[] HASHES;
+    private final static QualifiedName[] QUALIFIED_NAMES;
+    private final static ElementDescriptor<?>[] DESCRIPTORS;
+    private final static int MASK;
+
+
+    static
+    {
+        // collect all names and descriptors, a null descriptor marks names without a descriptor or with more than one
+        Map<QualifiedName, ElementDescriptor<?>> entries = new IdentityHashMap<QualifiedName, ElementDescriptor<?>>(512);
+        Map<QualifiedName, Boolean> ambiguous = new IdentityHashMap<QualifiedName, Boolean>();
+        for (Class<?> clazz : new Class<?>[] { WebDav.class, CalDav.class, CardDav.class, WebDavAcl.class, WebDavSync.class, NonRfc.class })
+        {
+            collect(clazz, entries, ambiguous);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        NAMESPACES = new String[capacity];
+        NAMES = new String[capacity];
+        HASHES = new int[capacity];
+        QUALIFIED_NAMES = new QualifiedName[capacity];
+        DESCRIPTORS = new ElementDescriptor<?>[capacity];
+        MASK = capacity - 1;
+
+        for (Map.Entry<QualifiedName, ElementDescriptor<?>> entry : entries.entrySet())
+        {
+            QualifiedName name = entry.getKey();
+            String namespace = name.namespace == null ? "" : name.namespace;
+            int hash = hash(hash(FNV_OFFSET, namespace, 0, namespace.length()), name.name, 0, name.name.length());
+            int slot = hash & MASK;
+            while (QUALIFIED_NAMES[slot] != null)
+            {
+                slot = (slot + 1) & MASK;
+            }
+            NAMESPACES[slot] = namespace;
+            NAMES[slot] = name.name;
+            HASHES[slot] = hash;
+            QUALIFIED_NAMES[slot] = name;
+            DESCRIPTORS[slot] = ambiguous.containsKey(name) ? null : entry.getValue();
+        }
+    }
+
+
+    /**
+     * Returns the interned {@link QualifiedName} with the given namespace and local name.
+     *
+     * @param namespace
+     *     The namespace, an empty {@link String} for names without a namespace.
+     * @param localName
+     *     A {@link CharSequence} that contains the local name.
+     * @param start
+     *     The index of the first character of the local name.
+     * @param end
+     *     The index after the last character of the local name.
+     *
+     * @return The {@link QualifiedName} or <code>null</code> if the name is not in this table.
+     */
+    public static QualifiedName qualifiedName(String namespace, CharSequence localName, int start, int end)
+    {
+        int slot = find(namespace, localName, start, end);
+        return slot < 0 ? null : QUALIFIED_NAMES[slot];
+    }
+
+
+    /**
+     * Returns the {@link ElementDescriptor} with the given namespace and local name.
+     *
+     * @param namespace
+     *     The namespace, an empty {@link String} for names without a namespace.
+     * @param localName
+     *     A {@link CharSequence} that contains the local name.
+     * @param start
+     *     The index of the first character of the local name.
+     * @param end
+     *     The index after the last character of the local name.
+     *
+     * @return The {@link ElementDescriptor} or <code>null</code> if there is no unique descriptor with this name.
+     */
+    public static ElementDescriptor<?> descriptor(String namespace, CharSequence localName, int start, int end)
+    {
+        int slot = find(namespace, localName, start, end);
+        return slot < 0 ? null : DESCRIPTORS[slot];
+    }
+
+
+    /**
+     * Returns the interned {@link QualifiedName} with the given namespace and the local name in the given range of a {@link ByteBuffer}. Only ASCII names can
+     * be found this way, which covers all names in this table.
+     *
+     * @param namespace
+     *     The namespace, an empty {@link String} for names without a namespace.
+     * @param localName
+     *     A {@link ByteBuffer} that contains the local name.
+     * @param start
+     *     The absolute index of the first byte of the local name.
+     * @param end
+     *     The absolute index after the last byte of the local name.
+     *
+     * @return The {@link QualifiedName} or <code>null</code> if the name is not in this table.
+     */
+    public static QualifiedName qualifiedName(String namespace, ByteBuffer localName, int start, int end)
+    {
+        int slot = find(namespace, localName, start, end);
+        return slot < 0 ? null : QUALIFIED_NAMES[slot];
+    }
+
+
+    /**
+     * Returns the {@link ElementDescriptor} with the given namespace and the local name in the given range of a {@link ByteBuffer}.
+     *
+     * @param namespace
+     *     The namespace, an empty {@link String} for names without a namespace.
+     * @param localName
+     *     A {@link ByteBuffer} that contains the local name.
+     * @param start
+     *     The absolute index of the first byte of the local name.
+     * @param end
+     *     The absolute index after the last byte of the local name.
+     *
+     * @return The {@link ElementDescriptor} or <code>null</code> if there is no unique descriptor with this name.
+     */
+    public static ElementDescriptor<?> descriptor(String namespace, ByteBuffer localName, int start, int end)
+    {
+        int slot = find(namespace, localName, start, end);
+        return slot < 0 ? null : DESCRIPTORS[slot];
+    }
+
+
+    private static int find(String namespace, CharSequence localName, int start, int end)
+    {
+        int hash = hash(hash(FNV_OFFSET, namespace, 0, namespace.length()), localName, start, end);
+        for (int slot = hash & MASK; QUALIFIED_NAMES[slot] != null; slot = (slot + 1) & MASK)
+        {
+            if (HASHES[slot] == hash && namespace.equals(NAMESPACES[slot]) && regionEquals(NAMES[slot], localName, start, end))
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+
+    private static int find(String namespace, ByteBuffer localName, int start, int end)
+    {
+        int hash = hash(FNV_OFFSET, namespace, 0, namespace.length());
+        for (int i = start; i < end; ++i)
+        {
+            hash = (hash ^ (localName.get(i) & 0xff)) * FNV_PRIME;
+        }
+
+        for (int slot = hash & MASK; QUALIFIED_NAMES[slot] != null; slot = (slot + 1) & MASK)
+        {
+            if (HASHES[slot] == hash && namespace.equals(NAMESPACES[slot]) && regionEquals(NAMES[slot], localName, start, end))
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+
+    private static int hash(int hash, CharSequence sequence, int start, int end)
+    {
+        for (int i = start; i < end; ++i)
+        {
+            hash = (hash ^ sequence.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+
+    private static boolean regionEquals(String name, CharSequence sequence, int start, int end)
+    {
+        int length = name.length();
+        if (end - start != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; ++i)
+        {
+            if (name.charAt(i) != sequence.charAt(start + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean regionEquals(String name, ByteBuffer buffer, int start, int end)
+    {
+        int length = name.length();
+        if (end - start != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; ++i)
+        {
+            if (name.charAt(i) != (buffer.get(start + i) & 0xff))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Adds all public static {@link QualifiedName}s and {@link ElementDescriptor}s of the given class and its nested classes.
+     */
+    private static void collect(Class<?> clazz, Map<QualifiedName, ElementDescriptor<?>> entries, Map<QualifiedName, Boolean> ambiguous)
+    {
+        for (Field field : clazz.getFields())
+        {
+            if (!Modifier.isStatic(field.getModifiers()))
+            {
+                continue;
+            }
+            try
+            {
+                Object value = field.get(null);
+                if (value instanceof ElementDescriptor)
+                {
+                    ElementDescriptor<?> descriptor = (ElementDescriptor<?>) value;
+                    ElementDescriptor<?> known = entries.get(descriptor.qualifiedName);
+                    if (known != null && known != descriptor)
+                    {
+                        ambiguous.put(descriptor.qualifiedName, Boolean.TRUE);
+                    }
+                    else
+                    {
+                        entries.put(descriptor.qualifiedName, descriptor);
+                    }
+                }
+                else if (value instanceof QualifiedName && !entries.containsKey(value))
+                {
+                    entries.put((QualifiedName) value, null);
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new IllegalStateException("Can't read " + field, e);
+            }
+        }
+
+        for (Class<?> nestedClass : clazz.getClasses())
+        {
+            collect(nestedClass, entries, ambiguous);
+        }
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private NameTable()
+    {
+    }
+}
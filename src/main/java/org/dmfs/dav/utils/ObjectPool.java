@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.pull.Recyclable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A thread safe pool of recycled objects that can be shared by many {@link DavParserContext}s, see {@link DavParserContext#setObjectPool(ObjectPool)}.
+ * <p>
+ * Objects are pooled per {@link ElementDescriptor}. Each descriptor has its own bounded pool, objects that don't fit are dropped and left to the garbage
+ * collector. {@link Recyclable}s are recycled when they are added to the pool, {@link Collection}s and {@link Map}s are cleared, so pooled objects never
+ * keep property values alive. A recycled {@link org.dmfs.dav.rfc4918.Response} keeps its recycled {@link org.dmfs.dav.rfc4918.PropStat}s, they are returned
+ * to the pool when the response is taken from the pool again.
+ * </p>
+ * <p>
+ * A {@link DavParserContext} only returns objects of descriptors that have been requested from this pool (see {@link #isPooled(ElementDescriptor)}), there
+ * is no point in pooling objects that are never taken from the pool, like immutable values.
+ * </p>
+ * <p>
+ * <strong>Note:</strong> Never return an object to the pool that's still in use.
+ * </p>
+ */
+public final class ObjectPool
+{
+    /**
+     * The default capacity of the pool of each descriptor.
+     */
+    public final static int DEFAULT_CAPACITY = 256;
+
+    private final int mDefaultCapacity;
+
+    private final ConcurrentMap<ElementDescriptor<?>, BlockingQueue<Object>> mPools = new ConcurrentHashMap<ElementDescriptor<?>, BlockingQueue<Object>>();
+
+    private final LongAdder mHits = new LongAdder();
+    private final LongAdder mMisses = new LongAdder();
+    private final LongAdder mDrops = new LongAdder();
+
+
+    /**
+     * Create an {@link ObjectPool} with a capacity of {@link #DEFAULT_CAPACITY} objects per descriptor.
+     */
+    public ObjectPool()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Create an {@link ObjectPool} with the given capacity per descriptor.
+     *
+     * @param defaultCapacity
+     *     The maximum number of objects to pool per descriptor.
+     */
+    public ObjectPool(int defaultCapacity)
+    {
+        if (defaultCapacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        mDefaultCapacity = defaultCapacity;
+    }
+
+
+    /**
+     * Set the capacity of the pool of a specific descriptor. This should be called before the pool is used, any objects of this descriptor already pooled are
+     * dropped.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor}.
+     * @param capacity
+     *     The maximum number of objects to pool for this descriptor.
+     *
+     * @return This instance.
+     */
+    public ObjectPool setCapacity(ElementDescriptor<?> descriptor, int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        mPools.put(descriptor, new ArrayBlockingQueue<Object>(capacity));
+        return this;
+    }
+
+
+    /**
+     * Returns a pooled object of the given descriptor.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} of the object.
+     *
+     * @return A recycled object or <code>null</code> if the pool of this descriptor is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T poll(ElementDescriptor<T> descriptor)
+    {
+        // create the pool right away, this marks the descriptor as pooled
+        BlockingQueue<Object> pool = pool(descriptor);
+        Object result = pool.poll();
+        if (result == null)
+        {
+            mMisses.increment();
+        }
+        else
+        {
+            mHits.increment();
+        }
+        return (T) result;
+    }
+
+
+    /**
+     * Returns an object to the pool. The object is dropped if the pool of its descriptor is full.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} of the object.
+     * @param object
+     *     The object to recycle, must no longer be in use.
+     *
+     * @return <code>true</code> if the object has been added to the pool, <code>false</code> if it has been dropped.
+     */
+    public <T> boolean offer(ElementDescriptor<T> descriptor, T object)
+    {
+        if (object == null)
+        {
+            return false;
+        }
+
+        BlockingQueue<Object> pool = pool(descriptor);
+        if (pool.remainingCapacity() == 0)
+        {
+            // don't bother cleaning an object we can't take anyway
+            mDrops.increment();
+            return false;
+        }
+
+        if (object instanceof Recyclable)
+        {
+            ((Recyclable) object).recycle();
+        }
+        else if (object instanceof Collection)
+        {
+            ((Collection<?>) object).clear();
+        }
+        else if (object instanceof Map)
+        {
+            ((Map<?, ?>) object).clear();
+        }
+
+        if (!pool.offer(object))
+        {
+            mDrops.increment();
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns whether objects of the given descriptor are pooled, i.e. whether they have ever been requested via {@link #poll(ElementDescriptor)} or added
+     * via {@link #offer(ElementDescriptor, Object)}, or {@link #setCapacity(ElementDescriptor, int)} has been called for the descriptor.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor}.
+     *
+     * @return <code>true</code> if objects of this descriptor are pooled.
+     */
+    public boolean isPooled(ElementDescriptor<?> descriptor)
+    {
+        return mPools.containsKey(descriptor);
+    }
+
+
+    /**
+     * Returns the number of objects currently pooled for the given descriptor.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor}.
+     *
+     * @return The number of pooled objects.
+     */
+    public int size(ElementDescriptor<?> descriptor)
+    {
+        BlockingQueue<Object> pool = mPools.get(descriptor);
+        return pool == null ? 0 : pool.size();
+    }
+
+
+    /**
+     * Returns the number of requests that have been served from the pool.
+     *
+     * @return The number of hits.
+     */
+    public long hits()
+    {
+        return mHits.sum();
+    }
+
+
+    /**
+     * Returns the number of requests that could not be served from the pool.
+     *
+     * @return The number of misses.
+     */
+    public long misses()
+    {
+        return mMisses.sum();
+    }
+
+
+    /**
+     * Returns the number of objects that have been dropped because the pool was full.
+     *
+     * @return The number of dropped objects.
+     */
+    public long drops()
+    {
+        return mDrops.sum();
+    }
+
+
+    /**
+     * Returns the pool of the given descriptor, creating it if necessary.
+     */
+    private BlockingQueue<Object> pool(ElementDescriptor<?> descriptor)
+    {
+        BlockingQueue<Object> pool = mPools.get(descriptor);
+        if (pool == null)
+        {
+            BlockingQueue<Object> newPool = new ArrayBlockingQueue<Object>(mDefaultCapacity);
+            pool = mPools.putIfAbsent(descriptor, newPool);
+            if (pool == null)
+            {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+
+
+    /**
+     * Removes all pooled objects. This doesn't reset the metrics.
+     */
+    public void clear()
+    {
+        for (BlockingQueue<Object> pool : mPools.values())
+        {
+            pool.clear();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.xmlobjects.ElementDescriptor;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+
+/**
+ * A registry that assigns dense ordinals to property {@link ElementDescriptor}s. The ordinals start at 0 and never change once assigned, so they can be used
+ * as indices into arrays and {@link java.util.BitSet}s.
+ * <p>
+ * All properties defined by this library are registered by their respective <code>Properties</code> classes. Any other descriptor gets its ordinal on the
+ * first call to {@link #obtain(ElementDescriptor)}.
+ * </p>
+ * <p>
+ * Lookups are lock free and compare descriptors by identity, they never call {@link ElementDescriptor#hashCode()} or
+ * {@link ElementDescriptor#equals(Object)}. Registrations are rare, so they copy the tables.
+ * </p>
+ */
+public final class PropertyOrdinals
+{
+    /**
+     * The ordinal of descriptors that have not been registered.
+     */
+    public final static int NONE = -1;
+
+    private final static Object LOCK = new Object();
+
+    private static volatile IdentityHashMap<ElementDescriptor<?>, Integer> sOrdinals = new IdentityHashMap<ElementDescriptor<?>, Integer>();
+
+    private static volatile ElementDescriptor<?>[] sDescriptors = new ElementDescriptor<?>[0];
+
+
+    /**
+     * Assigns ordinals to the given property descriptors, unless they already have one.
+     *
+     * @param descriptors
+     *     The {@link ElementDescriptor}s of the properties to register.
+     */
+    public static void register(ElementDescriptor<?>... descriptors)
+    {
+        synchronized (LOCK)
+        {
+            IdentityHashMap<ElementDescriptor<?>, Integer> ordinals = new IdentityHashMap<ElementDescriptor<?>, Integer>(sOrdinals);
+            ElementDescriptor<?>[] all = Arrays.copyOf(sDescriptors, sDescriptors.length + descriptors.length);
+            int count = sDescriptors.length;
+            for (ElementDescriptor<?> descriptor : descriptors)
+            {
+                if (descriptor != null && !ordinals.containsKey(descriptor))
+                {
+                    ordinals.put(descriptor, count);
+                    all[count++] = descriptor;
+                }
+            }
+
+            if (count > sDescriptors.length)
+            {
+                // publish the descriptors first, so a reader that sees an ordinal can always resolve it
+                sDescriptors = Arrays.copyOf(all, count);
+                sOrdinals = ordinals;
+            }
+        }
+    }
+
+
+    /**
+     * Returns the ordinal of the given property descriptor, assigning a new one if necessary.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} of a property.
+     *
+     * @return The ordinal of the descriptor.
+     */
+    public static int obtain(ElementDescriptor<?> descriptor)
+    {
+        Integer ordinal = sOrdinals.get(descriptor);
+        if (ordinal == null)
+        {
+            register(descriptor);
+            ordinal = sOrdinals.get(descriptor);
+        }
+        return ordinal;
+    }
+
+
+    /**
+     * Returns the ordinal of the given property descriptor without assigning a new one.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} of a property.
+     *
+     * @return The ordinal of the descriptor or {@link #NONE} if the descriptor has not been registered.
+     */
+    public static int ordinal(ElementDescriptor<?> descriptor)
+    {
+        Integer ordinal = sOrdinals.get(descriptor);
+        return ordinal == null ? NONE : ordinal;
+    }
+
+
+    /**
+     * Returns the property descriptor with the given ordinal.
+     *
+     * @param ordinal
+     *     An ordinal less than {@link #count()}.
+     *
+     * @return The {@link ElementDescriptor}.
+     */
+    public static ElementDescriptor<?> descriptor(int ordinal)
+    {
+        return sDescriptors[ordinal];
+    }
+
+
+    /**
+     * Returns the number of ordinals assigned so far.
+     *
+     * @return The number of registered descriptors.
+     */
+    public static int count()
+    {
+        return sDescriptors.length;
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private PropertyOrdinals()
+    {
+    }
+}
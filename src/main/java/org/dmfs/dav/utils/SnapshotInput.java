@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.httpessentials.types.StringMediaType;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+
+/**
+ * Reads the binary snapshot format written by {@link SnapshotOutput}.
+ */
+public final class SnapshotInput
+{
+    private final DataInput mIn;
+
+    /**
+     * The descriptors by their stream local id.
+     */
+    private final List<ElementDescriptor<?>> mDescriptors = new ArrayList<ElementDescriptor<?>>(32);
+
+
+    /**
+     * Create a {@link SnapshotInput} that reads from the given {@link DataInput}.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     */
+    public SnapshotInput(DataInput in)
+    {
+        mIn = in;
+    }
+
+
+    /**
+     * Returns the underlying {@link DataInput}.
+     *
+     * @return The {@link DataInput}.
+     */
+    public DataInput dataInput()
+    {
+        return mIn;
+    }
+
+
+    /**
+     * Reads an int written by {@link SnapshotOutput#writeVarInt(int)}.
+     *
+     * @return The value.
+     */
+    public int readVarInt() throws IOException
+    {
+        return readVarInt(mIn);
+    }
+
+
+    /**
+     * Reads a {@link String} written by {@link SnapshotOutput#writeString(String)}.
+     *
+     * @return The {@link String} or <code>null</code>.
+     */
+    public String readString() throws IOException
+    {
+        return readString(mIn);
+    }
+
+
+    /**
+     * Reads a property descriptor written by {@link SnapshotOutput#writeDescriptor(ElementDescriptor)}. Descriptors are looked up by their name among all
+     * registered {@link ElementDescriptor}s, see {@link ElementDescriptor#get(QualifiedName)}. Note that a descriptor is registered when the class that
+     * declares it is initialized.
+     *
+     * @return The {@link ElementDescriptor}.
+     *
+     * @throws IOException
+     *     if the stream is corrupt or the descriptor is not known in this process.
+     */
+    public ElementDescriptor<?> readDescriptor() throws IOException
+    {
+        int id = readVarInt();
+        if (id > 0)
+        {
+            if (id > mDescriptors.size())
+            {
+                throw new StreamCorruptedException("Unknown descriptor id " + id);
+            }
+            return mDescriptors.get(id - 1);
+        }
+
+        QualifiedName name = QualifiedName.get(readString(), readString());
+        ElementDescriptor<?> result = ElementDescriptor.get(name);
+        if (result == null)
+        {
+            throw new IOException("Unknown property " + name + ", the class that declares it has not been initialized");
+        }
+        mDescriptors.add(result);
+        return result;
+    }
+
+
+    /**
+     * Reads a property value written by {@link SnapshotOutput#writeValue(Object)}.
+     *
+     * @return The value, may be <code>null</code>.
+     */
+    public Object readValue() throws IOException
+    {
+        final DataInput in = mIn;
+        int type = in.readUnsignedByte();
+        switch (type)
+        {
+            case SnapshotOutput.TYPE_NULL:
+                return null;
+            case SnapshotOutput.TYPE_STRING:
+                return readString();
+            case SnapshotOutput.TYPE_INTEGER:
+                return in.readInt();
+            case SnapshotOutput.TYPE_URI:
+                return readUri();
+            case SnapshotOutput.TYPE_QUALIFIED_NAME:
+                return QualifiedName.get(readString(), readString());
+            case SnapshotOutput.TYPE_MEDIA_TYPE:
+                return new StringMediaType(readString());
+            case SnapshotOutput.TYPE_CALENDAR_DATA:
+                return CalendarData.readFrom(in);
+            case SnapshotOutput.TYPE_SET:
+            case SnapshotOutput.TYPE_LIST:
+            {
+                int size = readVarInt();
+                Collection<Object> result = type == SnapshotOutput.TYPE_SET ? new HashSet<Object>(size * 4 / 3 + 1) : new ArrayList<Object>(size);
+                for (int i = 0; i < size; ++i)
+                {
+                    result.add(readValue());
+                }
+                return result;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown value type " + type);
+        }
+    }
+
+
+    /**
+     * Reads a {@link URI} that has been written as a {@link String}.
+     *
+     * @return The {@link URI} or <code>null</code>.
+     */
+    public URI readUri() throws IOException
+    {
+        String uri = readString();
+        try
+        {
+            return uri == null ? null : new URI(uri);
+        }
+        catch (URISyntaxException e)
+        {
+            throw new StreamCorruptedException("Invalid URI " + uri);
+        }
+    }
+
+
+    /**
+     * Reads an int written by {@link SnapshotOutput#writeVarInt(java.io.DataOutput, int)}.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return The value.
+     */
+    public static int readVarInt(DataInput in) throws IOException
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length int");
+    }
+
+
+    /**
+     * Reads a {@link String} written by {@link SnapshotOutput#writeString(java.io.DataOutput, String)}.
+     *
+     * @param in
+     *     The {@link DataInput} to read from.
+     *
+     * @return The {@link String} or <code>null</code>.
+     */
+    public static String readString(DataInput in) throws IOException
+    {
+        int length = readVarInt(in);
+        if (length == 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
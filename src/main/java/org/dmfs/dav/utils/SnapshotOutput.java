@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.httpessentials.types.MediaType;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Writes the compact binary snapshot format of parsed WebDAV objects to a {@link DataOutput}. The format is read by {@link SnapshotInput}.
+ * <p>
+ * Property descriptors are written as stream local ids. The first occurrence of a descriptor writes its qualified name, so the ids don't depend on the
+ * registration order in the reading process.
+ * </p>
+ * <p>
+ * Supported property values are <code>null</code>, {@link String}, {@link Integer}, {@link URI}, {@link QualifiedName}, {@link MediaType},
+ * {@link CalendarData} and {@link Set}s or {@link List}s of these.
+ * </p>
+ */
+public final class SnapshotOutput
+{
+    /**
+     * The version of the snapshot format.
+     */
+    public final static int FORMAT_VERSION = 1;
+
+    final static int TYPE_NULL = 0;
+    final static int TYPE_STRING = 1;
+    final static int TYPE_INTEGER = 2;
+    final static int TYPE_URI = 3;
+    final static int TYPE_QUALIFIED_NAME = 4;
+    final static int TYPE_MEDIA_TYPE = 5;
+    final static int TYPE_CALENDAR_DATA = 6;
+    final static int TYPE_SET = 7;
+    final static int TYPE_LIST = 8;
+
+    private final DataOutput mOut;
+
+    private final Map<ElementDescriptor<?>, Integer> mDescriptorIds = new IdentityHashMap<ElementDescriptor<?>, Integer>(32);
+
+
+    /**
+     * Create a {@link SnapshotOutput} that writes to the given {@link DataOutput}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     */
+    public SnapshotOutput(DataOutput out)
+    {
+        mOut = out;
+    }
+
+
+    /**
+     * Returns the underlying {@link DataOutput}.
+     *
+     * @return The {@link DataOutput}.
+     */
+    public DataOutput dataOutput()
+    {
+        return mOut;
+    }
+
+
+    /**
+     * Writes a non-negative int in a variable length format, values below 128 take a single byte.
+     *
+     * @param value
+     *     The value to write.
+     */
+    public void writeVarInt(int value) throws IOException
+    {
+        writeVarInt(mOut, value);
+    }
+
+
+    /**
+     * Writes a {@link String} that may be <code>null</code>.
+     *
+     * @param value
+     *     The {@link String} to write or <code>null</code>.
+     */
+    public void writeString(String value) throws IOException
+    {
+        writeString(mOut, value);
+    }
+
+
+    /**
+     * Writes the given property descriptor.
+     *
+     * @param descriptor
+     *     The {@link ElementDescriptor} to write.
+     */
+    public void writeDescriptor(ElementDescriptor<?> descriptor) throws IOException
+    {
+        Integer id = mDescriptorIds.get(descriptor);
+        if (id != null)
+        {
+            writeVarInt(id + 1);
+            return;
+        }
+
+        // first occurrence, write the name, the reader assigns the same id
+        mDescriptorIds.put(descriptor, mDescriptorIds.size());
+        writeVarInt(0);
+        writeString(descriptor.qualifiedName.namespace);
+        writeString(descriptor.qualifiedName.name);
+    }
+
+
+    /**
+     * Writes a property value. Lazily decoded values are decoded first.
+     *
+     * @param value
+     *     The value.
+     *
+     * @throws IOException
+     *     if the value can't be written or has an unsupported type.
+     */
+    public void writeValue(Object value) throws IOException
+    {
+        final DataOutput out = mOut;
+        value = LazyObjectBuilder.resolve(value);
+
+        if (value == null)
+        {
+            out.writeByte(TYPE_NULL);
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(TYPE_STRING);
+            writeString((String) value);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        }
+        else if (value instanceof URI)
+        {
+            out.writeByte(TYPE_URI);
+            writeString(value.toString());
+        }
+        else if (value instanceof QualifiedName)
+        {
+            out.writeByte(TYPE_QUALIFIED_NAME);
+            writeString(((QualifiedName) value).namespace);
+            writeString(((QualifiedName) value).name);
+        }
+        else if (value instanceof MediaType)
+        {
+            out.writeByte(TYPE_MEDIA_TYPE);
+            writeString(value.toString());
+        }
+        else if (value instanceof CalendarData)
+        {
+            out.writeByte(TYPE_CALENDAR_DATA);
+            ((CalendarData) value).writeTo(out);
+        }
+        else if (value instanceof Set || value instanceof List)
+        {
+            out.writeByte(value instanceof Set ? TYPE_SET : TYPE_LIST);
+            Collection<?> collection = (Collection<?>) value;
+            writeVarInt(collection.size());
+            for (Object element : collection)
+            {
+                writeValue(element);
+            }
+        }
+        else
+        {
+            throw new IOException("Can't write values of type " + value.getClass().getName());
+        }
+    }
+
+
+    /**
+     * Writes a non-negative int in a variable length format to the given {@link DataOutput}.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     * @param value
+     *     The value to write.
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+    /**
+     * Writes a UTF-8 encoded {@link String} that may be <code>null</code> to the given {@link DataOutput}. Unlike {@link DataOutput#writeUTF(String)} this
+     * supports {@link String}s of any length.
+     *
+     * @param out
+     *     The {@link DataOutput} to write to.
+     * @param value
+     *     The {@link String} to write or <code>null</code>.
+     */
+    public static void writeString(DataOutput out, String value) throws IOException
+    {
+        if (value == null)
+        {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import org.dmfs.httpessentials.HttpStatus;
+
+
+/**
+ * Helpers to parse and create the HTTP status lines of <code>status</code> elements.
+ */
+public final class StatusLines
+{
+    /**
+     * The value returned by {@link #statusCode(CharSequence)} if the status line is malformed.
+     */
+    public final static int INVALID = -1;
+
+    private final static int MIN_CODE = 100;
+    private final static int MAX_CODE = 599;
+
+    private final static String HTTP_VERSION = "HTTP/1.1";
+
+    /**
+     * Cache of status lines by status code - {@link #MIN_CODE}. The entries are created on demand.
+     */
+    private final static String[] STATUS_LINES = new String[MAX_CODE - MIN_CODE + 1];
+
+    /**
+     * The {@link HttpStatus} constants that provide the reason phrases.
+     */
+    private final static HttpStatus[] KNOWN_STATUS = {
+        HttpStatus.CONTINUE, HttpStatus.SWITCHING_PROTOCOLS, HttpStatus.PROCESSING,
+        HttpStatus.OK, HttpStatus.CREATED, HttpStatus.ACCEPTED, HttpStatus.NON_AUTHORITATIVE_INFORMATION, HttpStatus.NO_CONTENT, HttpStatus.RESET_CONTENT,
+        HttpStatus.PARTIAL_CONTENT, HttpStatus.MULTISTATUS,
+        HttpStatus.MULTIPLE_CHOICES, HttpStatus.MOVED_PERMANENTLY, HttpStatus.FOUND, HttpStatus.SEE_OTHER, HttpStatus.NOT_MODIFIED, HttpStatus.USE_PROXY,
+        HttpStatus.TEMPORARY_REDIRECT, HttpStatus.PERMANENT_REDIRECT,
+        HttpStatus.BAD_REQUEST, HttpStatus.UNAUTHORIZED, HttpStatus.PAYMENT_REQUIRED, HttpStatus.FORBIDDEN, HttpStatus.NOT_FOUND, HttpStatus.METHOD_NOT_ALLOWED,
+        HttpStatus.NOT_ACCEPTABLE, HttpStatus.PROXY_AUTHENTICATION_REQUIRED, HttpStatus.REQUEST_TIMEOUT, HttpStatus.CONFLICT, HttpStatus.GONE,
+        HttpStatus.LENGTH_REQUIRED, HttpStatus.PRECONDITION_FAILED, HttpStatus.PAYLOAD_TOO_LARGE, HttpStatus.URI_TOO_LONG, HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+        HttpStatus.EXPECTATION_FAILED, HttpStatus.UNPROCESSABLE_ENTITY, HttpStatus.LOCKED, HttpStatus.FAILED_DEPENDENCY, HttpStatus.UPGRADE_REQUIRED,
+        HttpStatus.INTERNAL_SERVER_ERROR, HttpStatus.NOT_IMPLEMENTED, HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT,
+        HttpStatus.HTTP_VERSION_NOT_SUPPORTED, HttpStatus.VARIANT_ALSO_NEGOTIATES, HttpStatus.INSUFFICIENT_STORAGE };
+
+
+    /**
+     * Returns the status code of the given status line without allocating any objects. Leading and trailing white space is ignored. The HTTP version is
+     * optional, so <code>HTTP/1.1 200 OK</code>, <code>200 OK</code> and <code>200</code> all return <code>200</code>.
+     *
+     * @param statusLine
+     *     The status line.
+     *
+     * @return The status code or {@link #INVALID} if the status line is malformed.
+     */
+    public static int statusCode(CharSequence statusLine)
+    {
+        if (statusLine == null)
+        {
+            return INVALID;
+        }
+
+        final int length = statusLine.length();
+        int pos = skipWhitespace(statusLine, 0, length);
+
+        if (pos < length && statusLine.charAt(pos) == 'H')
+        {
+            // skip the HTTP version
+            while (pos < length && !isWhitespace(statusLine.charAt(pos)))
+            {
+                ++pos;
+            }
+            pos = skipWhitespace(statusLine, pos, length);
+        }
+
+        if (pos + 3 > length || pos + 3 < length && !isWhitespace(statusLine.charAt(pos + 3)))
+        {
+            // the status code must have exactly three digits
+            return INVALID;
+        }
+
+        int code = 0;
+        for (int i = pos; i < pos + 3; ++i)
+        {
+            char c = statusLine.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return INVALID;
+            }
+            code = code * 10 + c - '0';
+        }
+        return code;
+    }
+
+
+    /**
+     * Returns a status line for the given status code, like <code>HTTP/1.1 200 OK</code>. The status lines are cached, so calling this repeatedly doesn't
+     * allocate any objects.
+     *
+     * @param statusCode
+     *     The status code.
+     *
+     * @return The status line.
+     */
+    public static String statusLine(int statusCode)
+    {
+        if (statusCode < MIN_CODE || statusCode > MAX_CODE)
+        {
+            return HTTP_VERSION + " " + statusCode + " " + reasonPhrase(statusCode);
+        }
+
+        // this is racy, but in the worst case we just create the same string twice
+        String result = STATUS_LINES[statusCode - MIN_CODE];
+        if (result == null)
+        {
+            result = STATUS_LINES[statusCode - MIN_CODE] = HTTP_VERSION + " " + statusCode + " " + reasonPhrase(statusCode);
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the reason phrase of the given status code, as defined by {@link HttpStatus}.
+     *
+     * @param statusCode
+     *     The status code.
+     *
+     * @return The reason phrase, <code>Unknown</code> if the status code is unknown.
+     */
+    public static String reasonPhrase(int statusCode)
+    {
+        for (HttpStatus status : KNOWN_STATUS)
+        {
+            if (status.statusCode() == statusCode)
+            {
+                return status.reason();
+            }
+        }
+        return "Unknown";
+    }
+
+
+    private static int skipWhitespace(CharSequence sequence, int pos, int length)
+    {
+        while (pos < length && isWhitespace(sequence.charAt(pos)))
+        {
+            ++pos;
+        }
+        return pos;
+    }
+
+
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private StatusLines()
+    {
+    }
+}
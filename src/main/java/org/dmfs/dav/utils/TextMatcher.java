@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2026 Marten Gajda <marten@dmfs.org>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dmfs.dav.utils;
+
+import java.util.Arrays;
+
+
+/**
+ * Matches text values the way the <code>text-match</code> filters of CalDAV and CardDAV do.
+ * <p>
+ * The needle is case folded once when the matcher is created, the values are folded character by character while matching, so matching doesn't create any
+ * objects. Sub-strings are searched with the Boyer-Moore-Horspool algorithm, which skips up to the length of the needle after a mismatch.
+ * </p>
+ * <p>
+ * Supported collations are {@link #COLLATION_I_OCTET}, {@link #COLLATION_I_ASCII_CASEMAP} and {@link #COLLATION_I_UNICODE_CASEMAP}. The latter is
+ * implemented by simple case folding of each character, characters are not decomposed.
+ * </p>
+ * <p>
+ * Instances are immutable and can be shared among threads.
+ * </p>
+ */
+public final class TextMatcher
+{
+    /**
+     * The collation that matches text exactly.
+     */
+    public final static String COLLATION_I_OCTET = "i;octet";
+
+    /**
+     * The collation that ignores the case of ASCII characters.
+     */
+    public final static String COLLATION_I_ASCII_CASEMAP = "i;ascii-casemap";
+
+    /**
+     * The collation that ignores the case of all characters.
+     */
+    public final static String COLLATION_I_UNICODE_CASEMAP = "i;unicode-casemap";
+
+    /**
+     * Match values that equal the needle.
+     */
+    public final static int MATCH_EQUALS = 0;
+
+    /**
+     * Match values that contain the needle.
+     */
+    public final static int MATCH_CONTAINS = 1;
+
+    /**
+     * Match values that start with the needle.
+     */
+    public final static int MATCH_STARTS_WITH = 2;
+
+    /**
+     * Match values that end with the needle.
+     */
+    public final static int MATCH_ENDS_WITH = 3;
+
+    private final static int FOLD_NONE = 0;
+    private final static int FOLD_ASCII = 1;
+    private final static int FOLD_UNICODE = 2;
+
+    /**
+     * The size of the skip table. Characters are mapped to table entries by their lowest bits.
+     */
+    private final static int SKIP_TABLE_SIZE = 256;
+
+    private final char[] mNeedle;
+    private final int mFold;
+    private final int mMatchType;
+    private final boolean mNegate;
+
+    /**
+     * The Boyer-Moore-Horspool skip table or <code>null</code> if the match type doesn't need one.
+     */
+    private final int[] mSkip;
+
+
+    /**
+     * Create a {@link TextMatcher}.
+     *
+     * @param needle
+     *     The text to match.
+     * @param collation
+     *     The collation.
+     * @param matchType
+     *     One of {@link #MATCH_EQUALS}, {@link #MATCH_CONTAINS}, {@link #MATCH_STARTS_WITH} or {@link #MATCH_ENDS_WITH}.
+     * @param negate
+     *     Whether to negate the result.
+     *
+     * @throws IllegalArgumentException
+     *     if the collation or the match type is not supported.
+     */
+    public TextMatcher(String needle, String collation, int matchType, boolean negate)
+    {
+        if (COLLATION_I_UNICODE_CASEMAP.equals(collation))
+        {
+            mFold = FOLD_UNICODE;
+        }
+        else if (COLLATION_I_ASCII_CASEMAP.equals(collation))
+        {
+            mFold = FOLD_ASCII;
+        }
+        else if (COLLATION_I_OCTET.equals(collation))
+        {
+            mFold = FOLD_NONE;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Unsupported collation " + collation);
+        }
+
+        if (matchType < MATCH_EQUALS || matchType > MATCH_ENDS_WITH)
+        {
+            throw new IllegalArgumentException("Unsupported match type " + matchType);
+        }
+
+        final int length = needle.length();
+        char[] folded = new char[length];
+        for (int i = 0; i < length; ++i)
+        {
+            folded[i] = fold(needle.charAt(i), mFold);
+        }
+        mNeedle = folded;
+        mMatchType = matchType;
+        mNegate = negate;
+
+        if (matchType == MATCH_CONTAINS && length > 1)
+        {
+            int[] skip = new int[SKIP_TABLE_SIZE];
+            Arrays.fill(skip, length);
+            // characters that share an entry get the smallest shift, which is always safe
+            for (int i = 0; i < length - 1; ++i)
+            {
+                skip[folded[i] & (SKIP_TABLE_SIZE - 1)] = length - 1 - i;
+            }
+            mSkip = skip;
+        }
+        else
+        {
+            mSkip = null;
+        }
+    }
+
+
+    /**
+     * Returns the given text case folded the same way the needle of a {@link TextMatcher} with the given collation is folded. Texts that only differ in
+     * case (as far as the collation is concerned) have the same folded form.
+     *
+     * @param text
+     *     The text to fold.
+     * @param collation
+     *     The collation.
+     *
+     * @return The folded text. Texts of {@link #COLLATION_I_OCTET} and unsupported collations are returned unchanged.
+     */
+    public static String fold(String text, String collation)
+    {
+        int fold = COLLATION_I_UNICODE_CASEMAP.equals(collation) ? FOLD_UNICODE : COLLATION_I_ASCII_CASEMAP.equals(collation) ? FOLD_ASCII : FOLD_NONE;
+        if (fold == FOLD_NONE || text == null)
+        {
+            return text;
+        }
+        final int length = text.length();
+        char[] folded = new char[length];
+        for (int i = 0; i < length; ++i)
+        {
+            folded[i] = fold(text.charAt(i), fold);
+        }
+        return new String(folded);
+    }
+
+
+    /**
+     * Returns whether the given value matches. <code>null</code> values never match, regardless of the negation.
+     *
+     * @param value
+     *     The value to test.
+     *
+     * @return <code>true</code> if the value matches, <code>false</code> otherwise.
+     */
+    public boolean matches(CharSequence value)
+    {
+        if (value == null)
+        {
+            return false;
+        }
+
+        final int needleLength = mNeedle.length;
+        final int valueLength = value.length();
+        boolean result;
+        switch (mMatchType)
+        {
+            case MATCH_EQUALS:
+                result = valueLength == needleLength && regionMatches(value, 0);
+                break;
+            case MATCH_STARTS_WITH:
+                result = valueLength >= needleLength && regionMatches(value, 0);
+                break;
+            case MATCH_ENDS_WITH:
+                result = valueLength >= needleLength && regionMatches(value, valueLength - needleLength);
+                break;
+            default:
+                result = indexOf(value) >= 0;
+        }
+        return result != mNegate;
+    }
+
+
+    /**
+     * Returns the index of the first occurrence of the needle in the given value, ignoring the match type and the negation.
+     *
+     * @param value
+     *     The value to search.
+     *
+     * @return The index of the first occurrence or <code>-1</code> if the value doesn't contain the needle.
+     */
+    public int indexOf(CharSequence value)
+    {
+        final char[] needle = mNeedle;
+        final int needleLength = needle.length;
+        final int last = value.length() - needleLength;
+        if (needleLength == 0)
+        {
+            return 0;
+        }
+
+        final int[] skip = mSkip;
+        if (skip == null)
+        {
+            for (int pos = 0; pos <= last; ++pos)
+            {
+                if (regionMatches(value, pos))
+                {
+                    return pos;
+                }
+            }
+            return -1;
+        }
+
+        final int fold = mFold;
+        final int lastIndex = needleLength - 1;
+        int pos = 0;
+        while (pos <= last)
+        {
+            char c = fold(value.charAt(pos + lastIndex), fold);
+            if (c == needle[lastIndex])
+            {
+                int j = lastIndex - 1;
+                while (j >= 0 && fold(value.charAt(pos + j), fold) == needle[j])
+                {
+                    --j;
+                }
+                if (j < 0)
+                {
+                    return pos;
+                }
+            }
+            pos += skip[c & (SKIP_TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+
+    private boolean regionMatches(CharSequence value, int offset)
+    {
+        final char[] needle = mNeedle;
+        final int fold = mFold;
+        for (int i = 0; i < needle.length; ++i)
+        {
+            if (fold(value.charAt(offset + i), fold) != needle[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static char fold(char c, int fold)
+    {
+        switch (fold)
+        {
+            case FOLD_ASCII:
+                return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            case FOLD_UNICODE:
+                return c < 0x80 ? (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c) : Character.toLowerCase(Character.toUpperCase(c));
+            default:
+                return c;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.dmfs.dav;
+
+import org.dmfs.dav.rfc4791.CalendarMultiget;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class MultigetBatcherTest
+{
+    private final static List<URI> HREFS = Arrays.asList(URI.create("/c/1.ics"), URI.create("/c/2.ics"), URI.create("/c/3.ics"), URI.create("/c/4.ics"),
+        URI.create("/c/5.ics"));
+
+    private final static URI LONG = URI.create("/c/" + String.join("", Collections.nCopies(100, "x")) + ".ics");
+
+    Verifiable max_hrefs = assertThat(batcher().setMaxHrefs(2),
+        has("batches", batcher -> batches(batcher, HREFS), equalTo(Arrays.asList(
+            Arrays.asList(HREFS.get(0), HREFS.get(1)),
+            Arrays.asList(HREFS.get(2), HREFS.get(3)),
+            Collections.singletonList(HREFS.get(4))))));
+
+    Verifiable single_batch = assertThat(batcher(),
+        has("batches", batcher -> batches(batcher, HREFS), equalTo(Collections.singletonList(HREFS))));
+
+    Verifiable no_hrefs = assertThat(batcher(),
+        has("batches", batcher -> batches(batcher, Collections.<URI>emptyList()), equalTo(Collections.<List<URI>>emptyList())));
+
+    // each href takes its length plus 17 bytes, 25 bytes in total, so two of them fit into 60 bytes
+    Verifiable max_bytes = assertThat(batcher().setMaxBytes(60),
+        has("batches", batcher -> batches(batcher, HREFS), equalTo(Arrays.asList(
+            Arrays.asList(HREFS.get(0), HREFS.get(1)),
+            Arrays.asList(HREFS.get(2), HREFS.get(3)),
+            Collections.singletonList(HREFS.get(4))))));
+
+    Verifiable max_bytes_and_hrefs = assertThat(batcher().setMaxBytes(60).setMaxHrefs(1),
+        has("batch sizes", batcher -> sizes(batches(batcher, HREFS)), equalTo(Arrays.asList(1, 1, 1, 1, 1))));
+
+    Verifiable oversized_href = assertThat(batcher().setMaxBytes(60),
+        has("batches", batcher -> batches(batcher, Arrays.asList(HREFS.get(0), LONG, HREFS.get(1))), equalTo(Arrays.asList(
+            Collections.singletonList(HREFS.get(0)),
+            Collections.singletonList(LONG),
+            Collections.singletonList(HREFS.get(1))))));
+
+    Verifiable all_oversized = assertThat(batcher().setMaxBytes(1),
+        has("batch sizes", batcher -> sizes(batches(batcher, HREFS)), equalTo(Arrays.asList(1, 1, 1, 1, 1))));
+
+    Verifiable batch_request = assertThat(batcher().setMaxHrefs(2),
+        has("request hrefs", batcher -> batcher.batches(HREFS).next().request().getHrefs(), equalTo(Arrays.asList(HREFS.get(0), HREFS.get(1)))));
+
+    Verifiable merged = assertThat(new FakeServer(),
+        has("hrefs", server -> {
+            try (MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new))
+            {
+                return hrefs(responses);
+            }
+        }, equalTo(HREFS)));
+
+    Verifiable merged_values = assertThat(new FakeServer(),
+        has("etags", server -> {
+            List<String> result = new ArrayList<String>();
+            try (MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new))
+            {
+                while (responses.hasNext())
+                {
+                    result.add(responses.next().getPropertyValue(WebDav.Properties.GETETAG));
+                }
+            }
+            return result;
+        }, equalTo(Arrays.asList("\"/c/1.ics\"", "\"/c/2.ics\"", "\"/c/3.ics\"", "\"/c/4.ics\"", "\"/c/5.ics\""))));
+
+    Verifiable merged_requests = assertThat(new FakeServer(),
+        has("requests", server -> {
+            try (MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new))
+            {
+                hrefs(responses);
+            }
+            return server.mRequests;
+        }, equalTo(3)));
+
+    Verifiable merged_streams_closed = assertThat(new FakeServer(),
+        has("open streams", server -> {
+            MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new);
+            hrefs(responses);
+            return server.mOpen;
+        }, equalTo(0)));
+
+    // batches are only executed when the responses of the previous batch have been consumed
+    Verifiable lazy = assertThat(new FakeServer(),
+        has("requests", server -> {
+            try (MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new))
+            {
+                responses.next();
+                return server.mRequests;
+            }
+        }, equalTo(1)));
+
+    Verifiable early_close = assertThat(new FakeServer(),
+        has("open streams", server -> {
+            MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new);
+            responses.next();
+            responses.close();
+            return server.mOpen;
+        }, equalTo(0)));
+
+    Verifiable closed_has_next = assertThat(new FakeServer(),
+        has("has next", server -> {
+            MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new);
+            responses.next();
+            responses.close();
+            return responses.hasNext();
+        }, equalTo(false)));
+
+    Verifiable closed_no_more_requests = assertThat(new FakeServer(),
+        has("requests", server -> {
+            MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new);
+            responses.next();
+            responses.close();
+            responses.hasNext();
+            return server.mRequests;
+        }, equalTo(1)));
+
+    Verifiable failed_request_closes = assertThat(new FakeServer(),
+        has("open streams", server -> {
+            server.mBroken = HREFS.get(2);
+            try (MultigetBatcher.Responses responses = batcher().setMaxHrefs(2).responses(HREFS, server, DavParserContext::new))
+            {
+                hrefs(responses);
+            }
+            catch (IllegalStateException | UncheckedIOException e)
+            {
+                // expected
+            }
+            return server.mOpen;
+        }, equalTo(0)));
+
+
+    private static MultigetBatcher<CalendarMultiget> batcher()
+    {
+        CalendarMultiget template = new CalendarMultiget();
+        template.addProperty(WebDav.Properties.GETETAG);
+        return MultigetBatcher.calendarMultiget(template);
+    }
+
+
+    private static List<List<URI>> batches(MultigetBatcher<CalendarMultiget> batcher, List<URI> hrefs)
+    {
+        List<List<URI>> result = new ArrayList<List<URI>>();
+        Iterator<MultigetBatcher.Batch<CalendarMultiget>> batches = batcher.batches(hrefs);
+        while (batches.hasNext())
+        {
+            result.add(batches.next().hrefs());
+        }
+        return result;
+    }
+
+
+    private static List<Integer> sizes(List<List<URI>> batches)
+    {
+        List<Integer> result = new ArrayList<Integer>();
+        for (List<URI> batch : batches)
+        {
+            result.add(batch.size());
+        }
+        return result;
+    }
+
+
+    private static List<URI> hrefs(Iterator<Response> responses)
+    {
+        List<URI> result = new ArrayList<URI>();
+        while (responses.hasNext())
+        {
+            result.add(responses.next().getHRef());
+        }
+        return result;
+    }
+
+
+    /**
+     * A {@link MultigetBatcher.BatchExecutor} that returns the etag of each requested href and keeps track of the open response streams. A batch that
+     * contains {@link #mBroken} returns a truncated document.
+     */
+    private final static class FakeServer implements MultigetBatcher.BatchExecutor<CalendarMultiget>
+    {
+        private int mRequests;
+        private int mOpen;
+        private URI mBroken;
+
+
+        @Override
+        public InputStream execute(MultigetBatcher.Batch<CalendarMultiget> batch)
+        {
+            ++mRequests;
+            ++mOpen;
+            StringBuilder builder = new StringBuilder();
+            builder.append("<D:multistatus xmlns:D=\"DAV:\">");
+            for (URI href : batch.hrefs())
+            {
+                builder.append("<D:response><D:href>").append(href).append("</D:href><D:propstat><D:prop><D:getetag>\"").append(href)
+                    .append("\"</D:getetag></D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>");
+                if (href.equals(mBroken))
+                {
+                    builder.append("<D:response><D:href>");
+                }
+            }
+            builder.append("</D:multistatus>");
+            return new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8))
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    --mOpen;
+                    super.close();
+                }
+            };
+        }
+    }
+}
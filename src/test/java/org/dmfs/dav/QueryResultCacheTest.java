@@ -0,0 +1,102 @@
+package org.dmfs.dav;
+
+import org.dmfs.dav.rfc6352.AddressbookQuery;
+import org.dmfs.dav.rfc6352.filter.CanonicalFilter;
+import org.dmfs.dav.rfc6352.filter.PropFilter;
+import org.dmfs.dav.rfc6352.filter.TextMatch;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.net.URI;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class QueryResultCacheTest
+{
+    private final static URI COLLECTION = URI.create("http://example.com/contacts/");
+    private final static URI OTHER_COLLECTION = URI.create("http://example.com/other/");
+
+    private final static String FILTER = CanonicalFilter.canonicalForm(query("müller", -1));
+
+    Verifiable hit = assertThat(cache(),
+        has("result", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            return cache.get(COLLECTION, "1", FILTER);
+        }, equalTo("result")));
+
+    // the default collation ignores the case
+    Verifiable equivalent_filter = assertThat(cache(),
+        has("result", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            return cache.get(COLLECTION, "1", CanonicalFilter.canonicalForm(query("MÜLLER", -1)));
+        }, equalTo("result")));
+
+    Verifiable other_filter = assertThat(cache(),
+        has("no result", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            return cache.get(COLLECTION, "1", CanonicalFilter.canonicalForm(query("meyer", -1))) == null;
+        }, equalTo(true)));
+
+    Verifiable other_limit = assertThat(cache(),
+        has("no result", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            return cache.get(COLLECTION, "1", CanonicalFilter.canonicalForm(query("müller", 10))) == null;
+        }, equalTo(true)));
+
+    Verifiable other_collection = assertThat(cache(),
+        has("no result", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            return cache.get(OTHER_COLLECTION, "1", FILTER) == null;
+        }, equalTo(true)));
+
+    Verifiable new_version_drops_results = assertThat(cache(),
+        has("results", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            cache.put(COLLECTION, "2", CanonicalFilter.canonicalForm(query("meyer", -1)), "other result");
+            return (cache.get(COLLECTION, "1", FILTER) == null) + " " + cache.size();
+        }, equalTo("true 1")));
+
+    Verifiable hits_and_misses = assertThat(cache(),
+        has("hits and misses", cache -> {
+            cache.get(COLLECTION, "1", FILTER);
+            cache.put(COLLECTION, "1", FILTER, "result");
+            cache.get(COLLECTION, "1", FILTER);
+            cache.get(COLLECTION, "1", FILTER);
+            return cache.hits() + " " + cache.misses();
+        }, equalTo("2 1")));
+
+    Verifiable capacity = assertThat(new QueryResultCache<String>(2),
+        has("least recently used dropped", cache -> {
+            cache.put(COLLECTION, "1", "a", "a");
+            cache.put(COLLECTION, "1", "b", "b");
+            cache.get(COLLECTION, "1", "a");
+            cache.put(COLLECTION, "1", "c", "c");
+            return cache.get(COLLECTION, "1", "a") + " " + cache.get(COLLECTION, "1", "b") + " " + cache.get(COLLECTION, "1", "c");
+        }, equalTo("a null c")));
+
+    Verifiable invalidate = assertThat(cache(),
+        has("size", cache -> {
+            cache.put(COLLECTION, "1", FILTER, "result");
+            cache.put(OTHER_COLLECTION, "1", FILTER, "result");
+            cache.invalidate(COLLECTION);
+            return cache.size();
+        }, equalTo(1)));
+
+
+    private static QueryResultCache<String> cache()
+    {
+        return new QueryResultCache<String>();
+    }
+
+
+    private static AddressbookQuery query(String name, int limit)
+    {
+        AddressbookQuery query = new AddressbookQuery().limitNumberOfResults(limit);
+        query.addFilter(new PropFilter("FN", new TextMatch(name, false, null, TextMatch.MatchType.contains)));
+        return query;
+    }
+}
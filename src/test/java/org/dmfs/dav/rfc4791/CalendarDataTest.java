@@ -0,0 +1,200 @@
+package org.dmfs.dav.rfc4791;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.ResponseHandler;
+import org.dmfs.dav.rfc4918.Utf8MultiStatusParser;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CalendarDataTest
+{
+    private final static String CALENDAR = "BEGIN:VCALENDAR\n"
+        + "VERSION:2.0\n"
+        + "BEGIN:VEVENT\n"
+        + "UID:1\n"
+        + "DTSTART:20260105T100000Z\n"
+        + "DTEND:20260105T110000Z\n"
+        + "SUMMARY:An event that exceeds the spill threshold\n"
+        + "END:VEVENT\n"
+        + "END:VCALENDAR\n";
+
+    private final static byte[] DOCUMENT = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\">"
+        + "<D:response><D:href>/cal/1.ics</D:href><D:propstat><D:prop>"
+        + "<C:calendar-data>" + CALENDAR + "</C:calendar-data>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "</D:multistatus>").getBytes(StandardCharsets.UTF_8);
+
+    Verifiable spilled = assertThat(parse(tempDirectory()),
+        has("spilled", multiStatus -> calendarData(multiStatus).isSpilled(), equalTo(true)));
+
+    Verifiable spilled_content = assertThat(parse(tempDirectory()),
+        has("calendar data", multiStatus -> calendarData(multiStatus).calendarData(), equalTo(CALENDAR)));
+
+    Verifiable spill_file_exists = assertThat(tempDirectory(),
+        has("files after parsing", directory -> {
+            parse(directory);
+            return files(directory);
+        }, equalTo(1L)));
+
+    // property values are never recycled, so recycling the multistatus must not touch the calendar data
+    Verifiable spill_file_kept_on_recycle = assertThat(tempDirectory(),
+        has("files after recycling", directory -> {
+            parse(directory).recycle();
+            return files(directory);
+        }, equalTo(1L)));
+
+    Verifiable content_kept_on_recycle = assertThat(tempDirectory(),
+        has("calendar data after recycling", directory -> {
+            MultiStatus multiStatus = parse(directory);
+            CalendarData calendarData = calendarData(multiStatus);
+            multiStatus.recycle();
+            return calendarData.calendarData();
+        }, equalTo(CALENDAR)));
+
+    Verifiable content_kept_on_response_recycle = assertThat(tempDirectory(),
+        has("calendar data after recycling", directory -> {
+            MultiStatus multiStatus = parse(directory);
+            CalendarData calendarData = calendarData(multiStatus);
+            multiStatus.getResponses().get(0).recycle();
+            return calendarData.calendarData();
+        }, equalTo(CALENDAR)));
+
+    Verifiable spill_file_deleted_on_close = assertThat(tempDirectory(),
+        has("files after closing", directory -> {
+            calendarData(parse(directory)).close();
+            return files(directory);
+        }, equalTo(0L)));
+
+    Verifiable spill_file_exists_in_handler = assertThat(tempDirectory(),
+        has("files in handler", directory -> {
+            long[] result = new long[1];
+            parse(directory, response -> result[0] = files(directory));
+            return result[0];
+        }, equalTo(1L)));
+
+    Verifiable spill_file_kept_after_handler = assertThat(tempDirectory(),
+        has("files after handler", directory -> {
+            parse(directory, response -> response.getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA));
+            return files(directory);
+        }, equalTo(1L)));
+
+    Verifiable content_kept_after_handler = assertThat(tempDirectory(),
+        has("calendar data after handler", directory -> {
+            List<CalendarData> kept = new ArrayList<CalendarData>();
+            parse(directory, response -> kept.add(response.getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA)));
+            return kept.get(0).calendarData();
+        }, equalTo(CALENDAR)));
+
+    Verifiable spill_file_closed_by_handler = assertThat(tempDirectory(),
+        has("files after handler", directory -> {
+            parse(directory, response -> response.getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA).close());
+            return files(directory);
+        }, equalTo(0L)));
+
+    Verifiable calendar_data_recycled_after_close = assertThat(tempDirectory(),
+        has("files after recycling", directory -> {
+            CalendarData calendarData = calendarData(parse(directory));
+            calendarData.close();
+            calendarData.recycle();
+            return files(directory);
+        }, equalTo(0L)));
+
+    // calendar data that is dropped by the parser is closed by the parser
+    Verifiable spill_file_of_filtered_property = assertThat(tempDirectory(),
+        has("files after parsing", directory -> {
+            DavParserContext context = new DavParserContext()
+                .setPropertyFilter(Collections.singleton(WebDav.Properties.GETETAG))
+                .setCalendarDataSpillThreshold(16)
+                .setSpillDirectory(directory.toFile());
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XmlPullParser parser = factory.newPullParser();
+            parser.setInput(new ByteArrayInputStream(DOCUMENT), null);
+            new XmlObjectPull(parser, context).pull(WebDav.MULTISTATUS, null, new XmlPath());
+            return files(directory);
+        }, equalTo(0L)));
+
+
+    private static CalendarData calendarData(MultiStatus multiStatus)
+    {
+        return multiStatus.getResponses().get(0).getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA);
+    }
+
+
+    private static MultiStatus parse(Path spillDirectory)
+    {
+        return parse(new DavParserContext(), spillDirectory);
+    }
+
+
+    private static MultiStatus parse(Path spillDirectory, ResponseHandler handler)
+    {
+        return parse(new DavParserContext().setResponseHandler(handler), spillDirectory);
+    }
+
+
+    private static MultiStatus parse(DavParserContext context, Path spillDirectory)
+    {
+        try
+        {
+            context.setCalendarDataSpillThreshold(16).setSpillDirectory(spillDirectory.toFile());
+            return new Utf8MultiStatusParser(context).parse(DOCUMENT);
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    private static Path tempDirectory()
+    {
+        try
+        {
+            Path directory = Files.createTempDirectory("spill");
+            directory.toFile().deleteOnExit();
+            return directory;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static long files(Path directory)
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.count();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
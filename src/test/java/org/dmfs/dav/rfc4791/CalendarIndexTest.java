@@ -0,0 +1,76 @@
+package org.dmfs.dav.rfc4791;
+
+import org.dmfs.rfc5545.DateTime;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.net.URI;
+
+import static org.dmfs.dav.utils.ContentComponents.parse;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CalendarIndexTest
+{
+    private final static String SINGLE = "BEGIN:VCALENDAR\r\n"
+        + "VERSION:2.0\r\n"
+        + "BEGIN:VEVENT\r\n"
+        + "UID:1\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "END:VEVENT\r\n"
+        + "END:VCALENDAR\r\n";
+
+    private final static String WEEKLY = "BEGIN:VCALENDAR\r\n"
+        + "VERSION:2.0\r\n"
+        + "BEGIN:VEVENT\r\n"
+        + "UID:2\r\n"
+        + "DTSTART;TZID=Europe/Berlin:20260320T090000\r\n"
+        + "DTEND;TZID=Europe/Berlin:20260320T100000\r\n"
+        + "RRULE:FREQ=WEEKLY;BYDAY=MO,FR\r\n"
+        + "EXDATE;TZID=Europe/Berlin:20260327T090000\r\n"
+        + "END:VEVENT\r\n"
+        + "BEGIN:VEVENT\r\n"
+        + "UID:2\r\n"
+        + "RECURRENCE-ID;TZID=Europe/Berlin:20260323T090000\r\n"
+        + "DTSTART;TZID=Europe/Berlin:20260323T140000\r\n"
+        + "DTEND;TZID=Europe/Berlin:20260323T150000\r\n"
+        + "END:VEVENT\r\n"
+        + "END:VCALENDAR\r\n";
+
+    Verifiable single = assertThat(index(),
+        has("occurrences", index -> index.query(DateTime.parse("20260101T000000Z"), DateTime.parse("20260201T000000Z")).size(), equalTo(1)));
+
+    Verifiable single_outside = assertThat(index(),
+        has("occurrences", index -> index.query(DateTime.parse("20260105T110000Z"), DateTime.parse("20260201T000000Z")).size(), equalTo(0)));
+
+    // 20th, 23rd (overridden), 30th and 3rd, the 27th is excluded
+    Verifiable recurring = assertThat(index(),
+        has("occurrences", index -> index.query(DateTime.parse("20260318T000000Z"), DateTime.parse("20260405T000000Z")).size(), equalTo(4)));
+
+    Verifiable recurring_dst = assertThat(index(),
+        has("start", index -> index.query(DateTime.parse("20260330T000000Z"), DateTime.parse("20260331T000000Z")).get(0).start,
+            equalTo(DateTime.parse("20260330T070000Z").getTimestamp())));
+
+    Verifiable override = assertThat(index(),
+        has("start", index -> index.query(DateTime.parse("20260323T000000Z"), DateTime.parse("20260324T000000Z")).get(0).start,
+            equalTo(DateTime.parse("20260323T130000Z").getTimestamp())));
+
+    Verifiable removed = assertThat(index(),
+        has("occurrences", index -> {
+            index.remove(URI.create("/cal/weekly.ics"));
+            return index.query(DateTime.parse("20260318T000000Z"), DateTime.parse("20260405T000000Z")).size();
+        }, equalTo(0)));
+
+
+    private static CalendarIndex index()
+    {
+        CalendarIndex index = new CalendarIndex();
+        index.put(URI.create("/cal/single.ics"), parse(SINGLE));
+        index.put(URI.create("/cal/weekly.ics"), parse(WEEKLY));
+        return index;
+    }
+}
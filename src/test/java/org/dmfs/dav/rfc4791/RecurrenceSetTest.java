@@ -0,0 +1,140 @@
+package org.dmfs.dav.rfc4791;
+
+import org.dmfs.rfc5545.DateTime;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dmfs.dav.utils.ContentComponents.parse;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class RecurrenceSetTest
+{
+    Verifiable count = assertThat(event("20260105T100000Z", "FREQ=DAILY;COUNT=3"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20260201T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260106T100000Z", "20260107T100000Z"))));
+
+    Verifiable count_span = assertThat(event("20260105T100000Z", "FREQ=DAILY;COUNT=3"),
+        has("span end", RecurrenceSet::spanEnd, equalTo(DateTime.parse("20260107T110000Z").getTimestamp())));
+
+    Verifiable until = assertThat(event("20260105T100000Z", "FREQ=DAILY;UNTIL=20260107T100000Z"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20260201T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260106T100000Z", "20260107T100000Z"))));
+
+    Verifiable until_date = assertThat(event("20260105T100000Z", "FREQ=DAILY;UNTIL=20260107"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20260201T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260106T100000Z", "20260107T100000Z"))));
+
+    Verifiable interval = assertThat(event("20260105T100000Z", "FREQ=WEEKLY;INTERVAL=2;COUNT=3"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20260301T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260119T100000Z", "20260202T100000Z"))));
+
+    Verifiable interval_skipped_periods = assertThat(event("20260105T100000Z", "FREQ=DAILY;INTERVAL=3"),
+        has("starts", set -> starts(set, "20260110T000000Z", "20260115T000000Z"),
+            equalTo(timestamps("20260111T100000Z", "20260114T100000Z"))));
+
+    // the examples of RFC 5545, section 3.3.10
+    Verifiable week_start_monday = assertThat(event("19970805T090000Z", "FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=MO"),
+        has("starts", set -> starts(set, "19970801T000000Z", "19971001T000000Z"),
+            equalTo(timestamps("19970805T090000Z", "19970810T090000Z", "19970819T090000Z", "19970824T090000Z"))));
+
+    Verifiable week_start_sunday = assertThat(event("19970805T090000Z", "FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=SU"),
+        has("starts", set -> starts(set, "19970801T000000Z", "19971001T000000Z"),
+            equalTo(timestamps("19970805T090000Z", "19970817T090000Z", "19970819T090000Z", "19970831T090000Z"))));
+
+    Verifiable by_month_yearly = assertThat(event("20260105T100000Z", "FREQ=YEARLY;BYMONTH=1;COUNT=2"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20280101T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20270105T100000Z"))));
+
+    // DTSTART is always the first instance, even if the rule doesn't match it
+    Verifiable by_month_other_month = assertThat(event("20260105T100000Z", "FREQ=YEARLY;BYMONTH=2"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20280101T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260205T100000Z", "20270205T100000Z"))));
+
+    Verifiable by_month_monthly = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYMONTH=1"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20280101T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20270105T100000Z"))));
+
+    Verifiable by_month_daily = assertThat(event("20260105T100000Z", "BYMONTH=1;FREQ=DAILY"),
+        has("number of starts", set -> starts(set, "20260101T000000Z", "20260301T000000Z").size(), equalTo(27)));
+
+    Verifiable by_month_day_monthly = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYMONTHDAY=5;COUNT=2"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20270101T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260205T100000Z"))));
+
+    Verifiable by_month_day_yearly = assertThat(event("20260105T100000Z", "FREQ=YEARLY;BYMONTHDAY=5"),
+        has("exact", RecurrenceSet::isExact, equalTo(true)));
+
+    Verifiable by_month_day_other_day = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYMONTHDAY=6"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20260301T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260106T100000Z", "20260206T100000Z"))));
+
+    Verifiable by_day_ordinal = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYDAY=1MO;COUNT=3"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20270101T000000Z"),
+            equalTo(timestamps("20260105T100000Z", "20260202T100000Z", "20260302T100000Z"))));
+
+    Verifiable by_day_ordinal_span = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYDAY=1MO;COUNT=3"),
+        has("span end", RecurrenceSet::spanEnd, equalTo(DateTime.parse("20260302T110000Z").getTimestamp())));
+
+    // the last work day of the month
+    Verifiable by_set_pos = assertThat(event("20260130T100000Z", "FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1;COUNT=2"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20270101T000000Z"),
+            equalTo(timestamps("20260130T100000Z", "20260227T100000Z"))));
+
+    Verifiable fast_forward = assertThat(event("20260105T100000Z", "FREQ=MONTHLY;BYDAY=1MO"),
+        has("starts", set -> starts(set, "20360101T000000Z", "20360301T000000Z"),
+            equalTo(timestamps("20360107T100000Z", "20360204T100000Z"))));
+
+    Verifiable invalid_rule = assertThat(event("20260105T100000Z", "FREQ=SOMETIMES"),
+        has("exact", RecurrenceSet::isExact, equalTo(false)));
+
+    Verifiable not_exact_first_instance = assertThat(event("20260105T100000Z", "FREQ=SOMETIMES"),
+        has("starts", set -> starts(set, "20260101T000000Z", "20270101T000000Z"), equalTo(timestamps("20260105T100000Z"))));
+
+    /**
+     * Returns the {@link RecurrenceSet} of a one hour event with the given start and recurrence rule.
+     */
+    private static RecurrenceSet event(String dtStart, String rule)
+    {
+        return RecurrenceSet.of(parse("BEGIN:VCALENDAR\r\n"
+            + "VERSION:2.0\r\n"
+            + "BEGIN:VEVENT\r\n"
+            + "UID:1\r\n"
+            + "DTSTART:" + dtStart + "\r\n"
+            + "DURATION:PT1H\r\n"
+            + "RRULE:" + rule + "\r\n"
+            + "END:VEVENT\r\n"
+            + "END:VCALENDAR\r\n").components().get(0), new long[0], DateTime.UTC);
+    }
+
+
+    /**
+     * Returns the sorted start times of the instances in the given range.
+     */
+    private static List<Long> starts(RecurrenceSet recurrenceSet, String start, String end)
+    {
+        List<Long> result = new ArrayList<Long>();
+        recurrenceSet.instances(DateTime.parse(start).getTimestamp(), DateTime.parse(end).getTimestamp(),
+            (instanceStart, instanceEnd) -> result.add(instanceStart));
+        Collections.sort(result);
+        return result;
+    }
+
+
+    private static List<Long> timestamps(String... dateTimes)
+    {
+        List<Long> result = new ArrayList<Long>();
+        for (String dateTime : dateTimes)
+        {
+            result.add(DateTime.parse(dateTime).getTimestamp());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package org.dmfs.dav.rfc4791.filter;
+
+import org.dmfs.rfc5545.DateTime;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.TimeZone;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CanonicalFilterTest
+{
+    private final static CompFilter FILTER = new CompFilter("VCALENDAR",
+        new CompFilter("VEVENT", new TimeRange(DateTime.parse("20260101T000000Z"), DateTime.parse("20260201T000000Z")),
+            new PropFilter("SUMMARY", new TextMatch("meeting")),
+            new PropFilter("ATTENDEE", new ParamFilter("PARTSTAT", new TextMatch("ACCEPTED")))));
+
+    // same filter with different order, case, duplicates, an explicit default collation and a time range in another time zone
+    private final static CompFilter EQUIVALENT = new CompFilter("vcalendar",
+        new CompFilter("vevent", new TimeRange(DateTime.parse(TimeZone.getTimeZone("Europe/Berlin"), "20260101T010000"), DateTime.parse("20260201T000000Z")),
+            new PropFilter("attendee", new ParamFilter("partstat", new TextMatch("ACCEPTED", false, TextMatch.COLLATION_I_ASCII_CASEMAP))),
+            new PropFilter("summary", new TextMatch("meeting")),
+            new PropFilter("SUMMARY", new TextMatch("meeting"))));
+
+    // the default collation ignores the case
+    private final static CompFilter DIFFERENT_CASE = new CompFilter("VCALENDAR",
+        new CompFilter("VEVENT", new TimeRange(DateTime.parse("20260101T000000Z"), DateTime.parse("20260201T000000Z")),
+            new PropFilter("SUMMARY", new TextMatch("Meeting")),
+            new PropFilter("ATTENDEE", new ParamFilter("PARTSTAT", new TextMatch("ACCEPTED")))));
+
+    private final static CompFilter OCTET = new CompFilter("VCALENDAR",
+        new CompFilter("VEVENT", new PropFilter("SUMMARY", new TextMatch("meeting", false, CompiledFilter.COLLATION_I_OCTET))));
+
+    private final static CompFilter OCTET_DIFFERENT_CASE = new CompFilter("VCALENDAR",
+        new CompFilter("VEVENT", new PropFilter("SUMMARY", new TextMatch("Meeting", false, CompiledFilter.COLLATION_I_OCTET))));
+
+    Verifiable equal = assertThat(FILTER, has("equals", filter -> filter.equals(FILTER), equalTo(true)));
+
+    Verifiable not_equal = assertThat(FILTER, has("equals", filter -> filter.equals(EQUIVALENT), equalTo(false)));
+
+    Verifiable canonical_equal = assertThat(CanonicalFilter.canonicalize(FILTER),
+        has("equals", filter -> filter.equals(CanonicalFilter.canonicalize(EQUIVALENT)), equalTo(true)));
+
+    Verifiable canonical_hash_code = assertThat(CanonicalFilter.canonicalize(FILTER),
+        has("hashCode", CompFilter::hashCode, equalTo(CanonicalFilter.canonicalize(EQUIVALENT).hashCode())));
+
+    Verifiable fingerprint = assertThat(FILTER,
+        has("fingerprint", CanonicalFilter::fingerprint, equalTo(CanonicalFilter.fingerprint(EQUIVALENT))));
+
+    Verifiable different_case_fingerprint = assertThat(FILTER,
+        has("fingerprint", CanonicalFilter::fingerprint, equalTo(CanonicalFilter.fingerprint(DIFFERENT_CASE))));
+
+    Verifiable different_fingerprint = assertThat(OCTET,
+        has("fingerprint differs", filter -> CanonicalFilter.fingerprint(filter) == CanonicalFilter.fingerprint(OCTET_DIFFERENT_CASE), equalTo(false)));
+}
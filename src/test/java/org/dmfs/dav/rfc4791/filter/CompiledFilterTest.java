@@ -0,0 +1,261 @@
+package org.dmfs.dav.rfc4791.filter;
+
+import org.dmfs.rfc5545.DateTime;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import static org.dmfs.dav.utils.ContentComponents.parse;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CompiledFilterTest
+{
+    private final static String EVENT = "BEGIN:VCALENDAR\r\n"
+        + "VERSION:2.0\r\n"
+        + "BEGIN:VEVENT\r\n"
+        + "UID:1\r\n"
+        + "SUMMARY:Team Meeting\\, weekly\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "ATTENDEE;PARTSTAT=ACCEPTED:mailto:a@example.com\r\n"
+        + "END:VEVENT\r\n"
+        + "END:VCALENDAR\r\n";
+
+    private final static String TODO_DURATION = calendar("BEGIN:VTODO\r\n"
+        + "UID:2\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DURATION:PT1H\r\n"
+        + "END:VTODO\r\n");
+
+    private final static String TODO_DUE = calendar("BEGIN:VTODO\r\n"
+        + "UID:3\r\n"
+        + "DUE:20260105T120000Z\r\n"
+        + "END:VTODO\r\n");
+
+    private final static String TODO_COMPLETED = calendar("BEGIN:VTODO\r\n"
+        + "UID:4\r\n"
+        + "CREATED:20260101T100000Z\r\n"
+        + "COMPLETED:20260105T100000Z\r\n"
+        + "END:VTODO\r\n");
+
+    private final static String TODO_WITHOUT_DATES = calendar("BEGIN:VTODO\r\n"
+        + "UID:5\r\n"
+        + "END:VTODO\r\n");
+
+    private final static String ALARM = calendar("BEGIN:VEVENT\r\n"
+        + "UID:6\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "BEGIN:VALARM\r\n"
+        + "ACTION:DISPLAY\r\n"
+        + "TRIGGER:-PT15M\r\n"
+        + "REPEAT:2\r\n"
+        + "DURATION:PT5M\r\n"
+        + "END:VALARM\r\n"
+        + "END:VEVENT\r\n");
+
+    private final static String ALARM_RELATED_END = calendar("BEGIN:VEVENT\r\n"
+        + "UID:7\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DURATION:PT1H\r\n"
+        + "BEGIN:VALARM\r\n"
+        + "ACTION:DISPLAY\r\n"
+        + "TRIGGER;RELATED=END:PT5M\r\n"
+        + "END:VALARM\r\n"
+        + "END:VEVENT\r\n");
+
+    private final static String ALARM_ABSOLUTE = calendar("BEGIN:VTODO\r\n"
+        + "UID:8\r\n"
+        + "DUE:20260105T120000Z\r\n"
+        + "BEGIN:VALARM\r\n"
+        + "ACTION:DISPLAY\r\n"
+        + "TRIGGER;VALUE=DATE-TIME:20260105T080000Z\r\n"
+        + "END:VALARM\r\n"
+        + "END:VTODO\r\n");
+
+    private final static String FREEBUSY = calendar("BEGIN:VFREEBUSY\r\n"
+        + "UID:9\r\n"
+        + "DTSTART:20260105T000000Z\r\n"
+        + "DTEND:20260106T000000Z\r\n"
+        + "FREEBUSY:20260105T100000Z/PT1H,20260105T140000Z/20260105T150000Z\r\n"
+        + "END:VFREEBUSY\r\n");
+
+    private final static String FREEBUSY_WITHOUT_PERIODS = calendar("BEGIN:VFREEBUSY\r\n"
+        + "UID:10\r\n"
+        + "DTSTART:20260105T000000Z\r\n"
+        + "DTEND:20260106T000000Z\r\n"
+        + "END:VFREEBUSY\r\n");
+
+    private final static String RECURRING = calendar("BEGIN:VEVENT\r\n"
+        + "UID:11\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "RRULE:FREQ=WEEKLY;COUNT=3\r\n"
+        + "END:VEVENT\r\n");
+
+    private final static String RECURRING_UNSUPPORTED = calendar("BEGIN:VEVENT\r\n"
+        + "UID:12\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "RRULE:FREQ=SOMETIMES\r\n"
+        + "END:VEVENT\r\n");
+
+    private final static String RECURRING_BY_MONTH = calendar("BEGIN:VEVENT\r\n"
+        + "UID:14\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DTEND:20260105T110000Z\r\n"
+        + "RRULE:FREQ=WEEKLY;BYMONTH=1\r\n"
+        + "END:VEVENT\r\n");
+
+    private final static String RECURRING_TODO = calendar("BEGIN:VTODO\r\n"
+        + "UID:13\r\n"
+        + "DTSTART:20260105T100000Z\r\n"
+        + "DUE:20260105T110000Z\r\n"
+        + "RRULE:FREQ=DAILY;INTERVAL=2\r\n"
+        + "END:VTODO\r\n");
+
+    Verifiable component = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter("VEVENT"))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable missing_component = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter("VTODO"))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(false)));
+
+    Verifiable not_defined = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter("VTODO", true))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable text_match = assertThat(
+        CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter("VEVENT", new PropFilter("SUMMARY", new TextMatch("meeting, WEEKLY"))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable text_match_octet = assertThat(CompiledFilter.compile(
+            new CompFilter("VCALENDAR", new CompFilter("VEVENT", new PropFilter("SUMMARY", new TextMatch("meeting", false, CompiledFilter.COLLATION_I_OCTET))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(false)));
+
+    Verifiable text_match_negated = assertThat(
+        CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter("VEVENT", new PropFilter("SUMMARY", new TextMatch("lunch", true, true))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable param_match = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR",
+            new CompFilter("VEVENT", new PropFilter("ATTENDEE", new ParamFilter("PARTSTAT", new TextMatch("accepted")))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable time_range = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR",
+            new CompFilter("VEVENT", new TimeRange(DateTime.parse("20260105T103000Z"), DateTime.parse("20260106T000000Z"))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(true)));
+
+    Verifiable time_range_after = assertThat(CompiledFilter.compile(new CompFilter("VCALENDAR",
+            new CompFilter("VEVENT", new TimeRange(DateTime.parse("20260105T110000Z"), DateTime.parse("20260106T000000Z"))))),
+        has("matches", filter -> filter.matches(parse(EVENT)), equalTo(false)));
+
+    Verifiable todo_duration = assertThat(timeRange("VTODO", "20260105T103000Z", "20260105T120000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_DURATION)), equalTo(true)));
+
+    Verifiable todo_duration_after = assertThat(timeRange("VTODO", "20260105T120000Z", "20260105T130000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_DURATION)), equalTo(false)));
+
+    Verifiable todo_due = assertThat(timeRange("VTODO", "20260105T110000Z", "20260105T120000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_DUE)), equalTo(true)));
+
+    Verifiable todo_due_after = assertThat(timeRange("VTODO", "20260105T120000Z", "20260105T130000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_DUE)), equalTo(false)));
+
+    Verifiable todo_completed = assertThat(timeRange("VTODO", "20260103T000000Z", "20260104T000000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_COMPLETED)), equalTo(true)));
+
+    Verifiable todo_completed_after = assertThat(timeRange("VTODO", "20260106T000000Z", "20260107T000000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_COMPLETED)), equalTo(false)));
+
+    Verifiable todo_without_dates = assertThat(timeRange("VTODO", "20300101T000000Z", "20300102T000000Z"),
+        has("matches", filter -> filter.matches(parse(TODO_WITHOUT_DATES)), equalTo(true)));
+
+    Verifiable alarm = assertThat(alarmTimeRange("VEVENT", "20260105T094000Z", "20260105T095000Z"),
+        has("matches", filter -> filter.matches(parse(ALARM)), equalTo(true)));
+
+    Verifiable alarm_repetition = assertThat(alarmTimeRange("VEVENT", "20260105T095200Z", "20260105T095700Z"),
+        has("matches", filter -> filter.matches(parse(ALARM)), equalTo(true)));
+
+    Verifiable alarm_after_repetitions = assertThat(alarmTimeRange("VEVENT", "20260105T095600Z", "20260105T100000Z"),
+        has("matches", filter -> filter.matches(parse(ALARM)), equalTo(false)));
+
+    Verifiable alarm_related_end = assertThat(alarmTimeRange("VEVENT", "20260105T110000Z", "20260105T111000Z"),
+        has("matches", filter -> filter.matches(parse(ALARM_RELATED_END)), equalTo(true)));
+
+    Verifiable alarm_related_end_before = assertThat(alarmTimeRange("VEVENT", "20260105T094500Z", "20260105T110000Z"),
+        has("matches", filter -> filter.matches(parse(ALARM_RELATED_END)), equalTo(false)));
+
+    Verifiable alarm_absolute = assertThat(alarmTimeRange("VTODO", "20260105T075900Z", "20260105T080100Z"),
+        has("matches", filter -> filter.matches(parse(ALARM_ABSOLUTE)), equalTo(true)));
+
+    Verifiable alarm_absolute_after = assertThat(alarmTimeRange("VTODO", "20260105T080100Z", "20260105T120000Z"),
+        has("matches", filter -> filter.matches(parse(ALARM_ABSOLUTE)), equalTo(false)));
+
+    Verifiable freebusy_duration_period = assertThat(timeRange("VFREEBUSY", "20260105T103000Z", "20260105T110000Z"),
+        has("matches", filter -> filter.matches(parse(FREEBUSY)), equalTo(true)));
+
+    Verifiable freebusy_explicit_period = assertThat(timeRange("VFREEBUSY", "20260105T143000Z", "20260105T160000Z"),
+        has("matches", filter -> filter.matches(parse(FREEBUSY)), equalTo(true)));
+
+    Verifiable freebusy_between_periods = assertThat(timeRange("VFREEBUSY", "20260105T110000Z", "20260105T140000Z"),
+        has("matches", filter -> filter.matches(parse(FREEBUSY)), equalTo(false)));
+
+    Verifiable freebusy_without_periods = assertThat(timeRange("VFREEBUSY", "20260105T110000Z", "20260105T140000Z"),
+        has("matches", filter -> filter.matches(parse(FREEBUSY_WITHOUT_PERIODS)), equalTo(true)));
+
+    Verifiable freebusy_without_periods_after = assertThat(timeRange("VFREEBUSY", "20260106T010000Z", "20260106T020000Z"),
+        has("matches", filter -> filter.matches(parse(FREEBUSY_WITHOUT_PERIODS)), equalTo(false)));
+
+    Verifiable recurring_instance = assertThat(timeRange("VEVENT", "20260112T103000Z", "20260112T120000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING)), equalTo(true)));
+
+    Verifiable recurring_between_instances = assertThat(timeRange("VEVENT", "20260106T000000Z", "20260112T100000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING)), equalTo(false)));
+
+    Verifiable recurring_after_count = assertThat(timeRange("VEVENT", "20260126T000000Z", "20260127T000000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING)), equalTo(false)));
+
+    Verifiable recurring_unsupported = assertThat(timeRange("VEVENT", "20260107T000000Z", "20260108T000000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_UNSUPPORTED)), equalTo(true)));
+
+    Verifiable recurring_by_month = assertThat(timeRange("VEVENT", "20260112T103000Z", "20260112T120000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_BY_MONTH)), equalTo(true)));
+
+    Verifiable recurring_by_month_between_instances = assertThat(timeRange("VEVENT", "20260107T000000Z", "20260108T000000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_BY_MONTH)), equalTo(false)));
+
+    Verifiable recurring_by_month_other_month = assertThat(timeRange("VEVENT", "20260202T000000Z", "20260203T000000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_BY_MONTH)), equalTo(false)));
+
+    Verifiable recurring_todo = assertThat(timeRange("VTODO", "20260109T103000Z", "20260109T120000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_TODO)), equalTo(true)));
+
+    Verifiable recurring_todo_between_instances = assertThat(timeRange("VTODO", "20260108T000000Z", "20260109T000000Z"),
+        has("matches", filter -> filter.matches(parse(RECURRING_TODO)), equalTo(false)));
+
+
+    private static String calendar(String components)
+    {
+        return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + components + "END:VCALENDAR\r\n";
+    }
+
+
+    /**
+     * Returns a filter that matches calendars with a component of the given type that overlaps the given time range.
+     */
+    private static CompiledFilter timeRange(String component, String start, String end)
+    {
+        return CompiledFilter.compile(new CompFilter("VCALENDAR", new CompFilter(component, new TimeRange(DateTime.parse(start), DateTime.parse(end)))));
+    }
+
+
+    /**
+     * Returns a filter that matches calendars with a component of the given type that has an alarm in the given time range.
+     */
+    private static CompiledFilter alarmTimeRange(String component, String start, String end)
+    {
+        return CompiledFilter.compile(new CompFilter("VCALENDAR",
+            new CompFilter(component, new CompFilter("VALARM", new TimeRange(DateTime.parse(start), DateTime.parse(end))))));
+    }
+}
@@ -0,0 +1,105 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Helpers to compare the results of the multistatus parsers with the result of the plain pull parser.
+ */
+final class Documents
+{
+    /**
+     * Returns the UTF-8 encoded bytes of the given document.
+     */
+    static byte[] utf8(String document)
+    {
+        return document.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Parses the given document with an {@link XmlObjectPull} on top of a plain {@link XmlPullParser}.
+     */
+    static MultiStatus sequential(byte[] document)
+    {
+        return sequential(document, new DavParserContext());
+    }
+
+
+    /**
+     * Parses the given document with an {@link XmlObjectPull} on top of a plain {@link XmlPullParser}, using the given {@link DavParserContext}.
+     */
+    static MultiStatus sequential(byte[] document, DavParserContext context)
+    {
+        try
+        {
+            return new XmlObjectPull(pullParser(document), context).pull(WebDav.MULTISTATUS, null, new XmlPath());
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Returns a namespace aware {@link XmlPullParser} positioned at the start of the given document.
+     */
+    static XmlPullParser pullParser(byte[] document)
+    {
+        try
+        {
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XmlPullParser parser = factory.newPullParser();
+            parser.setInput(new ByteArrayInputStream(document), null);
+            return parser;
+        }
+        catch (XmlPullParserException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Returns a comparable snapshot of the given {@link MultiStatus}, see {@link MultiStatus#writeTo(java.io.DataOutput)}.
+     */
+    static String snapshot(MultiStatus multiStatus)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes))
+            {
+                multiStatus.writeTo(out);
+            }
+            return Arrays.toString(bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private Documents()
+    {
+    }
+}
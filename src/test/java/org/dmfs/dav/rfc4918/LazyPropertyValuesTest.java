@@ -0,0 +1,167 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.snapshot;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class LazyPropertyValuesTest
+{
+    private final static byte[] DOCUMENT = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\">"
+        + "<D:response><D:href>/c/</D:href><D:propstat><D:prop>"
+        + "<D:getetag>\"1\"</D:getetag>"
+        + "<D:getcontentlength>1234</D:getcontentlength>"
+        + "<D:getcontenttype>text/calendar; charset=utf-8</D:getcontenttype>"
+        + "<D:resourcetype><D:collection/></D:resourcetype>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/1.ics</D:href><D:propstat><D:prop>"
+        + "<D:getetag>\"2\"</D:getetag>"
+        + "<D:getcontentlength>42</D:getcontentlength>"
+        + "<D:resourcetype/>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "</D:multistatus>");
+
+    private final static byte[] MALFORMED = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\">"
+        + "<D:response><D:href>/c/</D:href><D:propstat><D:prop>"
+        + "<D:getetag>\"1\"</D:getetag>"
+        + "<C:max-resource-size>lots</C:max-resource-size>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "</D:multistatus>");
+
+
+    static
+    {
+        // make sure max-resource-size has been registered
+        CalDav.PROPERTY_MAX_RESOURCE_SIZE.hashCode();
+    }
+
+
+    Verifiable same_as_eager = assertThat(DOCUMENT,
+        has("snapshot", document -> snapshot(sequential(document, lazy())), equalTo(snapshot(sequential(DOCUMENT)))));
+
+    Verifiable content_length = assertThat(DOCUMENT,
+        has("content length", document -> first(sequential(document, lazy())).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH), equalTo(1234)));
+
+    Verifiable content_type = assertThat(DOCUMENT,
+        has("content type",
+            document -> first(sequential(document, lazy())).getPropertyValue(WebDav.Properties.GETCONTENTTYPE).toString(),
+            equalTo("text/calendar; charset=utf-8")));
+
+    Verifiable resource_type = assertThat(DOCUMENT,
+        has("resource type", document -> first(sequential(document, lazy())).getPropertyValue(WebDav.Properties.RESOURCETYPE),
+            equalTo(Collections.singleton(WebDav.COLLECTION))));
+
+    Verifiable decoded_once = assertThat(DOCUMENT,
+        has("same instance", document -> {
+            Response response = first(sequential(document, lazy()));
+            return response.getPropertyValue(WebDav.Properties.RESOURCETYPE) == response.getPropertyValue(WebDav.Properties.RESOURCETYPE);
+        }, equalTo(true)));
+
+    // the lazy values of a reused context don't leak into the values of the next document
+    Verifiable reused_context = assertThat(DOCUMENT,
+        has("content lengths", document -> {
+            DavParserContext context = lazy();
+            sequential(document, context);
+            MultiStatus multiStatus = sequential(document, context);
+            return Arrays.asList(
+                multiStatus.getResponses().get(0).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH),
+                multiStatus.getResponses().get(1).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH));
+        }, equalTo(Arrays.asList(1234, 42))));
+
+    Verifiable eager_decode_error = assertThat(MALFORMED,
+        has("error", document -> {
+            try
+            {
+                sequential(document);
+                return "none";
+            }
+            catch (RuntimeException e)
+            {
+                return "parser error";
+            }
+        }, equalTo("parser error")));
+
+    // in lazy mode the document can be parsed, the error is thrown when the value is accessed
+    Verifiable lazy_decode_error = assertThat(MALFORMED,
+        has("error", document -> {
+            Response response = first(sequential(document, lazy()));
+            try
+            {
+                response.getPropertyValue(CalDav.PROPERTY_MAX_RESOURCE_SIZE);
+                return "none";
+            }
+            catch (IllegalStateException e)
+            {
+                return "IllegalStateException";
+            }
+        }, equalTo("IllegalStateException")));
+
+    Verifiable lazy_decode_error_other_values = assertThat(MALFORMED,
+        has("etag", document -> first(sequential(document, lazy())).getPropertyValue(WebDav.Properties.GETETAG), equalTo("\"1\"")));
+
+    Verifiable skipped_value = assertThat(DOCUMENT,
+        has("content length", document -> first(sequential(document, etagOnly(lazy()))).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH) == null,
+            equalTo(true)));
+
+    Verifiable skipped_status = assertThat(DOCUMENT,
+        has("content length status", document -> first(sequential(document, etagOnly(lazy()))).getPropertyStatus(WebDav.Properties.GETCONTENTLENGTH),
+            equalTo(Response.STATUS_NONE)));
+
+    Verifiable skipped_properties = assertThat(DOCUMENT,
+        has("properties", document -> first(sequential(document, etagOnly(lazy()))).getProperties(),
+            equalTo(Collections.<ElementDescriptor<?>>singleton(WebDav.Properties.GETETAG))));
+
+    Verifiable skipped_eager = assertThat(DOCUMENT,
+        has("properties", document -> first(sequential(document, etagOnly(new DavParserContext()))).getProperties(),
+            equalTo(Collections.<ElementDescriptor<?>>singleton(WebDav.Properties.GETETAG))));
+
+    // the marker of skipped values is recycled by the context, it must never show up as a value once the filter has been removed
+    Verifiable skipped_marker_not_reused = assertThat(DOCUMENT,
+        has("content length", document -> {
+            DavParserContext context = etagOnly(new DavParserContext());
+            sequential(document, context);
+            context.setPropertyFilter(null);
+            return first(sequential(document, context)).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH);
+        }, equalTo(1234)));
+
+    Verifiable skipped_marker_not_reused_lazy = assertThat(DOCUMENT,
+        has("content length", document -> {
+            DavParserContext context = etagOnly(lazy());
+            sequential(document, context);
+            context.setPropertyFilter(null);
+            return first(sequential(document, context)).getPropertyValue(WebDav.Properties.GETCONTENTLENGTH);
+        }, equalTo(1234)));
+
+
+    private static DavParserContext lazy()
+    {
+        return new DavParserContext().setDecodePropertiesLazily(true);
+    }
+
+
+    private static DavParserContext etagOnly(DavParserContext context)
+    {
+        return context.setPropertyFilter(Collections.singleton(WebDav.Properties.GETETAG));
+    }
+
+
+    private static Response first(MultiStatus multiStatus)
+    {
+        return multiStatus.getResponses().get(0);
+    }
+}
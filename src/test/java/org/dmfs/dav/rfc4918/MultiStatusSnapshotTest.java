@@ -0,0 +1,200 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.utils.ElementDescriptorMap;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.builder.StringObjectBuilder;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.saynotobugs.confidence.quality.object.Throwing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+import static org.saynotobugs.confidence.quality.Core.throwing;
+
+
+@Confidence
+class MultiStatusSnapshotTest
+{
+    /**
+     * A property that's registered with xmlobjects but has no ordinal, see {@link org.dmfs.dav.utils.PropertyOrdinals}.
+     */
+    private final static ElementDescriptor<String> CUSTOM = ElementDescriptor.register(QualifiedName.get("urn:test", "custom"),
+        StringObjectBuilder.INSTANCE);
+
+    // make sure the conditions are registered before the document is parsed
+    private final static ElementDescriptor<List<URI>> LOCK_TOKEN_SUBMITTED = WebDav.PreConditions.LOCK_TOKEN_SUBMITTED;
+    private final static ElementDescriptor<QualifiedName> PROTECTED_PROPERTY = WebDav.PreConditions.CANNOT_MODIFY_PROTECTED_PROPERTY;
+
+    private final static byte[] ERRORS = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\">"
+        + "<D:response><D:href>/c/1.ics</D:href><D:status>HTTP/1.1 423 Locked</D:status>"
+        + "<D:error><D:lock-token-submitted><D:href>/c/</D:href></D:lock-token-submitted></D:error></D:response>"
+        + "<D:response><D:href>/c/2.ics</D:href><D:status>HTTP/1.1 403 Forbidden</D:status>"
+        + "<D:error><D:cannot-modify-protected-property/></D:error></D:response>"
+        + "</D:multistatus>");
+
+    Verifiable round_trip = assertThat(roundTrip(multiStatus()),
+        has("sync-token", MultiStatus::getSyncToken, equalTo("token-1")));
+
+    Verifiable round_trip_responses = assertThat(roundTrip(multiStatus()),
+        has("response count", multiStatus -> multiStatus.getResponses().size(), equalTo(2)));
+
+    Verifiable round_trip_href = assertThat(roundTrip(multiStatus()),
+        has("first href", multiStatus -> multiStatus.getResponses().get(0).getHRef(), equalTo(URI.create("/calendars/user/event1.ics"))));
+
+    Verifiable round_trip_property = assertThat(roundTrip(multiStatus()),
+        has("etag", multiStatus -> multiStatus.getResponses().get(0).getPropertyValue(WebDav.Properties.GETETAG), equalTo("\"1\"")));
+
+    Verifiable round_trip_property_status = assertThat(roundTrip(multiStatus()),
+        has("etag status", multiStatus -> multiStatus.getResponses().get(0).getPropertyStatus(WebDav.Properties.GETETAG), equalTo(200)));
+
+    Verifiable round_trip_status = assertThat(roundTrip(multiStatus()),
+        has("second status", multiStatus -> multiStatus.getResponses().get(1).getStatus(), equalTo(404)));
+
+    Verifiable round_trip_custom_property = assertThat(roundTrip(multiStatus()),
+        has("custom", multiStatus -> multiStatus.getResponses().get(0).getPropertyValue(CUSTOM), equalTo("value")));
+
+    Verifiable response_error = assertThat(roundTrip(sequential(ERRORS)),
+        has("lock-token-submitted", multiStatus -> multiStatus.getResponses().get(0).getError().getCondition(LOCK_TOKEN_SUBMITTED),
+            equalTo(Collections.singletonList(URI.create("/c/")))));
+
+    Verifiable response_error_conditions = assertThat(roundTrip(sequential(ERRORS)),
+        has("conditions", multiStatus -> multiStatus.getResponses().get(0).getError().getConditions(),
+            equalTo(Collections.<ElementDescriptor<?>>singleton(LOCK_TOKEN_SUBMITTED))));
+
+    Verifiable response_error_same_as_parsed = assertThat(roundTrip(sequential(ERRORS)),
+        has("conditions", multiStatus -> multiStatus.getResponses().get(0).getError().getConditions(),
+            equalTo(sequential(ERRORS).getResponses().get(0).getError().getConditions())));
+
+    Verifiable propstat_error = assertThat(roundTrip(new PropStat().setStatusCode(403).setError(new Error().addCondition(PROTECTED_PROPERTY, null))),
+        has("cannot-modify-protected-property", propStat -> propStat.getError().hasCondition(PROTECTED_PROPERTY), equalTo(true)));
+
+    Verifiable propstat_error_conditions = assertThat(roundTrip(new PropStat().setStatusCode(403).setError(new Error().addCondition(PROTECTED_PROPERTY, null))),
+        has("conditions", propStat -> propStat.getError().getConditions(), equalTo(Collections.<ElementDescriptor<?>>singleton(PROTECTED_PROPERTY))));
+
+    Verifiable parsed_empty_condition = assertThat(roundTrip(sequential(ERRORS)),
+        has("cannot-modify-protected-property", multiStatus -> multiStatus.getResponses().get(1).getError().hasCondition(PROTECTED_PROPERTY),
+            equalTo(true)));
+
+    Verifiable empty_error = assertThat(roundTrip(errorMultiStatus(new Error())),
+        has("conditions", multiStatus -> multiStatus.getResponses().get(0).getError().getConditions().isEmpty(), equalTo(true)));
+
+    Verifiable no_error = assertThat(roundTrip(multiStatus()),
+        has("error", multiStatus -> multiStatus.getResponses().get(1).getError() == null, equalTo(true)));
+
+    // conditions that can't be written must not be dropped silently
+    Verifiable unsupported_condition = assertThat(
+        (Throwing.Breakable) () -> errorMultiStatus(new Error().addCondition(WebDav.ERROR, new Error()))
+            .writeTo(new DataOutputStream(new ByteArrayOutputStream())),
+        throwing(IOException.class));
+
+    Verifiable unknown_property = assertThat(
+        (Throwing.Breakable) () -> MultiStatus.readFrom(new DataInputStream(new ByteArrayInputStream(
+            replace(snapshot(multiStatus()), "custom", "cust0m")))),
+        throwing(IOException.class));
+
+
+    private static MultiStatus multiStatus()
+    {
+        ElementDescriptorMap<Object> properties = new ElementDescriptorMap<Object>();
+        properties.put(WebDav.Properties.GETETAG, "\"1\"");
+        properties.put(WebDav.Properties.GETCONTENTLENGTH, 42);
+        properties.put(CUSTOM, "value");
+
+        MultiStatus result = new MultiStatus();
+        result.setSyncToken("token-1");
+        result.setResponses(Arrays.asList(
+            new Response()
+                .setHRef(URI.create("/calendars/user/event1.ics"))
+                .addPropStat(new PropStat().setStatusCode(200).setProperties(properties)),
+            new Response()
+                .setHRef(URI.create("/calendars/user/event2.ics"))
+                .setStatus(404)));
+        return result;
+    }
+
+
+    private static MultiStatus errorMultiStatus(Error error)
+    {
+        MultiStatus result = new MultiStatus();
+        result.setResponses(Collections.singletonList(new Response().setHRef(URI.create("/c/1.ics")).setStatus(423).setError(error)));
+        return result;
+    }
+
+
+    private static MultiStatus roundTrip(MultiStatus multiStatus)
+    {
+        try
+        {
+            return MultiStatus.readFrom(new DataInputStream(new ByteArrayInputStream(snapshot(multiStatus))));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static PropStat roundTrip(PropStat propStat)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes))
+            {
+                propStat.writeTo(out);
+            }
+            return PropStat.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static byte[] snapshot(MultiStatus multiStatus)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes))
+            {
+                multiStatus.writeTo(out);
+            }
+            return bytes.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Replaces the first occurrence of an ASCII string in the given bytes with another string of the same length.
+     */
+    private static byte[] replace(byte[] bytes, String search, String replacement)
+    {
+        byte[] result = bytes.clone();
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        System.arraycopy(replacement.getBytes(StandardCharsets.ISO_8859_1), 0, result, text.indexOf(search), replacement.length());
+        return result;
+    }
+}
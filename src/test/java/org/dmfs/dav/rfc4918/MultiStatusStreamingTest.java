@@ -0,0 +1,128 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.saynotobugs.confidence.quality.object.Throwing;
+
+import java.io.Flushable;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.List;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+import static org.saynotobugs.confidence.quality.Core.throwing;
+
+
+@Confidence
+class MultiStatusStreamingTest
+{
+    private final static byte[] DOCUMENT = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\">"
+        + "<D:response><D:href>/c/1.ics</D:href><D:propstat><D:prop><D:getetag>\"1\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/2.ics</D:href><D:status>HTTP/1.1 404 Not Found</D:status></D:response>"
+        + "<D:response><D:href>/c/3.ics</D:href><D:propstat><D:prop><D:getetag>\"3\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/4.ics</D:href><D:propstat><D:prop><D:getetag>\"4\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/5.ics</D:href><D:status>HTTP/1.1 404 Not Found</D:status></D:response>"
+        + "</D:multistatus>");
+
+    private final static List<Response> RESPONSES = sequential(DOCUMENT).getResponses();
+
+    Verifiable flushes = assertThat(new CountingFlushable(),
+        has("flushes", flushable -> {
+            streamed(RESPONSES, flushable, 2);
+            return flushable.mCount;
+        }, equalTo(2)));
+
+    Verifiable flushes_per_response = assertThat(new CountingFlushable(),
+        has("flushes", flushable -> {
+            streamed(RESPONSES, flushable, 1);
+            return flushable.mCount;
+        }, equalTo(5)));
+
+    Verifiable no_flush_below_chunk_size = assertThat(new CountingFlushable(),
+        has("flushes", flushable -> {
+            streamed(RESPONSES, flushable, 10);
+            return flushable.mCount;
+        }, equalTo(0)));
+
+    Verifiable no_flush_without_responses = assertThat(new CountingFlushable(),
+        has("flushes", flushable -> {
+            streamed(Collections.<Response>emptyList(), flushable, 1);
+            return flushable.mCount;
+        }, equalTo(0)));
+
+    Verifiable same_as_list = assertThat(RESPONSES,
+        has("xml", responses -> streamed(responses, new CountingFlushable(), 2), equalTo(listed(RESPONSES))));
+
+    Verifiable same_as_list_per_response = assertThat(RESPONSES,
+        has("xml", responses -> streamed(responses, new CountingFlushable(), 1), equalTo(listed(RESPONSES))));
+
+    Verifiable same_as_list_empty = assertThat(Collections.<Response>emptyList(),
+        has("xml", responses -> streamed(responses, new CountingFlushable(), 2), equalTo(listed(Collections.<Response>emptyList()))));
+
+    // the iterator is consumed by the serializer, serializing again writes no responses
+    Verifiable iterator_consumed = assertThat(RESPONSES,
+        has("second xml", responses -> {
+            MultiStatus multiStatus = new MultiStatus();
+            multiStatus.setResponses(responses.iterator(), new CountingFlushable(), 2);
+            serialize(multiStatus);
+            return serialize(multiStatus);
+        }, equalTo(listed(Collections.<Response>emptyList()))));
+
+    Verifiable invalid_chunk_size = assertThat((Throwing.Breakable) () -> new MultiStatus().setResponses(RESPONSES.iterator(), new CountingFlushable(), 0),
+        throwing(IllegalArgumentException.class));
+
+
+    private static String listed(List<Response> responses)
+    {
+        MultiStatus multiStatus = new MultiStatus();
+        multiStatus.setResponses(responses);
+        return serialize(multiStatus);
+    }
+
+
+    private static String streamed(List<Response> responses, Flushable flushable, int chunkSize)
+    {
+        MultiStatus multiStatus = new MultiStatus();
+        multiStatus.setResponses(responses.iterator(), flushable, chunkSize);
+        return serialize(multiStatus);
+    }
+
+
+    private static String serialize(MultiStatus multiStatus)
+    {
+        try
+        {
+            StringWriter writer = new StringWriter(1024);
+            SerializerContext context = new SerializerContext();
+            new XmlObjectSerializer().setOutput(context, writer).serialize(context, WebDav.MULTISTATUS, multiStatus);
+            return writer.toString();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    private final static class CountingFlushable implements Flushable
+    {
+        private int mCount;
+
+
+        @Override
+        public void flush()
+        {
+            ++mCount;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.dmfs.dav.rfc4918;
+
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.snapshot;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class ParallelMultiStatusParserTest
+{
+    private final static String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    private final static String OPEN = "<D:multistatus xmlns:D=\"DAV:\">";
+
+    private final static String CLOSE = "</D:multistatus>";
+
+    private final static byte[] PLAIN = utf8(HEADER + OPEN
+        + response("/a", "<D:getetag>\"1\"</D:getetag>")
+        + response("/b", "<D:displayname>b</D:displayname>")
+        + response("/c", "<D:getetag>\"3\"</D:getetag><D:displayname>c</D:displayname>")
+        + CLOSE);
+
+    private final static byte[] CDATA = utf8(HEADER + OPEN
+        + response("/a", "<D:displayname><![CDATA[</D:response><D:response>]]></D:displayname>")
+        + response("/b", "<D:displayname>x<![CDATA[<>]]>y</D:displayname>")
+        + CLOSE);
+
+    private final static byte[] COMMENTS = utf8(HEADER + OPEN
+        + "<!-- <D:response> -->"
+        + response("/a", "<!-- </D:response> --><D:getetag>\"1\"</D:getetag>")
+        + "<!-- </D:multistatus> -->"
+        + response("/b", "<D:displayname>b<!-- c --></D:displayname>")
+        + CLOSE);
+
+    private final static byte[] PROCESSING_INSTRUCTIONS = utf8(HEADER + OPEN
+        + "<?pi a>b?>"
+        + response("/a", "<?pi </D:response>?><D:getetag>\"1\"</D:getetag>")
+        + response("/b", "<D:displayname>b</D:displayname>")
+        + CLOSE);
+
+    private final static byte[] QUOTED_ATTRIBUTES = utf8(HEADER + OPEN
+        + "<D:response a=\"x>y\"><D:href b='</D:response>'>/a</D:href>"
+        + "<D:propstat><D:prop><D:getetag>\"1\"</D:getetag></D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + response("/b", "<D:displayname c=\"&gt;\">b</D:displayname>")
+        + CLOSE);
+
+    private final static byte[] DTD = utf8(HEADER + "<!DOCTYPE D:multistatus>" + OPEN
+        + response("/a", "<D:getetag>\"1\"</D:getetag>")
+        + response("/b", "<D:displayname>b</D:displayname>")
+        + CLOSE);
+
+    private final static byte[] EMPTY = utf8(HEADER + "<D:multistatus xmlns:D=\"DAV:\"/>");
+
+    private final static byte[] RESPONSE_DESCRIPTION = utf8(HEADER + OPEN
+        + response("/a", "<D:getetag>\"1\"</D:getetag>")
+        + "<D:responsedescription>done</D:responsedescription>"
+        + CLOSE);
+
+    Verifiable plain = assertThat(PLAIN,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(PLAIN)))));
+
+    Verifiable plain_responses = assertThat(PLAIN,
+        has("responses", document -> parallel(document).getResponses().size(), equalTo(3)));
+
+    Verifiable cdata = assertThat(CDATA,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(CDATA)))));
+
+    Verifiable cdata_responses = assertThat(CDATA,
+        has("responses", document -> parallel(document).getResponses().size(), equalTo(2)));
+
+    Verifiable comments = assertThat(COMMENTS,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(COMMENTS)))));
+
+    Verifiable comments_responses = assertThat(COMMENTS,
+        has("responses", document -> parallel(document).getResponses().size(), equalTo(2)));
+
+    Verifiable processing_instructions = assertThat(PROCESSING_INSTRUCTIONS,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(PROCESSING_INSTRUCTIONS)))));
+
+    Verifiable quoted_attributes = assertThat(QUOTED_ATTRIBUTES,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(QUOTED_ATTRIBUTES)))));
+
+    Verifiable quoted_attributes_responses = assertThat(QUOTED_ATTRIBUTES,
+        has("responses", document -> parallel(document).getResponses().size(), equalTo(2)));
+
+    Verifiable dtd = assertThat(DTD,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(DTD)))));
+
+    Verifiable empty = assertThat(EMPTY,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(EMPTY)))));
+
+    Verifiable response_description = assertThat(RESPONSE_DESCRIPTION,
+        has("snapshot", document -> snapshot(parallel(document)), equalTo(snapshot(sequential(RESPONSE_DESCRIPTION)))));
+
+    Verifiable default_chunk_size = assertThat(PLAIN,
+        has("snapshot", document -> snapshot(parse(new ParallelMultiStatusParser(), document)), equalTo(snapshot(sequential(PLAIN)))));
+
+    Verifiable scanner_skips_markup = assertThat(utf8("<a><!-- <b> --><?pi <c>?><![CDATA[<d>]]><e x='>' y=\">\"/></a>"),
+        has("tags", ParallelMultiStatusParserTest::tags, equalTo(Arrays.asList("1 a", "3 e", "2 a"))));
+
+    Verifiable scanner_declaration = assertThat(utf8("<!DOCTYPE a><a>"),
+        has("tags", ParallelMultiStatusParserTest::tags, equalTo(Arrays.asList("4 !DOCTYPE", "1 a"))));
+
+    Verifiable scanner_unterminated = assertThat(utf8("<a><!-- <b>"),
+        has("tags", ParallelMultiStatusParserTest::tags, equalTo(Arrays.asList("1 a"))));
+
+
+    private static String response(String href, String properties)
+    {
+        return "<D:response><D:href>" + href + "</D:href><D:propstat><D:prop>" + properties
+            + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>";
+    }
+
+
+    /**
+     * Parses the given document with a chunk size of one byte, so each response ends up in its own chunk.
+     */
+    private static MultiStatus parallel(byte[] document)
+    {
+        return parse(new ParallelMultiStatusParser().setChunkSize(1), document);
+    }
+
+
+    private static MultiStatus parse(ParallelMultiStatusParser parser, byte[] document)
+    {
+        try
+        {
+            return parser.parse(document);
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Returns the type and name of each tag the {@link XmlTagScanner} finds in the given document.
+     */
+    private static List<String> tags(byte[] document)
+    {
+        XmlTagScanner scanner = new XmlTagScanner(ByteBuffer.wrap(document), 0, document.length);
+        List<String> result = new ArrayList<String>();
+        int type;
+        while ((type = scanner.next()) != XmlTagScanner.EOF)
+        {
+            result.add(type + " " + scanner.name());
+        }
+        return result;
+    }
+}
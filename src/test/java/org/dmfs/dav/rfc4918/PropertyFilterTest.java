@@ -0,0 +1,168 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.builder.AbstractObjectBuilder;
+import org.dmfs.xmlobjects.builder.StringObjectBuilder;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.dmfs.dav.rfc4918.Documents.pullParser;
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.snapshot;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class PropertyFilterTest
+{
+    /**
+     * A property that is not known to the {@link org.dmfs.dav.utils.NameTable}.
+     */
+    private final static ElementDescriptor<String> KEPT = ElementDescriptor.register(QualifiedName.get("urn:test:filter", "kept"),
+        StringObjectBuilder.INSTANCE);
+
+    /**
+     * A property that fails as soon as its builder is used.
+     */
+    private final static ElementDescriptor<String> EXPLODING = ElementDescriptor.register(QualifiedName.get("urn:test:filter", "exploding"),
+        new AbstractObjectBuilder<String>()
+        {
+            @Override
+            public String get(ElementDescriptor<String> descriptor, String recycle, ParserContext context) throws XmlObjectPullParserException
+            {
+                throw new XmlObjectPullParserException("exploding has been built");
+            }
+        });
+
+    private final static String PROPERTIES = "<D:getetag>\"1\"</D:getetag>"
+        + "<D:displayname>one</D:displayname>"
+        + "<D:resourcetype><D:collection/></D:resourcetype>"
+        + "<X:unknown><D:href>/x</D:href></X:unknown>"
+        + "<T:kept>k</T:kept>"
+        + "<C:calendar-data>BEGIN:VCALENDAR\nEND:VCALENDAR\n</C:calendar-data>"
+        + "<D:getcontenttype/>";
+
+    private final static String OPEN = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\" xmlns:X=\"urn:example\" xmlns:T=\"urn:test:filter\">"
+        + "<D:response><D:href>/c/1.ics</D:href><D:propstat><D:prop>";
+
+    private final static String CLOSE = "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:sync-token>http://example.com/sync/1</D:sync-token>"
+        + "</D:multistatus>";
+
+    private final static byte[] DOCUMENT = utf8(OPEN + PROPERTIES + CLOSE);
+
+    private final static byte[] WITH_EXPLODING = utf8(OPEN + PROPERTIES + "<T:exploding>boom</T:exploding>" + CLOSE);
+
+    private final static Collection<ElementDescriptor<?>> ACCEPTED = Arrays.<ElementDescriptor<?>>asList(WebDav.Properties.GETETAG, KEPT);
+
+
+    static
+    {
+        // make sure calendar-data has been registered
+        CalDav.PROPERTY_CALENDAR_DATA.hashCode();
+    }
+
+
+    Verifiable utf8_properties = assertThat(DOCUMENT,
+        has("properties", document -> properties(new Utf8MultiStatusParser(filtered()).parse(document)), equalTo(new HashSet<>(ACCEPTED))));
+
+    Verifiable utf8_unknown_to_name_table = assertThat(DOCUMENT,
+        has("kept", document -> first(new Utf8MultiStatusParser(filtered()).parse(document)).getPropertyValue(KEPT), equalTo("k")));
+
+    Verifiable utf8_same_as_builder = assertThat(DOCUMENT,
+        has("snapshot", document -> snapshot(new Utf8MultiStatusParser(filtered()).parse(document)),
+            equalTo(snapshot(sequential(DOCUMENT, filtered())))));
+
+    Verifiable utf8_sync_token = assertThat(DOCUMENT,
+        has("sync-token", document -> new Utf8MultiStatusParser(filtered()).parse(document).getSyncToken(), equalTo("http://example.com/sync/1")));
+
+    // properties that are not accepted never reach their builder
+    Verifiable utf8_not_built = assertThat(WITH_EXPLODING,
+        has("properties", document -> properties(new Utf8MultiStatusParser(filtered()).parse(document)), equalTo(new HashSet<>(ACCEPTED))));
+
+    Verifiable utf8_slices_not_accepted = assertThat(DOCUMENT,
+        has("calendar data",
+            document -> first(new Utf8MultiStatusParser(filtered()).setCalendarDataSlices(true).parse(document)).getPropertyValue(
+                CalDav.PROPERTY_CALENDAR_DATA) == null,
+            equalTo(true)));
+
+    Verifiable utf8_slices_accepted = assertThat(DOCUMENT,
+        has("calendar data buffer",
+            document -> first(new Utf8MultiStatusParser(new DavParserContext().setPropertyFilter(
+                Arrays.<ElementDescriptor<?>>asList(WebDav.Properties.GETETAG, CalDav.PROPERTY_CALENDAR_DATA))).setCalendarDataSlices(true).parse(document))
+                .getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA).calendarDataBuffer() != null,
+            equalTo(true)));
+
+    Verifiable utf8_unfiltered = assertThat(DOCUMENT,
+        has("snapshot", document -> snapshot(new Utf8MultiStatusParser().parse(document)), equalTo(snapshot(sequential(DOCUMENT)))));
+
+    Verifiable builder_properties = assertThat(DOCUMENT,
+        has("properties", document -> properties(sequential(document, filtered())), equalTo(new HashSet<>(ACCEPTED))));
+
+    // MultiStatus.BUILDER still builds properties that don't support skipping and drops them afterwards
+    Verifiable builder_builds = assertThat(WITH_EXPLODING,
+        has("error", document -> {
+            try
+            {
+                sequential(document, filtered());
+                return "none";
+            }
+            catch (RuntimeException e)
+            {
+                return "built";
+            }
+        }, equalTo("built")));
+
+    Verifiable iterator_properties = assertThat(DOCUMENT,
+        has("properties", document -> properties(new ResponseIterator(pullParser(document), filtered()).next()), equalTo(new HashSet<>(ACCEPTED))));
+
+    Verifiable no_filter = assertThat(new DavParserContext(),
+        has("has filter", DavParserContext::hasPropertyFilter, equalTo(false)));
+
+    Verifiable removed_filter = assertThat(filtered().setPropertyFilter(null),
+        has("accepts unknown name", context -> context.acceptsProperty(QualifiedName.get("urn:example", "unknown")), equalTo(true)));
+
+    Verifiable name_accepted = assertThat(filtered(),
+        has("accepts kept", context -> context.acceptsProperty(KEPT.qualifiedName), equalTo(true)));
+
+    Verifiable name_not_accepted = assertThat(filtered(),
+        has("accepts displayname", context -> context.acceptsProperty(WebDav.Properties.DISPLAYNAME.qualifiedName), equalTo(false)));
+
+
+    private static DavParserContext filtered()
+    {
+        return new DavParserContext().setPropertyFilter(ACCEPTED);
+    }
+
+
+    private static Response first(MultiStatus multiStatus)
+    {
+        return multiStatus.getResponses().get(0);
+    }
+
+
+    private static Set<ElementDescriptor<?>> properties(MultiStatus multiStatus)
+    {
+        return properties(first(multiStatus));
+    }
+
+
+    private static Set<ElementDescriptor<?>> properties(Response response)
+    {
+        return new HashSet<>(response.getProperties());
+    }
+}
@@ -0,0 +1,91 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class ResponseHandlerTest
+{
+    private final static byte[] DOCUMENT = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\">"
+        + "<D:response><D:href>/c/1.ics</D:href><D:propstat><D:prop><D:getetag>\"1\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/2.ics</D:href><D:status>HTTP/1.1 404 Not Found</D:status></D:response>"
+        + "<D:response><D:href>/c/3.ics</D:href><D:propstat><D:prop><D:getetag>\"3\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:responsedescription>done</D:responsedescription>"
+        + "<D:sync-token>http://example.com/sync/42</D:sync-token>"
+        + "</D:multistatus>");
+
+    Verifiable order = assertThat(DOCUMENT,
+        has("handled hrefs", document -> {
+            List<String> hrefs = new ArrayList<String>();
+            sequential(document, new DavParserContext().setResponseHandler(response -> hrefs.add(href(response).toString())));
+            return hrefs;
+        }, equalTo(Arrays.asList("/c/1.ics", "/c/2.ics", "/c/3.ics"))));
+
+    Verifiable values = assertThat(DOCUMENT,
+        has("handled etags", document -> {
+            List<String> etags = new ArrayList<String>();
+            sequential(document, new DavParserContext().setResponseHandler(
+                response -> etags.add(response.getStatus() + " " + response.getPropertyValue(WebDav.Properties.GETETAG))));
+            return etags;
+        }, equalTo(Arrays.asList("-1 \"1\"", "404 null", "-1 \"3\""))));
+
+    Verifiable same_as_list = assertThat(DOCUMENT,
+        has("handled hrefs", document -> {
+            List<URI> hrefs = new ArrayList<URI>();
+            sequential(document, new DavParserContext().setResponseHandler(response -> hrefs.add(href(response))));
+            return hrefs;
+        }, equalTo(hrefs(sequential(DOCUMENT)))));
+
+    Verifiable no_responses_retained = assertThat(handled(DOCUMENT),
+        has("responses", multiStatus -> multiStatus.getResponses() == null ? 0 : multiStatus.getResponses().size(), equalTo(0)));
+
+    Verifiable sync_token = assertThat(handled(DOCUMENT),
+        has("sync-token", MultiStatus::getSyncToken, equalTo("http://example.com/sync/42")));
+
+    Verifiable response_description = assertThat(handled(DOCUMENT),
+        has("response description", MultiStatus::getResponseDescription, equalTo("done")));
+
+
+    private static MultiStatus handled(byte[] document)
+    {
+        return sequential(document, new DavParserContext().setResponseHandler(response -> {
+            // drop all responses
+        }));
+    }
+
+
+    private static List<URI> hrefs(MultiStatus multiStatus)
+    {
+        List<URI> result = new ArrayList<URI>();
+        for (Response response : multiStatus.getResponses())
+        {
+            result.add(href(response));
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the first href of the given response, regardless of whether it has a status or propstats.
+     */
+    private static URI href(Response response)
+    {
+        return response.getStatus() == Response.STATUS_NONE ? response.getHRef() : response.getHRefs().get(0);
+    }
+}
@@ -0,0 +1,171 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.DavParserContext;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.dmfs.dav.rfc4918.Documents.pullParser;
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class ResponseIteratorTest
+{
+    private final static byte[] DOCUMENT = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\">\n"
+        + "  <D:response>\n"
+        + "    <D:href>/cal/1.ics</D:href>\n"
+        + "    <D:propstat>\n"
+        + "      <D:prop><D:getetag>\"1\"</D:getetag><C:calendar-data>BEGIN:VCALENDAR\nEND:VCALENDAR\n</C:calendar-data></D:prop>\n"
+        + "      <D:status>HTTP/1.1 200 OK</D:status>\n"
+        + "    </D:propstat>\n"
+        + "    <D:propstat>\n"
+        + "      <D:prop><D:displayname/></D:prop>\n"
+        + "      <D:status>HTTP/1.1 404 Not Found</D:status>\n"
+        + "    </D:propstat>\n"
+        + "  </D:response>\n"
+        + "  <D:response>\n"
+        + "    <D:href>/cal/2.ics</D:href>\n"
+        + "    <D:status>HTTP/1.1 404 Not Found</D:status>\n"
+        + "  </D:response>\n"
+        + "  <D:response>\n"
+        + "    <D:href>/cal/3.ics</D:href>\n"
+        + "    <D:propstat><D:prop><D:getetag>\"3\"</D:getetag></D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat>\n"
+        + "  </D:response>\n"
+        + "  <D:responsedescription>done</D:responsedescription>\n"
+        + "  <D:sync-token>http://example.com/sync/42</D:sync-token>\n"
+        + "</D:multistatus>\n");
+
+    private final static byte[] EMPTY = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\"><D:sync-token>http://example.com/sync/1</D:sync-token></D:multistatus>");
+
+    private final static byte[] NO_MULTISTATUS = utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<D:error xmlns:D=\"DAV:\"/>");
+
+    Verifiable same_as_builder = assertThat(DOCUMENT,
+        has("responses", document -> snapshots(all(iterator(document))), equalTo(snapshots(sequential(DOCUMENT).getResponses()))));
+
+    Verifiable same_as_builder_from_stream = assertThat(DOCUMENT,
+        has("responses", document -> snapshots(all(new ResponseIterator(new ByteArrayInputStream(document), null, new DavParserContext()))),
+            equalTo(snapshots(sequential(DOCUMENT).getResponses()))));
+
+    Verifiable sync_token_after_exhaustion = assertThat(DOCUMENT,
+        has("sync-token", document -> {
+            ResponseIterator iterator = iterator(document);
+            all(iterator);
+            return iterator.multiStatus().getSyncToken();
+        }, equalTo("http://example.com/sync/42")));
+
+    Verifiable response_description_after_exhaustion = assertThat(DOCUMENT,
+        has("response description", document -> {
+            ResponseIterator iterator = iterator(document);
+            all(iterator);
+            return iterator.multiStatus().getResponseDescription();
+        }, equalTo("done")));
+
+    Verifiable no_responses_in_multistatus = assertThat(DOCUMENT,
+        has("no responses", document -> {
+            ResponseIterator iterator = iterator(document);
+            all(iterator);
+            return iterator.multiStatus().getResponses() == null;
+        }, equalTo(true)));
+
+    Verifiable early_stop = assertThat(DOCUMENT,
+        has("first response", document -> snapshots(Arrays.asList(iterator(document).next())),
+            equalTo(snapshots(sequential(DOCUMENT).getResponses().subList(0, 1)))));
+
+    Verifiable early_stop_has_next = assertThat(DOCUMENT,
+        has("has next", document -> {
+            ResponseIterator iterator = iterator(document);
+            iterator.next();
+            return iterator.hasNext();
+        }, equalTo(true)));
+
+    Verifiable early_stop_sync_token = assertThat(DOCUMENT,
+        has("no sync-token yet", document -> {
+            ResponseIterator iterator = iterator(document);
+            iterator.next();
+            return iterator.multiStatus().getSyncToken() == null;
+        }, equalTo(true)));
+
+    Verifiable stream = assertThat(DOCUMENT,
+        has("stream", document -> iterator(document).stream().limit(2).count(), equalTo(2L)));
+
+    Verifiable empty = assertThat(EMPTY,
+        has("has next", document -> iterator(document).hasNext(), equalTo(false)));
+
+    Verifiable empty_sync_token = assertThat(EMPTY,
+        has("sync-token", document -> {
+            ResponseIterator iterator = iterator(document);
+            iterator.hasNext();
+            return iterator.multiStatus().getSyncToken();
+        }, equalTo("http://example.com/sync/1")));
+
+    Verifiable not_a_multistatus = assertThat(NO_MULTISTATUS,
+        has("error", document -> {
+            try
+            {
+                iterator(document).hasNext();
+                return "none";
+            }
+            catch (IllegalStateException e)
+            {
+                return "IllegalStateException";
+            }
+        }, equalTo("IllegalStateException")));
+
+
+    private static ResponseIterator iterator(byte[] document)
+    {
+        return new ResponseIterator(pullParser(document), new DavParserContext());
+    }
+
+
+    private static List<Response> all(ResponseIterator iterator)
+    {
+        List<Response> result = new ArrayList<Response>();
+        while (iterator.hasNext())
+        {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns comparable snapshots of the given responses, see {@link Response#writeTo(java.io.DataOutput)}.
+     */
+    private static List<String> snapshots(List<Response> responses)
+    {
+        List<String> result = new ArrayList<String>();
+        for (Response response : responses)
+        {
+            try
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(bytes))
+                {
+                    response.writeTo(out);
+                }
+                result.add(Arrays.toString(bytes.toByteArray()));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.utils.ElementDescriptorMap;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.builder.StringObjectBuilder;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class ResponseTest
+{
+    /**
+     * Properties without an ordinal, they get one when they are first added to a response, see {@link org.dmfs.dav.utils.PropertyOrdinals}.
+     */
+    private final static ElementDescriptor<String> LATE = ElementDescriptor.register(QualifiedName.get("urn:test:response", "late"),
+        StringObjectBuilder.INSTANCE);
+
+    private final static ElementDescriptor<String> LATER = ElementDescriptor.register(QualifiedName.get("urn:test:response", "later"),
+        StringObjectBuilder.INSTANCE);
+
+    private final static ElementDescriptor<String> NEVER_ADDED = ElementDescriptor.register(QualifiedName.get("urn:test:response", "never-added"),
+        StringObjectBuilder.INSTANCE);
+
+    Verifiable href = assertThat(new Response().setHRef(URI.create("/a")).addHRef(URI.create("/b")).setHRef(URI.create("/c")),
+        has("hrefs", Response::getHRefs, equalTo(Arrays.asList(URI.create("/c")))));
+
+    Verifiable hrefs = assertThat(new Response().setHRef(URI.create("/a")).addHRef(URI.create("/b")),
+        has("hrefs", Response::getHRefs, equalTo(Arrays.asList(URI.create("/a"), URI.create("/b")))));
+
+    Verifiable status = assertThat(new Response().setHRef(URI.create("/a")).setStatus(404),
+        has("status", Response::getStatus, equalTo(404)));
+
+    Verifiable property_value = assertThat(new Response().addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\"")),
+        has("etag", response -> response.getPropertyValue(WebDav.Properties.GETETAG), equalTo("\"1\"")));
+
+    Verifiable property_status = assertThat(new Response().addPropStat(propStat(403, WebDav.Properties.GETETAG, null)),
+        has("etag status", response -> response.getPropertyStatus(WebDav.Properties.GETETAG), equalTo(403)));
+
+    Verifiable replaced_propstat = assertThat(new Response()
+            .addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\""))
+            .addPropStat(propStat(200, WebDav.Properties.DISPLAYNAME, "name")),
+        has("has etag", response -> response.getProperties().contains(WebDav.Properties.GETETAG), equalTo(false)));
+
+    Verifiable replaced_propstat_properties = assertThat(new Response()
+            .addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\""))
+            .addPropStat(propStat(200, WebDav.Properties.DISPLAYNAME, "name")),
+        has("property count", response -> response.getProperties().size(), equalTo(1)));
+
+    Verifiable readded_propstat = assertThat(readded(),
+        has("etag status", response -> response.getPropertyStatus(WebDav.Properties.GETETAG), equalTo(404)));
+
+    Verifiable readded_propstat_serialized_once = assertThat(readded(),
+        has("snapshot", ResponseTest::snapshot, equalTo(snapshot(new Response()
+            .setHRef(URI.create("/a"))
+            .addPropStat(propStat(404, WebDav.Properties.GETETAG, null))))));
+
+    Verifiable recycled = assertThat(recycled(),
+        has("properties", response -> response.getProperties().size(), equalTo(0)));
+
+    Verifiable recycled_and_reused = assertThat(recycledAndReused(),
+        has("snapshot", ResponseTest::snapshot, equalTo(snapshot(new Response()
+            .setHRef(URI.create("/b"))
+            .addPropStat(propStat(404, WebDav.Properties.DISPLAYNAME, null))))));
+
+    Verifiable late_property_value = assertThat(new Response().addPropStat(propStat(200, LATE, "late value")),
+        has("late", response -> response.getPropertyValue(LATE), equalTo("late value")));
+
+    Verifiable late_property_status = assertThat(new Response().addPropStat(propStat(403, LATE, null)),
+        has("late status", response -> response.getPropertyStatus(LATE), equalTo(403)));
+
+    // the property arrays of the response grow when a property gets its ordinal after they have been created
+    Verifiable grown_property_value = assertThat(new Response()
+            .addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\""))
+            .addPropStat(propStat(404, LATER, null)),
+        has("etag", response -> response.getPropertyValue(WebDav.Properties.GETETAG), equalTo("\"1\"")));
+
+    Verifiable grown_property_status = assertThat(new Response()
+            .addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\""))
+            .addPropStat(propStat(404, LATER, null)),
+        has("later status", response -> response.getPropertyStatus(LATER), equalTo(404)));
+
+    Verifiable unknown_property_value = assertThat(new Response().addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\"")),
+        has("never added", response -> response.getPropertyValue(NEVER_ADDED) == null, equalTo(true)));
+
+    Verifiable unknown_property_status = assertThat(new Response().addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\"")),
+        has("never added status", response -> response.getPropertyStatus(NEVER_ADDED), equalTo(Response.STATUS_NONE)));
+
+    Verifiable missing_property_status = assertThat(new Response().addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\"")),
+        has("displayname status", response -> response.getPropertyStatus(WebDav.Properties.DISPLAYNAME), equalTo(Response.STATUS_NONE)));
+
+
+    /**
+     * A response with a PropStat that has been added again after its status has been changed.
+     */
+    private static Response readded()
+    {
+        PropStat propStat = propStat(200, WebDav.Properties.GETETAG, null);
+        Response response = new Response().setHRef(URI.create("/a")).addPropStat(propStat);
+        propStat.setStatusCode(404);
+        return response.addPropStat(propStat);
+    }
+
+
+    private static Response recycled()
+    {
+        Response response = new Response().setHRef(URI.create("/a")).addPropStat(propStat(200, WebDav.Properties.GETETAG, "\"1\""));
+        response.recycle();
+        return response;
+    }
+
+
+    /**
+     * A response that has been recycled and filled again with the same {@link PropStat} instance, using another status.
+     */
+    private static Response recycledAndReused()
+    {
+        PropStat propStat = propStat(200, WebDav.Properties.GETETAG, "\"1\"");
+        Response response = new Response().setHRef(URI.create("/a")).addPropStat(propStat);
+        response.recycle();
+        propStat.recycle();
+        ElementDescriptorMap<Object> properties = new ElementDescriptorMap<Object>();
+        properties.put(WebDav.Properties.DISPLAYNAME, null);
+        return response.setHRef(URI.create("/b")).addPropStat(propStat.setStatusCode(404).setProperties(properties));
+    }
+
+
+    private static PropStat propStat(int status, ElementDescriptor<?> property, Object value)
+    {
+        ElementDescriptorMap<Object> properties = new ElementDescriptorMap<Object>();
+        properties.put(property, value);
+        return new PropStat().setStatusCode(status).setProperties(properties);
+    }
+
+
+    private static String snapshot(Response response)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes))
+            {
+                response.writeTo(out);
+            }
+            return Arrays.toString(bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package org.dmfs.dav.rfc4918;
+
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4791.CalendarData;
+import org.dmfs.xmlobjects.pull.XmlObjectPullParserException;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.saynotobugs.confidence.quality.object.Throwing;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.dmfs.dav.rfc4918.Documents.sequential;
+import static org.dmfs.dav.rfc4918.Documents.snapshot;
+import static org.dmfs.dav.rfc4918.Documents.utf8;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+import static org.saynotobugs.confidence.quality.Core.throwing;
+
+
+@Confidence
+class Utf8MultiStatusParserTest
+{
+    private final static String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    private final static String OPEN = "<D:multistatus xmlns:D=\"DAV:\">";
+
+    private final static String CLOSE = "</D:multistatus>";
+
+    private final static String CALENDAR = "BEGIN:VCALENDAR\n"
+        + "VERSION:2.0\n"
+        + "BEGIN:VEVENT\n"
+        + "UID:1\n"
+        + "DTSTART:20260105T100000Z\n"
+        + "SUMMARY:\u00c4rger\n"
+        + "END:VEVENT\n"
+        + "END:VCALENDAR\n";
+
+    private final static byte[] CALENDAR_DATA = utf8(HEADER
+        + "<D:multistatus xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:caldav\">"
+        + "<D:response><D:href>/cal/1.ics</D:href><D:propstat><D:prop><D:getetag>\"1\"</D:getetag>"
+        + "<C:calendar-data content-type=\"text/calendar\">" + CALENDAR + "</C:calendar-data><D:displayname>1</D:displayname>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/cal/2.ics</D:href><D:propstat><D:prop>"
+        + "<C:calendar-data>" + CALENDAR.replace("\u00c4", "&#xC4;") + "</C:calendar-data>"
+        + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "</D:multistatus>");
+
+    private final static byte[] CDATA = utf8(HEADER + OPEN
+        + "<D:response><D:href><![CDATA[/a&b]]></D:href>"
+        + "<D:propstat><D:prop><D:displayname><![CDATA[<name>]]></D:displayname></D:prop>"
+        + "<D:status><![CDATA[HTTP/1.1 200 OK]]></D:status></D:propstat></D:response>"
+        + "<D:responsedescription>x<![CDATA[</D:responsedescription>]]>y</D:responsedescription>"
+        + CLOSE);
+
+    private final static byte[] ENTITIES = utf8(HEADER + OPEN
+        + "<D:response><D:href>/a&amp;b%20&#x63;&#100;</D:href>"
+        + "<D:propstat><D:prop><D:displayname>&lt;&quot;&apos;&gt;</D:displayname></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:responsedescription>&lt;done&gt; &#13;&#xE4;</D:responsedescription>"
+        + CLOSE);
+
+    private final static byte[] CRLF = utf8(HEADER.replace("\n", "\r\n") + OPEN + "\r\n"
+        + "<D:response>\r\n<D:href>\r\n/a\r\n</D:href>\r\n"
+        + "<D:propstat>\r\n<D:prop>\r\n<D:displayname>a\r\nb\rc</D:displayname>\r\n</D:prop>\r\n"
+        + "<D:status>HTTP/1.1 200 OK\r\n</D:status>\r\n</D:propstat>\r\n</D:response>\r\n"
+        + "<D:responsedescription>a\r\nb\rc\nd</D:responsedescription>\r\n"
+        + CLOSE + "\r\n");
+
+    private final static byte[] NAMESPACES = utf8(HEADER
+        + "<multistatus xmlns=\"DAV:\" xmlns:X=\"urn:example\">"
+        + "<response><href>/a</href><X:unknown><href>/x</href></X:unknown>"
+        + "<propstat><prop><getetag>\"1\"</getetag><X:other/></prop><status>HTTP/1.1 200 OK</status></propstat></response>"
+        + "<D:response xmlns:D=\"urn:not-dav\" xmlns:W=\"DAV:\"><W:href>/b</W:href>"
+        + "<W:propstat><W:prop xmlns=\"urn:example\"><W:displayname>b</W:displayname></W:prop>"
+        + "<W:status>HTTP/1.1 200 OK</W:status></W:propstat></D:response>"
+        + "<W:response xmlns:W=\"DAV:\"><W:href>/c</W:href><W:status>HTTP/1.1 404 Not Found</W:status></W:response>"
+        + "</multistatus>");
+
+    Verifiable cdata = assertThat(CDATA,
+        has("snapshot", document -> snapshot(parse(document)), equalTo(snapshot(sequential(CDATA)))));
+
+    Verifiable cdata_href = assertThat(CDATA,
+        has("href", document -> parse(document).getResponses().get(0).getHRef(), equalTo(URI.create("/a&b"))));
+
+    Verifiable cdata_description = assertThat(CDATA,
+        has("description", document -> parse(document).getResponseDescription(), equalTo(sequential(CDATA).getResponseDescription())));
+
+    Verifiable entities = assertThat(ENTITIES,
+        has("snapshot", document -> snapshot(parse(document)), equalTo(snapshot(sequential(ENTITIES)))));
+
+    Verifiable entities_href = assertThat(ENTITIES,
+        has("href", document -> parse(document).getResponses().get(0).getHRef(), equalTo(URI.create("/a&b%20cd"))));
+
+    Verifiable entities_description = assertThat(ENTITIES,
+        has("description", document -> parse(document).getResponseDescription(), equalTo(sequential(ENTITIES).getResponseDescription())));
+
+    Verifiable crlf = assertThat(CRLF,
+        has("snapshot", document -> snapshot(parse(document)), equalTo(snapshot(sequential(CRLF)))));
+
+    Verifiable crlf_description = assertThat(CRLF,
+        has("description", document -> parse(document).getResponseDescription(), equalTo("a\nb\nc\nd")));
+
+    Verifiable crlf_href = assertThat(CRLF,
+        has("href", document -> parse(document).getResponses().get(0).getHRef(), equalTo(URI.create("/a"))));
+
+    Verifiable namespaces = assertThat(NAMESPACES,
+        has("snapshot", document -> snapshot(parse(document)), equalTo(snapshot(sequential(NAMESPACES)))));
+
+    Verifiable namespaces_responses = assertThat(NAMESPACES,
+        has("responses", document -> parse(document).getResponses().size(), equalTo(2)));
+
+    Verifiable namespaces_status = assertThat(NAMESPACES,
+        has("status", document -> parse(document).getResponses().get(1).getStatus(), equalTo(404)));
+
+    Verifiable truncated = assertThat(
+        (Throwing.Breakable) () -> parse(utf8(HEADER + OPEN + "<D:response><D:href>/a</D:href>")),
+        throwing(XmlObjectPullParserException.class));
+
+    Verifiable wrong_root = assertThat(
+        (Throwing.Breakable) () -> parse(utf8(HEADER + "<D:prop xmlns:D=\"DAV:\"/>")),
+        throwing(XmlObjectPullParserException.class));
+
+    Verifiable unknown_entity = assertThat(
+        (Throwing.Breakable) () -> parse(utf8(HEADER + OPEN + "<D:response><D:href>/&unknown;</D:href></D:response>" + CLOSE)),
+        throwing(XmlObjectPullParserException.class));
+
+    Verifiable invalid_character_reference = assertThat(
+        (Throwing.Breakable) () -> parse(utf8(HEADER + OPEN + "<D:response><D:href>/&#xZZ;</D:href></D:response>" + CLOSE)),
+        throwing(XmlObjectPullParserException.class));
+
+    Verifiable mismatched_property = assertThat(
+        (Throwing.Breakable) () -> parse(utf8(HEADER + OPEN
+            + "<D:response><D:href>/a</D:href><D:propstat><D:prop><D:getetag></D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+            + CLOSE)),
+        throwing(XmlPullParserException.class));
+
+    Verifiable file = assertThat(file(CALENDAR_DATA),
+        has("snapshot", path -> snapshot(new Utf8MultiStatusParser().parse(path)), equalTo(snapshot(sequential(CALENDAR_DATA)))));
+
+    Verifiable channel_position = assertThat(file(concat(utf8("garbage"), CALENDAR_DATA)),
+        has("snapshot", path -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+            {
+                channel.position(7);
+                return snapshot(new Utf8MultiStatusParser().parse(channel));
+            }
+        }, equalTo(snapshot(sequential(CALENDAR_DATA)))));
+
+    Verifiable no_slices = assertThat(file(CALENDAR_DATA),
+        has("buffer", path -> calendarData(new Utf8MultiStatusParser().parse(path), 0).calendarDataBuffer() == null, equalTo(true)));
+
+    Verifiable slices = assertThat(file(CALENDAR_DATA),
+        has("buffer", path -> StandardCharsets.UTF_8.decode(calendarData(slices(path), 0).calendarDataBuffer()).toString(), equalTo(CALENDAR)));
+
+    Verifiable slices_calendar_data = assertThat(file(CALENDAR_DATA),
+        has("calendar data", path -> calendarData(slices(path), 0).calendarData(), equalTo(CALENDAR)));
+
+    Verifiable slices_media_type = assertThat(file(CALENDAR_DATA),
+        has("media type", path -> calendarData(slices(path), 0).mediaType().mainType(), equalTo("text")));
+
+    Verifiable slices_other_properties = assertThat(file(CALENDAR_DATA),
+        has("etag", path -> slices(path).getResponses().get(0).getPropertyValue(WebDav.Properties.GETETAG), equalTo("\"1\"")));
+
+    Verifiable slices_other_properties_after_slice = assertThat(file(CALENDAR_DATA),
+        has("display name", path -> slices(path).getResponses().get(0).getPropertyValue(WebDav.Properties.DISPLAYNAME), equalTo("1")));
+
+    Verifiable slices_with_entities = assertThat(file(CALENDAR_DATA),
+        has("buffer", path -> calendarData(slices(path), 1).calendarDataBuffer() == null, equalTo(true)));
+
+    Verifiable slices_with_entities_calendar_data = assertThat(file(CALENDAR_DATA),
+        has("calendar data", path -> calendarData(slices(path), 1).calendarData(), equalTo(CALENDAR)));
+
+    Verifiable huge_file = assertThat(file(CALENDAR_DATA),
+        has("snapshot", path -> {
+            try (FileChannel channel = new HugeFileChannel(FileChannel.open(path, StandardOpenOption.READ)))
+            {
+                return snapshot(new Utf8MultiStatusParser().parse(channel));
+            }
+        }, equalTo(snapshot(sequential(CALENDAR_DATA)))));
+
+
+    private static MultiStatus parse(byte[] document) throws Exception
+    {
+        return new Utf8MultiStatusParser().parse(document);
+    }
+
+
+    private static MultiStatus slices(Path file) throws Exception
+    {
+        return new Utf8MultiStatusParser().setCalendarDataSlices(true).parse(file);
+    }
+
+
+    private static CalendarData calendarData(MultiStatus multiStatus, int response)
+    {
+        return multiStatus.getResponses().get(response).getPropertyValue(CalDav.PROPERTY_CALENDAR_DATA);
+    }
+
+
+    private static byte[] concat(byte[] first, byte[] second)
+    {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+
+    private static Path file(byte[] content)
+    {
+        try
+        {
+            Path file = Files.createTempFile("multistatus", ".xml");
+            file.toFile().deleteOnExit();
+            return Files.write(file, content);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * A {@link FileChannel} that claims to be larger than 2 GB and can't be mapped, everything else is delegated to a real {@link FileChannel}.
+     */
+    private final static class HugeFileChannel extends FileChannel
+    {
+        private final FileChannel mDelegate;
+
+
+        private HugeFileChannel(FileChannel delegate)
+        {
+            mDelegate = delegate;
+        }
+
+
+        @Override
+        public long size()
+        {
+            return Integer.MAX_VALUE + 1L;
+        }
+
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size)
+        {
+            throw new UnsupportedOperationException("Files larger than 2 GB can't be mapped");
+        }
+
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException
+        {
+            return mDelegate.read(dst);
+        }
+
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException
+        {
+            return mDelegate.read(dsts, offset, length);
+        }
+
+
+        @Override
+        public int write(ByteBuffer src)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public long position() throws IOException
+        {
+            return mDelegate.position();
+        }
+
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException
+        {
+            mDelegate.position(newPosition);
+            return this;
+        }
+
+
+        @Override
+        public FileChannel truncate(long size)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public void force(boolean metaData)
+        {
+        }
+
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException
+        {
+            return mDelegate.transferTo(position, count, target);
+        }
+
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException
+        {
+            return mDelegate.read(dst, position);
+        }
+
+
+        @Override
+        public int write(ByteBuffer src, long position)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+        @Override
+        protected void implCloseChannel() throws IOException
+        {
+            mDelegate.close();
+        }
+    }
+}
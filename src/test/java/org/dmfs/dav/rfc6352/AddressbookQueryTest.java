@@ -0,0 +1,126 @@
+package org.dmfs.dav.rfc6352;
+
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.rfc6352.filter.FilterTestType;
+import org.dmfs.dav.rfc6352.filter.ParamFilter;
+import org.dmfs.dav.rfc6352.filter.PropFilter;
+import org.dmfs.dav.rfc6352.filter.TextMatch;
+import org.dmfs.xmlobjects.pull.ParserContext;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.dmfs.xmlobjects.serializer.SerializerContext;
+import org.dmfs.xmlobjects.serializer.XmlObjectSerializer;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class AddressbookQueryTest
+{
+    private final static PropFilter FN = new PropFilter("FN", new TextMatch("müller", false, null, TextMatch.MatchType.contains));
+
+    private final static PropFilter EMAIL = new PropFilter("EMAIL", FilterTestType.allof, new TextMatch("@example.com", true, null, TextMatch.MatchType.ends_with),
+        new ParamFilter("TYPE", new TextMatch("work", false, TextMatch.COLLATION_I_UNICODE_CASEMAP, TextMatch.MatchType.equals)));
+
+    private final static PropFilter NO_NICKNAME = new PropFilter("NICKNAME", true);
+
+    // RFC 6352, section 8.6.4, without a match-type
+    private final static String DOCUMENT = "<?xml version=\"1.0\" encoding=\"utf-8\" ?>\n"
+        + "<C:addressbook-query xmlns:D=\"DAV:\" xmlns:C=\"urn:ietf:params:xml:ns:carddav\">\n"
+        + "  <D:prop><D:getetag/></D:prop>\n"
+        + "  <C:filter test=\"allof\">\n"
+        + "    <C:prop-filter name=\"FN\"><C:text-match collation=\"i;unicode-casemap\">daboo</C:text-match></C:prop-filter>\n"
+        + "    <C:prop-filter name=\"EMAIL\"><C:param-filter name=\"TYPE\"><C:is-not-defined/></C:param-filter></C:prop-filter>\n"
+        + "  </C:filter>\n"
+        + "</C:addressbook-query>";
+
+    Verifiable allof_written = assertThat(query(FilterTestType.allof, FN),
+        has("test attribute", query -> serialize(query).matches("(?s).*:filter[^>]* test=\"allof\".*"), equalTo(true)));
+
+    Verifiable anyof_not_written = assertThat(query(FilterTestType.anyof, FN),
+        has("test attribute", query -> serialize(query).contains("test="), equalTo(false)));
+
+    Verifiable test_round_trip = assertThat(query(FilterTestType.allof, FN, EMAIL),
+        has("test", query -> parse(serialize(query)).getFilterTest(), equalTo(FilterTestType.allof)));
+
+    Verifiable default_round_trip = assertThat(query(FilterTestType.anyof, FN, EMAIL),
+        has("test", query -> parse(serialize(query)).getFilterTest(), equalTo(FilterTestType.anyof)));
+
+    Verifiable filters_round_trip = assertThat(query(FilterTestType.allof, FN, EMAIL, NO_NICKNAME),
+        has("filters", query -> parse(serialize(query)).getFilters(), equalTo(Arrays.asList(FN, EMAIL, NO_NICKNAME))));
+
+    Verifiable limit_round_trip = assertThat(query(FilterTestType.anyof, FN).limitNumberOfResults(10),
+        has("limit", query -> parse(serialize(query)).getNumberOfResultsLimit(), equalTo(10)));
+
+    Verifiable parsed_test = assertThat(DOCUMENT,
+        has("test", document -> parse(document).getFilterTest(), equalTo(FilterTestType.allof)));
+
+    Verifiable parsed_filters = assertThat(DOCUMENT,
+        has("filters", document -> parse(document).getFilters(), equalTo(Arrays.asList(
+            new PropFilter("FN", new TextMatch("daboo", false, TextMatch.COLLATION_I_UNICODE_CASEMAP, TextMatch.MatchType.contains)),
+            new PropFilter("EMAIL", new ParamFilter("TYPE", true))))));
+
+    Verifiable parsed_properties = assertThat(DOCUMENT,
+        has("properties", document -> parse(document).getProperties().contains(WebDav.Properties.GETETAG), equalTo(true)));
+
+    Verifiable recycled = assertThat(query(FilterTestType.allof, FN),
+        has("test", query -> {
+            query.recycle();
+            return query.getFilterTest() + " " + query.getFilters().size();
+        }, equalTo("anyof 0")));
+
+
+    private static AddressbookQuery query(FilterTestType test, PropFilter... filters)
+    {
+        AddressbookQuery query = new AddressbookQuery().setFilterTest(test);
+        query.addProperty(WebDav.Properties.GETETAG);
+        for (PropFilter filter : filters)
+        {
+            query.addFilter(filter);
+        }
+        return query;
+    }
+
+
+    private static String serialize(AddressbookQuery query)
+    {
+        try
+        {
+            StringWriter writer = new StringWriter(1024);
+            SerializerContext context = new SerializerContext();
+            new XmlObjectSerializer().setOutput(context, writer).serialize(context, CardDav.ADDRESSBOOK_QUERY, query);
+            return writer.toString();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    private static AddressbookQuery parse(String document)
+    {
+        try
+        {
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XmlPullParser parser = factory.newPullParser();
+            parser.setInput(new StringReader(document));
+            return new XmlObjectPull(parser, new ParserContext()).pull(CardDav.ADDRESSBOOK_QUERY, null, new XmlPath());
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
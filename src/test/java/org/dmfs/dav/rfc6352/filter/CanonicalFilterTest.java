@@ -0,0 +1,61 @@
+package org.dmfs.dav.rfc6352.filter;
+
+import org.dmfs.dav.rfc6352.AddressbookQuery;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CanonicalFilterTest
+{
+    private final static List<PropFilter> FILTERS = Arrays.asList(new PropFilter("FN", new TextMatch("müller", false, null, TextMatch.MatchType.contains)));
+
+    // the default collation ignores the case
+    private final static List<PropFilter> DIFFERENT_CASE = Arrays.asList(
+        new PropFilter("fn", new TextMatch("MÜLLER", false, TextMatch.COLLATION_I_UNICODE_CASEMAP, TextMatch.MatchType.contains)));
+
+    private final static List<PropFilter> OCTET = Arrays.asList(
+        new PropFilter("FN", new TextMatch("müller", false, CompiledFilter.COLLATION_I_OCTET, TextMatch.MatchType.contains)));
+
+    private final static List<PropFilter> OCTET_DIFFERENT_CASE = Arrays.asList(
+        new PropFilter("FN", new TextMatch("MÜLLER", false, CompiledFilter.COLLATION_I_OCTET, TextMatch.MatchType.contains)));
+
+    Verifiable different_case_fingerprint = assertThat(FILTERS,
+        has("fingerprint", filters -> CanonicalFilter.fingerprint(filters, FilterTestType.anyof),
+            equalTo(CanonicalFilter.fingerprint(DIFFERENT_CASE, FilterTestType.anyof))));
+
+    Verifiable different_fingerprint = assertThat(OCTET,
+        has("fingerprint differs",
+            filters -> CanonicalFilter.fingerprint(filters, FilterTestType.anyof) == CanonicalFilter.fingerprint(OCTET_DIFFERENT_CASE, FilterTestType.anyof),
+            equalTo(false)));
+
+    Verifiable unlimited_query = assertThat(query(FILTERS, -1),
+        has("fingerprint", CanonicalFilter::fingerprint, equalTo(CanonicalFilter.fingerprint(FILTERS, FilterTestType.anyof))));
+
+    Verifiable limited_query = assertThat(query(FILTERS, 10),
+        has("fingerprint differs", query -> CanonicalFilter.fingerprint(query) == CanonicalFilter.fingerprint(query(FILTERS, -1)), equalTo(false)));
+
+    Verifiable different_limit = assertThat(query(FILTERS, 10),
+        has("fingerprint differs", query -> CanonicalFilter.fingerprint(query) == CanonicalFilter.fingerprint(query(FILTERS, 20)), equalTo(false)));
+
+    Verifiable same_limit = assertThat(query(FILTERS, 10),
+        has("fingerprint", CanonicalFilter::fingerprint, equalTo(CanonicalFilter.fingerprint(query(DIFFERENT_CASE, 10)))));
+
+
+    private static AddressbookQuery query(List<PropFilter> filters, int limit)
+    {
+        AddressbookQuery query = new AddressbookQuery().limitNumberOfResults(limit);
+        for (PropFilter filter : filters)
+        {
+            query.addFilter(filter);
+        }
+        return query;
+    }
+}
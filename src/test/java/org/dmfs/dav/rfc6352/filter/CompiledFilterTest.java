@@ -0,0 +1,57 @@
+package org.dmfs.dav.rfc6352.filter;
+
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.util.Arrays;
+
+import static org.dmfs.dav.utils.ContentComponents.parse;
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class CompiledFilterTest
+{
+    private final static String VCARD = "BEGIN:VCARD\r\n"
+        + "VERSION:4.0\r\n"
+        + "FN:Jürgen Müller\r\n"
+        + "item1.EMAIL;TYPE=work:juergen@example.com\r\n"
+        + "END:VCARD\r\n";
+
+    Verifiable contains = assertThat(
+        CompiledFilter.compile(Arrays.asList(new PropFilter("FN", new TextMatch("MÜLLER", false, null, TextMatch.MatchType.contains))), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(true)));
+
+    Verifiable equals = assertThat(
+        CompiledFilter.compile(Arrays.asList(new PropFilter("FN", new TextMatch("Jürgen"))), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(false)));
+
+    Verifiable starts_with_octet = assertThat(CompiledFilter.compile(
+            Arrays.asList(new PropFilter("FN", new TextMatch("jürgen", false, CompiledFilter.COLLATION_I_OCTET, TextMatch.MatchType.starts_with))),
+            FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(false)));
+
+    Verifiable ends_with = assertThat(CompiledFilter.compile(
+            Arrays.asList(new PropFilter("EMAIL", new TextMatch("@EXAMPLE.COM", false, null, TextMatch.MatchType.ends_with))), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(true)));
+
+    Verifiable any_of = assertThat(
+        CompiledFilter.compile(Arrays.asList(new PropFilter("TEL"), new PropFilter("EMAIL")), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(true)));
+
+    Verifiable all_of = assertThat(
+        CompiledFilter.compile(Arrays.asList(new PropFilter("TEL"), new PropFilter("EMAIL")), FilterTestType.allof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(false)));
+
+    Verifiable prop_all_of = assertThat(CompiledFilter.compile(Arrays.asList(
+            new PropFilter("EMAIL", FilterTestType.allof, new TextMatch("juergen", false, null, TextMatch.MatchType.contains),
+                new ParamFilter("TYPE", new TextMatch("home")))), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(false)));
+
+    Verifiable prop_any_of = assertThat(CompiledFilter.compile(Arrays.asList(
+            new PropFilter("EMAIL", FilterTestType.anyof, new TextMatch("juergen", false, null, TextMatch.MatchType.contains),
+                new ParamFilter("TYPE", new TextMatch("home")))), FilterTestType.anyof),
+        has("matches", filter -> filter.matches(parse(VCARD)), equalTo(true)));
+}
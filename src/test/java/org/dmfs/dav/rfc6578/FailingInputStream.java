@@ -0,0 +1,47 @@
+package org.dmfs.dav.rfc6578;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * An {@link InputStream} that returns the first bytes of a document in a single read and fails on the next read.
+ */
+final class FailingInputStream extends InputStream
+{
+    private final byte[] mDocument;
+    private final int mFailAt;
+    private int mPos;
+
+
+    FailingInputStream(byte[] document, int failAt)
+    {
+        mDocument = document;
+        mFailAt = failAt;
+    }
+
+
+    @Override
+    public int read() throws IOException
+    {
+        if (mPos >= mFailAt)
+        {
+            throw new IOException("Connection reset");
+        }
+        return mDocument[mPos++] & 0xff;
+    }
+
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        if (mPos >= mFailAt)
+        {
+            throw new IOException("Connection reset");
+        }
+        int count = Math.min(length, mFailAt - mPos);
+        System.arraycopy(mDocument, mPos, buffer, offset, count);
+        mPos += count;
+        return count;
+    }
+}
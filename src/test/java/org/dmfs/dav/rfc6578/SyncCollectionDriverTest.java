@@ -0,0 +1,281 @@
+package org.dmfs.dav.rfc6578;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.Response;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class SyncCollectionDriverTest
+{
+    private final static String TRUNCATED = "<D:response><D:href>/c/</D:href><D:status>HTTP/1.1 507 Insufficient Storage</D:status></D:response>";
+
+    Verifiable single_round = assertThat(new FakeServer(page("token-1", changed("/c/1.ics"), removed("/c/2.ics"))),
+        has("sync-token", server -> sync(server, null, new RecordingListener()), equalTo("token-1")));
+
+    Verifiable changes = assertThat(new FakeServer(page("token-1", changed("/c/1.ics"), removed("/c/2.ics"), changed("/c/3.ics"))),
+        has("changes", server -> {
+            RecordingListener listener = new RecordingListener();
+            sync(server, null, listener);
+            return listener.mChanges;
+        }, equalTo(Arrays.asList("changed /c/1.ics", "removed /c/2.ics", "changed /c/3.ics"))));
+
+    Verifiable initial_token = assertThat(new FakeServer(page("token-1")),
+        has("requested sync-tokens", server -> {
+            sync(server, null, new RecordingListener());
+            return server.mTokens;
+        }, equalTo(Arrays.asList(""))));
+
+    Verifiable given_token = assertThat(new FakeServer(page("token-2")),
+        has("requested sync-tokens", server -> {
+            sync(server, "token-1", new RecordingListener());
+            return server.mTokens;
+        }, equalTo(Arrays.asList("token-1"))));
+
+    Verifiable paging = assertThat(new FakeServer(
+            page("token-1", changed("/c/1.ics"), TRUNCATED),
+            page("token-2", changed("/c/2.ics"), TRUNCATED),
+            page("token-3", removed("/c/3.ics"))),
+        has("sync-token", server -> sync(server, null, new RecordingListener()), equalTo("token-3")));
+
+    Verifiable paging_tokens = assertThat(new FakeServer(
+            page("token-1", changed("/c/1.ics"), TRUNCATED),
+            page("token-2", changed("/c/2.ics"), TRUNCATED),
+            page("token-3", removed("/c/3.ics"))),
+        has("requested sync-tokens", server -> {
+            sync(server, null, new RecordingListener());
+            return server.mTokens;
+        }, equalTo(Arrays.asList("", "token-1", "token-2"))));
+
+    // the truncation marker is not a change
+    Verifiable paging_changes = assertThat(new FakeServer(
+            page("token-1", changed("/c/1.ics"), TRUNCATED),
+            page("token-2", removed("/c/2.ics"))),
+        has("changes", server -> {
+            RecordingListener listener = new RecordingListener();
+            sync(server, null, listener);
+            return listener.mChanges;
+        }, equalTo(Arrays.asList("changed /c/1.ics", "removed /c/2.ics"))));
+
+    Verifiable marker_first = assertThat(new FakeServer(
+            page("token-1", TRUNCATED, changed("/c/1.ics")),
+            page("token-2")),
+        has("changes", server -> {
+            RecordingListener listener = new RecordingListener();
+            sync(server, null, listener);
+            return listener.mChanges;
+        }, equalTo(Arrays.asList("changed /c/1.ics"))));
+
+    Verifiable unchanged_token = assertThat(new FakeServer(
+            page("token-1", changed("/c/1.ics"), TRUNCATED),
+            page("token-1", changed("/c/2.ics"), TRUNCATED)),
+        has("error", server -> error(server, null), equalTo("ProtocolException")));
+
+    Verifiable unchanged_token_of_request = assertThat(new FakeServer(page("token-1", TRUNCATED)),
+        has("error", server -> error(server, "token-1"), equalTo("ProtocolException")));
+
+    Verifiable missing_token = assertThat(new FakeServer(page(null, changed("/c/1.ics"))),
+        has("error", server -> error(server, null), equalTo("ProtocolException")));
+
+    Verifiable missing_token_after_truncation = assertThat(new FakeServer(
+            page("token-1", TRUNCATED),
+            page(null, changed("/c/1.ics"))),
+        has("error", server -> error(server, null), equalTo("ProtocolException")));
+
+    Verifiable max_rounds = assertThat(new FakeServer(
+            page("token-1", TRUNCATED),
+            page("token-2", TRUNCATED),
+            page("token-3", TRUNCATED)),
+        has("error", server -> error(new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).setMaxRounds(2), null),
+            equalTo("ProtocolException")));
+
+    Verifiable max_rounds_requests = assertThat(new FakeServer(
+            page("token-1", TRUNCATED),
+            page("token-2", TRUNCATED),
+            page("token-3", TRUNCATED)),
+        has("requests", server -> {
+            error(new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).setMaxRounds(2), null);
+            return server.mTokens.size();
+        }, equalTo(2)));
+
+    Verifiable max_rounds_complete = assertThat(new FakeServer(
+            page("token-1", TRUNCATED),
+            page("token-2")),
+        has("sync-token", server -> new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).setMaxRounds(2)
+            .sync(null, new RecordingListener()), equalTo("token-2")));
+
+    Verifiable page_size = assertThat(new FakeServer(page("token-1")),
+        has("nresults", server -> {
+            new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).setPageSize(10).sync(null, new RecordingListener());
+            return server.mLimits;
+        }, equalTo(Arrays.asList(10))));
+
+    Verifiable io_error = assertThat(new FakeServer(page("token-1", changed("/c/1.ics"), changed("/c/2.ics"))),
+        has("error", server -> {
+            server.mFailAt = 150;
+            return error(server, null);
+        }, equalTo("IOException")));
+
+    Verifiable parse_error = assertThat(new FakeServer("<D:multistatus xmlns:D=\"DAV:\"><D:response><D:href>/c/1.ics</D:response></D:multistatus>"),
+        has("error", server -> error(server, null), equalTo("IOException")));
+
+    // errors of the listener are passed on as they are
+    Verifiable listener_error = assertThat(new FakeServer(page("token-1", changed("/c/1.ics"))),
+        has("error", server -> {
+            try
+            {
+                new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).sync(null, new RecordingListener()
+                {
+                    @Override
+                    public void onChanged(Response response)
+                    {
+                        throw new IllegalStateException("listener");
+                    }
+                });
+                return "none";
+            }
+            catch (IllegalStateException e)
+            {
+                return e.getMessage();
+            }
+        }, equalTo("listener")));
+
+
+    private static String sync(FakeServer server, String syncToken, SyncCollectionDriver.SyncListener listener) throws IOException
+    {
+        return new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new).sync(syncToken, listener);
+    }
+
+
+    private static String error(FakeServer server, String syncToken)
+    {
+        return error(new SyncCollectionDriver(new SyncCollection(), server, DavParserContext::new), syncToken);
+    }
+
+
+    /**
+     * Returns the simple name of the exception the given driver throws, <code>none</code> if it doesn't throw.
+     */
+    private static String error(SyncCollectionDriver driver, String syncToken)
+    {
+        try
+        {
+            driver.sync(syncToken, new RecordingListener());
+            return "none";
+        }
+        catch (ProtocolException e)
+        {
+            return "ProtocolException";
+        }
+        catch (IOException e)
+        {
+            return "IOException";
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+
+    private static String page(String syncToken, String... responses)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<D:multistatus xmlns:D=\"DAV:\">");
+        for (String response : responses)
+        {
+            builder.append(response);
+        }
+        if (syncToken != null)
+        {
+            builder.append("<D:sync-token>").append(syncToken).append("</D:sync-token>");
+        }
+        builder.append("</D:multistatus>");
+        return builder.toString();
+    }
+
+
+    private static String changed(String href)
+    {
+        return "<D:response><D:href>" + href + "</D:href><D:propstat><D:prop><D:getetag>\"1\"</D:getetag></D:prop>"
+            + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>";
+    }
+
+
+    private static String removed(String href)
+    {
+        return "<D:response><D:href>" + href + "</D:href><D:status>HTTP/1.1 404 Not Found</D:status></D:response>";
+    }
+
+
+    /**
+     * A {@link SyncCollectionDriver.RequestExecutor} that returns the given pages one after the other and records the sync-token and the result limit of
+     * each request.
+     */
+    private final static class FakeServer implements SyncCollectionDriver.RequestExecutor
+    {
+        private final String[] mPages;
+        private final List<String> mTokens = new ArrayList<String>();
+        private final List<Integer> mLimits = new ArrayList<Integer>();
+
+        /**
+         * The number of bytes after which the response fails, or <code>-1</code>.
+         */
+        private int mFailAt = -1;
+
+
+        private FakeServer(String... pages)
+        {
+            mPages = pages;
+        }
+
+
+        @Override
+        public InputStream execute(SyncCollection request) throws IOException
+        {
+            int page = mTokens.size();
+            mTokens.add(request.getSyncToken());
+            mLimits.add(request.getNumberOfResultsLimit());
+            if (page >= mPages.length)
+            {
+                throw new IOException("No more pages");
+            }
+            byte[] document = mPages[page].getBytes(StandardCharsets.UTF_8);
+            return mFailAt < 0 ? new ByteArrayInputStream(document) : new FailingInputStream(document, mFailAt);
+        }
+    }
+
+
+    private static class RecordingListener implements SyncCollectionDriver.SyncListener
+    {
+        private final List<String> mChanges = new ArrayList<String>();
+
+
+        @Override
+        public void onChanged(Response response)
+        {
+            mChanges.add("changed " + response.getHRef());
+        }
+
+
+        @Override
+        public void onRemoved(Response response)
+        {
+            mChanges.add("removed " + response.getHRefs().get(0));
+        }
+    }
+}
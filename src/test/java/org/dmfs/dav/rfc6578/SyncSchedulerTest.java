@@ -0,0 +1,322 @@
+package org.dmfs.dav.rfc6578;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.PropFind;
+import org.dmfs.dav.rfc4918.Response;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class SyncSchedulerTest
+{
+    private final static URI HOME = URI.create("http://example.com/home/");
+
+    private final static URI A = HOME.resolve("a/");
+
+    private final static URI B = HOME.resolve("b/");
+
+    private final static URI C = HOME.resolve("c/");
+
+    private final static URI OTHER_HOME = URI.create("http://example.org/home/");
+
+    Verifiable initial_sync = assertThat(new FakeServer("a:1", "b:1"),
+        has("scheduled", server -> {
+            SyncScheduler scheduler = scheduler(server, 2);
+            return scheduled(scheduler.sync(HOME));
+        }, equalTo(Arrays.asList(A, B))));
+
+    Verifiable unsupported_collection = assertThat(new FakeServer("a:1", "b"),
+        has("scheduled", server -> scheduled(scheduler(server, 2).sync(HOME)), equalTo(Collections.singletonList(A))));
+
+    Verifiable unchanged = assertThat(new FakeServer("a:1", "b:1"),
+        has("scheduled", server -> {
+            SyncScheduler scheduler = scheduler(server, 2);
+            await(scheduler.sync(HOME));
+            return scheduled(scheduler.sync(HOME));
+        }, equalTo(Collections.<URI>emptyList())));
+
+    Verifiable changed = assertThat(new FakeServer("a:1", "b:1"),
+        has("scheduled", server -> {
+            SyncScheduler scheduler = scheduler(server, 2);
+            await(scheduler.sync(HOME));
+            server.mCollections = new String[] { "a:1", "b:2" };
+            return scheduled(scheduler.sync(HOME));
+        }, equalTo(Collections.singletonList(B))));
+
+    Verifiable state = assertThat(new FakeServer("a:1"),
+        has("state", server -> {
+            SyncScheduler scheduler = scheduler(server, 2);
+            await(scheduler.sync(HOME));
+            SyncScheduler.CollectionState state = scheduler.state(A);
+            return state.syncToken + " " + state.ctag;
+        }, equalTo("new-token 1")));
+
+    Verifiable running_skipped = assertThat(new FakeServer("a:1"),
+        has("scheduled while running", server -> {
+            server.mGate = new CountDownLatch(1);
+            SyncScheduler scheduler = scheduler(server, 2);
+            Map<URI, Future<String>> first = scheduler.sync(HOME);
+            List<URI> second = scheduled(scheduler.sync(HOME));
+            server.mGate.countDown();
+            await(first);
+            return second;
+        }, equalTo(Collections.<URI>emptyList())));
+
+    Verifiable rescheduled_after_running = assertThat(new FakeServer("a:1"),
+        has("scheduled after running", server -> {
+            server.mGate = new CountDownLatch(1);
+            SyncScheduler scheduler = scheduler(server, 2);
+            Map<URI, Future<String>> first = scheduler.sync(HOME);
+            server.mCollections = new String[] { "a:2" };
+            scheduler.sync(HOME);
+            server.mGate.countDown();
+            await(first);
+            return scheduled(scheduler.sync(HOME));
+        }, equalTo(Collections.singletonList(A))));
+
+    Verifiable per_host_limit = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("max concurrent syncs", server -> {
+            server.mDelay = 50;
+            await(scheduler(server, 1).sync(HOME));
+            return server.mMaxConcurrent.get();
+        }, equalTo(1)));
+
+    Verifiable queued_complete = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("sync-tokens", server -> {
+            Map<URI, Future<String>> result = scheduler(server, 1).sync(HOME);
+            List<String> tokens = new ArrayList<String>();
+            for (Future<String> future : result.values())
+            {
+                tokens.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return tokens;
+        }, equalTo(Arrays.asList("new-token", "new-token", "new-token"))));
+
+    Verifiable queued_single_thread = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("syncs", server -> {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            await(new SyncScheduler(executor, server, DavParserContext::new, new SyncCollection(), collection -> new NoOpListener(), 1).sync(HOME));
+            executor.shutdown();
+            return server.mSyncs.get();
+        }, equalTo(3)));
+
+    // queued syncs of a busy host don't take the executor threads another host could use
+    Verifiable other_host_not_blocked = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("started syncs", server -> {
+            server.mGate = new CountDownLatch(1);
+            SyncScheduler scheduler = scheduler(server, 1, 2);
+            Map<URI, Future<String>> first = scheduler.sync(HOME);
+            Map<URI, Future<String>> second = scheduler.sync(OTHER_HOME);
+            long timeout = System.currentTimeMillis() + 10000;
+            while (server.mSyncs.get() < 2 && System.currentTimeMillis() < timeout)
+            {
+                Thread.sleep(10);
+            }
+            int started = server.mSyncs.get();
+            server.mGate.countDown();
+            await(first);
+            await(second);
+            return started;
+        }, equalTo(2)));
+
+    Verifiable failed_propfind_cancels = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("syncs after failed propfind", server -> {
+            server.mFailAfter = 2;
+            CountDownLatch gate = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            // block the executor, so the scheduled syncs can't start before the PROPFIND fails
+            executor.submit(() -> gate.await(10, TimeUnit.SECONDS));
+            try
+            {
+                new SyncScheduler(executor, server, DavParserContext::new, new SyncCollection(), collection -> new NoOpListener(), 2).sync(HOME);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+            gate.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            return server.mSyncs.get();
+        }, equalTo(0)));
+
+    Verifiable failed_propfind_not_running = assertThat(new FakeServer("a:1", "b:1", "c:1"),
+        has("scheduled after failed propfind", server -> {
+            server.mFailAfter = 2;
+            CountDownLatch gate = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            executor.submit(() -> gate.await(10, TimeUnit.SECONDS));
+            SyncScheduler scheduler = new SyncScheduler(executor, server, DavParserContext::new, new SyncCollection(), collection -> new NoOpListener(), 2);
+            try
+            {
+                scheduler.sync(HOME);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+            gate.countDown();
+            server.mFailAfter = -1;
+            Map<URI, Future<String>> result = scheduler.sync(HOME);
+            await(result);
+            executor.shutdown();
+            return scheduled(result);
+        }, equalTo(Arrays.asList(A, B, C))));
+
+
+    private static SyncScheduler scheduler(FakeServer server, int maxPerHost)
+    {
+        return scheduler(server, maxPerHost, 4);
+    }
+
+
+    private static SyncScheduler scheduler(FakeServer server, int maxPerHost, int threads)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new SyncScheduler(executor, server, DavParserContext::new, new SyncCollection(), collection -> new NoOpListener(), maxPerHost);
+    }
+
+
+    private static List<URI> scheduled(Map<URI, Future<String>> result)
+    {
+        return new ArrayList<URI>(result.keySet());
+    }
+
+
+    private static void await(Map<URI, Future<String>> result) throws InterruptedException, ExecutionException
+    {
+        for (Future<String> future : result.values())
+        {
+            future.get();
+        }
+    }
+
+
+    /**
+     * A {@link SyncScheduler.RequestExecutor} that serves a home set with the given collections, each given as <code>name:ctag</code> or just
+     * <code>name</code> for a collection without a sync-token.
+     */
+    private final static class FakeServer implements SyncScheduler.RequestExecutor
+    {
+        private volatile String[] mCollections;
+
+        /**
+         * The number of collection responses after which the PROPFIND response fails, or <code>-1</code>.
+         */
+        private volatile int mFailAfter = -1;
+        private volatile CountDownLatch mGate;
+        private volatile long mDelay;
+
+        private final AtomicInteger mSyncs = new AtomicInteger();
+        private final AtomicInteger mConcurrent = new AtomicInteger();
+        private final AtomicInteger mMaxConcurrent = new AtomicInteger();
+
+
+        private FakeServer(String... collections)
+        {
+            mCollections = collections;
+        }
+
+
+        @Override
+        public InputStream propFind(URI uri, PropFind request)
+        {
+            StringBuilder builder = new StringBuilder();
+            builder.append("<D:multistatus xmlns:D=\"DAV:\" xmlns:CS=\"http://calendarserver.org/ns/\">");
+            builder.append(response("/home/", "<CS:getctag>home</CS:getctag><D:sync-token>home</D:sync-token>"));
+            int failAt = -1;
+            String[] collections = mCollections;
+            for (int i = 0; i < collections.length; ++i)
+            {
+                if (i == mFailAfter)
+                {
+                    failAt = builder.length();
+                }
+                String[] parts = collections[i].split(":");
+                builder.append(response("/home/" + parts[0] + "/", parts.length > 1
+                    ? "<CS:getctag>" + parts[1] + "</CS:getctag><D:sync-token>token-" + parts[1] + "</D:sync-token>"
+                    : "<D:displayname>" + parts[0] + "</D:displayname>"));
+            }
+            builder.append("</D:multistatus>");
+            byte[] document = builder.toString().getBytes(StandardCharsets.UTF_8);
+            return failAt < 0 ? new ByteArrayInputStream(document) : new FailingInputStream(document, failAt);
+        }
+
+
+        @Override
+        public InputStream syncCollection(URI uri, SyncCollection request) throws IOException
+        {
+            mSyncs.incrementAndGet();
+            int concurrent = mConcurrent.incrementAndGet();
+            mMaxConcurrent.accumulateAndGet(concurrent, Math::max);
+            try
+            {
+                CountDownLatch gate = mGate;
+                if (gate != null)
+                {
+                    gate.await(10, TimeUnit.SECONDS);
+                }
+                Thread.sleep(mDelay);
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException(e);
+            }
+            finally
+            {
+                mConcurrent.decrementAndGet();
+            }
+            return new ByteArrayInputStream("<D:multistatus xmlns:D=\"DAV:\"><D:sync-token>new-token</D:sync-token></D:multistatus>"
+                .getBytes(StandardCharsets.UTF_8));
+        }
+
+
+        private static String response(String href, String properties)
+        {
+            return "<D:response><D:href>" + href + "</D:href><D:propstat><D:prop>" + properties
+                + "</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>";
+        }
+    }
+
+
+    private final static class NoOpListener implements SyncCollectionDriver.SyncListener
+    {
+        @Override
+        public void onChanged(Response response)
+        {
+        }
+
+
+        @Override
+        public void onRemoved(Response response)
+        {
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.dmfs.dav.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+
+/**
+ * Test helpers for {@link ContentComponent}s.
+ */
+public final class ContentComponents
+{
+    /**
+     * Parses the given iCalendar or vCard text.
+     *
+     * @param text
+     *     The text to parse.
+     *
+     * @return The {@link ContentComponent}.
+     */
+    public static ContentComponent parse(String text)
+    {
+        try
+        {
+            return ContentLineParser.parse(text);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * No instances allowed.
+     */
+    private ContentComponents()
+    {
+    }
+}
@@ -0,0 +1,50 @@
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.rfc4918.WebDav;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class ElementDescriptorMapTest
+{
+
+    Verifiable put_and_get = assertThat(map(),
+        has("getetag", m -> m.get(WebDav.Properties.GETETAG), equalTo("\"etag\"")));
+
+    Verifiable size = assertThat(map(),
+        has("size", ElementDescriptorMap::size, equalTo(3)));
+
+    Verifiable put_replaces_value = assertThat(with(map(), m -> m.put(WebDav.Properties.DISPLAYNAME, "new")),
+        has("displayname", m -> m.get(WebDav.Properties.DISPLAYNAME), equalTo("new")));
+
+    Verifiable remove_keeps_order = assertThat(with(map(), m -> m.remove(WebDav.Properties.GETETAG)),
+        has("key at 1", m -> m.keyAt(1), equalTo(WebDav.Properties.GETCONTENTLANGUAGE)));
+
+    Verifiable contains_null_value = assertThat(map(),
+        has("contains getcontentlanguage", m -> m.containsKey(WebDav.Properties.GETCONTENTLANGUAGE), equalTo(true)));
+
+    Verifiable clear = assertThat(with(map(), ElementDescriptorMap::clear),
+        has("size", ElementDescriptorMap::size, equalTo(0)));
+
+
+    private static ElementDescriptorMap<Object> map()
+    {
+        ElementDescriptorMap<Object> map = new ElementDescriptorMap<>(2);
+        map.put(WebDav.Properties.DISPLAYNAME, "name");
+        map.put(WebDav.Properties.GETETAG, "\"etag\"");
+        map.put(WebDav.Properties.GETCONTENTLANGUAGE, null);
+        return map;
+    }
+
+
+    private static ElementDescriptorMap<Object> with(ElementDescriptorMap<Object> map, java.util.function.Consumer<ElementDescriptorMap<Object>> action)
+    {
+        action.accept(map);
+        return map;
+    }
+}
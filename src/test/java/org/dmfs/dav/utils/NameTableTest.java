@@ -0,0 +1,109 @@
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.rfc3744.WebDavAcl;
+import org.dmfs.dav.rfc4791.CalDav;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.dav.rfc6578.WebDavSync;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class NameTableTest
+{
+    private final static String ELEMENT = "<D:getetag>";
+
+    Verifiable descriptor = assertThat("getetag",
+        has("descriptor", name -> NameTable.descriptor(WebDav.NAMESPACE, name, 0, name.length()) == WebDav.Properties.GETETAG, equalTo(true)));
+
+    Verifiable descriptor_range = assertThat(ELEMENT,
+        has("descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG, equalTo(true)));
+
+    Verifiable descriptor_builder = assertThat(new StringBuilder(ELEMENT),
+        has("descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG, equalTo(true)));
+
+    Verifiable qualified_name = assertThat(ELEMENT,
+        has("interned name", element -> NameTable.qualifiedName(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG.qualifiedName,
+            equalTo(true)));
+
+    Verifiable other_namespace = assertThat("calendar-data",
+        has("descriptor", name -> NameTable.descriptor(CalDav.NAMESPACE, name, 0, name.length()) == CalDav.PROPERTY_CALENDAR_DATA, equalTo(true)));
+
+    Verifiable byte_range = assertThat(ascii(ELEMENT),
+        has("descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG, equalTo(true)));
+
+    Verifiable byte_range_qualified_name = assertThat(ascii(ELEMENT),
+        has("interned name", element -> NameTable.qualifiedName(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG.qualifiedName,
+            equalTo(true)));
+
+    // the indices are absolute, the position of the buffer doesn't matter
+    Verifiable byte_range_ignores_position = assertThat(ascii(ELEMENT),
+        has("descriptor", element -> {
+            element.position(5);
+            return NameTable.descriptor(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG;
+        }, equalTo(true)));
+
+    Verifiable byte_range_direct = assertThat(direct(ELEMENT),
+        has("descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 10) == WebDav.Properties.GETETAG, equalTo(true)));
+
+    // sync-collection is the report and the report type in a supported-report-set
+    Verifiable ambiguous_descriptor = assertThat("sync-collection",
+        has("no descriptor", name -> NameTable.descriptor(WebDav.NAMESPACE, name, 0, name.length()) == null, equalTo(true)));
+
+    Verifiable ambiguous_qualified_name = assertThat("sync-collection",
+        has("interned name", name -> NameTable.qualifiedName(WebDav.NAMESPACE, name, 0, name.length()) == WebDavSync.ReportTypes.SYNC_COLLECTION,
+            equalTo(true)));
+
+    Verifiable ambiguous_bytes = assertThat(ascii("all"),
+        has("no descriptor", name -> NameTable.descriptor(WebDav.NAMESPACE, name, 0, 3) == null, equalTo(true)));
+
+    Verifiable ambiguous_bytes_qualified_name = assertThat(ascii("all"),
+        has("interned name", name -> NameTable.qualifiedName(WebDav.NAMESPACE, name, 0, 3) == WebDavAcl.Privileges.ALL, equalTo(true)));
+
+    Verifiable unknown_descriptor = assertThat("no-such-element",
+        has("no descriptor", name -> NameTable.descriptor(WebDav.NAMESPACE, name, 0, name.length()) == null, equalTo(true)));
+
+    Verifiable unknown_qualified_name = assertThat("no-such-element",
+        has("no name", name -> NameTable.qualifiedName(WebDav.NAMESPACE, name, 0, name.length()) == null, equalTo(true)));
+
+    Verifiable unknown_bytes = assertThat(ascii("no-such-element"),
+        has("no name", name -> NameTable.qualifiedName(WebDav.NAMESPACE, name, 0, 15) == null, equalTo(true)));
+
+    Verifiable wrong_namespace = assertThat("getetag",
+        has("no descriptor", name -> NameTable.descriptor(CalDav.NAMESPACE, name, 0, name.length()) == null, equalTo(true)));
+
+    Verifiable no_namespace = assertThat("getetag",
+        has("no descriptor", name -> NameTable.descriptor("", name, 0, name.length()) == null, equalTo(true)));
+
+    Verifiable prefix = assertThat(ELEMENT,
+        has("no descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 9) == null, equalTo(true)));
+
+    Verifiable prefix_bytes = assertThat(ascii(ELEMENT),
+        has("no descriptor", element -> NameTable.descriptor(WebDav.NAMESPACE, element, 3, 9) == null, equalTo(true)));
+
+    Verifiable non_ascii_bytes = assertThat(ByteBuffer.wrap("getätag".getBytes(StandardCharsets.UTF_8)),
+        has("no name", name -> NameTable.qualifiedName(WebDav.NAMESPACE, name, 0, name.limit()) == null, equalTo(true)));
+
+
+    private static ByteBuffer ascii(String value)
+    {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+
+    private static ByteBuffer direct(String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer result = ByteBuffer.allocateDirect(bytes.length);
+        result.put(bytes);
+        result.flip();
+        return result;
+    }
+}
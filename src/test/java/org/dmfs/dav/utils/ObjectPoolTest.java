@@ -0,0 +1,279 @@
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.DavParserContext;
+import org.dmfs.dav.rfc4918.MultiStatus;
+import org.dmfs.dav.rfc4918.Response;
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.pull.XmlObjectPull;
+import org.dmfs.xmlobjects.pull.XmlPath;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+import org.saynotobugs.confidence.quality.object.Throwing;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+import static org.saynotobugs.confidence.quality.Core.throwing;
+
+
+@Confidence
+class ObjectPoolTest
+{
+    private final static ElementDescriptor<Map<ElementDescriptor<?>, Object>> MAP = WebDav.PROP;
+
+    private final static byte[] DOCUMENT = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<D:multistatus xmlns:D=\"DAV:\">"
+        + "<D:response><D:href>/c/1.ics</D:href><D:propstat><D:prop><D:getetag>\"1\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/2.ics</D:href><D:propstat><D:prop><D:getetag>\"2\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "<D:response><D:href>/c/3.ics</D:href><D:propstat><D:prop><D:getetag>\"3\"</D:getetag></D:prop>"
+        + "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>"
+        + "</D:multistatus>").getBytes(StandardCharsets.UTF_8);
+
+    private final static int THREADS = 8;
+    private final static int ROUNDS = 2000;
+
+    Verifiable capacity = assertThat(offered(new ObjectPool().setCapacity(MAP, 2), 3),
+        has("size", pool -> pool.size(MAP), equalTo(2)));
+
+    Verifiable capacity_drops = assertThat(offered(new ObjectPool().setCapacity(MAP, 2), 3),
+        has("drops", ObjectPool::drops, equalTo(1L)));
+
+    Verifiable default_capacity = assertThat(offered(new ObjectPool(1), 3),
+        has("size", pool -> pool.size(MAP), equalTo(1)));
+
+    Verifiable offer_full = assertThat(offered(new ObjectPool(1), 1),
+        has("offer", pool -> pool.offer(MAP, map()), equalTo(false)));
+
+    Verifiable offer_null = assertThat(new ObjectPool(),
+        has("offer", pool -> pool.offer(MAP, null), equalTo(false)));
+
+    Verifiable invalid_capacity = assertThat((Throwing.Breakable) () -> new ObjectPool(0), throwing(IllegalArgumentException.class));
+
+    Verifiable invalid_descriptor_capacity = assertThat((Throwing.Breakable) () -> new ObjectPool().setCapacity(MAP, 0),
+        throwing(IllegalArgumentException.class));
+
+    Verifiable miss = assertThat(new ObjectPool(),
+        has("misses", pool -> {
+            pool.poll(MAP);
+            return pool.misses();
+        }, equalTo(1L)));
+
+    Verifiable hit = assertThat(offered(new ObjectPool(), 1),
+        has("hits", pool -> {
+            pool.poll(MAP);
+            return pool.hits();
+        }, equalTo(1L)));
+
+    Verifiable hit_no_miss = assertThat(offered(new ObjectPool(), 1),
+        has("misses", pool -> {
+            pool.poll(MAP);
+            return pool.misses();
+        }, equalTo(0L)));
+
+    Verifiable cleared_on_offer = assertThat(offered(new ObjectPool(), 1),
+        has("size of pooled map", pool -> pool.poll(MAP).size(), equalTo(0)));
+
+    Verifiable recycled_on_offer = assertThat(new ObjectPool(),
+        has("hrefs of pooled response", pool -> {
+            pool.offer(WebDav.RESPONSE, new Response().setHRef(URI.create("/a")).setStatus(404));
+            return pool.poll(WebDav.RESPONSE).getStatus();
+        }, equalTo(Response.STATUS_NONE)));
+
+    Verifiable clear = assertThat(offered(new ObjectPool(), 3),
+        has("size", pool -> {
+            pool.clear();
+            return pool.size(MAP);
+        }, equalTo(0)));
+
+    Verifiable not_pooled = assertThat(new ObjectPool(),
+        has("pooled", pool -> pool.isPooled(MAP), equalTo(false)));
+
+    Verifiable pooled_after_poll = assertThat(new ObjectPool(),
+        has("pooled", pool -> {
+            pool.poll(MAP);
+            return pool.isPooled(MAP);
+        }, equalTo(true)));
+
+    // the pooled descriptors are state of each pool, using one pool doesn't make a context return objects to another pool
+    Verifiable pooled_per_pool = assertThat(new ObjectPool(),
+        has("responses", pool -> {
+            parse(new DavParserContext().setObjectPool(new ObjectPool()));
+            new DavParserContext().setObjectPool(pool).recycle(WebDav.RESPONSE, new Response());
+            return pool.size(WebDav.RESPONSE);
+        }, equalTo(0)));
+
+    Verifiable context_returns_pooled = assertThat(new ObjectPool(),
+        has("responses", pool -> {
+            parse(new DavParserContext().setObjectPool(pool));
+            new DavParserContext().setObjectPool(pool).recycle(WebDav.RESPONSE, new Response());
+            return pool.size(WebDav.RESPONSE);
+        }, equalTo(1)));
+
+    Verifiable responses_returned = assertThat(new ObjectPool(),
+        has("responses", pool -> {
+            DavParserContext context = new DavParserContext().setObjectPool(pool);
+            parse(context).recycle(context);
+            return pool.size(WebDav.RESPONSE);
+        }, equalTo(3)));
+
+    Verifiable responses_recycled = assertThat(new ObjectPool(),
+        has("multistatus", pool -> {
+            DavParserContext context = new DavParserContext().setObjectPool(pool);
+            MultiStatus multiStatus = parse(context);
+            multiStatus.recycle(context);
+            return multiStatus.getResponses() == null || multiStatus.getResponses().isEmpty();
+        }, equalTo(true)));
+
+    Verifiable values_kept = assertThat(new ObjectPool(),
+        has("etag", pool -> {
+            DavParserContext context = new DavParserContext().setObjectPool(pool);
+            MultiStatus multiStatus = parse(context);
+            String etag = multiStatus.getResponses().get(0).getPropertyValue(WebDav.Properties.GETETAG);
+            multiStatus.recycle(context);
+            return etag;
+        }, equalTo("\"1\"")));
+
+    // a response taken from the pool returns its propstats to the pool
+    Verifiable propstats_returned = assertThat(new ObjectPool(),
+        has("propstats", pool -> {
+            DavParserContext context = new DavParserContext().setObjectPool(pool);
+            parse(context).recycle(context);
+            int before = pool.size(WebDav.PROPSTAT);
+            Response.BUILDER.get(WebDav.RESPONSE, null, new DavParserContext().setObjectPool(pool));
+            return pool.size(WebDav.PROPSTAT) - before;
+        }, equalTo(1)));
+
+    Verifiable propstats_reused = assertThat(new ObjectPool(),
+        has("snapshot", pool -> {
+            DavParserContext context = new DavParserContext().setObjectPool(pool);
+            parse(context).recycle(context);
+            return snapshot(parse(new DavParserContext().setObjectPool(pool)));
+        }, equalTo(snapshot(parse(new DavParserContext())))));
+
+    Verifiable handler_reuses = assertThat(new ObjectPool(),
+        has("response hits", pool -> {
+            parse(new DavParserContext().setObjectPool(pool).setResponseHandler(response -> {
+                // drop all responses
+            }));
+            return pool.size(WebDav.RESPONSE);
+        }, equalTo(1)));
+
+    // every object that has been created (a miss) is either pooled or has been dropped
+    Verifiable concurrent_balance = assertThat(concurrent(new ObjectPool(4)),
+        has("misses - drops - size", pool -> pool.misses() - pool.drops() - pool.size(MAP), equalTo(0L)));
+
+    Verifiable concurrent_requests = assertThat(concurrent(new ObjectPool(4)),
+        has("hits + misses", pool -> pool.hits() + pool.misses(), equalTo((long) THREADS * ROUNDS)));
+
+    Verifiable concurrent_capacity = assertThat(concurrent(new ObjectPool(4)),
+        has("size within capacity", pool -> pool.size(MAP) <= 4, equalTo(true)));
+
+
+    private static ObjectPool offered(ObjectPool pool, int count)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            pool.offer(MAP, map());
+        }
+        return pool;
+    }
+
+
+    private static ElementDescriptorMap<Object> map()
+    {
+        ElementDescriptorMap<Object> map = new ElementDescriptorMap<Object>(2);
+        map.put(WebDav.Properties.GETETAG, "\"1\"");
+        return map;
+    }
+
+
+    private static MultiStatus parse(DavParserContext context)
+    {
+        try
+        {
+            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            XmlPullParser parser = factory.newPullParser();
+            parser.setInput(new ByteArrayInputStream(DOCUMENT), null);
+            return new XmlObjectPull(parser, context).pull(WebDav.MULTISTATUS, null, new XmlPath());
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    private static String snapshot(MultiStatus multiStatus)
+    {
+        List<String> result = new ArrayList<String>();
+        for (Response response : multiStatus.getResponses())
+        {
+            result.add(response.getHRef() + " " + response.getPropertyStatus(WebDav.Properties.GETETAG) + " "
+                + response.getPropertyValue(WebDav.Properties.GETETAG));
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * Takes and returns objects from many threads at once. Objects that are taken from the pool must always be empty.
+     */
+    private static ObjectPool concurrent(ObjectPool pool)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < THREADS; ++i)
+            {
+                results.add(executor.submit(() -> {
+                    boolean clean = true;
+                    for (int j = 0; j < ROUNDS; ++j)
+                    {
+                        Map<ElementDescriptor<?>, Object> map = pool.poll(MAP);
+                        if (map == null)
+                        {
+                            map = new ElementDescriptorMap<Object>(2);
+                        }
+                        clean &= map.isEmpty();
+                        map.put(WebDav.Properties.GETETAG, Integer.toString(j));
+                        pool.offer(MAP, map);
+                    }
+                    return clean;
+                }));
+            }
+            for (Future<Boolean> result : results)
+            {
+                if (!result.get())
+                {
+                    throw new AssertionError("Got a pooled object that has not been cleared");
+                }
+            }
+            return pool;
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
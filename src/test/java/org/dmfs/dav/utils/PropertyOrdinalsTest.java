@@ -0,0 +1,54 @@
+package org.dmfs.dav.utils;
+
+import org.dmfs.dav.rfc4918.WebDav;
+import org.dmfs.xmlobjects.ElementDescriptor;
+import org.dmfs.xmlobjects.QualifiedName;
+import org.dmfs.xmlobjects.builder.StringObjectBuilder;
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class PropertyOrdinalsTest
+{
+    private final static ElementDescriptor<String> UNKNOWN = ElementDescriptor.register(QualifiedName.get("urn:test:ordinals", "unknown"),
+        StringObjectBuilder.INSTANCE);
+
+    private final static ElementDescriptor<String> OBTAINED = ElementDescriptor.register(QualifiedName.get("urn:test:ordinals", "obtained"),
+        StringObjectBuilder.INSTANCE);
+
+    private final static ElementDescriptor<String> REGISTERED = ElementDescriptor.register(QualifiedName.get("urn:test:ordinals", "registered"),
+        StringObjectBuilder.INSTANCE);
+
+    Verifiable library_property = assertThat(WebDav.Properties.GETETAG,
+        has("registered", descriptor -> PropertyOrdinals.ordinal(descriptor) >= 0, equalTo(true)));
+
+    Verifiable descriptor = assertThat(WebDav.Properties.GETETAG,
+        has("descriptor", descriptor -> PropertyOrdinals.descriptor(PropertyOrdinals.ordinal(descriptor)), equalTo(WebDav.Properties.GETETAG)));
+
+    Verifiable distinct = assertThat(WebDav.Properties.GETETAG,
+        has("same ordinal as displayname",
+            descriptor -> PropertyOrdinals.ordinal(descriptor) == PropertyOrdinals.ordinal(WebDav.Properties.DISPLAYNAME), equalTo(false)));
+
+    Verifiable unknown = assertThat(UNKNOWN,
+        has("ordinal", PropertyOrdinals::ordinal, equalTo(PropertyOrdinals.NONE)));
+
+    Verifiable obtain_stable = assertThat(OBTAINED,
+        has("ordinal", PropertyOrdinals::obtain, equalTo(PropertyOrdinals.obtain(OBTAINED))));
+
+    Verifiable obtain_resolves = assertThat(OBTAINED,
+        has("descriptor", descriptor -> PropertyOrdinals.descriptor(PropertyOrdinals.obtain(descriptor)), equalTo(OBTAINED)));
+
+    Verifiable obtain_in_range = assertThat(OBTAINED,
+        has("in range", descriptor -> PropertyOrdinals.obtain(descriptor) < PropertyOrdinals.count(), equalTo(true)));
+
+    Verifiable register = assertThat(REGISTERED,
+        has("ordinal after registration", descriptor -> {
+            PropertyOrdinals.register(descriptor, descriptor);
+            return PropertyOrdinals.ordinal(descriptor) == PropertyOrdinals.obtain(descriptor);
+        }, equalTo(true)));
+}
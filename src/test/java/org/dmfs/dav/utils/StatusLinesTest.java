@@ -0,0 +1,47 @@
+package org.dmfs.dav.utils;
+
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class StatusLinesTest
+{
+
+    Verifiable status_line = assertThat("HTTP/1.1 207 Multi-Status",
+        has("status code", StatusLines::statusCode, equalTo(207)));
+
+    Verifiable padded_status_line = assertThat("\n   HTTP/1.1 404 Not Found \n",
+        has("status code", StatusLines::statusCode, equalTo(404)));
+
+    Verifiable without_version = assertThat("200 OK",
+        has("status code", StatusLines::statusCode, equalTo(200)));
+
+    Verifiable code_only = assertThat("HTTP/1.1 403",
+        has("status code", StatusLines::statusCode, equalTo(403)));
+
+    Verifiable too_many_digits = assertThat("HTTP/1.1 2000 OK",
+        has("status code", StatusLines::statusCode, equalTo(StatusLines.INVALID)));
+
+    Verifiable not_a_number = assertThat("HTTP/1.1 OK",
+        has("status code", StatusLines::statusCode, equalTo(StatusLines.INVALID)));
+
+    Verifiable empty = assertThat("  ",
+        has("status code", StatusLines::statusCode, equalTo(StatusLines.INVALID)));
+
+    Verifiable serialized = assertThat(200,
+        has("status line", StatusLines::statusLine, equalTo("HTTP/1.1 200 OK")));
+
+    Verifiable serialized_webdav = assertThat(507,
+        has("status line", StatusLines::statusLine, equalTo("HTTP/1.1 507 Insufficient Storage")));
+
+    Verifiable serialized_unknown = assertThat(299,
+        has("status line", StatusLines::statusLine, equalTo("HTTP/1.1 299 Unknown")));
+
+    Verifiable cached = assertThat(StatusLines.statusLine(404),
+        has("same instance", line -> line == StatusLines.statusLine(404), equalTo(true)));
+}
@@ -0,0 +1,49 @@
+package org.dmfs.dav.utils;
+
+import org.saynotobugs.confidence.junit5.engine.Confidence;
+import org.saynotobugs.confidence.junit5.engine.Verifiable;
+
+import static org.saynotobugs.confidence.junit5.engine.ConfidenceEngine.assertThat;
+import static org.saynotobugs.confidence.quality.Core.equalTo;
+import static org.saynotobugs.confidence.quality.Core.has;
+
+
+@Confidence
+class TextMatcherTest
+{
+    Verifiable contains = assertThat(new TextMatcher("needle", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("a haystack with a NeEdLe in it"), equalTo(true)));
+
+    Verifiable contains_index = assertThat(new TextMatcher("abab", TextMatcher.COLLATION_I_OCTET, TextMatcher.MATCH_CONTAINS, false),
+        has("indexOf", matcher -> matcher.indexOf("aababcababab"), equalTo(5)));
+
+    Verifiable contains_mismatch = assertThat(new TextMatcher("needle", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("needl needle-less"), equalTo(true)));
+
+    Verifiable contains_not = assertThat(new TextMatcher("needle", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("just hay"), equalTo(false)));
+
+    Verifiable octet = assertThat(new TextMatcher("Needle", TextMatcher.COLLATION_I_OCTET, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("a needle"), equalTo(false)));
+
+    Verifiable ascii_casemap_non_ascii = assertThat(new TextMatcher("MÜLLER", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("Jürgen Müller"), equalTo(false)));
+
+    Verifiable unicode_casemap = assertThat(new TextMatcher("MÜLLER", TextMatcher.COLLATION_I_UNICODE_CASEMAP, TextMatcher.MATCH_CONTAINS, false),
+        has("matches", matcher -> matcher.matches("Jürgen Müller"), equalTo(true)));
+
+    Verifiable equals = assertThat(new TextMatcher("abc", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_EQUALS, false),
+        has("matches", matcher -> matcher.matches("ABC"), equalTo(true)));
+
+    Verifiable starts_with = assertThat(new TextMatcher("abc", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_STARTS_WITH, false),
+        has("matches", matcher -> matcher.matches("xabc"), equalTo(false)));
+
+    Verifiable ends_with = assertThat(new TextMatcher("abc", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_ENDS_WITH, false),
+        has("matches", matcher -> matcher.matches("xABC"), equalTo(true)));
+
+    Verifiable negated = assertThat(new TextMatcher("abc", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, true),
+        has("matches", matcher -> matcher.matches("xyz"), equalTo(true)));
+
+    Verifiable negated_null = assertThat(new TextMatcher("abc", TextMatcher.COLLATION_I_ASCII_CASEMAP, TextMatcher.MATCH_CONTAINS, true),
+        has("matches", matcher -> matcher.matches(null), equalTo(false)));
+}